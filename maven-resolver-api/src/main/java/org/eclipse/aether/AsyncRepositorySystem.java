@@ -0,0 +1,61 @@
+package org.eclipse.aether;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionListener;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+/**
+ * An optional capability of a {@link RepositorySystem} to resolve artifacts in the background. Clients should check
+ * whether the repository system at hand implements this interface and otherwise fall back to
+ * {@link RepositorySystem#resolveArtifacts(RepositorySystemSession, Collection)}.
+ * 
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ */
+public interface AsyncRepositorySystem
+{
+
+    /**
+     * Resolves the paths for a collection of artifacts in the background. Artifacts will be downloaded to the local
+     * repository if necessary. Unlike {@link RepositorySystem#resolveArtifacts(RepositorySystemSession, Collection)},
+     * this method returns immediately and the result of each artifact becomes available as soon as that artifact has
+     * been resolved, regardless of the progress of the other artifacts. A failed resolution is not signaled by an
+     * exception but by a result whose {@link ArtifactResult#isResolved()} yields {@code false}. Note that this method
+     * assumes that any relocations have already been processed.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @param requests The resolution requests, must not be {@code null}.
+     * @param listener The listener to notify of each finished artifact, may be {@code null}. The listener is invoked
+     *            from a background thread.
+     * @return The pending resolution results (in request order), never {@code null}. Cancelling a future does not
+     *         abort the resolution of its artifact.
+     * @see RepositorySystem#resolveArtifacts(RepositorySystemSession, Collection)
+     */
+    List<Future<ArtifactResult>> resolveArtifactsAsync( RepositorySystemSession session,
+                                                         Collection<? extends ArtifactRequest> requests,
+                                                         ArtifactResolutionListener listener );
+
+}
@@ -71,6 +71,12 @@ public final class AuthenticationContext
      */
     public static final String PASSWORD = "password";
 
+    /**
+     * The key used to store an access token for bearer token authentication, e.g. via the HTTP {@code Authorization:
+     * Bearer} header. The corresponding authentication data should be of type {@code char[]} or {@link String}.
+     */
+    public static final String BEARER_TOKEN = "bearer.token";
+
     /**
      * The key used to store the NTLM domain. The corresponding authentication data should be of type {@link String}.
      */
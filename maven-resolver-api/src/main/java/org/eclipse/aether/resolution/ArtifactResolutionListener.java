@@ -0,0 +1,49 @@
+package org.eclipse.aether.resolution;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+
+import org.eclipse.aether.AsyncRepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * A listener being notified of the outcome of individual artifacts while a resolution of several artifacts is still in
+ * progress. This allows clients to start processing the artifacts that are already available instead of waiting for
+ * the resolution of the entire batch to finish.
+ * 
+ * @see AsyncRepositorySystem#resolveArtifactsAsync(RepositorySystemSession, Collection, ArtifactResolutionListener)
+ * @see DependencyRequest#setArtifactResolutionListener(ArtifactResolutionListener)
+ */
+public interface ArtifactResolutionListener
+{
+
+    /**
+     * Notifies the listener that the resolution of an artifact has finished. A successful resolution is reported as
+     * soon as the artifact has been located or downloaded, a failed resolution is only reported once all repositories
+     * have been tried. The listener is notified exactly once per artifact request but might be invoked from a thread
+     * other than the one that issued the resolution.
+     * 
+     * @param result The final resolution result, never {@code null}. Use {@link ArtifactResult#isResolved()} to tell
+     *            success from failure.
+     */
+    void artifactResolved( ArtifactResult result );
+
+}
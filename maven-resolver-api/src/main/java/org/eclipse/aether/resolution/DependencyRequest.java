@@ -45,6 +45,8 @@ public final class DependencyRequest
 
     private RequestTrace trace;
 
+    private ArtifactResolutionListener artifactResolutionListener;
+
     /**
      * Creates an uninitialized request. Note that either {@link #setRoot(DependencyNode)} or
      * {@link #setCollectRequest(CollectRequest)} must eventually be called to create a valid request.
@@ -174,6 +176,29 @@ public final class DependencyRequest
         return this;
     }
 
+    /**
+     * Gets the listener to notify as individual artifacts of the dependency graph have been resolved.
+     * 
+     * @return The artifact resolution listener or {@code null} if none.
+     */
+    public ArtifactResolutionListener getArtifactResolutionListener()
+    {
+        return artifactResolutionListener;
+    }
+
+    /**
+     * Sets the listener to notify as individual artifacts of the dependency graph have been resolved. This allows to
+     * process already resolved artifacts while the resolution of the remaining artifacts is still in progress.
+     * 
+     * @param artifactResolutionListener The artifact resolution listener, may be {@code null}.
+     * @return This request for chaining, never {@code null}.
+     */
+    public DependencyRequest setArtifactResolutionListener( ArtifactResolutionListener artifactResolutionListener )
+    {
+        this.artifactResolutionListener = artifactResolutionListener;
+        return this;
+    }
+
     @Override
     public String toString()
     {
@@ -21,7 +21,11 @@ package org.eclipse.aether.connector.basic;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketException;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -29,10 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.eclipse.aether.ConfigurationProperties;
 import org.eclipse.aether.RepositorySystemSession;
@@ -58,12 +59,14 @@ import org.eclipse.aether.transfer.ChecksumFailureException;
 import org.eclipse.aether.transfer.NoRepositoryConnectorException;
 import org.eclipse.aether.transfer.NoRepositoryLayoutException;
 import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transfer.TransferCancelledException;
 import org.eclipse.aether.transfer.TransferEvent;
 import org.eclipse.aether.transfer.TransferResource;
 import org.eclipse.aether.util.ChecksumUtils;
 import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.concurrency.AdaptiveLimit;
 import org.eclipse.aether.util.concurrency.RunnableErrorForwarder;
-import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
+import org.eclipse.aether.util.concurrency.TransferScheduler;
 
 /**
  */
@@ -79,6 +82,22 @@ final class BasicRepositoryConnector
 
     private static final String CONFIG_PROP_SMART_CHECKSUMS = "aether.connector.smartChecksums";
 
+    private static final String CONFIG_PROP_PREFETCH_CHECKSUMS = "aether.connector.basic.prefetchChecksums";
+
+    private static final String CONFIG_PROP_PREALLOCATE = "aether.connector.basic.preallocate";
+
+    private static final String CONFIG_PROP_CONDITIONAL_METADATA = "aether.connector.basic.conditionalMetadata";
+
+    private static final String CONFIG_PROP_RETRIES = "aether.connector.basic.retries";
+
+    private static final String CONFIG_PROP_RETRY_DELAY = "aether.connector.basic.retryDelay";
+
+    private static final String CONFIG_PROP_RETRY_MAX_DELAY = "aether.connector.basic.retryMaxDelay";
+
+    private static final String CONFIG_PROP_BREAKER_THRESHOLD = "aether.connector.basic.circuitBreaker.threshold";
+
+    private static final String CONFIG_PROP_BREAKER_COOL_DOWN = "aether.connector.basic.circuitBreaker.coolDown";
+
     private final Logger logger;
 
     private final FileProcessor fileProcessor;
@@ -95,12 +114,38 @@ final class BasicRepositoryConnector
 
     private final PartialFile.Factory partialFileFactory;
 
+    private final DownloadScheduler.Sizes downloadSizes;
+
     private final int maxThreads;
 
     private final boolean smartChecksums;
 
     private final boolean persistedChecksums;
 
+    private final boolean prefetchChecksums;
+
+    private volatile boolean inlinedChecksums;
+
+    private final boolean preallocate;
+
+    private final boolean conditionalMetadata;
+
+    private final int downloadChunks;
+
+    private final long downloadChunkSize;
+
+    private final long downloadChunkThreshold;
+
+    private final AdaptiveLimit adaptiveLimit;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final int retries;
+
+    private final long retryDelay;
+
+    private final long retryMaxDelay;
+
     private Executor executor;
 
     private boolean closed;
@@ -149,27 +194,99 @@ final class BasicRepositoryConnector
             ConfigUtils.getInteger( session, ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
                                     ConfigurationProperties.REQUEST_TIMEOUT + '.' + repository.getId(),
                                     ConfigurationProperties.REQUEST_TIMEOUT );
+        prefetchChecksums =
+            ConfigUtils.getBoolean( session, false, CONFIG_PROP_PREFETCH_CHECKSUMS + '.' + repository.getId(),
+                                    CONFIG_PROP_PREFETCH_CHECKSUMS );
+        preallocate =
+            ConfigUtils.getBoolean( session, false, CONFIG_PROP_PREALLOCATE + '.' + repository.getId(),
+                                    CONFIG_PROP_PREALLOCATE );
+        conditionalMetadata =
+            ConfigUtils.getBoolean( session, true, CONFIG_PROP_CONDITIONAL_METADATA + '.' + repository.getId(),
+                                    CONFIG_PROP_CONDITIONAL_METADATA );
+        downloadChunks =
+            ConfigUtils.getInteger( session, 1, ChunkedDownload.CONFIG_PROP_CHUNKS + '.' + repository.getId(),
+                                    ChunkedDownload.CONFIG_PROP_CHUNKS );
+        downloadChunkSize =
+            Math.max( 1L, ConfigUtils.getLong( session, 4L * 1024L * 1024L, ChunkedDownload.CONFIG_PROP_CHUNK_SIZE + '.'
+                + repository.getId(), ChunkedDownload.CONFIG_PROP_CHUNK_SIZE ) );
+        downloadChunkThreshold =
+            ConfigUtils.getLong( session, 2L * downloadChunkSize, ChunkedDownload.CONFIG_PROP_CHUNK_THRESHOLD + '.'
+                + repository.getId(), ChunkedDownload.CONFIG_PROP_CHUNK_THRESHOLD );
         partialFileFactory = new PartialFile.Factory( resumeDownloads, resumeThreshold, requestTimeout, logger );
+        downloadSizes = DownloadScheduler.getSizes( session );
+        adaptiveLimit = TransferScheduler.getInstance( session ).getAdaptiveLimit( repository );
+
+        String repoId = '.' + repository.getId();
+        retries = ConfigUtils.getInteger( session, 0, CONFIG_PROP_RETRIES + repoId, CONFIG_PROP_RETRIES );
+        retryDelay = ConfigUtils.getLong( session, 250L, CONFIG_PROP_RETRY_DELAY + repoId, CONFIG_PROP_RETRY_DELAY );
+        retryMaxDelay =
+            ConfigUtils.getLong( session, 5000L, CONFIG_PROP_RETRY_MAX_DELAY + repoId, CONFIG_PROP_RETRY_MAX_DELAY );
+        int breakerThreshold =
+            ConfigUtils.getInteger( session, 0, CONFIG_PROP_BREAKER_THRESHOLD + repoId, CONFIG_PROP_BREAKER_THRESHOLD );
+        long breakerCoolDown =
+            ConfigUtils.getLong( session, 30L * 1000L, CONFIG_PROP_BREAKER_COOL_DOWN + repoId,
+                                 CONFIG_PROP_BREAKER_COOL_DOWN );
+        circuitBreaker = CircuitBreaker.getInstance( session, repository, breakerThreshold, breakerCoolDown );
     }
 
-    private Executor getExecutor( Collection<?> artifacts, Collection<?> metadatas )
+    /**
+     * Determines whether the specified error indicates a network problem that might not persist, like a timeout or a
+     * reset connection. A refused connection or an unknown host is not considered transient, retrying those would only
+     * delay the inevitable failure, e.g. when working offline.
+     */
+    static boolean isTransient( Throwable error )
     {
-        if ( maxThreads <= 1 )
+        if ( Thread.currentThread().isInterrupted() )
         {
-            return DirectExecutor.INSTANCE;
+            return false;
         }
+        for ( Throwable cause = error; cause != null; cause = ( cause.getCause() != cause ) ? cause.getCause() : null )
+        {
+            if ( cause instanceof ConnectException || cause instanceof UnknownHostException )
+            {
+                return false;
+            }
+            if ( cause instanceof InterruptedIOException || cause instanceof SocketException )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the delay before the next attempt of a transfer, growing exponentially with the number of failed attempts.
+     * Half of the delay is randomized to keep concurrent transfers from retrying in lockstep.
+     */
+    static long getRetryDelay( int attempt, long retryDelay, long retryMaxDelay )
+    {
+        long delay = Math.min( retryMaxDelay, retryDelay << Math.min( attempt, 20 ) );
+        if ( delay <= 1L )
+        {
+            return Math.max( delay, 0L );
+        }
+        return delay / 2L + ThreadLocalRandom.current().nextLong( delay / 2L + 1L );
+    }
+
+    private Executor getExecutor( Collection<?> artifacts, Collection<?> metadatas )
+    {
         int tasks = safe( artifacts ).size() + safe( metadatas ).size();
         if ( tasks <= 1 )
         {
             return DirectExecutor.INSTANCE;
         }
+        return getExecutor();
+    }
+
+    private Executor getExecutor()
+    {
+        if ( maxThreads <= 1 )
+        {
+            return DirectExecutor.INSTANCE;
+        }
         if ( executor == null )
         {
-            executor =
-                new ThreadPoolExecutor( maxThreads, maxThreads, 3L, TimeUnit.SECONDS,
-                                        new LinkedBlockingQueue<Runnable>(),
-                                        new WorkerThreadFactory( getClass().getSimpleName() + '-'
-                                            + repository.getHost() + '-' ) );
+            executor = TransferScheduler.getInstance( session ).newExecutor( repository, maxThreads );
         }
         return executor;
     }
@@ -193,10 +310,6 @@ final class BasicRepositoryConnector
         if ( !closed )
         {
             closed = true;
-            if ( executor instanceof ExecutorService )
-            {
-                ( (ExecutorService) executor ).shutdown();
-            }
             transporter.close();
         }
     }
@@ -211,6 +324,7 @@ final class BasicRepositoryConnector
 
         Executor executor = getExecutor( artifactDownloads, metadataDownloads );
         RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+        DownloadScheduler scheduler = new DownloadScheduler( session, maxThreads );
 
         for ( MetadataDownload transfer : safe( metadataDownloads ) )
         {
@@ -227,8 +341,9 @@ final class BasicRepositoryConnector
                 checksums = layout.getChecksums( transfer.getMetadata(), false, location );
             }
 
-            Runnable task = new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, listener );
-            executor.execute( errorForwarder.wrap( task ) );
+            Runnable task = new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, listener,
+                                               conditionalMetadata );
+            scheduler.add( errorForwarder.wrap( task ), location, transfer.getFile(), false );
         }
 
         for ( ArtifactDownload transfer : safe( artifactDownloads ) )
@@ -253,11 +368,12 @@ final class BasicRepositoryConnector
                     checksums = layout.getChecksums( transfer.getArtifact(), false, location );
                 }
 
-                task = new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, listener );
+                task = new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, listener, false );
             }
-            executor.execute( errorForwarder.wrap( task ) );
+            scheduler.add( errorForwarder.wrap( task ), location, transfer.getFile(), transfer.isExistenceCheck() );
         }
 
+        scheduler.submit( executor );
         errorForwarder.await();
     }
 
@@ -353,18 +469,106 @@ final class BasicRepositoryConnector
 
         public void run()
         {
+            long token = ( adaptiveLimit != null ) ? adaptiveLimit.started() : 0L;
+            long start = System.nanoTime();
             try
             {
                 listener.transferInitiated();
-                runTask();
+                runAttempts();
                 listener.transferSucceeded();
+                if ( adaptiveLimit != null )
+                {
+                    adaptiveLimit.succeeded( token, getLatency( start ) );
+                }
             }
             catch ( Exception e )
             {
-                listener.transferFailed( e, transporter.classify( e ) );
+                int classification = transporter.classify( e );
+                listener.transferFailed( e, classification );
+                if ( adaptiveLimit != null )
+                {
+                    if ( classification == Transporter.ERROR_NOT_FOUND )
+                    {
+                        adaptiveLimit.succeeded( token, getLatency( start ) );
+                    }
+                    else if ( !( e instanceof RuntimeException || e instanceof ChecksumFailureException
+                        || e instanceof TransferCancelledException ) )
+                    {
+                        adaptiveLimit.failed( token );
+                    }
+                }
             }
         }
 
+        private void runAttempts()
+            throws Exception
+        {
+            for ( int attempt = 0;; attempt++ )
+            {
+                if ( circuitBreaker != null )
+                {
+                    circuitBreaker.acquire();
+                }
+                try
+                {
+                    runTask();
+                    if ( circuitBreaker != null )
+                    {
+                        circuitBreaker.succeeded();
+                    }
+                    return;
+                }
+                catch ( Exception e )
+                {
+                    boolean transientError = isTransient( e );
+                    if ( circuitBreaker != null )
+                    {
+                        if ( transientError )
+                        {
+                            circuitBreaker.failed();
+                        }
+                        else if ( transporter.classify( e ) == Transporter.ERROR_NOT_FOUND )
+                        {
+                            circuitBreaker.succeeded();
+                        }
+                        else
+                        {
+                            circuitBreaker.released();
+                        }
+                    }
+                    if ( !transientError || attempt >= retries
+                        || ( circuitBreaker != null && circuitBreaker.isOpen() ) )
+                    {
+                        throw e;
+                    }
+                    long delay = getRetryDelay( attempt, retryDelay, retryMaxDelay );
+                    logger.debug( "Transfer of " + path + " from " + repository.getUrl() + " failed, retrying in "
+                        + delay + " ms: " + e );
+                    try
+                    {
+                        Thread.sleep( delay );
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the time the remote repository took to respond to the request of this task.
+         * 
+         * @param start The value of {@link System#nanoTime()} when this task started.
+         * @return The latency in nanoseconds or {@code 0} if unknown.
+         */
+        protected long getLatency( long start )
+        {
+            long end = listener.getStartTime();
+            return ( ( end - start > 0L ) ? end : System.nanoTime() ) - start;
+        }
+
         protected abstract void runTask()
             throws Exception;
 
@@ -396,11 +600,15 @@ final class BasicRepositoryConnector
 
         private final ChecksumValidator checksumValidator;
 
+        private final boolean conditional;
+
         public GetTaskRunner( URI path, File file, ChecksumPolicy checksumPolicy,
-                              List<RepositoryLayout.Checksum> checksums, TransferTransportListener<?> listener )
+                              List<RepositoryLayout.Checksum> checksums, TransferTransportListener<?> listener,
+                              boolean conditional )
         {
             super( path, listener );
             this.file = file;
+            this.conditional = conditional;
             checksumValidator =
                 new ChecksumValidator( logger, file, fileProcessor, this, checksumPolicy, safe( checksums ) );
         }
@@ -436,6 +644,88 @@ final class BasicRepositoryConnector
             {
                 throw new IllegalArgumentException( "destination file has not been specified" );
             }
+
+            DownloadFlight flight = new DownloadFlight( file, repository.getUrl(), path );
+            DownloadFlight concurrent = flight.takeOff();
+            if ( concurrent != null )
+            {
+                logger.debug( "Concurrent download of " + file + " in progress, awaiting completion" );
+                concurrent.await();
+                if ( !concurrent.isFailed() )
+                {
+                    ChecksumFailureException e = concurrent.getChecksumFailure();
+                    if ( e != null )
+                    {
+                        if ( !checksumValidator.handle( e ) )
+                        {
+                            throw e;
+                        }
+                        listener.transferCorrupted( e );
+                    }
+                    else if ( checksumValidator.isEnabled() && !concurrent.isChecksumsValidated() )
+                    {
+                        verify( flight );
+                    }
+                    return;
+                }
+                logger.debug( "Concurrent download of " + file + " failed, downloading on our own" );
+                download( flight );
+                return;
+            }
+
+            try
+            {
+                download( flight );
+            }
+            catch ( Exception e )
+            {
+                flight.setFailed();
+                throw e;
+            }
+            finally
+            {
+                flight.land();
+            }
+        }
+
+        /**
+         * Validates the checksums of a file that was downloaded by a concurrent connector which did not check them,
+         * downloading the file once more if it does not pass.
+         */
+        private void verify( DownloadFlight flight )
+            throws Exception
+        {
+            Map<String, ?> actualChecksums = Collections.emptyMap();
+            ChecksumCalculator checksumCalculator = checksumValidator.newChecksumCalculator( file );
+            if ( checksumCalculator != null )
+            {
+                checksumCalculator.init( file.length() );
+                actualChecksums = checksumCalculator.get();
+            }
+            try
+            {
+                checksumValidator.validate( actualChecksums, null );
+                if ( persistedChecksums )
+                {
+                    checksumValidator.commit();
+                }
+            }
+            catch ( ChecksumFailureException e )
+            {
+                logger.debug( "Concurrent download of " + file + " failed checksum validation, downloading on our own: "
+                    + e.getMessage() );
+                checksumValidator.retry();
+                download( flight );
+            }
+            finally
+            {
+                checksumValidator.close();
+            }
+        }
+
+        private void download( DownloadFlight flight )
+            throws Exception
+        {
             fileProcessor.mkdirs( file.getParentFile() );
 
             PartialFile partFile = partialFileFactory.newInstance( file, this );
@@ -445,19 +735,74 @@ final class BasicRepositoryConnector
                 return;
             }
 
+            File tmp = partFile.getFile();
+            CachedValidators cachedValidators =
+                conditional ? new CachedValidators( file, repository.getUrl(), fileProcessor, logger ) : null;
+            Map<String, String> cached = Collections.emptyMap();
+            if ( cachedValidators != null && !( partFile.isResume() && tmp.length() > 0L ) )
+            {
+                cached = cachedValidators.load();
+            }
+            ChecksumCalculator checksumCalculator = checksumValidator.newChecksumCalculator( tmp );
+            listener.setChecksumCalculator( checksumCalculator );
+            listener.setPartialFile( preallocate ? partFile : null );
+            if ( prefetchChecksums && !inlinedChecksums && cached.isEmpty() )
+            {
+                checksumValidator.prefetch( getExecutor() );
+            }
             try
             {
-                File tmp = partFile.getFile();
-                listener.setChecksumCalculator( checksumValidator.newChecksumCalculator( tmp ) );
+                Map<String, String> validators = Collections.emptyMap();
                 for ( int firstTrial = 0, lastTrial = 1, trial = firstTrial;; trial++ )
                 {
                     boolean resume = partFile.isResume() && trial <= firstTrial;
-                    GetTask task = new GetTask( path ).setDataFile( tmp, resume ).setListener( listener );
-                    transporter.get( task );
+                    Map<String, String> remoteChecksums;
+                    if ( !resume && cached.isEmpty() && isChunked() )
+                    {
+                        ChunkedDownload download =
+                            new ChunkedDownload( transporter, path, partFile, listener, checksumCalculator,
+                                                 getExecutor(), downloadChunks, downloadChunkSize );
+                        remoteChecksums = download.download();
+                    }
+                    else
+                    {
+                        GetTask task = new GetTask( path ).setDataFile( tmp, resume ).setListener( listener );
+                        task.setCachedValidators( cached );
+                        try
+                        {
+                            transporter.get( task );
+                        }
+                        catch ( TransferCancelledException e )
+                        {
+                            if ( listener.getPreallocationFailure() != null )
+                            {
+                                throw listener.getPreallocationFailure();
+                            }
+                            throw e;
+                        }
+                        if ( task.isNotModified() )
+                        {
+                            logger.debug( "Remote " + path + " has not been modified, keeping " + file );
+                            return;
+                        }
+                        remoteChecksums = task.getChecksums();
+                        validators = task.getValidators();
+                    }
+                    if ( partFile.isPreallocated() )
+                    {
+                        partFile.truncate( listener.getTransferredBytes() );
+                    }
+                    if ( smartChecksums && !remoteChecksums.isEmpty() )
+                    {
+                        inlinedChecksums = true;
+                    }
                     try
                     {
-                        checksumValidator.validate( listener.getChecksums(), smartChecksums ? task.getChecksums()
-                                        : null );
+                        checksumValidator.validate( listener.getChecksums(), smartChecksums ? remoteChecksums : null );
+                        if ( checksumValidator.isEnabled() )
+                        {
+                            flight.setChecksumsValidated();
+                        }
                         break;
                     }
                     catch ( ChecksumFailureException e )
@@ -471,19 +816,45 @@ final class BasicRepositoryConnector
                         if ( retry )
                         {
                             checksumValidator.retry();
+                            cached = Collections.emptyMap();
                         }
                         else
                         {
+                            flight.setChecksumFailure( e );
                             break;
                         }
                     }
                 }
                 fileProcessor.move( tmp, file );
+                downloadSizes.record( path, file.length() );
+                if ( cachedValidators != null )
+                {
+                    cachedValidators.store( validators );
+                }
                 if ( persistedChecksums )
                 {
                     checksumValidator.commit();
                 }
             }
+            catch ( Exception e )
+            {
+                if ( partFile.isPreallocated() )
+                {
+                    try
+                    {
+                        partFile.truncate( listener.getTransferredBytes() );
+                    }
+                    catch ( IOException ex )
+                    {
+                        logger.debug( "Could not truncate preallocated file " + tmp + ": " + ex );
+                    }
+                }
+                if ( checksumCalculator != null && partFile.isResume() )
+                {
+                    checksumCalculator.suspend();
+                }
+                throw e;
+            }
             finally
             {
                 partFile.close();
@@ -491,6 +862,16 @@ final class BasicRepositoryConnector
             }
         }
 
+        /**
+         * Tells whether the resource is expected to be large enough to be downloaded in several ranges, judging from
+         * the sizes observed for it or similar resources earlier in the session. Small resources are fetched with a
+         * single request, as splitting them would only add round trips.
+         */
+        private boolean isChunked()
+        {
+            return downloadChunks > 1 && downloadSizes.estimate( path, file ) >= downloadChunkThreshold;
+        }
+
     }
 
     class PutTaskRunner
@@ -516,11 +897,20 @@ final class BasicRepositoryConnector
             {
                 throw new IllegalArgumentException( "source file has not been specified" );
             }
+            ChecksumCalculator checksumCalculator = ChecksumCalculator.newInstance( file, checksums );
+            listener.setChecksumCalculator( checksumCalculator );
             transporter.put( new PutTask( path ).setDataFile( file ).setListener( listener ) );
-            uploadChecksums( file, path );
+            uploadChecksums( file, checksumCalculator );
         }
 
-        private void uploadChecksums( File file, URI location )
+        @Override
+        protected long getLatency( long start )
+        {
+            // the transport of uploads starts before the repository responds
+            return 0L;
+        }
+
+        private void uploadChecksums( File file, ChecksumCalculator checksumCalculator )
         {
             if ( checksums.isEmpty() )
             {
@@ -528,16 +918,35 @@ final class BasicRepositoryConnector
             }
             try
             {
-                Set<String> algos = new HashSet<String>();
-                for ( RepositoryLayout.Checksum checksum : checksums )
+                Map<String, Object> sumsByAlgo;
+                if ( checksumCalculator != null && checksumCalculator.getDataLength() == file.length() )
                 {
-                    algos.add( checksum.getAlgorithm() );
+                    sumsByAlgo = checksumCalculator.get();
                 }
-                Map<String, Object> sumsByAlgo = ChecksumUtils.calc( file, algos );
+                else
+                {
+                    Set<String> algos = new HashSet<String>();
+                    for ( RepositoryLayout.Checksum checksum : checksums )
+                    {
+                        algos.add( checksum.getAlgorithm() );
+                    }
+                    sumsByAlgo = ChecksumUtils.calc( file, algos );
+                }
+                Executor executor = getExecutor();
+                RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
                 for ( RepositoryLayout.Checksum checksum : checksums )
                 {
-                    uploadChecksum( checksum.getLocation(), sumsByAlgo.get( checksum.getAlgorithm() ) );
+                    final URI location = checksum.getLocation();
+                    final Object sum = sumsByAlgo.get( checksum.getAlgorithm() );
+                    executor.execute( errorForwarder.wrap( new Runnable()
+                    {
+                        public void run()
+                        {
+                            uploadChecksum( location, sum );
+                        }
+                    } ) );
                 }
+                errorForwarder.await();
             }
             catch ( IOException e )
             {
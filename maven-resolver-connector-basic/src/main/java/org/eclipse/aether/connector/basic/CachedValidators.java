@@ -0,0 +1,158 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.aether.spi.io.FileProcessor;
+import org.eclipse.aether.spi.log.Logger;
+
+/**
+ * Persists the validators (e.g. HTTP entity tags) which a remote repository advertised for a downloaded file in a
+ * sidecar file next to it. The validators are only handed out again as long as the downloaded file appears untouched
+ * and the repository URL is unchanged, so a conditional request can never leave a locally modified or foreign copy in
+ * place.
+ */
+final class CachedValidators
+{
+
+    static final String EXT_VALIDATORS = ".validators";
+
+    private static final String KEY_URL = "#url";
+
+    private static final String KEY_LENGTH = "#length";
+
+    private static final String KEY_MODIFIED = "#lastModified";
+
+    private final File file;
+
+    private final File validatorsFile;
+
+    private final String url;
+
+    private final FileProcessor fileProcessor;
+
+    private final Logger logger;
+
+    CachedValidators( File file, String url, FileProcessor fileProcessor, Logger logger )
+    {
+        this.file = file;
+        this.validatorsFile = new File( file.getPath() + EXT_VALIDATORS );
+        this.url = url;
+        this.fileProcessor = fileProcessor;
+        this.logger = logger;
+    }
+
+    /**
+     * Loads the validators that were recorded for the current contents of the file.
+     * 
+     * @return The validators, possibly empty but never {@code null}.
+     */
+    public Map<String, String> load()
+    {
+        if ( !file.isFile() || !validatorsFile.isFile() )
+        {
+            return Collections.emptyMap();
+        }
+        Properties props = new Properties();
+        try
+        {
+            InputStream is = new FileInputStream( validatorsFile );
+            try
+            {
+                props.load( is );
+            }
+            finally
+            {
+                is.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not read validators from " + validatorsFile + ": " + e );
+            return Collections.emptyMap();
+        }
+        if ( !url.equals( props.getProperty( KEY_URL ) )
+            || !String.valueOf( file.length() ).equals( props.getProperty( KEY_LENGTH ) )
+            || !String.valueOf( file.lastModified() ).equals( props.getProperty( KEY_MODIFIED ) ) )
+        {
+            return Collections.emptyMap();
+        }
+        Map<String, String> validators = new HashMap<String, String>();
+        for ( String key : props.stringPropertyNames() )
+        {
+            if ( !key.startsWith( "#" ) )
+            {
+                validators.put( key, props.getProperty( key ) );
+            }
+        }
+        return validators;
+    }
+
+    /**
+     * Records the validators for the current contents of the file, replacing any previously recorded validators.
+     * 
+     * @param validators The validators advertised by the remote repository, may be empty to forget previous ones.
+     */
+    public void store( Map<String, String> validators )
+    {
+        if ( validators.isEmpty() || !file.isFile() )
+        {
+            delete();
+            return;
+        }
+        Properties props = new Properties();
+        props.putAll( validators );
+        props.setProperty( KEY_URL, url );
+        props.setProperty( KEY_LENGTH, String.valueOf( file.length() ) );
+        props.setProperty( KEY_MODIFIED, String.valueOf( file.lastModified() ) );
+        try
+        {
+            StringWriter writer = new StringWriter( 256 );
+            props.store( writer, null );
+            fileProcessor.write( validatorsFile, writer.toString() );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not write validators to " + validatorsFile + ": " + e );
+            delete();
+        }
+    }
+
+    /**
+     * Forgets the validators of the file.
+     */
+    public void delete()
+    {
+        if ( !validatorsFile.delete() && validatorsFile.exists() )
+        {
+            logger.debug( "Could not delete validators " + validatorsFile );
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,16 +38,49 @@ import org.eclipse.aether.spi.connector.layout.RepositoryLayout;
 import org.eclipse.aether.util.ChecksumUtils;
 
 /**
- * Calculates checksums for a downloaded file.
+ * Calculates checksums for a downloaded file. When a download is interrupted, the state of the digests can be
+ * {@link #suspend() suspended} so that resuming the download later on doesn't need to read the already downloaded
+ * bytes again. The suspended state is only kept in memory, for at most 64 files, and is discarded if the partial file
+ * was modified meanwhile. It is not persisted, so a download resumed by another process (e.g. the next build) still
+ * re-reads the whole partial file to initialize the digests.
  */
 final class ChecksumCalculator
 {
 
+    private static final int MAX_SUSPENDED = 64;
+
+    private static final Map<File, Suspended> SUSPENDED = new LinkedHashMap<File, Suspended>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<File, Suspended> eldest )
+        {
+            return size() > MAX_SUSPENDED;
+        }
+    };
+
+    static class Suspended
+    {
+        final long dataLength;
+
+        final long lastModified;
+
+        final Map<String, MessageDigest> digests;
+
+        Suspended( long dataLength, long lastModified, Map<String, MessageDigest> digests )
+        {
+            this.dataLength = dataLength;
+            this.lastModified = lastModified;
+            this.digests = digests;
+        }
+    }
+
     static class Checksum
     {
         final String algorithm;
 
-        final MessageDigest digest;
+        MessageDigest digest;
 
         Exception error;
 
@@ -105,6 +139,8 @@ final class ChecksumCalculator
 
     private final File targetFile;
 
+    private long dataLength;
+
     public static ChecksumCalculator newInstance( File targetFile, Collection<RepositoryLayout.Checksum> checksums )
     {
         if ( checksums == null || checksums.isEmpty() )
@@ -135,16 +171,37 @@ final class ChecksumCalculator
         {
             checksum.reset();
         }
-        if ( dataOffset <= 0L )
+        dataLength = 0L;
+        if ( dataOffset <= 0L || resume( dataOffset ) )
         {
             return;
         }
+        read( dataOffset );
+    }
+
+    /**
+     * Updates the digests with the bytes of the target file from the current {@link #getDataLength() data length} up
+     * to the specified offset, e.g. after the rest of a download has been written to the file out of order.
+     * 
+     * @param dataOffset The offset up to which the contents of the target file should be digested.
+     */
+    public void catchUp( long dataOffset )
+    {
+        if ( dataOffset > dataLength )
+        {
+            read( dataOffset );
+        }
+    }
+
+    private void read( long dataOffset )
+    {
         try
         {
             FileInputStream fis = new FileInputStream( targetFile );
             try
             {
-                long total = 0L;
+                long total = dataLength;
+                fis.getChannel().position( total );
                 ByteBuffer buffer = ByteBuffer.allocate( 1024 * 32 );
                 for ( byte[] array = buffer.array(); total < dataOffset; )
                 {
@@ -194,6 +251,74 @@ final class ChecksumCalculator
         }
     }
 
+    private boolean resume( long dataOffset )
+    {
+        Suspended suspended;
+        synchronized ( SUSPENDED )
+        {
+            suspended = SUSPENDED.remove( targetFile.getAbsoluteFile() );
+        }
+        if ( suspended == null || suspended.dataLength != dataOffset || targetFile.length() != dataOffset
+            || targetFile.lastModified() != suspended.lastModified )
+        {
+            return false;
+        }
+        for ( Checksum checksum : checksums )
+        {
+            if ( checksum.digest != null && !suspended.digests.containsKey( checksum.algorithm ) )
+            {
+                return false;
+            }
+        }
+        for ( Checksum checksum : checksums )
+        {
+            if ( checksum.digest != null )
+            {
+                checksum.digest = suspended.digests.get( checksum.algorithm );
+            }
+        }
+        dataLength = dataOffset;
+        return true;
+    }
+
+    /**
+     * Remembers the current state of the digests in memory if they cover exactly the current contents of the target
+     * file. A subsequent {@link #init(long)} for the same file and offset within this JVM will continue from this state,
+     * unless the state has been evicted by suspensions of other files in the meantime.
+     */
+    public void suspend()
+    {
+        if ( dataLength <= 0L || targetFile.length() != dataLength )
+        {
+            return;
+        }
+        long lastModified = targetFile.lastModified();
+        Map<String, MessageDigest> digests = new HashMap<String, MessageDigest>();
+        for ( Checksum checksum : checksums )
+        {
+            if ( checksum.digest == null )
+            {
+                continue;
+            }
+            if ( checksum.error != null )
+            {
+                return;
+            }
+            try
+            {
+                digests.put( checksum.algorithm, (MessageDigest) checksum.digest.clone() );
+            }
+            catch ( CloneNotSupportedException e )
+            {
+                return;
+            }
+        }
+        synchronized ( SUSPENDED )
+        {
+            SUSPENDED.put( targetFile.getAbsoluteFile(), new Suspended( dataLength, lastModified, digests ) );
+        }
+    }
+
     public void update( ByteBuffer data )
     {
         for ( Checksum checksum : checksums )
@@ -202,6 +327,17 @@ final class ChecksumCalculator
             checksum.update( data );
             data.reset();
         }
+        dataLength += data.remaining();
+    }
+
+    /**
+     * Gets the number of bytes covered by the digests, i.e. the initial data offset plus the length of the updates.
+     * 
+     * @return The number of digested bytes.
+     */
+    public long getDataLength()
+    {
+        return dataLength;
     }
 
     public Map<String, Object> get()
@@ -28,6 +28,10 @@ import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.eclipse.aether.spi.connector.checksum.ChecksumPolicy;
 import org.eclipse.aether.spi.connector.layout.RepositoryLayout.Checksum;
@@ -66,6 +70,8 @@ final class ChecksumValidator
 
     private final Map<File, Object> checksumFiles;
 
+    private final Map<String, Prefetch> prefetches;
+
     public ChecksumValidator( Logger logger, File dataFile, FileProcessor fileProcessor,
                               ChecksumFetcher checksumFetcher, ChecksumPolicy checksumPolicy,
                               Collection<Checksum> checksums )
@@ -78,6 +84,41 @@ final class ChecksumValidator
         this.checksumPolicy = checksumPolicy;
         this.checksums = checksums;
         checksumFiles = new HashMap<File, Object>();
+        prefetches = new HashMap<String, Prefetch>();
+    }
+
+    /**
+     * Starts to fetch the preferred checksum file in the background, to have it available by the time the data file
+     * has been downloaded and needs to be validated.
+     * 
+     * @param executor The executor to fetch the checksum file with, must not be {@code null}.
+     */
+    public void prefetch( Executor executor )
+    {
+        if ( checksumPolicy == null || checksums.isEmpty() )
+        {
+            return;
+        }
+        Checksum checksum = checksums.iterator().next();
+        try
+        {
+            Prefetch prefetch =
+                new Prefetch( checksum.getLocation(), createTempFile( getChecksumFile( checksum.getAlgorithm() ) ) );
+            prefetches.put( checksum.getAlgorithm(), prefetch );
+            executor.execute( prefetch );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not prefetch checksum " + checksum.getLocation() + ": " + e );
+        }
+    }
+
+    /**
+     * Indicates whether this validator checks checksums at all, i.e. has a checksum policy.
+     */
+    public boolean isEnabled()
+    {
+        return checksumPolicy != null;
     }
 
     public ChecksumCalculator newChecksumCalculator( File targetFile )
@@ -151,10 +192,20 @@ final class ChecksumValidator
             try
             {
                 File checksumFile = getChecksumFile( checksum.getAlgorithm() );
-                File tmp = createTempFile( checksumFile );
+                Prefetch prefetch = prefetches.remove( algo );
+                File tmp = ( prefetch != null ) ? prefetch.file : createTempFile( checksumFile );
                 try
                 {
-                    if ( !checksumFetcher.fetchChecksum( checksum.getLocation(), tmp ) )
+                    boolean fetched;
+                    if ( prefetch != null )
+                    {
+                        fetched = prefetch.fetched();
+                    }
+                    else
+                    {
+                        fetched = checksumFetcher.fetchChecksum( checksum.getLocation(), tmp );
+                    }
+                    if ( !fetched )
                     {
                         continue;
                     }
@@ -209,6 +260,18 @@ final class ChecksumValidator
 
     private void clearTempFiles()
     {
+        for ( Prefetch prefetch : prefetches.values() )
+        {
+            try
+            {
+                prefetch.fetched();
+            }
+            catch ( Exception e )
+            {
+                // irrelevant
+            }
+        }
+        prefetches.clear();
         for ( File file : tempFiles )
         {
             if ( !file.delete() && file.exists() )
@@ -228,6 +291,10 @@ final class ChecksumValidator
 
     public boolean handle( ChecksumFailureException exception )
     {
+        if ( checksumPolicy == null )
+        {
+            return true;
+        }
         return checksumPolicy.onTransferChecksumFailure( exception );
     }
 
@@ -262,4 +329,43 @@ final class ChecksumValidator
         clearTempFiles();
     }
 
+    final class Prefetch
+        extends FutureTask<Boolean>
+    {
+
+        final File file;
+
+        Prefetch( final URI location, final File file )
+        {
+            super( new Callable<Boolean>()
+            {
+                public Boolean call()
+                    throws Exception
+                {
+                    return checksumFetcher.fetchChecksum( location, file );
+                }
+            } );
+            this.file = file;
+        }
+
+        boolean fetched()
+            throws Exception
+        {
+            try
+            {
+                return get();
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable cause = e.getCause();
+                if ( cause instanceof Exception )
+                {
+                    throw (Exception) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+
+    }
+
 }
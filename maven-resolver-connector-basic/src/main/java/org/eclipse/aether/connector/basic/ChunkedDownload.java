@@ -0,0 +1,235 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.util.concurrency.RunnableErrorForwarder;
+
+/**
+ * Downloads a resource as several byte ranges that are fetched concurrently into the same partial file. The first
+ * range is requested on its own to learn the total length of the resource, if the resource fits into it or the
+ * transporter/server doesn't support byte ranges, the download is complete after this single request. Otherwise, the
+ * partial file is preallocated and the remaining ranges are fetched by several workers. The checksums cover the first
+ * range as it streams in, as the other ranges don't arrive in order, the rest of the checksums is calculated from the
+ * assembled file once all ranges have been downloaded. If any range fails, the file is cut back to the first range so
+ * that a later attempt doesn't mistake the preallocated space for downloaded data when resuming.
+ * <p>
+ * Splitting a download only pays off for large resources, so the connector only uses this class for resources whose
+ * expected size reaches a configurable threshold, by default twice the size of a range.
+ */
+final class ChunkedDownload
+{
+
+    static final String CONFIG_PROP_CHUNKS = "aether.connector.basic.chunks";
+
+    static final String CONFIG_PROP_CHUNK_SIZE = "aether.connector.basic.chunkSize";
+
+    static final String CONFIG_PROP_CHUNK_THRESHOLD = "aether.connector.basic.chunkThreshold";
+
+    private final Transporter transporter;
+
+    private final URI path;
+
+    private final PartialFile partFile;
+
+    private final File file;
+
+    private final TransferTransportListener<?> listener;
+
+    private final ChecksumCalculator checksumCalculator;
+
+    private final Executor executor;
+
+    private final int chunks;
+
+    private final long chunkSize;
+
+    private final AtomicReference<Exception> error = new AtomicReference<Exception>();
+
+    public ChunkedDownload( Transporter transporter, URI path, PartialFile partFile, TransferTransportListener<?> listener,
+                            ChecksumCalculator checksumCalculator, Executor executor, int chunks, long chunkSize )
+    {
+        this.transporter = transporter;
+        this.path = path;
+        this.partFile = partFile;
+        this.file = partFile.getFile();
+        this.listener = listener;
+        this.checksumCalculator = checksumCalculator;
+        this.executor = executor;
+        this.chunks = chunks;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Downloads the resource into the file.
+     * 
+     * @return The checksums reported by the transporter for the resource, never {@code null}.
+     */
+    public Map<String, String> download()
+        throws Exception
+    {
+        Chunk first = new Chunk( 0L, chunkSize, true );
+        GetTask task = first.get();
+        final long total = first.total;
+        long received = first.received;
+        if ( ( total >= 0L ) ? received >= total : received < chunkSize )
+        {
+            return task.getChecksums();
+        }
+        if ( total < 0L )
+        {
+            transporter.get( new GetTask( path ).setDataFile( file, true ).setListener( listener ) );
+            return task.getChecksums();
+        }
+
+        partFile.preallocate( total );
+
+        final AtomicLong next = new AtomicLong( received );
+        Runnable fetcher = new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for ( long offset = next.getAndAdd( chunkSize ); offset < total && error.get() == null;
+                        offset = next.getAndAdd( chunkSize ) )
+                    {
+                        new Chunk( offset, Math.min( chunkSize, total - offset ), false ).get();
+                    }
+                }
+                catch ( Exception e )
+                {
+                    error.compareAndSet( null, e );
+                }
+            }
+        };
+
+        listener.setChecksumCalculator( null );
+        try
+        {
+            RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+            long ranges = ( total - received + chunkSize - 1L ) / chunkSize;
+            for ( long i = Math.min( chunks, ranges ) - 1L; i > 0L; i-- )
+            {
+                executor.execute( errorForwarder.wrap( fetcher ) );
+            }
+            fetcher.run();
+            errorForwarder.await();
+        }
+        finally
+        {
+            listener.setChecksumCalculator( checksumCalculator );
+        }
+        if ( error.get() != null )
+        {
+            partFile.truncate( received );
+            throw error.get();
+        }
+
+        if ( checksumCalculator != null )
+        {
+            checksumCalculator.catchUp( total );
+        }
+        return task.getChecksums();
+    }
+
+    private final class Chunk
+        extends TransportListener
+    {
+
+        private final long offset;
+
+        private final long length;
+
+        private final boolean first;
+
+        long dataOffset;
+
+        long total = -1L;
+
+        long received;
+
+        Chunk( long offset, long length, boolean first )
+        {
+            this.offset = offset;
+            this.length = length;
+            this.first = first;
+        }
+
+        GetTask get()
+            throws Exception
+        {
+            GetTask task = new GetTask( path ).setDataFile( file ).setDataRange( offset, length ).setListener( this );
+            transporter.get( task );
+            if ( !first && ( dataOffset != offset || received != length ) )
+            {
+                throw new IOException( "Incomplete download of bytes " + offset + "-" + ( offset + length - 1L )
+                    + " from " + path + ", received " + received + " bytes from offset " + dataOffset );
+            }
+            return task;
+        }
+
+        @Override
+        public void transportStarted( long dataOffset, long dataLength )
+            throws TransferCancelledException
+        {
+            this.dataOffset = dataOffset;
+            this.total = dataLength;
+            this.received = 0L;
+            if ( first )
+            {
+                synchronized ( listener )
+                {
+                    listener.transportStarted( dataOffset, dataLength );
+                }
+            }
+        }
+
+        @Override
+        public void transportProgressed( ByteBuffer data )
+            throws TransferCancelledException
+        {
+            if ( error.get() != null )
+            {
+                throw new TransferCancelledException( "Download of bytes " + offset + "-" + ( offset + length - 1L )
+                    + " from " + path + " aborted due to failure of another range" );
+            }
+            received += data.remaining();
+            synchronized ( listener )
+            {
+                listener.transportProgressed( data );
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * Tracks consecutive transient failures of transfers against a remote repository. Once a configurable number of
+ * transfers in a row failed, the breaker opens and subsequent transfers fail right away instead of waiting for
+ * another connect timeout. After a cool-down period, a single trial transfer is let through which either closes the
+ * breaker again or reopens it for another cool-down period. The breakers are shared by all connectors of a session.
+ * Connectors only use a breaker if a positive threshold has been configured via
+ * {@code aether.connector.basic.circuitBreaker.threshold}, it is disabled by default.
+ */
+final class CircuitBreaker
+{
+
+    private static final String KEY = CircuitBreaker.class.getName();
+
+    private final String url;
+
+    private final int threshold;
+
+    private final long coolDown;
+
+    private int failures;
+
+    private long openUntil;
+
+    private boolean trial;
+
+    /**
+     * Gets the circuit breaker for the specified repository.
+     * 
+     * @return The circuit breaker or {@code null} if the threshold is not positive.
+     */
+    static CircuitBreaker getInstance( RepositorySystemSession session, RemoteRepository repository, int threshold,
+                                       long coolDown )
+    {
+        if ( threshold <= 0 )
+        {
+            return null;
+        }
+        ConcurrentMap<String, CircuitBreaker> breakers = getBreakers( session );
+        CircuitBreaker breaker = breakers.get( repository.getUrl() );
+        if ( breaker == null )
+        {
+            breaker = new CircuitBreaker( repository.getUrl(), threshold, coolDown );
+            CircuitBreaker existing = breakers.putIfAbsent( repository.getUrl(), breaker );
+            if ( existing != null )
+            {
+                breaker = existing;
+            }
+        }
+        return breaker;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static ConcurrentMap<String, CircuitBreaker> getBreakers( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return new ConcurrentHashMap<String, CircuitBreaker>();
+        }
+        Object breakers = data.get( KEY );
+        while ( !( breakers instanceof ConcurrentMap ) )
+        {
+            Object old = breakers;
+            breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+            if ( data.set( KEY, old, breakers ) )
+            {
+                break;
+            }
+            breakers = data.get( KEY );
+        }
+        return (ConcurrentMap<String, CircuitBreaker>) breakers;
+    }
+
+    CircuitBreaker( String url, int threshold, long coolDown )
+    {
+        this.url = url;
+        this.threshold = threshold;
+        this.coolDown = Math.max( 0L, coolDown );
+    }
+
+    /**
+     * Checks whether a transfer may be attempted.
+     * 
+     * @throws IOException If the breaker is open.
+     */
+    public synchronized void acquire()
+        throws IOException
+    {
+        if ( failures < threshold )
+        {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if ( now < openUntil || trial )
+        {
+            throw new IOException( "Repository " + url + " is considered unavailable after " + failures
+                + " consecutive transfer failures, not retrying before " + ( Math.max( openUntil - now, 0L ) / 1000L )
+                + " s" );
+        }
+        trial = true;
+    }
+
+    /**
+     * Records a transfer during which the repository responded.
+     */
+    public synchronized void succeeded()
+    {
+        failures = 0;
+        trial = false;
+    }
+
+    /**
+     * Records a transfer that failed due to an unreachable or unresponsive repository.
+     */
+    public synchronized void failed()
+    {
+        failures++;
+        trial = false;
+        if ( failures >= threshold )
+        {
+            openUntil = System.currentTimeMillis() + coolDown;
+        }
+    }
+
+    /**
+     * Records a transfer whose outcome says nothing about the availability of the repository.
+     */
+    public synchronized void released()
+    {
+        trial = false;
+    }
+
+    public synchronized boolean isOpen()
+    {
+        return failures >= threshold && System.currentTimeMillis() < openUntil;
+    }
+
+    @Override
+    public String toString()
+    {
+        return url;
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.aether.transfer.ChecksumFailureException;
+
+/**
+ * A download of a remote resource into a local file that is shared by all connectors of the process. If several
+ * sessions concurrently need the same file from the same remote location, only the first one performs the transfer
+ * while the others merely await its outcome, without contending for the lock of the partial file. As the performing
+ * connector might belong to another session, its errors are not handed to the waiters, a failed download merely
+ * tells the waiters to perform the download on their own. Likewise, waiters whose checksum policy is stricter than the
+ * one of the performing connector validate the file themselves.
+ */
+final class DownloadFlight
+{
+
+    private static final ConcurrentMap<String, DownloadFlight> FLIGHTS =
+        new ConcurrentHashMap<String, DownloadFlight>();
+
+    private final String key;
+
+    private final CountDownLatch landed = new CountDownLatch( 1 );
+
+    private volatile boolean failed;
+
+    private volatile ChecksumFailureException checksumFailure;
+
+    private volatile boolean checksumsValidated;
+
+    public DownloadFlight( File file, String repositoryUrl, URI path )
+    {
+        key = file.getAbsolutePath() + " < " + repositoryUrl + " " + path;
+    }
+
+    /**
+     * Registers this download unless an equivalent download is already in progress.
+     * 
+     * @return The download in progress or {@code null} if the caller needs to perform this download and eventually
+     *         {@link #land()} it.
+     */
+    public DownloadFlight takeOff()
+    {
+        return FLIGHTS.putIfAbsent( key, this );
+    }
+
+    /**
+     * Marks this download as finished and wakes up everybody awaiting it.
+     */
+    public void land()
+    {
+        FLIGHTS.remove( key, this );
+        landed.countDown();
+    }
+
+    /**
+     * Waits for this download to finish.
+     */
+    public void await()
+        throws InterruptedException
+    {
+        landed.await();
+    }
+
+    /**
+     * Indicates whether this download failed and thus did not provide the file.
+     * 
+     * @return {@code true} if the download failed, {@code false} otherwise.
+     */
+    public boolean isFailed()
+    {
+        return failed;
+    }
+
+    public void setFailed()
+    {
+        this.failed = true;
+    }
+
+    /**
+     * Gets the checksum failure that was accepted by the checksum policy of the performing connector.
+     * 
+     * @return The accepted checksum failure or {@code null} if the checksums were valid.
+     */
+    public ChecksumFailureException getChecksumFailure()
+    {
+        return checksumFailure;
+    }
+
+    public void setChecksumFailure( ChecksumFailureException checksumFailure )
+    {
+        this.checksumFailure = checksumFailure;
+    }
+
+    /**
+     * Indicates whether the performing connector validated the checksums of the file. A connector without checksum
+     * policy or a download that was skipped, e.g. because the file was not modified, leaves the checksums unchecked
+     * and waiters with a checksum policy need to validate the file on their own.
+     * 
+     * @return {@code true} if the checksums were validated, {@code false} otherwise.
+     */
+    public boolean isChecksumsValidated()
+    {
+        return checksumsValidated;
+    }
+
+    public void setChecksumsValidated()
+    {
+        this.checksumsValidated = true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return key;
+    }
+
+}
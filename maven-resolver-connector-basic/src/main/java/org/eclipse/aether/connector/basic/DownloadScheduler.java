@@ -0,0 +1,254 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * Orders the downloads of a batch before handing them to the connector's executor. Instead of running the transfers in
+ * request order, the smallest transfers (metadata, POMs and existence checks) go first so they don't queue behind huge
+ * archives. To nevertheless keep the large archives from finishing last, up to half of the workers start with the
+ * largest transfers of the batch right away. The size of a transfer is estimated from the sizes observed for the same
+ * resource or the same kind of file earlier in the session.
+ */
+final class DownloadScheduler
+{
+
+    static final String CONFIG_PROP_ORDER = "aether.connector.basic.downloadOrder";
+
+    static final String CONFIG_PROP_LARGE_SIZE = "aether.connector.basic.downloadOrder.largeSize";
+
+    static final String ORDER_SIZE = "size";
+
+    static final String ORDER_REQUEST = "request";
+
+    static final long SMALL = 4 * 1024;
+
+    static final long UNKNOWN = 64 * 1024;
+
+    private static final String KEY_SIZES = DownloadScheduler.class.getName() + "$Sizes";
+
+    private final Sizes sizes;
+
+    private final boolean ordered;
+
+    private final long largeSize;
+
+    private final int maxThreads;
+
+    private final List<Download> downloads = new ArrayList<Download>();
+
+    public DownloadScheduler( RepositorySystemSession session, int maxThreads )
+    {
+        this.maxThreads = maxThreads;
+        sizes = getSizes( session );
+        ordered = !ORDER_REQUEST.equals( ConfigUtils.getString( session, ORDER_SIZE, CONFIG_PROP_ORDER ) );
+        largeSize = ConfigUtils.getLong( session, 1024 * 1024, CONFIG_PROP_LARGE_SIZE );
+    }
+
+    static Sizes getSizes( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return new Sizes();
+        }
+        Object sizes = data.get( KEY_SIZES );
+        while ( !( sizes instanceof Sizes ) )
+        {
+            Object old = sizes;
+            sizes = new Sizes();
+            if ( data.set( KEY_SIZES, old, sizes ) )
+            {
+                break;
+            }
+            sizes = data.get( KEY_SIZES );
+        }
+        return (Sizes) sizes;
+    }
+
+    /**
+     * Adds a download to the batch.
+     * 
+     * @param task The task performing the download, must not be {@code null}.
+     * @param location The relative location of the resource, must not be {@code null}.
+     * @param file The destination file, may be {@code null}.
+     * @param peek {@code true} if the task merely checks the existence of the resource, {@code false} otherwise.
+     */
+    public void add( Runnable task, URI location, File file, boolean peek )
+    {
+        long size = ( peek || !ordered ) ? 0L : sizes.estimate( location, file );
+        downloads.add( new Download( task, size ) );
+    }
+
+    /**
+     * Submits the downloads of the batch to the specified executor in the order determined by this scheduler.
+     * 
+     * @param executor The executor to submit the download tasks to, must not be {@code null}.
+     */
+    public void submit( Executor executor )
+    {
+        for ( Download download : order() )
+        {
+            executor.execute( download.task );
+        }
+        downloads.clear();
+    }
+
+    private List<Download> order()
+    {
+        if ( !ordered )
+        {
+            return downloads;
+        }
+
+        List<Download> small = new ArrayList<Download>();
+        List<Download> large = new ArrayList<Download>();
+        for ( Download download : downloads )
+        {
+            ( ( maxThreads > 1 && download.size >= largeSize ) ? large : small ).add( download );
+        }
+        Collections.sort( small, Download.ASCENDING );
+        Collections.sort( large, Collections.reverseOrder( Download.ASCENDING ) );
+
+        int head = Math.min( large.size(), Math.max( 1, maxThreads / 2 ) );
+        List<Download> order = new ArrayList<Download>( downloads.size() );
+        order.addAll( large.subList( 0, head ) );
+        order.addAll( small );
+        order.addAll( large.subList( head, large.size() ) );
+        return order;
+    }
+
+    static final class Download
+    {
+
+        static final Comparator<Download> ASCENDING = new Comparator<Download>()
+        {
+            public int compare( Download d1, Download d2 )
+            {
+                return ( d1.size < d2.size ) ? -1 : ( ( d1.size == d2.size ) ? 0 : 1 );
+            }
+        };
+
+        final Runnable task;
+
+        final long size;
+
+        Download( Runnable task, long size )
+        {
+            this.task = task;
+            this.size = size;
+        }
+
+    }
+
+    /**
+     * The sizes of the downloads observed during a session, both per resource and averaged per file extension.
+     */
+    static final class Sizes
+    {
+
+        private static final int MAX_RESOURCES = 10000;
+
+        private final Map<String, Long> resources = new LinkedHashMap<String, Long>( 256, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Long> eldest )
+            {
+                return size() > MAX_RESOURCES;
+            }
+        };
+
+        private final Map<String, long[]> extensions = new HashMap<String, long[]>();
+
+        public synchronized void record( URI location, long size )
+        {
+            if ( size < 0L )
+            {
+                return;
+            }
+            resources.put( location.toString(), size );
+            String ext = getExtension( location );
+            long[] stats = extensions.get( ext );
+            if ( stats == null )
+            {
+                stats = new long[2];
+                extensions.put( ext, stats );
+            }
+            stats[0]++;
+            stats[1] += size;
+        }
+
+        public synchronized long estimate( URI location, File file )
+        {
+            Long size = resources.get( location.toString() );
+            if ( size != null )
+            {
+                return size;
+            }
+            if ( file != null && file.isFile() )
+            {
+                return file.length();
+            }
+            String ext = getExtension( location );
+            long[] stats = extensions.get( ext );
+            if ( stats != null )
+            {
+                return stats[1] / stats[0];
+            }
+            if ( "pom".equals( ext ) || "xml".equals( ext ) || "asc".equals( ext ) || ext.startsWith( "sha" )
+                || "md5".equals( ext ) )
+            {
+                return SMALL;
+            }
+            return UNKNOWN;
+        }
+
+        private static String getExtension( URI location )
+        {
+            String path = location.getPath();
+            if ( path == null )
+            {
+                path = location.toString();
+            }
+            int slash = path.lastIndexOf( '/' );
+            int dot = path.lastIndexOf( '.' );
+            return ( dot > slash ) ? path.substring( dot + 1 ).toLowerCase( Locale.ENGLISH ) : "";
+        }
+
+    }
+
+}
@@ -26,13 +26,21 @@ import java.io.RandomAccessFile;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.aether.spi.log.Logger;
 
 /**
  * A partially downloaded file with optional support for resume. If resume is enabled, a well-known location is used for
  * the partial file in combination with a lock file to prevent concurrent requests from corrupting it (and wasting
- * network bandwith). Otherwise, a (non-locked) unique temporary file is used.
+ * network bandwith). Otherwise, a (non-locked) unique temporary file is used. Threads of the same process that wait
+ * for a concurrent download are woken up as soon as the lock is released while the lock held by another process is
+ * polled with an increasing delay. A partial file can be preallocated to the expected size of the download, while
+ * extended that way, a marker file next to it records that its length doesn't reflect the downloaded data such that a
+ * partial file left behind by a crashed process is discarded rather than resumed.
  */
 final class PartialFile
     implements Closeable
@@ -42,6 +50,8 @@ final class PartialFile
 
     static final String EXT_LOCK = ".lock";
 
+    static final String EXT_ALLOC = ".alloc";
+
     interface RemoteAccessChecker
     {
 
@@ -53,19 +63,30 @@ final class PartialFile
     static class LockFile
     {
 
+        static final long MIN_DELAY = 10L;
+
+        static final long MAX_DELAY = 500L;
+
+        private static final ConcurrentMap<File, CountDownLatch> LOCKED =
+            new ConcurrentHashMap<File, CountDownLatch>();
+
         private final File lockFile;
 
         private final FileLock lock;
 
+        private final CountDownLatch released;
+
         private final boolean concurrent;
 
         public LockFile( File partFile, int requestTimeout, RemoteAccessChecker checker, Logger logger )
             throws Exception
         {
-            lockFile = new File( partFile.getPath() + EXT_LOCK );
+            lockFile = new File( partFile.getPath() + EXT_LOCK ).getAbsoluteFile();
             boolean[] concurrent = { false };
             lock = lock( lockFile, partFile, requestTimeout, checker, logger, concurrent );
             this.concurrent = concurrent[0];
+            released = new CountDownLatch( 1 );
+            LOCKED.put( lockFile, released );
         }
 
         private static FileLock lock( File lockFile, File partFile, int requestTimeout, RemoteAccessChecker checker,
@@ -75,12 +96,16 @@ final class PartialFile
             boolean interrupted = false;
             try
             {
-                for ( long lastLength = -1L, lastTime = 0L;; )
+                for ( long lastLength = -1L, lastTime = 0L, delay = MIN_DELAY;; )
                 {
-                    FileLock lock = tryLock( lockFile );
-                    if ( lock != null )
+                    CountDownLatch released = LOCKED.get( lockFile );
+                    if ( released == null )
                     {
-                        return lock;
+                        FileLock lock = tryLock( lockFile );
+                        if ( lock != null )
+                        {
+                            return lock;
+                        }
                     }
 
                     long currentLength = partFile.length();
@@ -109,7 +134,15 @@ final class PartialFile
 
                     try
                     {
-                        Thread.sleep( 100L );
+                        if ( released != null )
+                        {
+                            released.await( MAX_DELAY, TimeUnit.MILLISECONDS );
+                        }
+                        else
+                        {
+                            Thread.sleep( delay );
+                            delay = Math.min( delay * 2L, MAX_DELAY );
+                        }
                     }
                     catch ( InterruptedException e )
                     {
@@ -181,8 +214,16 @@ final class PartialFile
 
         public void close() throws IOException
         {
-            lock.channel().close();
-            lockFile.delete();
+            try
+            {
+                lock.channel().close();
+                lockFile.delete();
+            }
+            finally
+            {
+                LOCKED.remove( lockFile, released );
+                released.countDown();
+            }
         }
 
         @Override
@@ -228,6 +269,15 @@ final class PartialFile
                 }
                 try
                 {
+                    File allocFile = new File( partFile.getPath() + EXT_ALLOC );
+                    if ( allocFile.exists() )
+                    {
+                        logger.debug( "Discarding preallocated file " + partFile + " from interrupted download" );
+                        if ( ( !partFile.delete() && partFile.exists() ) || !allocFile.delete() )
+                        {
+                            throw new IOException( "Cannot delete preallocated file" );
+                        }
+                    }
                     if ( !partFile.createNewFile() && !partFile.isFile() )
                     {
                         throw new IOException( partFile.exists() ? "Path exists but is not a file" : "Unknown error" );
@@ -258,6 +308,10 @@ final class PartialFile
 
     private final Logger logger;
 
+    private File allocFile;
+
+    private boolean preallocated;
+
     private PartialFile( File partFile, Logger logger )
     {
         this( partFile, null, 0, logger );
@@ -281,15 +335,99 @@ final class PartialFile
         return lockFile != null && partFile.length() >= threshold;
     }
 
+    /**
+     * Extends the partial file to the specified length unless it's already that long. Fails early if the file system
+     * has not enough usable space left to hold the remaining data.
+     * 
+     * @param length The expected length of the complete file.
+     * @throws IOException If the file could not be extended.
+     */
+    public void preallocate( long length )
+        throws IOException
+    {
+        long required = length - partFile.length();
+        if ( required <= 0L )
+        {
+            return;
+        }
+        File dir = partFile.getAbsoluteFile().getParentFile();
+        long usable = dir.getUsableSpace();
+        if ( usable > 0L && usable < required )
+        {
+            throw new IOException( "Insufficient disk space in " + dir + " to download " + required
+                + " bytes into " + partFile + ", only " + usable + " bytes available" );
+        }
+        if ( allocFile == null && lockFile != null )
+        {
+            File allocFile = new File( partFile.getPath() + EXT_ALLOC );
+            allocFile.createNewFile();
+            this.allocFile = allocFile;
+        }
+        RandomAccessFile raf = new RandomAccessFile( partFile, "rw" );
+        try
+        {
+            raf.setLength( length );
+        }
+        finally
+        {
+            raf.close();
+        }
+        preallocated = true;
+        logger.debug( "Preallocated " + length + " bytes for " + partFile );
+    }
+
+    /**
+     * Tells whether the length of the partial file exceeds the downloaded data due to {@link #preallocate(long)}.
+     */
+    public boolean isPreallocated()
+    {
+        return preallocated;
+    }
+
+    /**
+     * Cuts back a preallocated partial file to the length of the data that was actually downloaded.
+     * 
+     * @param length The length of the valid data at the start of the file.
+     * @throws IOException If the file could not be truncated.
+     */
+    public void truncate( long length )
+        throws IOException
+    {
+        if ( partFile.length() > length )
+        {
+            RandomAccessFile raf = new RandomAccessFile( partFile, "rw" );
+            try
+            {
+                raf.setLength( length );
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+        preallocated = false;
+        if ( allocFile != null )
+        {
+            allocFile.delete();
+            allocFile = null;
+        }
+    }
+
     public void close() throws IOException
     {
-        if ( partFile.exists() && !isResume() )
+        if ( partFile.exists() && ( preallocated || !isResume() ) )
         {
             if ( !partFile.delete() && partFile.exists() )
             {
                 logger.debug( "Could not delete temorary file " + partFile );
             }
         }
+        preallocated = false;
+        if ( allocFile != null )
+        {
+            allocFile.delete();
+            allocFile = null;
+        }
         if ( lockFile != null )
         {
             lockFile.close();
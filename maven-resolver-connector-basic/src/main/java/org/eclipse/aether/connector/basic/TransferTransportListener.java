@@ -19,6 +19,7 @@ package org.eclipse.aether.connector.basic;
  * under the License.
  */
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Map;
@@ -42,6 +43,14 @@ class TransferTransportListener<T extends Transfer>
 
     private ChecksumCalculator checksumCalculator;
 
+    private long startTime;
+
+    private long transferred;
+
+    private PartialFile partialFile;
+
+    private IOException preallocationFailure;
+
     protected TransferTransportListener( T transfer, TransferEvent.Builder eventBuilder )
     {
         this.transfer = transfer;
@@ -68,6 +77,20 @@ class TransferTransportListener<T extends Transfer>
     public void transportStarted( long dataOffset, long dataLength )
         throws TransferCancelledException
     {
+        startTime = System.nanoTime();
+        transferred = dataOffset;
+        if ( partialFile != null && dataLength > 0L )
+        {
+            try
+            {
+                partialFile.preallocate( dataLength );
+            }
+            catch ( IOException e )
+            {
+                preallocationFailure = e;
+                throw new TransferCancelledException( e.getMessage(), e );
+            }
+        }
         if ( checksumCalculator != null )
         {
             checksumCalculator.init( dataOffset );
@@ -85,6 +108,7 @@ class TransferTransportListener<T extends Transfer>
     public void transportProgressed( ByteBuffer data )
         throws TransferCancelledException
     {
+        transferred += data.remaining();
         if ( checksumCalculator != null )
         {
             checksumCalculator.update( data );
@@ -133,6 +157,46 @@ class TransferTransportListener<T extends Transfer>
         return checksumCalculator.get();
     }
 
+    /**
+     * Gets the time when the transport of the data started.
+     * 
+     * @return The value of {@link System#nanoTime()} when the transport started or {@code 0} if it didn't start yet.
+     */
+    public long getStartTime()
+    {
+        return startTime;
+    }
+
+    /**
+     * Gets the number of bytes received so far, including the offset the transport resumed from.
+     * 
+     * @return The length of the data transferred so far.
+     */
+    public long getTransferredBytes()
+    {
+        return transferred;
+    }
+
+    /**
+     * Gets the error that prevented the partial file from being extended to the expected length, if any.
+     * 
+     * @return The preallocation error or {@code null} if none.
+     */
+    public IOException getPreallocationFailure()
+    {
+        return preallocationFailure;
+    }
+
+    /**
+     * Sets the partial file to extend to the expected length of the data once the transport starts.
+     * 
+     * @param partialFile The partial file to preallocate, may be {@code null} to disable preallocation.
+     */
+    public void setPartialFile( PartialFile partialFile )
+    {
+        this.partialFile = partialFile;
+    }
+
     public void setChecksumCalculator( ChecksumCalculator checksumCalculator )
     {
         this.checksumCalculator = checksumCalculator;
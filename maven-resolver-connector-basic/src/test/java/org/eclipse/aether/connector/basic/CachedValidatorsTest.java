@@ -0,0 +1,105 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.aether.internal.test.util.TestFileProcessor;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestLoggerFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachedValidatorsTest
+{
+
+    private static final String URL = "http://localhost/repo";
+
+    private File file;
+
+    private Map<String, String> validators;
+
+    private CachedValidators newInstance( String url )
+    {
+        return new CachedValidators( file, url, new TestFileProcessor(), new TestLoggerFactory().getLogger( "" ) );
+    }
+
+    @Before
+    public void init()
+        throws Exception
+    {
+        file = TestFileUtils.createTempFile( "metadata" );
+        validators = new HashMap<String, String>();
+        validators.put( "ETag", "\"abc\"" );
+        validators.put( "Last-Modified", "Thu, 01 Jan 2015 00:00:00 GMT" );
+    }
+
+    @Test
+    public void testStoreAndLoad()
+    {
+        newInstance( URL ).store( validators );
+        assertTrue( new File( file.getPath() + CachedValidators.EXT_VALIDATORS ).isFile() );
+        assertEquals( validators, newInstance( URL ).load() );
+    }
+
+    @Test
+    public void testLoad_Missing()
+    {
+        assertTrue( newInstance( URL ).load().isEmpty() );
+    }
+
+    @Test
+    public void testLoad_FileModified()
+        throws Exception
+    {
+        newInstance( URL ).store( validators );
+        TestFileUtils.writeString( file, "changed locally" );
+        assertTrue( newInstance( URL ).load().isEmpty() );
+    }
+
+    @Test
+    public void testLoad_FileDeleted()
+    {
+        newInstance( URL ).store( validators );
+        assertTrue( file.delete() );
+        assertTrue( newInstance( URL ).load().isEmpty() );
+    }
+
+    @Test
+    public void testLoad_UrlChanged()
+    {
+        newInstance( URL ).store( validators );
+        assertTrue( newInstance( "http://localhost/mirror" ).load().isEmpty() );
+    }
+
+    @Test
+    public void testStore_EmptyDeletes()
+    {
+        newInstance( URL ).store( validators );
+        newInstance( URL ).store( new HashMap<String, String>() );
+        assertFalse( new File( file.getPath() + CachedValidators.EXT_VALIDATORS ).exists() );
+        assertTrue( newInstance( URL ).load().isEmpty() );
+    }
+
+}
@@ -94,6 +94,76 @@ public class ChecksumCalculatorTest
         assertEquals( 2, digests.size() );
     }
 
+    @Test
+    public void testDataLength()
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1 );
+        calculator.init( 6 );
+        assertEquals( 6L, calculator.getDataLength() );
+        calculator.update( toBuffer( "World!" ) );
+        assertEquals( 12L, calculator.getDataLength() );
+        calculator.init( 0 );
+        assertEquals( 0L, calculator.getDataLength() );
+    }
+
+    @Test
+    public void testCatchUp()
+        throws Exception
+    {
+        TestFileUtils.writeString( file, "Salut World!" );
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Hello " ) );
+        calculator.catchUp( 12 );
+        assertEquals( 12L, calculator.getDataLength() );
+        calculator.catchUp( 6 );
+        assertEquals( 12L, calculator.getDataLength() );
+        Map<String, Object> digests = calculator.get();
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", digests.get( SHA1 ) );
+        assertEquals( "ed076287532e86365e841e92bfc50d8c", digests.get( MD5 ) );
+    }
+
+    @Test
+    public void testResumeFromSuspendedState()
+        throws Exception
+    {
+        TestFileUtils.writeString( file, "Hello " );
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Hello " ) );
+        calculator.suspend();
+
+        long lastModified = file.lastModified();
+        TestFileUtils.writeString( file, "Salut " );
+        assertTrue( file.setLastModified( lastModified ) );
+
+        calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 6 );
+        calculator.update( toBuffer( "World!" ) );
+        Map<String, Object> digests = calculator.get();
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", digests.get( SHA1 ) );
+        assertEquals( "ed076287532e86365e841e92bfc50d8c", digests.get( MD5 ) );
+    }
+
+    @Test
+    public void testStaleSuspendedStateIsIgnored()
+        throws Exception
+    {
+        TestFileUtils.writeString( file, "Salut " );
+        ChecksumCalculator calculator = newCalculator( SHA1 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Salut " ) );
+        calculator.suspend();
+
+        TestFileUtils.writeString( file, "Hello " );
+        assertTrue( file.setLastModified( file.lastModified() - 60L * 1000L ) );
+
+        calculator = newCalculator( SHA1 );
+        calculator.init( 6 );
+        calculator.update( toBuffer( "World!" ) );
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", calculator.get().get( SHA1 ) );
+    }
+
     @Test
     public void testWithExcessiveOffset()
     {
@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.eclipse.aether.internal.test.util.TestFileProcessor;
 import org.eclipse.aether.internal.test.util.TestFileUtils;
@@ -321,6 +322,51 @@ public class ChecksumValidatorTest
                                 "noMore()" );
     }
 
+    @Test
+    public void testValidate_Prefetched()
+        throws Exception
+    {
+        ChecksumValidator validator = newValidator( SHA1, MD5 );
+        fetcher.mock( SHA1, "foo" );
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        validator.prefetch( new Executor()
+        {
+            public void execute( Runnable command )
+            {
+                tasks.add( command );
+            }
+        } );
+        assertEquals( 1, tasks.size() );
+        fetcher.assertFetchedFiles();
+        tasks.get( 0 ).run();
+        fetcher.assertFetchedFiles( SHA1 );
+        validator.validate( checksums( SHA1, "foo", MD5, "bar" ), null );
+        fetcher.assertFetchedFiles( SHA1 );
+        policy.assertCallbacks( "match(SHA-1, 0000)" );
+        validator.commit();
+        assertEquals( "foo", TestFileUtils.readString( new File( dataFile.getPath() + ".sha1" ) ) );
+    }
+
+    @Test
+    public void testValidate_PrefetchFailed()
+        throws Exception
+    {
+        policy.inspectAll = true;
+        ChecksumValidator validator = newValidator( SHA1, MD5 );
+        fetcher.mock( SHA1, new IOException( "error" ) );
+        fetcher.mock( MD5, "bar" );
+        validator.prefetch( new Executor()
+        {
+            public void execute( Runnable command )
+            {
+                command.run();
+            }
+        } );
+        validator.validate( checksums( SHA1, "foo", MD5, "bar" ), null );
+        fetcher.assertFetchedFiles( SHA1, MD5 );
+        policy.assertCallbacks( "error(SHA-1, 0000, error)", "match(MD5, 0000)", "noMore()" );
+    }
+
     @Test
     public void testValidate_CaseInsensitive()
         throws Exception
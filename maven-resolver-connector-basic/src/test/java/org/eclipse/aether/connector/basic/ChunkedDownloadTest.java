@@ -0,0 +1,224 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestLoggerFactory;
+import org.eclipse.aether.spi.connector.ArtifactDownload;
+import org.eclipse.aether.spi.connector.layout.RepositoryLayout;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedDownloadTest
+{
+
+    private static final String SHA1 = "SHA-1";
+
+    private static final Executor THREADS = new Executor()
+    {
+        public void execute( Runnable command )
+        {
+            new Thread( command ).start();
+        }
+    };
+
+    private byte[] content;
+
+    private PartialFile partFile;
+
+    private File file;
+
+    private TransferTransportListener<ArtifactDownload> listener;
+
+    private ChecksumCalculator calculator;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        content = new byte[10000];
+        for ( int i = 0; i < content.length; i++ )
+        {
+            content[i] = (byte) ( i * 31 );
+        }
+        PartialFile.Factory factory =
+            new PartialFile.Factory( false, 0L, 0, new TestLoggerFactory().getLogger( "" ) );
+        partFile = factory.newInstance( TestFileUtils.createTempFile( "" ), null );
+        file = partFile.getFile();
+        TestFileUtils.writeString( file, "stale contents from an earlier download" );
+        listener = new TransferTransportListener<ArtifactDownload>( new ArtifactDownload(), null );
+        calculator =
+            ChecksumCalculator.newInstance( file, Collections.singletonList( new RepositoryLayout.Checksum( SHA1,
+                                                                                  URI.create( "irrelevant" ) ) ) );
+        listener.setChecksumCalculator( calculator );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        partFile.close();
+    }
+
+    private void download( RangeTransporter transporter, int chunks, long chunkSize )
+        throws Exception
+    {
+        new ChunkedDownload( transporter, URI.create( "file.jar" ), partFile, listener, calculator, THREADS, chunks,
+                             chunkSize ).download();
+        assertArrayEquals( content, TestFileUtils.readBytes( file ) );
+        assertEquals( ChecksumUtils.toHexString( MessageDigest.getInstance( SHA1 ).digest( content ) ),
+                      listener.getChecksums().get( SHA1 ) );
+    }
+
+    @Test
+    public void testRangesAreAssembled()
+        throws Exception
+    {
+        RangeTransporter transporter = new RangeTransporter( true );
+        download( transporter, 4, 1000L );
+        assertEquals( 10, transporter.ranges.size() );
+        assertEquals( "0-999", transporter.ranges.get( 0 ) );
+        assertTrue( transporter.ranges.toString(), transporter.ranges.contains( "9000-9999" ) );
+    }
+
+    @Test
+    public void testUnevenLastRange()
+        throws Exception
+    {
+        RangeTransporter transporter = new RangeTransporter( true );
+        download( transporter, 3, 3000L );
+        assertEquals( 4, transporter.ranges.size() );
+        assertTrue( transporter.ranges.toString(), transporter.ranges.contains( "9000-9999" ) );
+    }
+
+    @Test
+    public void testSmallResourceIsDownloadedAtOnce()
+        throws Exception
+    {
+        RangeTransporter transporter = new RangeTransporter( true );
+        download( transporter, 4, 20000L );
+        assertEquals( Collections.singletonList( "0-9999" ), transporter.ranges );
+    }
+
+    @Test
+    public void testRangesNotSupported()
+        throws Exception
+    {
+        RangeTransporter transporter = new RangeTransporter( false );
+        download( transporter, 4, 1000L );
+        assertEquals( Collections.singletonList( "0-9999" ), transporter.ranges );
+    }
+
+    @Test
+    public void testFailedRangeTruncatesFile()
+        throws Exception
+    {
+        RangeTransporter transporter = new RangeTransporter( true );
+        transporter.failingOffset = 5000;
+        try
+        {
+            download( transporter, 4, 1000L );
+            fail( "Expected error" );
+        }
+        catch ( IOException e )
+        {
+            assertEquals( "failed", e.getMessage() );
+        }
+        assertEquals( 1000L, file.length() );
+        assertFalse( partFile.isPreallocated() );
+    }
+
+    private class RangeTransporter
+        extends AbstractTransporter
+    {
+
+        private final boolean rangeSupport;
+
+        int failingOffset = -1;
+
+        final List<String> ranges = Collections.synchronizedList( new ArrayList<String>() );
+
+        RangeTransporter( boolean rangeSupport )
+        {
+            this.rangeSupport = rangeSupport;
+        }
+
+        public int classify( Throwable error )
+        {
+            return ERROR_OTHER;
+        }
+
+        @Override
+        protected void implPeek( PeekTask task )
+            throws Exception
+        {
+        }
+
+        @Override
+        protected void implGet( GetTask task )
+            throws Exception
+        {
+            int offset = 0, end = content.length;
+            if ( rangeSupport && task.getDataRangeLength() >= 0L )
+            {
+                offset = (int) task.getResumeOffset();
+                end = (int) Math.min( end, offset + task.getDataRangeLength() );
+            }
+            if ( offset == failingOffset )
+            {
+                throw new IOException( "failed" );
+            }
+            ranges.add( offset + "-" + ( end - 1 ) );
+            utilGet( task, new ByteArrayInputStream( content, offset, end - offset ), true, content.length,
+                     offset > 0 );
+        }
+
+        @Override
+        protected void implPut( PutTask task )
+            throws Exception
+        {
+        }
+
+        @Override
+        protected void implClose()
+        {
+        }
+
+    }
+
+}
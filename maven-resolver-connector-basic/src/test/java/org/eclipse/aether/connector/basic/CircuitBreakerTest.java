@@ -0,0 +1,125 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.ChecksumFailureException;
+import org.junit.Test;
+
+public class CircuitBreakerTest
+{
+
+    private static RemoteRepository newRepo( String url )
+    {
+        return new RemoteRepository.Builder( "test", "default", url ).build();
+    }
+
+    @Test
+    public void testSharedPerRepositoryUrl()
+    {
+        RepositorySystemSession session = TestUtils.newSession();
+        CircuitBreaker breaker = CircuitBreaker.getInstance( session, newRepo( "http://localhost/a" ), 3, 1000L );
+        assertNotNull( breaker );
+        assertSame( breaker, CircuitBreaker.getInstance( session, newRepo( "http://localhost/a" ), 3, 1000L ) );
+        assertNotSame( breaker, CircuitBreaker.getInstance( session, newRepo( "http://localhost/b" ), 3, 1000L ) );
+        assertNull( CircuitBreaker.getInstance( session, newRepo( "http://localhost/a" ), 0, 1000L ) );
+    }
+
+    @Test
+    public void testTripsAfterConsecutiveFailures()
+        throws Exception
+    {
+        CircuitBreaker breaker = new CircuitBreaker( "http://localhost", 2, 60L * 1000L );
+        breaker.acquire();
+        breaker.failed();
+        breaker.acquire();
+        breaker.succeeded();
+        breaker.acquire();
+        breaker.failed();
+        assertFalse( breaker.isOpen() );
+        breaker.acquire();
+        breaker.failed();
+        assertTrue( breaker.isOpen() );
+        try
+        {
+            breaker.acquire();
+            fail( "Expected error" );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( "http://localhost" ) );
+        }
+    }
+
+    @Test
+    public void testSingleTrialAfterCoolDown()
+        throws Exception
+    {
+        CircuitBreaker breaker = new CircuitBreaker( "http://localhost", 1, 0L );
+        breaker.failed();
+        breaker.acquire();
+        try
+        {
+            breaker.acquire();
+            fail( "Expected error" );
+        }
+        catch ( IOException e )
+        {
+            // only one trial at a time
+        }
+        breaker.succeeded();
+        breaker.acquire();
+        breaker.acquire();
+    }
+
+    @Test
+    public void testTransientErrors()
+    {
+        assertFalse( BasicRepositoryConnector.isTransient( new ConnectException() ) );
+        assertFalse( BasicRepositoryConnector.isTransient( new IOException( new UnknownHostException() ) ) );
+        assertTrue( BasicRepositoryConnector.isTransient( new SocketException( "Connection reset" ) ) );
+        assertTrue( BasicRepositoryConnector.isTransient( new IOException( new SocketTimeoutException() ) ) );
+        assertFalse( BasicRepositoryConnector.isTransient( new IOException( "Forbidden" ) ) );
+        assertFalse( BasicRepositoryConnector.isTransient( new ChecksumFailureException( "mismatch" ) ) );
+    }
+
+    @Test
+    public void testRetryDelay()
+    {
+        for ( int attempt = 0; attempt < 10; attempt++ )
+        {
+            long max = Math.min( 1000L, 100L << attempt );
+            long delay = BasicRepositoryConnector.getRetryDelay( attempt, 100L, 1000L );
+            assertTrue( attempt + ": " + delay, delay >= max / 2L && delay <= max );
+        }
+        assertEquals( 0L, BasicRepositoryConnector.getRetryDelay( 3, 0L, 1000L ) );
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.URI;
+
+import org.junit.Test;
+
+public class DownloadFlightTest
+{
+
+    private final File file = new File( "target/flight/file.jar" );
+
+    private final URI path = URI.create( "gid/aid/1/file.jar" );
+
+    @Test
+    public void testSecondDownloadAttachesToFirst()
+        throws Exception
+    {
+        DownloadFlight first = new DownloadFlight( file, "http://localhost/repo", path );
+        assertNull( first.takeOff() );
+        try
+        {
+            assertSame( first, new DownloadFlight( file, "http://localhost/repo", path ).takeOff() );
+        }
+        finally
+        {
+            first.land();
+        }
+        DownloadFlight next = new DownloadFlight( file, "http://localhost/repo", path );
+        assertNull( next.takeOff() );
+        next.land();
+    }
+
+    @Test
+    public void testDifferentRemoteLocationsAreNotShared()
+    {
+        DownloadFlight first = new DownloadFlight( file, "http://localhost/repo", path );
+        DownloadFlight second = new DownloadFlight( file, "http://localhost/mirror", path );
+        assertNull( first.takeOff() );
+        try
+        {
+            assertNull( second.takeOff() );
+            second.land();
+        }
+        finally
+        {
+            first.land();
+        }
+    }
+
+    @Test
+    public void testChecksumsValidated()
+    {
+        DownloadFlight flight = new DownloadFlight( file, "http://localhost/repo", path );
+        assertFalse( flight.isChecksumsValidated() );
+        flight.setChecksumsValidated();
+        assertTrue( flight.isChecksumsValidated() );
+    }
+
+    @Test( timeout = 10000L )
+    public void testOutcomeIsVisibleToWaiters()
+        throws Exception
+    {
+        final DownloadFlight first = new DownloadFlight( file, "http://localhost/repo", path );
+        assertNull( first.takeOff() );
+        final DownloadFlight leader = new DownloadFlight( file, "http://localhost/repo", path ).takeOff();
+        assertSame( first, leader );
+        final Boolean[] seen = { null };
+        Thread waiter = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    leader.await();
+                    seen[0] = leader.isFailed();
+                }
+                catch ( InterruptedException e )
+                {
+                    seen[0] = null;
+                }
+            }
+        };
+        waiter.start();
+        first.setFailed();
+        first.land();
+        waiter.join();
+        assertEquals( Boolean.TRUE, seen[0] );
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.eclipse.aether.connector.basic;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DownloadSchedulerTest
+{
+
+    private DefaultRepositorySystemSession session;
+
+    private List<String> executed;
+
+    private Executor executor;
+
+    @Before
+    public void init()
+    {
+        session = TestUtils.newSession();
+        executed = new ArrayList<String>();
+        executor = new Executor()
+        {
+            public void execute( Runnable command )
+            {
+                command.run();
+            }
+        };
+    }
+
+    private void add( DownloadScheduler scheduler, final String path, boolean peek )
+    {
+        scheduler.add( new Runnable()
+        {
+            public void run()
+            {
+                executed.add( path );
+            }
+        }, URI.create( path ), null, peek );
+    }
+
+    @Test
+    public void testSmallTransfersFirstAndLargeTransfersSpreadAcrossWorkers()
+    {
+        DownloadScheduler.Sizes sizes = DownloadScheduler.getSizes( session );
+        sizes.record( URI.create( "huge.zip" ), 100000000 );
+        sizes.record( URI.create( "big.jar" ), 20000000 );
+        sizes.record( URI.create( "large.jar" ), 5000000 );
+
+        DownloadScheduler scheduler = new DownloadScheduler( session, 4 );
+        add( scheduler, "large.jar", false );
+        add( scheduler, "lib.jar", false );
+        add( scheduler, "huge.zip", false );
+        add( scheduler, "lib.pom", false );
+        add( scheduler, "big.jar", false );
+        add( scheduler, "other.jar", true );
+        add( scheduler, "maven-metadata.xml", false );
+        scheduler.submit( executor );
+
+        assertEquals( Arrays.asList( "huge.zip", "big.jar", "other.jar", "lib.pom", "maven-metadata.xml", "lib.jar",
+                                     "large.jar" ), executed );
+    }
+
+    @Test
+    public void testRequestOrder()
+    {
+        session.setConfigProperty( DownloadScheduler.CONFIG_PROP_ORDER, DownloadScheduler.ORDER_REQUEST );
+        DownloadScheduler.getSizes( session ).record( URI.create( "huge.zip" ), 100000000 );
+
+        DownloadScheduler scheduler = new DownloadScheduler( session, 4 );
+        add( scheduler, "lib.jar", false );
+        add( scheduler, "huge.zip", false );
+        add( scheduler, "lib.pom", false );
+        scheduler.submit( executor );
+
+        assertEquals( Arrays.asList( "lib.jar", "huge.zip", "lib.pom" ), executed );
+    }
+
+    @Test
+    public void testEstimatesFromObservedSizes()
+    {
+        DownloadScheduler.Sizes sizes = DownloadScheduler.getSizes( session );
+        assertSame( sizes, DownloadScheduler.getSizes( session ) );
+
+        assertEquals( DownloadScheduler.SMALL, sizes.estimate( URI.create( "gid/aid/1/aid-1.pom" ), null ) );
+        assertEquals( DownloadScheduler.UNKNOWN, sizes.estimate( URI.create( "gid/aid/1/aid-1.jar" ), null ) );
+
+        sizes.record( URI.create( "gid/aid/1/aid-1.jar" ), 300 );
+        sizes.record( URI.create( "gid/aid/2/aid-2.jar" ), 500 );
+        assertEquals( 300, sizes.estimate( URI.create( "gid/aid/1/aid-1.jar" ), null ) );
+        assertEquals( 400, sizes.estimate( URI.create( "gid/aid/3/aid-3.jar" ), null ) );
+    }
+
+}
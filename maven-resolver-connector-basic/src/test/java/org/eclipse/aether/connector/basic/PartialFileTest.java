@@ -48,7 +48,7 @@ public class PartialFileTest
 
         Exception exception;
 
-        int invocations;
+        volatile int invocations;
 
         public void checkRemoteAccess()
             throws Exception
@@ -257,6 +257,70 @@ public class PartialFileTest
         partialFile.close();
     }
 
+    @Test
+    public void testPreallocateAndTruncate()
+        throws Exception
+    {
+        File allocFile = new File( partFile.getPath() + PartialFile.EXT_ALLOC );
+        PartialFile partialFile = newPartialFile( 0, 100 );
+        TestFileUtils.writeString( partialFile.getFile(), "Hello" );
+        partialFile.preallocate( 1024L );
+        assertTrue( partialFile.isPreallocated() );
+        assertEquals( 1024L, partFile.length() );
+        assertTrue( allocFile.getAbsolutePath(), allocFile.isFile() );
+        partialFile.truncate( 8L );
+        assertFalse( partialFile.isPreallocated() );
+        assertEquals( 8L, partFile.length() );
+        assertFalse( allocFile.getAbsolutePath(), allocFile.exists() );
+        partialFile.close();
+        assertTrue( partFile.getAbsolutePath(), partFile.isFile() );
+    }
+
+    @Test
+    public void testCloseDiscardsPreallocatedFile()
+        throws Exception
+    {
+        File allocFile = new File( partFile.getPath() + PartialFile.EXT_ALLOC );
+        PartialFile partialFile = newPartialFile( 0, 100 );
+        partialFile.preallocate( 1024L );
+        partialFile.close();
+        assertFalse( partFile.getAbsolutePath(), partFile.exists() );
+        assertFalse( allocFile.getAbsolutePath(), allocFile.exists() );
+    }
+
+    @Test
+    public void testDiscardPreallocatedFileOfInterruptedDownload()
+        throws Exception
+    {
+        File allocFile = new File( partFile.getPath() + PartialFile.EXT_ALLOC );
+        TestFileUtils.writeString( partFile, "zeros beyond downloaded data" );
+        TestFileUtils.writeString( allocFile, "" );
+        PartialFile partialFile = newPartialFile( 0, 100 );
+        assertNotNull( partialFile );
+        assertEquals( 0L, partFile.length() );
+        assertFalse( allocFile.getAbsolutePath(), allocFile.exists() );
+    }
+
+    @Test
+    public void testPreallocateInsufficientDiskSpace()
+        throws Exception
+    {
+        PartialFile partialFile = newPartialFile( 0, 100 );
+        long usable = partFile.getAbsoluteFile().getParentFile().getUsableSpace();
+        assumeTrue( usable > 0L && usable < Long.MAX_VALUE / 2L );
+        try
+        {
+            partialFile.preallocate( usable * 2L );
+            fail( "expected exception" );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( "Insufficient disk space" ) );
+        }
+        assertFalse( partialFile.isPreallocated() );
+        assertEquals( 0L, partFile.length() );
+    }
+
     @Test( timeout = 10000L )
     public void testResumeConcurrently_RequestTimeout()
         throws Exception
@@ -304,6 +368,43 @@ public class PartialFileTest
         assertEquals( 1, remoteAccessChecker.invocations );
     }
 
+    @Test( timeout = 10000L )
+    public void testResumeConcurrently_SameProcess_AwaitCompletion()
+        throws Exception
+    {
+        assertTrue( dstFile.setLastModified( System.currentTimeMillis() - 60L * 1000L ) );
+        PartialFile partialFile = newPartialFile( 0, 5000 );
+        assertNotNull( partialFile );
+        final Object[] result = { null };
+        Thread waiter = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    result[0] = newPartialFile( 0, 5000 );
+                }
+                catch ( Exception e )
+                {
+                    result[0] = e;
+                }
+            }
+        };
+        waiter.start();
+        while ( remoteAccessChecker.invocations <= 0 )
+        {
+            Thread.sleep( 10L );
+        }
+        assertTrue( waiter.isAlive() );
+        assertTrue( dstFile.setLastModified( System.currentTimeMillis() ) );
+        partialFile.close();
+        waiter.join( 2000L );
+        assertFalse( waiter.isAlive() );
+        assertNull( result[0] );
+        assertEquals( 1, remoteAccessChecker.invocations );
+    }
+
     @Test( timeout = 10000L )
     public void testResumeConcurrently_CheckRemoteAccess()
         throws Exception
@@ -0,0 +1,61 @@
+package org.eclipse.aether.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.aether.AsyncRepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResolutionListener;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+/**
+ * An artifact resolver that can report the outcome of individual artifacts while the resolution of a batch is still in
+ * progress. For artifact resolvers not implementing this interface, the repository system notifies the listener once
+ * the whole batch has been resolved.
+ * 
+ * @provisional This type is provisional and can be changed, moved or removed without prior notice.
+ */
+public interface NotifyingArtifactResolver
+    extends ArtifactResolver
+{
+
+    /**
+     * Resolves the paths for a collection of artifacts and reports the outcome of each artifact as soon as it is known.
+     * Artifacts will be downloaded to the local repository if necessary. Artifacts that are already resolved will be
+     * skipped and are not re-resolved. Note that this method assumes that any relocations have already been processed
+     * and the artifact coordinates are used as-is.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @param requests The resolution requests, must not be {@code null}.
+     * @param listener The listener to notify of each finished artifact, may be {@code null}.
+     * @return The resolution results (in request order), never {@code null}.
+     * @throws ArtifactResolutionException If any artifact could not be resolved.
+     * @see AsyncRepositorySystem#resolveArtifactsAsync(RepositorySystemSession, Collection, ArtifactResolutionListener)
+     */
+    List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                           Collection<? extends ArtifactRequest> requests,
+                                           ArtifactResolutionListener listener )
+        throws ArtifactResolutionException;
+
+}
@@ -0,0 +1,586 @@
+package org.eclipse.aether.internal.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.impl.RepositoryConnectorProvider;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.spi.connector.ArtifactDownload;
+import org.eclipse.aether.spi.connector.RepositoryConnector;
+import org.eclipse.aether.spi.io.FileProcessor;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.NoRepositoryConnectorException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.concurrency.TransferScheduler;
+
+/**
+ * Hedges slow artifact downloads. Once a download from the primary repository has been running for longer than a
+ * percentile of the download latencies observed so far in the session, the same artifact is additionally requested
+ * from an equivalent repository, i.e. one of the repositories mirrored by the primary repository. The worker threads
+ * are those of the session's {@link TransferScheduler}. The first download to succeed (and hence to pass the checksum validation of its
+ * connector) wins, the other one is cancelled upon its next transfer event. Without any alternative repository, the
+ * hedger merely reports each download as soon as it is finished rather than once the entire batch is done.
+ */
+final class ArtifactDownloadHedger
+{
+
+    static final String CONFIG_PROP_HEDGING = "aether.artifactResolver.hedging";
+
+    static final String CONFIG_PROP_PERCENTILE = "aether.artifactResolver.hedging.percentile";
+
+    static final String CONFIG_PROP_DELAY = "aether.artifactResolver.hedging.delay";
+
+    private static final String KEY_LATENCIES = ArtifactDownloadHedger.class.getName() + "$Latencies";
+
+    private final RepositorySystemSession session;
+
+    private final RepositoryConnectorProvider repositoryConnectorProvider;
+
+    private final RemoteRepositoryManager remoteRepositoryManager;
+
+    private final FileProcessor fileProcessor;
+
+    private final Logger logger;
+
+    private final TransferScheduler scheduler;
+
+    private final Latencies latencies;
+
+    private final long delay;
+
+    private final Object lock = new Object();
+
+    private RuntimeException error;
+
+    /**
+     * Determines whether hedging of artifact downloads is enabled for the specified session.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @return {@code true} if downloads should be hedged, {@code false} otherwise.
+     */
+    public static boolean isEnabled( RepositorySystemSession session )
+    {
+        return ConfigUtils.getBoolean( session, false, CONFIG_PROP_HEDGING );
+    }
+
+    public ArtifactDownloadHedger( RepositorySystemSession session,
+                                   RepositoryConnectorProvider repositoryConnectorProvider,
+                                   RemoteRepositoryManager remoteRepositoryManager, FileProcessor fileProcessor,
+                                   Logger logger )
+    {
+        this.session = session;
+        this.repositoryConnectorProvider = repositoryConnectorProvider;
+        this.remoteRepositoryManager = remoteRepositoryManager;
+        this.fileProcessor = fileProcessor;
+        this.logger = logger;
+        scheduler = TransferScheduler.getInstance( session );
+        latencies = getLatencies( session );
+        int percentile = Math.max( 1, Math.min( 100, ConfigUtils.getInteger( session, 95, CONFIG_PROP_PERCENTILE ) ) );
+        delay = latencies.getPercentile( percentile, ConfigUtils.getLong( session, 2000L, CONFIG_PROP_DELAY ) );
+    }
+
+    private static Latencies getLatencies( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return new Latencies();
+        }
+        Object latencies = data.get( KEY_LATENCIES );
+        while ( !( latencies instanceof Latencies ) )
+        {
+            Object old = latencies;
+            latencies = new Latencies();
+            if ( data.set( KEY_LATENCIES, old, latencies ) )
+            {
+                break;
+            }
+            latencies = data.get( KEY_LATENCIES );
+        }
+        return (Latencies) latencies;
+    }
+
+    /**
+     * Performs the specified downloads via the given connector and hedges them with the given alternative
+     * repositories. Each download is handed to the callback as soon as it is settled, carrying the outcome of its
+     * winning attempt, so callers can process finished downloads while others are still in progress. The callback is
+     * invoked from the calling thread. The connector is closed once all its transfers are finished, which might be
+     * after this method returns if a hedge won.
+     * 
+     * @param connector The connector for the primary repository, must not be {@code null}.
+     * @param downloads The downloads to perform, must not be {@code null}.
+     * @param alternatives The equivalent repositories to hedge individual downloads with, must not be {@code null}.
+     * @param callback The callback to notify of settled downloads, must not be {@code null}.
+     */
+    public void get( final RepositoryConnector connector, Collection<ArtifactDownload> downloads,
+                     Map<ArtifactDownload, RemoteRepository> alternatives, Callback callback )
+    {
+        final List<Hedge> hedges = new ArrayList<Hedge>( downloads.size() );
+        final List<ArtifactDownload> primaries = new ArrayList<ArtifactDownload>( downloads.size() );
+        for ( ArtifactDownload download : downloads )
+        {
+            Hedge hedge = new Hedge( download, alternatives.get( download ) );
+            hedges.add( hedge );
+            primaries.add( hedge.primary.download );
+        }
+
+        scheduler.newExecutor( 1 ).execute( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    connector.get( primaries, null );
+                }
+                catch ( RuntimeException e )
+                {
+                    synchronized ( lock )
+                    {
+                        error = e;
+                    }
+                }
+                finally
+                {
+                    connector.close();
+                    for ( Hedge hedge : hedges )
+                    {
+                        hedge.primary.finish();
+                    }
+                }
+            }
+        } );
+
+        await( hedges, callback );
+    }
+
+    private void await( List<Hedge> hedges, Callback callback )
+    {
+        boolean interrupted = false;
+        try
+        {
+            List<Hedge> pending = new LinkedList<Hedge>( hedges );
+            while ( !pending.isEmpty() )
+            {
+                List<Hedge> settled = new ArrayList<Hedge>();
+                synchronized ( lock )
+                {
+                    if ( error != null )
+                    {
+                        throw error;
+                    }
+                    long now = System.currentTimeMillis();
+                    long wait = Long.MAX_VALUE;
+                    for ( Iterator<Hedge> it = pending.iterator(); it.hasNext(); )
+                    {
+                        Hedge hedge = it.next();
+                        if ( hedge.isSettled() )
+                        {
+                            it.remove();
+                            settled.add( hedge );
+                            continue;
+                        }
+                        long deadline = hedge.getDeadline();
+                        if ( deadline <= now )
+                        {
+                            hedge.start();
+                        }
+                        else
+                        {
+                            wait = Math.min( wait, deadline - now );
+                        }
+                    }
+                    if ( settled.isEmpty() )
+                    {
+                        try
+                        {
+                            lock.wait( wait == Long.MAX_VALUE ? 0L : wait );
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            interrupted = true;
+                        }
+                    }
+                }
+                for ( Hedge hedge : settled )
+                {
+                    callback.downloaded( hedge.download, hedge.complete() );
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Receives the downloads handled by the hedger once they are settled.
+     */
+    interface Callback
+    {
+
+        /**
+         * Notifies the callback that the specified download is settled.
+         * 
+         * @param download The settled download, never {@code null}.
+         * @param repository The alternative repository that served the download or {@code null} if the download was
+         *            served by the primary repository or failed.
+         */
+        void downloaded( ArtifactDownload download, RemoteRepository repository );
+
+    }
+
+    /**
+     * Tracks a download from the primary repository along with its optional hedge.
+     */
+    final class Hedge
+    {
+
+        final ArtifactDownload download;
+
+        final RemoteRepository alternative;
+
+        final Attempt primary;
+
+        Attempt secondary;
+
+        Attempt winner;
+
+        Hedge( ArtifactDownload download, RemoteRepository alternative )
+        {
+            this.download = download;
+            this.alternative = alternative;
+            ArtifactDownload copy = new ArtifactDownload();
+            copy.setArtifact( download.getArtifact() );
+            copy.setFile( download.getFile() );
+            copy.setExistenceCheck( download.isExistenceCheck() );
+            copy.setChecksumPolicy( download.getChecksumPolicy() );
+            copy.setRequestContext( download.getRequestContext() );
+            copy.setRepositories( download.getRepositories() );
+            copy.setTrace( download.getTrace() );
+            primary = new Attempt( this, copy, download.getListener() );
+        }
+
+        long getDeadline()
+        {
+            if ( alternative == null || secondary != null || download.isExistenceCheck() || primary.initiated <= 0L )
+            {
+                return Long.MAX_VALUE;
+            }
+            return primary.initiated + delay;
+        }
+
+        boolean isSettled()
+        {
+            return winner != null || ( primary.done && ( secondary == null || secondary.done ) );
+        }
+
+        void finished( Attempt attempt )
+        {
+            if ( winner == null && attempt.download.getException() == null )
+            {
+                winner = attempt;
+                latencies.add( System.currentTimeMillis() - attempt.initiated );
+                Attempt loser = ( attempt == primary ) ? secondary : primary;
+                if ( loser != null && !loser.done )
+                {
+                    loser.cancelled = true;
+                }
+            }
+        }
+
+        void start()
+        {
+            Artifact artifact = download.getArtifact();
+            File file = download.getFile();
+            File tmp =
+                new File( file.getParentFile(), file.getName() + '-'
+                    + UUID.randomUUID().toString().replace( "-", "" ).substring( 0, 8 ) + ".hedge" );
+            boolean snapshot = artifact.isSnapshot();
+            RepositoryPolicy policy = remoteRepositoryManager.getPolicy( session, alternative, !snapshot, snapshot );
+
+            ArtifactDownload hedge = new ArtifactDownload();
+            hedge.setArtifact( artifact );
+            hedge.setFile( tmp );
+            hedge.setChecksumPolicy( policy.getChecksumPolicy() );
+            hedge.setRequestContext( download.getRequestContext() );
+            hedge.setRepositories( alternative.getMirroredRepositories() );
+            hedge.setTrace( download.getTrace() );
+            secondary = new Attempt( this, hedge, download.getListener() );
+
+            logger.debug( "Download of " + artifact + " exceeded " + delay + " ms, hedging with " + alternative );
+
+            final Attempt attempt = secondary;
+            scheduler.newExecutor( 1 ).execute( new Runnable()
+            {
+                public void run()
+                {
+                    ArtifactDownload hedge = attempt.download;
+                    try
+                    {
+                        RepositoryConnector connector =
+                            repositoryConnectorProvider.newRepositoryConnector( session, alternative );
+                        try
+                        {
+                            connector.get( Collections.singletonList( hedge ), null );
+                        }
+                        finally
+                        {
+                            connector.close();
+                        }
+                    }
+                    catch ( NoRepositoryConnectorException e )
+                    {
+                        hedge.setException( new ArtifactTransferException( hedge.getArtifact(), alternative, e ) );
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        hedge.setException( new ArtifactTransferException( hedge.getArtifact(), alternative, e ) );
+                    }
+                    finally
+                    {
+                        attempt.finish();
+                        synchronized ( lock )
+                        {
+                            if ( winner != attempt )
+                            {
+                                hedge.getFile().delete();
+                            }
+                        }
+                    }
+                }
+            } );
+        }
+
+        RemoteRepository complete()
+        {
+            if ( winner != null && winner == secondary )
+            {
+                try
+                {
+                    fileProcessor.move( secondary.download.getFile(), download.getFile() );
+                    download.setException( null );
+                    download.setSupportedContexts( secondary.download.getSupportedContexts() );
+                    return alternative;
+                }
+                catch ( IOException e )
+                {
+                    logger.debug( "Failed to move hedged download of " + download.getArtifact() + " into place: "
+                        + e.getMessage(), e );
+                    secondary.download.getFile().delete();
+                    if ( !primary.done )
+                    {
+                        download.setException( new ArtifactTransferException( download.getArtifact(), alternative,
+                                                                              e ) );
+                        return null;
+                    }
+                }
+            }
+            download.setException( primary.download.getException() );
+            download.setSupportedContexts( primary.download.getSupportedContexts() );
+            return null;
+        }
+
+    }
+
+    /**
+     * A single attempt to download an artifact, which notifies its hedge when finished and which can be cancelled.
+     */
+    final class Attempt
+        extends AbstractTransferListener
+    {
+
+        final Hedge hedge;
+
+        final ArtifactDownload download;
+
+        private final TransferListener listener;
+
+        long initiated;
+
+        boolean done;
+
+        volatile boolean cancelled;
+
+        Attempt( Hedge hedge, ArtifactDownload download, TransferListener listener )
+        {
+            this.hedge = hedge;
+            this.download = download;
+            this.listener = listener;
+            download.setListener( this );
+        }
+
+        void finish()
+        {
+            synchronized ( lock )
+            {
+                if ( !done )
+                {
+                    done = true;
+                    hedge.finished( this );
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        private void checkCancelled()
+            throws TransferCancelledException
+        {
+            if ( cancelled )
+            {
+                throw new TransferCancelledException( "Download of " + download.getArtifact()
+                    + " was cancelled in favor of a faster repository" );
+            }
+        }
+
+        @Override
+        public void transferInitiated( TransferEvent event )
+            throws TransferCancelledException
+        {
+            checkCancelled();
+            synchronized ( lock )
+            {
+                if ( initiated <= 0L )
+                {
+                    initiated = System.currentTimeMillis();
+                    lock.notifyAll();
+                }
+            }
+            if ( listener != null )
+            {
+                listener.transferInitiated( event );
+            }
+        }
+
+        @Override
+        public void transferStarted( TransferEvent event )
+            throws TransferCancelledException
+        {
+            checkCancelled();
+            if ( listener != null )
+            {
+                listener.transferStarted( event );
+            }
+        }
+
+        @Override
+        public void transferProgressed( TransferEvent event )
+            throws TransferCancelledException
+        {
+            checkCancelled();
+            if ( listener != null )
+            {
+                listener.transferProgressed( event );
+            }
+        }
+
+        @Override
+        public void transferCorrupted( TransferEvent event )
+            throws TransferCancelledException
+        {
+            checkCancelled();
+            if ( listener != null )
+            {
+                listener.transferCorrupted( event );
+            }
+        }
+
+        @Override
+        public void transferSucceeded( TransferEvent event )
+        {
+            if ( listener != null )
+            {
+                listener.transferSucceeded( event );
+            }
+            finish();
+        }
+
+        @Override
+        public void transferFailed( TransferEvent event )
+        {
+            if ( listener != null )
+            {
+                listener.transferFailed( event );
+            }
+            finish();
+        }
+
+    }
+
+    /**
+     * The latencies of successful downloads observed during a session, bounded to the most recent samples.
+     */
+    static final class Latencies
+    {
+
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] samples = new long[1024];
+
+        private int count;
+
+        private int next;
+
+        public synchronized void add( long latency )
+        {
+            samples[next] = Math.max( 0L, latency );
+            next = ( next + 1 ) % samples.length;
+            count = Math.min( count + 1, samples.length );
+        }
+
+        public synchronized long getPercentile( int percentile, long defaultValue )
+        {
+            if ( count < MIN_SAMPLES )
+            {
+                return defaultValue;
+            }
+            long[] sorted = Arrays.copyOf( samples, count );
+            Arrays.sort( sorted );
+            int index = (int) Math.ceil( percentile / 100.0 * count ) - 1;
+            return sorted[Math.max( 0, Math.min( count - 1, index ) )];
+        }
+
+    }
+
+}
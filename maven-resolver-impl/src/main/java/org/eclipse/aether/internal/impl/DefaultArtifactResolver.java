@@ -21,12 +21,19 @@ package org.eclipse.aether.internal.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -35,10 +42,11 @@ import org.eclipse.aether.RepositoryEvent;
 import org.eclipse.aether.RepositoryEvent.EventType;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.SessionData;
 import org.eclipse.aether.SyncContext;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.ArtifactProperties;
-import org.eclipse.aether.impl.ArtifactResolver;
+import org.eclipse.aether.impl.NotifyingArtifactResolver;
 import org.eclipse.aether.impl.OfflineController;
 import org.eclipse.aether.impl.RemoteRepositoryManager;
 import org.eclipse.aether.impl.RepositoryConnectorProvider;
@@ -58,6 +66,7 @@ import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.repository.WorkspaceReader;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResolutionListener;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.ResolutionErrorPolicy;
 import org.eclipse.aether.resolution.VersionRequest;
@@ -81,11 +90,21 @@ import org.eclipse.aether.util.ConfigUtils;
  */
 @Named
 public class DefaultArtifactResolver
-    implements ArtifactResolver, Service
+    implements NotifyingArtifactResolver, Service
 {
 
     private static final String CONFIG_PROP_SNAPSHOT_NORMALIZATION = "aether.artifactResolver.snapshotNormalization";
 
+    static final String CONFIG_PROP_SNAPSHOT_NORMALIZATION_LINKS =
+        "aether.artifactResolver.snapshotNormalization.hardLinks";
+
+    /**
+     * The key of the session data holding an {@link AtomicLong} with the number of bytes that snapshot normalization
+     * did not need to copy thanks to hard links.
+     */
+    public static final String SNAPSHOT_NORMALIZATION_BYTES_AVOIDED =
+        "aether.artifactResolver.snapshotNormalization.bytesAvoided";
+
     private Logger logger = NullLoggerFactory.LOGGER;
 
     private FileProcessor fileProcessor;
@@ -235,6 +254,14 @@ public class DefaultArtifactResolver
     public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
                                                   Collection<? extends ArtifactRequest> requests )
         throws ArtifactResolutionException
+    {
+        return resolveArtifacts( session, requests, null );
+    }
+
+    public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                  Collection<? extends ArtifactRequest> requests,
+                                                  ArtifactResolutionListener listener )
+        throws ArtifactResolutionException
     {
         SyncContext syncContext = syncContextFactory.newInstance( session, false );
 
@@ -252,7 +279,7 @@ public class DefaultArtifactResolver
 
             syncContext.acquire( artifacts, null );
 
-            return resolve( session, requests );
+            return resolve( session, requests, listener );
         }
         finally
         {
@@ -261,7 +288,8 @@ public class DefaultArtifactResolver
     }
 
     private List<ArtifactResult> resolve( RepositorySystemSession session,
-                                          Collection<? extends ArtifactRequest> requests )
+                                          Collection<? extends ArtifactRequest> requests,
+                                          ArtifactResolutionListener listener )
         throws ArtifactResolutionException
     {
         List<ArtifactResult> results = new ArrayList<ArtifactResult>( requests.size() );
@@ -272,6 +300,8 @@ public class DefaultArtifactResolver
 
         List<ResolutionGroup> groups = new ArrayList<ResolutionGroup>();
 
+        boolean hedging = ArtifactDownloadHedger.isEnabled( session );
+
         for ( ArtifactRequest request : requests )
         {
             RequestTrace trace = RequestTrace.newChild( request.getTrace(), request );
@@ -299,6 +329,7 @@ public class DefaultArtifactResolver
                     artifact = artifact.setFile( file );
                     result.setArtifact( artifact );
                     artifactResolved( session, trace, artifact, null, result.getExceptions() );
+                    resolved( listener, result );
                 }
                 continue;
             }
@@ -339,6 +370,7 @@ public class DefaultArtifactResolver
                     result.setArtifact( artifact );
                     result.setRepository( workspace.getRepository() );
                     artifactResolved( session, trace, artifact, result.getRepository(), null );
+                    resolved( listener, result );
                     continue;
                 }
             }
@@ -375,6 +407,10 @@ public class DefaultArtifactResolver
                      */
                     lrm.add( session, new LocalArtifactRegistration( artifact ) );
                 }
+                if ( result.isResolved() )
+                {
+                    resolved( listener, result );
+                }
                 continue;
             }
             else if ( local.getFile() != null )
@@ -383,6 +419,7 @@ public class DefaultArtifactResolver
             }
 
             AtomicBoolean resolved = new AtomicBoolean( false );
+            List<ResolutionItem> items = new ArrayList<ResolutionItem>();
             Iterator<ResolutionGroup> groupIt = groups.iterator();
             for ( RemoteRepository repo : repos )
             {
@@ -421,13 +458,23 @@ public class DefaultArtifactResolver
                     groups.add( group );
                     groupIt = Collections.<ResolutionGroup>emptyList().iterator();
                 }
-                group.items.add( new ResolutionItem( trace, artifact, resolved, result, local, repo ) );
+                ResolutionItem item = new ResolutionItem( trace, artifact, resolved, result, local, repo );
+                group.items.add( item );
+                items.add( item );
+            }
+
+            if ( hedging )
+            {
+                for ( int i = 0; i < items.size(); i++ )
+                {
+                    items.get( i ).alternative = getAlternative( session, artifact, items.get( i ).repository );
+                }
             }
         }
 
         for ( ResolutionGroup group : groups )
         {
-            performDownloads( session, group );
+            performDownloads( session, group, listener );
         }
 
         for ( ArtifactResult result : results )
@@ -445,6 +492,7 @@ public class DefaultArtifactResolver
                 }
                 RequestTrace trace = RequestTrace.newChild( request.getTrace(), request );
                 artifactResolved( session, trace, request.getArtifact(), null, result.getExceptions() );
+                resolved( listener, result );
             }
         }
 
@@ -478,6 +526,35 @@ public class DefaultArtifactResolver
         return false;
     }
 
+    /**
+     * Selects the repository to hedge a download from the specified repository with. Only the repositories being
+     * mirrored by the repository are considered equivalent, other repositories of the request might hold different
+     * contents and must not win over the repository which would have served the artifact otherwise.
+     */
+    private RemoteRepository getAlternative( RepositorySystemSession session, Artifact artifact,
+                                             RemoteRepository repository )
+    {
+        List<RemoteRepository> candidates = repository.getMirroredRepositories();
+        for ( RemoteRepository candidate : candidates )
+        {
+            if ( candidate.getUrl().equals( repository.getUrl() )
+                || !candidate.getPolicy( artifact.isSnapshot() ).isEnabled() )
+            {
+                continue;
+            }
+            try
+            {
+                Utils.checkOffline( session, offlineController, candidate );
+            }
+            catch ( RepositoryOfflineException e )
+            {
+                continue;
+            }
+            return candidate;
+        }
+        return null;
+    }
+
     private File getFile( RepositorySystemSession session, Artifact artifact, File file )
         throws ArtifactTransferException
     {
@@ -490,14 +567,24 @@ public class DefaultArtifactResolver
             boolean copy = dst.length() != file.length() || dst.lastModified() != file.lastModified();
             if ( copy )
             {
-                try
+                if ( ConfigUtils.getBoolean( session, false, CONFIG_PROP_SNAPSHOT_NORMALIZATION_LINKS )
+                    && link( file, dst ) )
                 {
-                    fileProcessor.copy( file, dst );
-                    dst.setLastModified( file.lastModified() );
+                    addBytesAvoided( session, file.length() );
                 }
-                catch ( IOException e )
+                else
                 {
-                    throw new ArtifactTransferException( artifact, null, e );
+                    try
+                    {
+                        // the base-version file might still be linked to a previous timestamped file
+                        Utils.unlink( dst );
+                        fileProcessor.copy( file, dst );
+                        dst.setLastModified( file.lastModified() );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new ArtifactTransferException( artifact, null, e );
+                    }
                 }
             }
 
@@ -507,7 +594,56 @@ public class DefaultArtifactResolver
         return file;
     }
 
-    private void performDownloads( RepositorySystemSession session, ResolutionGroup group )
+    /**
+     * Replaces the target file with a hard link to the source file. The link is created under a temporary name and
+     * then renamed to the target, so concurrent readers never observe a missing or partial target.
+     */
+    private boolean link( File source, File target )
+    {
+        File tmp =
+            new File( target.getParentFile(), target.getName() + '-'
+                + UUID.randomUUID().toString().replace( "-", "" ).substring( 0, 8 ) + ".tmp" );
+        try
+        {
+            Files.createLink( tmp.toPath(), source.toPath() );
+            Files.move( tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Failed to link " + target + " to " + source + ", falling back to copy: " + e );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            logger.debug( "Hard links are not supported for " + target + ", falling back to copy" );
+        }
+        tmp.delete();
+        return false;
+    }
+
+    private static void addBytesAvoided( RepositorySystemSession session, long bytes )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return;
+        }
+        Object counter = data.get( SNAPSHOT_NORMALIZATION_BYTES_AVOIDED );
+        while ( !( counter instanceof AtomicLong ) )
+        {
+            Object old = counter;
+            counter = new AtomicLong();
+            if ( data.set( SNAPSHOT_NORMALIZATION_BYTES_AVOIDED, old, counter ) )
+            {
+                break;
+            }
+            counter = data.get( SNAPSHOT_NORMALIZATION_BYTES_AVOIDED );
+        }
+        ( (AtomicLong) counter ).addAndGet( bytes );
+    }
+
+    private void performDownloads( final RepositorySystemSession session, final ResolutionGroup group,
+                                   final ArtifactResolutionListener listener )
     {
         List<ArtifactDownload> downloads = gatherDownloads( session, group );
         if ( downloads.isEmpty() )
@@ -520,10 +656,43 @@ public class DefaultArtifactResolver
             artifactDownloading( session, download.getTrace(), download.getArtifact(), group.repository );
         }
 
+        final Map<ArtifactDownload, ResolutionItem> items = new LinkedHashMap<ArtifactDownload, ResolutionItem>();
+        Map<ArtifactDownload, RemoteRepository> alternatives = new HashMap<ArtifactDownload, RemoteRepository>();
+        for ( ResolutionItem item : group.items )
+        {
+            if ( item.download == null )
+            {
+                continue;
+            }
+            items.put( item.download, item );
+            if ( item.alternative != null && !item.download.isExistenceCheck() )
+            {
+                alternatives.put( item.download, item.alternative );
+            }
+        }
+
         try
         {
             RepositoryConnector connector =
                 repositoryConnectorProvider.newRepositoryConnector( session, group.repository );
+            if ( !alternatives.isEmpty() || listener != null )
+            {
+                /*
+                 * NOTE: The hedger reports each download once it is settled which allows to evaluate the downloads
+                 * individually rather than waiting for the slowest download of the group.
+                 */
+                ArtifactDownloadHedger hedger =
+                    new ArtifactDownloadHedger( session, repositoryConnectorProvider, remoteRepositoryManager,
+                                                fileProcessor, logger );
+                hedger.get( connector, downloads, alternatives, new ArtifactDownloadHedger.Callback()
+                {
+                    public void downloaded( ArtifactDownload download, RemoteRepository repository )
+                    {
+                        evaluateDownload( session, group, items.get( download ), repository, listener );
+                    }
+                } );
+                return;
+            }
             try
             {
                 connector.get( downloads, null );
@@ -541,7 +710,10 @@ public class DefaultArtifactResolver
             }
         }
 
-        evaluateDownloads( session, group );
+        for ( ResolutionItem item : items.values() )
+        {
+            evaluateDownload( session, group, item, null, listener );
+        }
     }
 
     private List<ArtifactDownload> gatherDownloads( RepositorySystemSession session, ResolutionGroup group )
@@ -608,56 +780,71 @@ public class DefaultArtifactResolver
         return downloads;
     }
 
-    private void evaluateDownloads( RepositorySystemSession session, ResolutionGroup group )
+    private void evaluateDownload( RepositorySystemSession session, ResolutionGroup group, ResolutionItem item,
+                                   RemoteRepository alternative, ArtifactResolutionListener listener )
     {
         LocalRepositoryManager lrm = session.getLocalRepositoryManager();
 
-        for ( ResolutionItem item : group.items )
+        ArtifactDownload download = item.download;
+        Artifact artifact = download.getArtifact();
+        RemoteRepository repository = ( alternative != null ) ? alternative : group.repository;
+        if ( download.getException() == null )
         {
-            ArtifactDownload download = item.download;
-            if ( download == null )
-            {
-                continue;
-            }
-
-            Artifact artifact = download.getArtifact();
-            if ( download.getException() == null )
+            item.resolved.set( true );
+            item.result.setRepository( repository );
+            try
             {
-                item.resolved.set( true );
-                item.result.setRepository( group.repository );
-                try
-                {
-                    artifact = artifact.setFile( getFile( session, artifact, download.getFile() ) );
-                    item.result.setArtifact( artifact );
-
-                    lrm.add( session,
-                             new LocalArtifactRegistration( artifact, group.repository, download.getSupportedContexts() ) );
-                }
-                catch ( ArtifactTransferException e )
-                {
-                    download.setException( e );
-                    item.result.addException( e );
-                }
+                artifact = artifact.setFile( getFile( session, artifact, download.getFile() ) );
+                item.result.setArtifact( artifact );
+
+                /*
+                 * NOTE: A hedge only stands in for the repository being resolved from, the artifact needs to be
+                 * registered under the latter to be found by subsequent resolutions.
+                 */
+                lrm.add( session, new LocalArtifactRegistration( artifact, group.repository,
+                                                                 download.getSupportedContexts() ) );
             }
-            else
+            catch ( ArtifactTransferException e )
             {
-                item.result.addException( download.getException() );
+                download.setException( e );
+                item.result.addException( e );
             }
+        }
+        else
+        {
+            item.result.addException( download.getException() );
+        }
 
-            /*
-             * NOTE: Touch after registration with local repo to ensure concurrent resolution is not rejected with
-             * "already updated" via session data when actual update to local repo is still pending.
-             */
-            if ( item.updateCheck != null )
+        /*
+         * NOTE: Touch after registration with local repo to ensure concurrent resolution is not rejected with
+         * "already updated" via session data when actual update to local repo is still pending.
+         */
+        if ( item.updateCheck != null )
+        {
+            item.updateCheck.setException( download.getException() );
+            updateCheckManager.touchArtifact( session, item.updateCheck );
+        }
+
+        artifactDownloaded( session, download.getTrace(), artifact, repository, download.getException() );
+        if ( download.getException() == null )
+        {
+            artifactResolved( session, download.getTrace(), artifact, repository, null );
+            resolved( listener, item.result );
+        }
+    }
+
+    private void resolved( ArtifactResolutionListener listener, ArtifactResult result )
+    {
+        if ( listener != null )
+        {
+            try
             {
-                item.updateCheck.setException( download.getException() );
-                updateCheckManager.touchArtifact( session, item.updateCheck );
+                listener.artifactResolved( result );
             }
-
-            artifactDownloaded( session, download.getTrace(), artifact, group.repository, download.getException() );
-            if ( download.getException() == null )
+            catch ( RuntimeException e )
             {
-                artifactResolved( session, download.getTrace(), artifact, group.repository, null );
+                logger.warn( "Failed to notify " + listener.getClass().getCanonicalName() + " about "
+                    + result.getRequest().getArtifact() + ": " + e.getMessage(), e );
             }
         }
     }
@@ -752,6 +939,8 @@ public class DefaultArtifactResolver
 
         final AtomicBoolean resolved;
 
+        RemoteRepository alternative;
+
         ArtifactDownload download;
 
         UpdateCheck<Artifact, ArtifactTransferException> updateCheck;
@@ -279,6 +279,10 @@ public class DefaultInstaller
 
             if ( copy )
             {
+                if ( artifact.isSnapshot() )
+                {
+                    Utils.unlink( dstFile );
+                }
                 fileProcessor.copy( srcFile, dstFile );
                 dstFile.setLastModified( srcFile.lastModified() );
             }
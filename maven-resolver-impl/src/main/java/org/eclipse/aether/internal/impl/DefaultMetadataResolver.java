@@ -28,10 +28,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -73,7 +69,7 @@ import org.eclipse.aether.transfer.NoRepositoryConnectorException;
 import org.eclipse.aether.transfer.RepositoryOfflineException;
 import org.eclipse.aether.util.ConfigUtils;
 import org.eclipse.aether.util.concurrency.RunnableErrorForwarder;
-import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
+import org.eclipse.aether.util.concurrency.TransferScheduler;
 
 /**
  */
@@ -381,26 +377,19 @@ public class DefaultMetadataResolver
         if ( !tasks.isEmpty() )
         {
             int threads = ConfigUtils.getInteger( session, 4, CONFIG_PROP_THREADS );
-            Executor executor = getExecutor( Math.min( tasks.size(), threads ) );
-            try
-            {
-                RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+            Executor executor = getExecutor( session, Math.min( tasks.size(), threads ) );
+            RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
 
-                for ( ResolveTask task : tasks )
-                {
-                    executor.execute( errorForwarder.wrap( task ) );
-                }
+            for ( ResolveTask task : tasks )
+            {
+                executor.execute( errorForwarder.wrap( task ) );
+            }
 
-                errorForwarder.await();
+            errorForwarder.await();
 
-                for ( ResolveTask task : tasks )
-                {
-                    task.result.setException( task.exception );
-                }
-            }
-            finally
+            for ( ResolveTask task : tasks )
             {
-                shutdown( executor );
+                task.result.setException( task.exception );
             }
             for ( ResolveTask task : tasks )
             {
@@ -525,7 +514,7 @@ public class DefaultMetadataResolver
         repositoryEventDispatcher.dispatch( event.build() );
     }
 
-    private Executor getExecutor( int threads )
+    private Executor getExecutor( RepositorySystemSession session, int threads )
     {
         if ( threads <= 1 )
         {
@@ -539,16 +528,7 @@ public class DefaultMetadataResolver
         }
         else
         {
-            return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
-                                           new WorkerThreadFactory( null ) );
-        }
-    }
-
-    private void shutdown( Executor executor )
-    {
-        if ( executor instanceof ExecutorService )
-        {
-            ( (ExecutorService) executor ).shutdown();
+            return TransferScheduler.getInstance( session ).newExecutor( threads );
         }
     }
 
@@ -21,11 +21,17 @@ package org.eclipse.aether.internal.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.eclipse.aether.AsyncRepositorySystem;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.RequestTrace;
@@ -46,6 +52,7 @@ import org.eclipse.aether.impl.Deployer;
 import org.eclipse.aether.impl.Installer;
 import org.eclipse.aether.impl.LocalRepositoryProvider;
 import org.eclipse.aether.impl.MetadataResolver;
+import org.eclipse.aether.impl.NotifyingArtifactResolver;
 import org.eclipse.aether.impl.RemoteRepositoryManager;
 import org.eclipse.aether.impl.SyncContextFactory;
 import org.eclipse.aether.impl.VersionRangeResolver;
@@ -64,6 +71,7 @@ import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
 import org.eclipse.aether.resolution.ArtifactDescriptorResult;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResolutionListener;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
@@ -76,11 +84,15 @@ import org.eclipse.aether.resolution.VersionRangeResult;
 import org.eclipse.aether.resolution.VersionRequest;
 import org.eclipse.aether.resolution.VersionResolutionException;
 import org.eclipse.aether.resolution.VersionResult;
+import org.eclipse.aether.spi.connector.transport.TransporterPreWarmer;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
 import org.eclipse.aether.spi.locator.Service;
 import org.eclipse.aether.spi.locator.ServiceLocator;
 import org.eclipse.aether.spi.log.Logger;
 import org.eclipse.aether.spi.log.LoggerFactory;
 import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
 import org.eclipse.aether.util.graph.visitor.FilteringDependencyVisitor;
 import org.eclipse.aether.util.graph.visitor.TreeDependencyVisitor;
 
@@ -88,9 +100,11 @@ import org.eclipse.aether.util.graph.visitor.TreeDependencyVisitor;
  */
 @Named
 public class DefaultRepositorySystem
-    implements RepositorySystem, Service
+    implements RepositorySystem, AsyncRepositorySystem, Service
 {
 
+    static final String CONFIG_PROP_PRE_WARM = "aether.connector.preWarm";
+
     private Logger logger = NullLoggerFactory.LOGGER;
 
     private VersionResolver versionResolver;
@@ -115,6 +129,8 @@ public class DefaultRepositorySystem
 
     private RemoteRepositoryManager remoteRepositoryManager;
 
+    private TransporterProvider transporterProvider;
+
     public DefaultRepositorySystem()
     {
         // enables default constructor
@@ -126,7 +142,8 @@ public class DefaultRepositorySystem
                              ArtifactDescriptorReader artifactDescriptorReader,
                              DependencyCollector dependencyCollector, Installer installer, Deployer deployer,
                              LocalRepositoryProvider localRepositoryProvider, SyncContextFactory syncContextFactory,
-                             RemoteRepositoryManager remoteRepositoryManager, LoggerFactory loggerFactory )
+                             RemoteRepositoryManager remoteRepositoryManager, TransporterProvider transporterProvider,
+                             LoggerFactory loggerFactory )
     {
         setVersionResolver( versionResolver );
         setVersionRangeResolver( versionRangeResolver );
@@ -139,6 +156,7 @@ public class DefaultRepositorySystem
         setLocalRepositoryProvider( localRepositoryProvider );
         setSyncContextFactory( syncContextFactory );
         setRemoteRepositoryManager( remoteRepositoryManager );
+        setTransporterProvider( transporterProvider );
         setLoggerFactory( loggerFactory );
     }
 
@@ -156,6 +174,7 @@ public class DefaultRepositorySystem
         setLocalRepositoryProvider( locator.getService( LocalRepositoryProvider.class ) );
         setRemoteRepositoryManager( locator.getService( RemoteRepositoryManager.class ) );
         setSyncContextFactory( locator.getService( SyncContextFactory.class ) );
+        setTransporterProvider( locator.getService( TransporterProvider.class ) );
     }
 
     public DefaultRepositorySystem setLoggerFactory( LoggerFactory loggerFactory )
@@ -274,6 +293,16 @@ public class DefaultRepositorySystem
         return this;
     }
 
+    public DefaultRepositorySystem setTransporterProvider( TransporterProvider transporterProvider )
+    {
+        if ( transporterProvider == null )
+        {
+            throw new IllegalArgumentException( "transporter provider has not been specified" );
+        }
+        this.transporterProvider = transporterProvider;
+        return this;
+    }
+
     public VersionResult resolveVersion( RepositorySystemSession session, VersionRequest request )
         throws VersionResolutionException
     {
@@ -311,6 +340,118 @@ public class DefaultRepositorySystem
         return artifactResolver.resolveArtifacts( session, requests );
     }
 
+    public List<Future<ArtifactResult>> resolveArtifactsAsync( final RepositorySystemSession session,
+                                                                final Collection<? extends ArtifactRequest> requests,
+                                                                final ArtifactResolutionListener listener )
+    {
+        validateSession( session );
+        if ( requests == null )
+        {
+            throw new IllegalArgumentException( "artifact requests have not been specified" );
+        }
+
+        final List<ResultFuture> futures = new ArrayList<ResultFuture>( requests.size() );
+        final Map<ArtifactRequest, ResultFuture> pending = new IdentityHashMap<ArtifactRequest, ResultFuture>();
+        for ( ArtifactRequest request : requests )
+        {
+            ResultFuture future = new ResultFuture();
+            futures.add( future );
+            if ( !pending.containsKey( request ) )
+            {
+                pending.put( request, future );
+            }
+        }
+
+        final ArtifactResolutionListener callback = new ArtifactResolutionListener()
+        {
+            public void artifactResolved( ArtifactResult result )
+            {
+                try
+                {
+                    if ( listener != null )
+                    {
+                        listener.artifactResolved( result );
+                    }
+                }
+                finally
+                {
+                    ResultFuture future = pending.get( result.getRequest() );
+                    if ( future != null )
+                    {
+                        future.set( result );
+                    }
+                }
+            }
+        };
+
+        Runnable resolution = new Runnable()
+        {
+            public void run()
+            {
+                List<ArtifactResult> results;
+                try
+                {
+                    results = resolveArtifacts( session, requests, callback );
+                }
+                catch ( ArtifactResolutionException e )
+                {
+                    results = e.getResults();
+                }
+                catch ( RuntimeException e )
+                {
+                    for ( ResultFuture future : futures )
+                    {
+                        future.setException( e );
+                    }
+                    return;
+                }
+                for ( int i = 0; i < futures.size(); i++ )
+                {
+                    futures.get( i ).set( results.get( i ) );
+                }
+            }
+        };
+        // the thread only lives as long as the resolution, the transfers themselves run on the transfer scheduler
+        new WorkerThreadFactory( getClass().getSimpleName() + '-' ).newThread( resolution ).start();
+
+        return new ArrayList<Future<ArtifactResult>>( futures );
+    }
+
+    private List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                   Collection<? extends ArtifactRequest> requests,
+                                                   ArtifactResolutionListener listener )
+        throws ArtifactResolutionException
+    {
+        if ( artifactResolver instanceof NotifyingArtifactResolver )
+        {
+            return ( (NotifyingArtifactResolver) artifactResolver ).resolveArtifacts( session, requests, listener );
+        }
+
+        List<ArtifactResult> results;
+        try
+        {
+            results = artifactResolver.resolveArtifacts( session, requests );
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            notify( listener, e.getResults() );
+            throw e;
+        }
+        notify( listener, results );
+        return results;
+    }
+
+    private static void notify( ArtifactResolutionListener listener, List<ArtifactResult> results )
+    {
+        if ( listener != null )
+        {
+            for ( ArtifactResult result : results )
+            {
+                listener.artifactResolved( result );
+            }
+        }
+    }
+
     public List<MetadataResult> resolveMetadata( RepositorySystemSession session,
                                                  Collection<? extends MetadataRequest> requests )
     {
@@ -379,7 +520,7 @@ public class DefaultRepositorySystem
             try
             {
                 List<ArtifactRequest> requests = builder.getRequests();
-                results = artifactResolver.resolveArtifacts( session, requests );
+                results = resolveArtifacts( session, requests, request.getArtifactResolutionListener() );
             }
             catch ( ArtifactResolutionException e )
             {
@@ -455,9 +596,23 @@ public class DefaultRepositorySystem
         repositories =
             remoteRepositoryManager.aggregateRepositories( session, new ArrayList<RemoteRepository>(), repositories,
                                                            true );
+        preWarm( session, repositories );
         return repositories;
     }
 
+    /**
+     * Lets the transport prepare connections to the effective repositories of a session in the background, such that
+     * the first transfers do not pay for the connection setup inline.
+     */
+    private void preWarm( RepositorySystemSession session, List<RemoteRepository> repositories )
+    {
+        if ( transporterProvider instanceof TransporterPreWarmer && !repositories.isEmpty()
+            && ConfigUtils.getBoolean( session, false, CONFIG_PROP_PRE_WARM ) )
+        {
+            ( (TransporterPreWarmer) transporterProvider ).preWarm( session, repositories );
+        }
+    }
+
     public RemoteRepository newDeploymentRepository( RepositorySystemSession session, RemoteRepository repository )
     {
         validateSession( session );
@@ -518,4 +673,38 @@ public class DefaultRepositorySystem
         throw new IllegalArgumentException( "Invalid repository system session: " + name + " is not set." );
     }
 
+    /**
+     * The pending result of an artifact being resolved in the background.
+     */
+    private static final class ResultFuture
+        extends FutureTask<ArtifactResult>
+    {
+
+        private static final Callable<ArtifactResult> NONE = new Callable<ArtifactResult>()
+        {
+            public ArtifactResult call()
+            {
+                throw new IllegalStateException( "result is set by the resolver" );
+            }
+        };
+
+        ResultFuture()
+        {
+            super( NONE );
+        }
+
+        @Override
+        public void set( ArtifactResult result )
+        {
+            super.set( result );
+        }
+
+        @Override
+        public void setException( Throwable t )
+        {
+            super.setException( t );
+        }
+
+    }
+
 }
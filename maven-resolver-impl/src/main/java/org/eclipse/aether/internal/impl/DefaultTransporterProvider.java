@@ -31,6 +31,7 @@ import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.spi.connector.transport.Transporter;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterPreWarmer;
 import org.eclipse.aether.spi.connector.transport.TransporterProvider;
 import org.eclipse.aether.spi.locator.Service;
 import org.eclipse.aether.spi.locator.ServiceLocator;
@@ -43,7 +44,7 @@ import org.eclipse.aether.transfer.NoTransporterException;
  */
 @Named
 public final class DefaultTransporterProvider
-    implements TransporterProvider, Service
+    implements TransporterProvider, TransporterPreWarmer, Service
 {
 
     private Logger logger = NullLoggerFactory.LOGGER;
@@ -160,4 +161,34 @@ public final class DefaultTransporterProvider
         throw new NoTransporterException( repository, buffer.toString(), errors.size() == 1 ? errors.get( 0 ) : null );
     }
 
+    public void preWarm( RepositorySystemSession session, Collection<RemoteRepository> repositories )
+    {
+        if ( repositories == null )
+        {
+            throw new IllegalArgumentException( "remote repositories have not been specified" );
+        }
+
+        PrioritizedComponents<TransporterFactory> factories = new PrioritizedComponents<TransporterFactory>( session );
+        for ( TransporterFactory factory : this.factories )
+        {
+            factories.add( factory, factory.getPriority() );
+        }
+
+        for ( PrioritizedComponent<TransporterFactory> factory : factories.getEnabled() )
+        {
+            if ( factory.getComponent() instanceof TransporterPreWarmer )
+            {
+                try
+                {
+                    ( (TransporterPreWarmer) factory.getComponent() ).preWarm( session, repositories );
+                }
+                catch ( RuntimeException e )
+                {
+                    logger.debug( "Failed to pre-warm transport via " + factory.getComponent().getClass().getName(),
+                                  e );
+                }
+            }
+        }
+    }
+
 }
@@ -26,8 +26,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.repository.LocalArtifactRegistration;
 import org.eclipse.aether.repository.LocalArtifactRequest;
@@ -53,6 +55,12 @@ import org.eclipse.aether.util.ConfigUtils;
  * artifact-1.0.pom>my_repo_id=
  * </pre>
  * 
+ * The tracking information of existing artifact files is cached in the session data, such that repeated lookups of
+ * the same artifact within a session do not lock the tracking file again. The presence of the artifact file itself is
+ * still checked on every request, so files deleted during the session are not reported. Cache entries are invalidated
+ * when an artifact is {@link #add(RepositorySystemSession, LocalArtifactRegistration) added}.
+ * The cache can be disabled via the configuration property {@code aether.enhancedLocalRepository.sessionCache}.
+ * 
  * @see EnhancedLocalRepositoryManagerFactory
  */
 class EnhancedLocalRepositoryManager
@@ -61,6 +69,15 @@ class EnhancedLocalRepositoryManager
 
     private static final String LOCAL_REPO_ID = "";
 
+    static final String CONFIG_PROP_SESSION_CACHE = "aether.enhancedLocalRepository.sessionCache";
+
+    private static final String SESSION_CACHE = EnhancedLocalRepositoryManager.class.getName() + "$Artifacts";
+
+    /**
+     * Marker for artifact files that do not exist, compared by identity. Never put into the session cache.
+     */
+    private static final Properties MISSING = new Properties();
+
     private final String trackingFilename;
 
     private final TrackingFileManager trackingFileManager;
@@ -94,12 +111,11 @@ class EnhancedLocalRepositoryManager
 
         LocalArtifactResult result = new LocalArtifactResult( request );
 
-        if ( file.isFile() )
+        Properties props = getTrackingInfo( session, file );
+        if ( props != MISSING )
         {
             result.setFile( file );
 
-            Properties props = readRepos( file );
-
             if ( props.get( getKey( file, LOCAL_REPO_ID ) ) != null )
             {
                 // artifact installed into the local repo is always accepted
@@ -146,6 +162,59 @@ class EnhancedLocalRepositoryManager
             repositories = getRepositoryKeys( request.getRepository(), request.getContexts() );
         }
         addArtifact( request.getArtifact(), repositories, request.getRepository() == null );
+
+        Map<File, Properties> cache = getCache( session );
+        if ( cache != null )
+        {
+            File basedir = getRepository().getBasedir();
+            cache.remove( new File( basedir, getPathForArtifact( request.getArtifact(), false ) ) );
+            cache.remove( new File( basedir, getPathForArtifact( request.getArtifact(), true ) ) );
+        }
+    }
+
+    private Properties getTrackingInfo( RepositorySystemSession session, File file )
+    {
+        Map<File, Properties> cache = getCache( session );
+        if ( !file.isFile() )
+        {
+            if ( cache != null )
+            {
+                cache.remove( file );
+            }
+            return MISSING;
+        }
+        Properties props = ( cache != null ) ? cache.get( file ) : null;
+        if ( props == null )
+        {
+            props = readRepos( file );
+            if ( cache != null )
+            {
+                cache.put( file, props );
+            }
+        }
+        return props;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Map<File, Properties> getCache( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null || !ConfigUtils.getBoolean( session, true, CONFIG_PROP_SESSION_CACHE ) )
+        {
+            return null;
+        }
+        Object cache = data.get( SESSION_CACHE );
+        while ( !( cache instanceof Map ) )
+        {
+            Object old = cache;
+            cache = new ConcurrentHashMap<File, Properties>( 256 );
+            if ( data.set( SESSION_CACHE, old, cache ) )
+            {
+                break;
+            }
+            cache = data.get( SESSION_CACHE );
+        }
+        return (Map<File, Properties>) cache;
     }
 
     private Collection<String> getRepositoryKeys( RemoteRepository repository, Collection<String> contexts )
@@ -19,6 +19,9 @@ package org.eclipse.aether.internal.impl;
  * under the License.
  */
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -125,4 +128,36 @@ final class Utils
         }
     }
 
+    /**
+     * Deletes the specified file if it has other hard links, such that subsequently writing to the file does not
+     * modify the contents seen via the other links. Only the base-version files of snapshots are ever linked, by the
+     * snapshot normalization of the artifact resolver, so only writes to those need this. This is a no-op on file
+     * systems that don't report link counts.
+     * 
+     * @param file The file to unlink, must not be {@code null}.
+     */
+    public static void unlink( File file )
+    {
+        try
+        {
+            Object links = Files.getAttribute( file.toPath(), "unix:nlink" );
+            if ( links instanceof Integer && (Integer) links > 1 )
+            {
+                Files.delete( file.toPath() );
+            }
+        }
+        catch ( IOException e )
+        {
+            // missing file, nothing to unlink
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // no link count available, nothing to unlink
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // no link count available, nothing to unlink
+        }
+    }
+
 }
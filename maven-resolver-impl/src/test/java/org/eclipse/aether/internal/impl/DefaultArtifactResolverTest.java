@@ -23,11 +23,17 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryEvent;
@@ -59,14 +65,18 @@ import org.eclipse.aether.repository.WorkspaceReader;
 import org.eclipse.aether.repository.WorkspaceRepository;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResolutionListener;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRequest;
 import org.eclipse.aether.resolution.VersionResolutionException;
 import org.eclipse.aether.resolution.VersionResult;
 import org.eclipse.aether.spi.connector.ArtifactDownload;
 import org.eclipse.aether.spi.connector.MetadataDownload;
+import org.eclipse.aether.spi.connector.RepositoryConnector;
 import org.eclipse.aether.transfer.ArtifactNotFoundException;
 import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
 import org.eclipse.aether.util.repository.SimpleResolutionErrorPolicy;
 import org.junit.After;
 import org.junit.Before;
@@ -906,4 +916,351 @@ public class DefaultArtifactResolverTest
         assertEquals( artifact, resolved );
     }
 
+    @Test
+    public void testHedgedDownloadFromAlternativeRepository()
+        throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final RecordingRepositoryConnector slow = new RecordingRepositoryConnector( session )
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                try
+                {
+                    for ( ArtifactDownload download : artifactDownloads )
+                    {
+                        TransferEvent.Builder event =
+                            new TransferEvent.Builder( session, new TransferResource( null, null, null, null, null ) );
+                        download.getListener().transferInitiated( event.build() );
+                    }
+                    release.await( 10, TimeUnit.SECONDS );
+                }
+                catch ( Exception e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                super.get( artifactDownloads, metadataDownloads );
+            }
+        };
+        slow.fail = true;
+        final RecordingRepositoryConnector fast = new RecordingRepositoryConnector( session );
+        fast.setExpectGet( artifact );
+
+        resolver.setRepositoryConnectorProvider( new StubRepositoryConnectorProvider()
+        {
+            @Override
+            public RepositoryConnector newRepositoryConnector( RepositorySystemSession session,
+                                                               RemoteRepository repository )
+            {
+                return "slow".equals( repository.getId() ) ? slow : fast;
+            }
+        } );
+
+        session.setConfigProperty( ArtifactDownloadHedger.CONFIG_PROP_HEDGING, Boolean.TRUE );
+        session.setConfigProperty( ArtifactDownloadHedger.CONFIG_PROP_DELAY, 50 );
+
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        RemoteRepository fastRepo = new RemoteRepository.Builder( "fast", "default", "file:///fast" ).build();
+        RemoteRepository slowRepo = new RemoteRepository.Builder( "slow", "default", "file:///slow" ).build();
+        slowRepo = new RemoteRepository.Builder( slowRepo ).setMirroredRepositories( Arrays.asList( fastRepo ) ).build();
+        request.addRepository( slowRepo );
+
+        try
+        {
+            ArtifactResult result = resolver.resolveArtifact( session, request );
+
+            assertTrue( result.getExceptions().isEmpty() );
+            assertEquals( "fast", result.getRepository().getId() );
+            assertEquals( artifact.toString(), TestFileUtils.readString( result.getArtifact().getFile() ) );
+            fast.assertSeenExpected();
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testHedgedDownloadRegisteredForRequestedRepository()
+        throws Exception
+    {
+        session.setLocalRepositoryManager( new EnhancedLocalRepositoryManager( lrm.getRepository().getBasedir(),
+                                                                               session ) );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final RecordingRepositoryConnector slow = new RecordingRepositoryConnector( session )
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                try
+                {
+                    for ( ArtifactDownload download : artifactDownloads )
+                    {
+                        TransferEvent.Builder event =
+                            new TransferEvent.Builder( session, new TransferResource( null, null, null, null, null ) );
+                        download.getListener().transferInitiated( event.build() );
+                    }
+                    release.await( 10, TimeUnit.SECONDS );
+                }
+                catch ( Exception e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                super.get( artifactDownloads, metadataDownloads );
+            }
+        };
+        slow.fail = true;
+        final RecordingRepositoryConnector fast = new RecordingRepositoryConnector( session );
+        fast.setExpectGet( artifact );
+
+        resolver.setRepositoryConnectorProvider( new StubRepositoryConnectorProvider()
+        {
+            @Override
+            public RepositoryConnector newRepositoryConnector( RepositorySystemSession session,
+                                                               RemoteRepository repository )
+            {
+                return "slow".equals( repository.getId() ) ? slow : fast;
+            }
+        } );
+
+        session.setConfigProperty( ArtifactDownloadHedger.CONFIG_PROP_HEDGING, Boolean.TRUE );
+        session.setConfigProperty( ArtifactDownloadHedger.CONFIG_PROP_DELAY, 50 );
+
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        RemoteRepository fastRepo = new RemoteRepository.Builder( "fast", "default", "file:///fast" ).build();
+        RemoteRepository slowRepo = new RemoteRepository.Builder( "slow", "default", "file:///slow" ).build();
+        slowRepo = new RemoteRepository.Builder( slowRepo ).setMirroredRepositories( Arrays.asList( fastRepo ) ).build();
+        request.addRepository( slowRepo );
+
+        try
+        {
+            ArtifactResult result = resolver.resolveArtifact( session, request );
+            assertTrue( result.getExceptions().isEmpty() );
+            assertEquals( "fast", result.getRepository().getId() );
+            fast.assertSeenExpected();
+        }
+        finally
+        {
+            release.countDown();
+        }
+
+        RecordingRepositoryConnector none = new RecordingRepositoryConnector( session );
+        repositoryConnectorProvider.setConnector( none );
+        resolver.setRepositoryConnectorProvider( repositoryConnectorProvider );
+
+        ArtifactResult result = resolver.resolveArtifact( session, request );
+
+        assertTrue( result.getExceptions().isEmpty() );
+        assertEquals( "slow", result.getRepository().getId() );
+        assertEquals( artifact.toString(), TestFileUtils.readString( result.getArtifact().getFile() ) );
+        none.assertSeenExpected();
+    }
+
+    @Test
+    public void testNoHedgingWithNonMirroredRepository()
+        throws Exception
+    {
+        final RecordingRepositoryConnector slow = new RecordingRepositoryConnector( session )
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                try
+                {
+                    for ( ArtifactDownload download : artifactDownloads )
+                    {
+                        if ( download.getListener() != null )
+                        {
+                            TransferEvent.Builder event =
+                                new TransferEvent.Builder( session, new TransferResource( null, null, null, null,
+                                                                                          null ) );
+                            download.getListener().transferInitiated( event.build() );
+                        }
+                    }
+                    Thread.sleep( 300 );
+                }
+                catch ( Exception e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                super.get( artifactDownloads, metadataDownloads );
+            }
+        };
+        slow.setExpectGet( artifact );
+        final RecordingRepositoryConnector other = new RecordingRepositoryConnector( session );
+
+        resolver.setRepositoryConnectorProvider( new StubRepositoryConnectorProvider()
+        {
+            @Override
+            public RepositoryConnector newRepositoryConnector( RepositorySystemSession session,
+                                                               RemoteRepository repository )
+            {
+                return "slow".equals( repository.getId() ) ? slow : other;
+            }
+        } );
+
+        session.setConfigProperty( ArtifactDownloadHedger.CONFIG_PROP_HEDGING, Boolean.TRUE );
+        session.setConfigProperty( ArtifactDownloadHedger.CONFIG_PROP_DELAY, 50 );
+
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        request.addRepository( new RemoteRepository.Builder( "slow", "default", "file:///slow" ).build() );
+        request.addRepository( new RemoteRepository.Builder( "other", "default", "file:///other" ).build() );
+
+        ArtifactResult result = resolver.resolveArtifact( session, request );
+
+        assertTrue( result.getExceptions().isEmpty() );
+        assertEquals( "slow", result.getRepository().getId() );
+        slow.assertSeenExpected();
+        other.assertSeenExpected();
+    }
+
+    @Test
+    public void testSnapshotNormalizationWithHardLinks()
+        throws Exception
+    {
+        session.setConfigProperty( DefaultArtifactResolver.CONFIG_PROP_SNAPSHOT_NORMALIZATION_LINKS, Boolean.TRUE );
+        artifact = new DefaultArtifact( "gid", "aid", "", "ext", "1.0-20110329.221805-4" );
+        connector.setExpectGet( artifact );
+
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        request.addRepository( new RemoteRepository.Builder( "id", "default", "file:///" ).build() );
+
+        ArtifactResult result = resolver.resolveArtifact( session, request );
+
+        assertTrue( result.getExceptions().isEmpty() );
+        File normalized = result.getArtifact().getFile();
+        assertTrue( normalized.getName(), normalized.getName().endsWith( "aid-1.0-SNAPSHOT.ext" ) );
+        File timestamped =
+            new File( normalized.getParentFile(), normalized.getName().replace( "SNAPSHOT", "20110329.221805-4" ) );
+        assertTrue( Files.isSameFile( timestamped.toPath(), normalized.toPath() ) );
+
+        AtomicLong bytesAvoided =
+            (AtomicLong) session.getData().get( DefaultArtifactResolver.SNAPSHOT_NORMALIZATION_BYTES_AVOIDED );
+        assertEquals( timestamped.length(), bytesAvoided.get() );
+        connector.assertSeenExpected();
+    }
+
+    @Test
+    public void testSnapshotNormalizationDoesNotModifyLinkedFile()
+        throws Exception
+    {
+        session.setLocalRepositoryManager( new EnhancedLocalRepositoryManager( lrm.getRepository().getBasedir(),
+                                                                               session ) );
+        session.setConfigProperty( DefaultArtifactResolver.CONFIG_PROP_SNAPSHOT_NORMALIZATION_LINKS, Boolean.TRUE );
+        Artifact first = new DefaultArtifact( "gid", "aid", "", "ext", "1.0-20110329.221805-4" );
+        connector.setExpectGet( first );
+        RemoteRepository repo = new RemoteRepository.Builder( "id", "default", "file:///" ).build();
+        ArtifactResult result =
+            resolver.resolveArtifact( session, new ArtifactRequest( first, Arrays.asList( repo ), "" ) );
+        File normalized = result.getArtifact().getFile();
+        File timestamped =
+            new File( normalized.getParentFile(), normalized.getName().replace( "SNAPSHOT", "20110329.221805-4" ) );
+        assertTrue( Files.isSameFile( timestamped.toPath(), normalized.toPath() ) );
+
+        session.setConfigProperty( DefaultArtifactResolver.CONFIG_PROP_SNAPSHOT_NORMALIZATION_LINKS, Boolean.FALSE );
+        Artifact second = new DefaultArtifact( "gid", "aid", "", "ext", "1.0-20110329.221805-5" );
+        connector.resetActual();
+        connector.setExpectGet( second );
+        result = resolver.resolveArtifact( session, new ArtifactRequest( second, Arrays.asList( repo ), "" ) );
+
+        assertTrue( result.getExceptions().isEmpty() );
+        assertEquals( normalized, result.getArtifact().getFile() );
+        assertEquals( second.toString(), TestFileUtils.readString( normalized ) );
+        assertEquals( first.toString(), TestFileUtils.readString( timestamped ) );
+        connector.assertSeenExpected();
+    }
+
+
+    @Test
+    public void testListenerIsNotifiedAsEachArtifactIsDownloaded()
+        throws Exception
+    {
+        final Artifact first = new DefaultArtifact( "gid", "aid", "", "ext", "1" );
+        final Artifact second = new DefaultArtifact( "gid", "aid", "", "ext", "2" );
+        final CountDownLatch reported = new CountDownLatch( 1 );
+        final List<Boolean> reportedEarly = new ArrayList<Boolean>();
+        RecordingRepositoryConnector stepwise = new RecordingRepositoryConnector( session )
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                for ( ArtifactDownload download : artifactDownloads )
+                {
+                    if ( download.getArtifact().equals( second ) )
+                    {
+                        try
+                        {
+                            reportedEarly.add( reported.await( 5, TimeUnit.SECONDS ) );
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            throw new IllegalStateException( e );
+                        }
+                    }
+                    super.get( Collections.singletonList( download ), null );
+                }
+            }
+        };
+        stepwise.setExpectGet( first, second );
+        repositoryConnectorProvider.setConnector( stepwise );
+
+        RemoteRepository repo = new RemoteRepository.Builder( "id", "default", "file:///" ).build();
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( first, Arrays.asList( repo ), "" ),
+                           new ArtifactRequest( second, Arrays.asList( repo ), "" ) );
+
+        final List<Artifact> notified = new ArrayList<Artifact>();
+        List<ArtifactResult> results = resolver.resolveArtifacts( session, requests, new ArtifactResolutionListener()
+        {
+            public void artifactResolved( ArtifactResult result )
+            {
+                assertTrue( result.isResolved() );
+                notified.add( result.getRequest().getArtifact() );
+                reported.countDown();
+            }
+        } );
+
+        assertEquals( 2, results.size() );
+        assertEquals( Arrays.asList( first, second ), notified );
+        assertEquals( Arrays.asList( Boolean.TRUE ), reportedEarly );
+        stepwise.assertSeenExpected();
+    }
+
+    @Test
+    public void testListenerIsNotifiedOfFailure()
+        throws Exception
+    {
+        connector = new RecordingRepositoryConnector( session );
+        connector.fail = true;
+        connector.setExpectGet( artifact );
+        repositoryConnectorProvider.setConnector( connector );
+
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        request.addRepository( new RemoteRepository.Builder( "id", "default", "file:///" ).build() );
+
+        final List<ArtifactResult> notified = new ArrayList<ArtifactResult>();
+        try
+        {
+            resolver.resolveArtifacts( session, Arrays.asList( request ), new ArtifactResolutionListener()
+            {
+                public void artifactResolved( ArtifactResult result )
+                {
+                    notified.add( result );
+                }
+            } );
+            fail( "expected exception" );
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            assertEquals( e.getResults(), notified );
+            assertFalse( notified.get( 0 ).isResolved() );
+        }
+        connector.assertSeenExpected();
+    }
+
 }
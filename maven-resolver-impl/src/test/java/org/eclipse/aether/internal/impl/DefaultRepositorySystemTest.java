@@ -21,8 +21,15 @@ package org.eclipse.aether.internal.impl;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystemSession;
@@ -31,13 +38,23 @@ import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.collection.CollectResult;
 import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.impl.ArtifactResolver;
 import org.eclipse.aether.impl.DependencyCollector;
+import org.eclipse.aether.impl.NotifyingArtifactResolver;
 import org.eclipse.aether.internal.test.util.TestUtils;
 import org.eclipse.aether.repository.Authentication;
 import org.eclipse.aether.repository.Proxy;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResolutionListener;
+import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterPreWarmer;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
+import org.eclipse.aether.transfer.NoTransporterException;
 import org.eclipse.aether.util.repository.AuthenticationBuilder;
 import org.eclipse.aether.util.repository.DefaultAuthenticationSelector;
 import org.eclipse.aether.util.repository.DefaultMirrorSelector;
@@ -97,6 +114,21 @@ public class DefaultRepositorySystemTest
         assertSame( auth, resolveRepo.getAuthentication() );
     }
 
+    @Test
+    public void testNewResolutionRepositories_PreWarm()
+    {
+        RecordingTransporterProvider transporterProvider = new RecordingTransporterProvider();
+        system.setTransporterProvider( transporterProvider );
+        RemoteRepository rawRepo = new RemoteRepository.Builder( "test", "default", "http://void" ).build();
+
+        system.newResolutionRepositories( session, Arrays.asList( rawRepo ) );
+        assertEquals( 0, transporterProvider.preWarmed.size() );
+
+        session.setConfigProperty( DefaultRepositorySystem.CONFIG_PROP_PRE_WARM, true );
+        List<RemoteRepository> resolveRepos = system.newResolutionRepositories( session, Arrays.asList( rawRepo ) );
+        assertEquals( Arrays.asList( resolveRepos ), transporterProvider.preWarmed );
+    }
+
     @Test
     public void testNewDeploymentRepository()
     {
@@ -146,4 +178,138 @@ public class DefaultRepositorySystemTest
         }
     }
 
+    @Test
+    public void testResolveArtifactsAsync()
+        throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        system.setArtifactResolver( new NotifyingArtifactResolver()
+        {
+            public ArtifactResult resolveArtifact( RepositorySystemSession session, ArtifactRequest request )
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                          Collection<? extends ArtifactRequest> requests )
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                          Collection<? extends ArtifactRequest> requests,
+                                                          ArtifactResolutionListener listener )
+                throws ArtifactResolutionException
+            {
+                List<ArtifactResult> results = new ArrayList<ArtifactResult>();
+                for ( ArtifactRequest request : requests )
+                {
+                    results.add( new ArtifactResult( request ) );
+                }
+                ArtifactResult first = results.get( 0 );
+                first.setArtifact( first.getRequest().getArtifact().setFile( new File( "first.jar" ) ) );
+                listener.artifactResolved( first );
+                try
+                {
+                    release.await( 5, TimeUnit.SECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                results.get( 1 ).addException( new IllegalStateException( "failed" ) );
+                listener.artifactResolved( results.get( 1 ) );
+                throw new ArtifactResolutionException( results );
+            }
+        } );
+
+        final List<ArtifactResult> notified = new CopyOnWriteArrayList<ArtifactResult>();
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( new DefaultArtifact( "g:a:1" ), null, "" ),
+                           new ArtifactRequest( new DefaultArtifact( "g:b:1" ), null, "" ) );
+        List<Future<ArtifactResult>> futures =
+            system.resolveArtifactsAsync( session, requests, new ArtifactResolutionListener()
+            {
+                public void artifactResolved( ArtifactResult result )
+                {
+                    notified.add( result );
+                }
+            } );
+        assertEquals( 2, futures.size() );
+
+        ArtifactResult first = futures.get( 0 ).get( 5, TimeUnit.SECONDS );
+        assertTrue( first.isResolved() );
+        assertFalse( futures.get( 1 ).isDone() );
+
+        release.countDown();
+        ArtifactResult second = futures.get( 1 ).get( 5, TimeUnit.SECONDS );
+        assertFalse( second.isResolved() );
+        assertEquals( 1, second.getExceptions().size() );
+        assertEquals( Arrays.asList( first, second ), notified );
+    }
+
+    @Test
+    public void testResolveArtifactsAsyncWithPlainArtifactResolver()
+        throws Exception
+    {
+        system.setArtifactResolver( new ArtifactResolver()
+        {
+            public ArtifactResult resolveArtifact( RepositorySystemSession session, ArtifactRequest request )
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                          Collection<? extends ArtifactRequest> requests )
+            {
+                List<ArtifactResult> results = new ArrayList<ArtifactResult>();
+                for ( ArtifactRequest request : requests )
+                {
+                    ArtifactResult result = new ArtifactResult( request );
+                    result.setArtifact( request.getArtifact().setFile( new File( "resolved.jar" ) ) );
+                    results.add( result );
+                }
+                return results;
+            }
+        } );
+
+        final List<ArtifactResult> notified = new CopyOnWriteArrayList<ArtifactResult>();
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( new DefaultArtifact( "g:a:1" ), null, "" ),
+                           new ArtifactRequest( new DefaultArtifact( "g:b:1" ), null, "" ) );
+        List<Future<ArtifactResult>> futures =
+            system.resolveArtifactsAsync( session, requests, new ArtifactResolutionListener()
+            {
+                public void artifactResolved( ArtifactResult result )
+                {
+                    notified.add( result );
+                }
+            } );
+
+        ArtifactResult first = futures.get( 0 ).get( 5, TimeUnit.SECONDS );
+        ArtifactResult second = futures.get( 1 ).get( 5, TimeUnit.SECONDS );
+        assertTrue( first.isResolved() );
+        assertTrue( second.isResolved() );
+        assertEquals( Arrays.asList( first, second ), notified );
+    }
+
+    private static class RecordingTransporterProvider
+        implements TransporterProvider, TransporterPreWarmer
+    {
+
+        final List<Collection<RemoteRepository>> preWarmed = new ArrayList<Collection<RemoteRepository>>();
+
+        public Transporter newTransporter( RepositorySystemSession session, RemoteRepository repository )
+            throws NoTransporterException
+        {
+            throw new NoTransporterException( repository );
+        }
+
+        public void preWarm( RepositorySystemSession session, Collection<RemoteRepository> repositories )
+        {
+            preWarmed.add( repositories );
+        }
+
+    }
+
 }
@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
@@ -340,4 +341,73 @@ public class EnhancedLocalRepositoryManagerTest
         assertFalse( result.toString(), result.isAvailable() );
     }
 
+    @Test
+    public void testFindIsCachedInSessionUntilAdd()
+        throws Exception
+    {
+        copy( artifact, manager.getPathForRemoteArtifact( artifact, repository, testContext ) );
+        File trackingFile = new File( artifactFile.getParentFile(), "_remote.repositories" );
+        TestFileUtils.writeString( trackingFile, artifactFile.getName() + ">other=\n" );
+        LocalArtifactRequest request = new LocalArtifactRequest( artifact, Arrays.asList( repository ), testContext );
+        LocalArtifactResult result = manager.find( session, request );
+        assertFalse( result.isAvailable() );
+        assertEquals( artifactFile, result.getFile() );
+
+        TestFileUtils.writeString( trackingFile, artifactFile.getName() + ">" + repository.getId() + "=\n" );
+        result = manager.find( session, request );
+        assertFalse( result.isAvailable() );
+
+        manager.add( session, new LocalArtifactRegistration( artifact, repository, Arrays.asList( testContext ) ) );
+        result = manager.find( session, request );
+        assertTrue( result.isAvailable() );
+        assertEquals( repository, result.getRepository() );
+    }
+
+    @Test
+    public void testFindDoesNotCacheMissingArtifact()
+        throws Exception
+    {
+        LocalArtifactRequest request = new LocalArtifactRequest( artifact, Arrays.asList( repository ), testContext );
+        LocalArtifactResult result = manager.find( session, request );
+        assertFalse( result.isAvailable() );
+        assertNull( result.getFile() );
+
+        copy( artifact, manager.getPathForRemoteArtifact( artifact, repository, testContext ) );
+        result = manager.find( session, request );
+        assertEquals( artifactFile, result.getFile() );
+    }
+
+    @Test
+    public void testFindDoesNotReportDeletedArtifactFromCache()
+        throws Exception
+    {
+        copy( artifact, manager.getPathForRemoteArtifact( artifact, repository, testContext ) );
+        manager.add( session, new LocalArtifactRegistration( artifact, repository, Arrays.asList( testContext ) ) );
+        LocalArtifactRequest request = new LocalArtifactRequest( artifact, Arrays.asList( repository ), testContext );
+        LocalArtifactResult result = manager.find( session, request );
+        assertTrue( result.isAvailable() );
+
+        assertTrue( artifactFile.delete() );
+        result = manager.find( session, request );
+        assertFalse( result.isAvailable() );
+        assertNull( result.getFile() );
+    }
+
+    @Test
+    public void testFindWithoutSessionCache()
+        throws Exception
+    {
+        DefaultRepositorySystemSession session = TestUtils.newSession();
+        session.setConfigProperty( EnhancedLocalRepositoryManager.CONFIG_PROP_SESSION_CACHE, false );
+
+        LocalArtifactRequest request = new LocalArtifactRequest( artifact, Arrays.asList( repository ), testContext );
+        LocalArtifactResult result = manager.find( session, request );
+        assertFalse( result.isAvailable() );
+
+        copy( artifact, manager.getPathForRemoteArtifact( artifact, repository, testContext ) );
+        result = manager.find( session, request );
+        assertTrue( result.isAvailable() );
+        assertEquals( artifactFile, result.getFile() );
+    }
+
 }
@@ -19,10 +19,13 @@ package org.eclipse.aether.spi.connector.transport;
  * under the License.
  */
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.aether.transfer.TransferCancelledException;
@@ -34,6 +37,15 @@ public abstract class AbstractTransporter
     implements Transporter
 {
 
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFERS = new ThreadLocal<ByteBuffer>()
+    {
+        @Override
+        protected ByteBuffer initialValue()
+        {
+            return ByteBuffer.allocateDirect( 1024 * 32 );
+        }
+    };
+
     private final AtomicBoolean closed;
 
     /**
@@ -95,14 +107,20 @@ public abstract class AbstractTransporter
     protected void utilGet( GetTask task, InputStream is, boolean close, long length, boolean resume )
         throws IOException, TransferCancelledException
     {
-        OutputStream os = null;
+        if ( is instanceof FileInputStream )
+        {
+            utilGet( task, ( (FileInputStream) is ).getChannel(), close, length, resume );
+            return;
+        }
+
+        WritableByteChannel out = null;
         try
         {
-            os = task.newOutputStream( resume );
+            out = task.newChannel( resume );
             task.getListener().transportStarted( resume ? task.getResumeOffset() : 0L, length );
-            copy( os, is, task.getListener() );
-            os.close();
-            os = null;
+            copy( out, is, task.getListener() );
+            out.close();
+            out = null;
 
             if ( close )
             {
@@ -114,9 +132,9 @@ public abstract class AbstractTransporter
         {
             try
             {
-                if ( os != null )
+                if ( out != null )
                 {
-                    os.close();
+                    out.close();
                 }
             }
             catch ( final IOException e )
@@ -140,6 +158,71 @@ public abstract class AbstractTransporter
         }
     }
 
+    /**
+     * Performs channel-based I/O for the specified download task and notifies the configured transport listener. The
+     * data is moved through a direct byte buffer, i.e. when reading from a file or socket channel and writing to the
+     * {@link GetTask#getDataFile() data file}, the bytes are not copied onto the Java heap. The transport listener
+     * receives the direct buffer, so listeners must not assume the buffer to be backed by an array.
+     * 
+     * @param task The download to perform, must not be {@code null}.
+     * @param in The channel to download the data from, must not be {@code null}.
+     * @param close {@code true} if the supplied channel should be automatically closed, {@code false} to leave the
+     *            channel open.
+     * @param length The size in bytes of the downloaded resource or {@code -1} if unknown, not to be confused with the
+     *            length of the supplied channel which might be smaller if the download is resumed.
+     * @param resume {@code true} if the download resumes from {@link GetTask#getResumeOffset()}, {@code false} if the
+     *            download starts at the first byte of the resource.
+     * @throws IOException If the transfer encountered an I/O error.
+     * @throws TransferCancelledException If the transfer was cancelled.
+     */
+    protected void utilGet( GetTask task, ReadableByteChannel in, boolean close, long length, boolean resume )
+        throws IOException, TransferCancelledException
+    {
+        WritableByteChannel out = null;
+        try
+        {
+            out = task.newChannel( resume );
+            task.getListener().transportStarted( resume ? task.getResumeOffset() : 0L, length );
+            copy( out, in, task.getListener() );
+            out.close();
+            out = null;
+
+            if ( close )
+            {
+                in.close();
+                in = null;
+            }
+        }
+        finally
+        {
+            try
+            {
+                if ( out != null )
+                {
+                    out.close();
+                }
+            }
+            catch ( final IOException e )
+            {
+                // Suppressed
+            }
+            finally
+            {
+                try
+                {
+                    if ( close && in != null )
+                    {
+                        in.close();
+                    }
+                }
+                catch ( final IOException e )
+                {
+                    // Suppressed
+                }
+            }
+        }
+    }
+
     public void put( PutTask task )
         throws Exception
     {
@@ -243,6 +326,45 @@ public abstract class AbstractTransporter
         }
     }
 
+    private static void copy( WritableByteChannel out, InputStream is, TransportListener listener )
+        throws IOException, TransferCancelledException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( 1024 * 32 );
+        byte[] array = buffer.array();
+        for ( int read = is.read( array ); read >= 0; read = is.read( array ) )
+        {
+            buffer.limit( read );
+            write( out, buffer );
+            buffer.rewind();
+            listener.transportProgressed( buffer );
+            buffer.clear();
+        }
+    }
+
+    private static void copy( WritableByteChannel out, ReadableByteChannel in, TransportListener listener )
+        throws IOException, TransferCancelledException
+    {
+        ByteBuffer buffer = DIRECT_BUFFERS.get();
+        buffer.clear();
+        for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+        {
+            buffer.flip();
+            write( out, buffer );
+            buffer.rewind();
+            listener.transportProgressed( buffer );
+            buffer.clear();
+        }
+    }
+
+    private static void write( WritableByteChannel out, ByteBuffer buffer )
+        throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            out.write( buffer );
+        }
+    }
+
     private static void copy( OutputStream os, InputStream is, TransportListener listener )
         throws IOException, TransferCancelledException
     {
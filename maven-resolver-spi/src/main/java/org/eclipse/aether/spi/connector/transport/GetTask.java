@@ -24,8 +24,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
@@ -44,10 +48,20 @@ public final class GetTask
 
     private boolean resume;
 
+    private long rangeOffset;
+
+    private long rangeLength = -1L;
+
     private ByteArrayOutputStream dataBytes;
 
     private Map<String, String> checksums;
 
+    private Map<String, String> cachedValidators;
+
+    private Map<String, String> validators;
+
+    private boolean notModified;
+
     /**
      * Creates a new task for the specified remote resource.
      * 
@@ -56,6 +70,8 @@ public final class GetTask
     public GetTask( URI location )
     {
         checksums = Collections.emptyMap();
+        cachedValidators = Collections.emptyMap();
+        validators = Collections.emptyMap();
         setLocation( location );
     }
 
@@ -88,7 +104,12 @@ public final class GetTask
     {
         if ( dataFile != null )
         {
-            return new FileOutputStream( dataFile, this.resume && resume );
+            long offset = getDataOffset( resume );
+            if ( offset > 0L )
+            {
+                return Channels.newOutputStream( newFileChannel( offset ) );
+            }
+            return new FileOutputStream( dataFile, false );
         }
         if ( dataBytes == null )
         {
@@ -101,6 +122,46 @@ public final class GetTask
         return dataBytes;
     }
 
+    /**
+     * Opens a channel to store the downloaded data. Depending on {@link #getDataFile()}, this channel writes either
+     * directly to a file on disk or to a growable buffer in memory. Unlike {@link #newOutputStream(boolean)}, this
+     * allows transporters to hand over data held in (direct) byte buffers without copying it into an intermediate
+     * array first. It's the responsibility of the caller to close the provided channel.
+     * 
+     * @param resume {@code true} if the download resumes from the byte offset given by {@link #getResumeOffset()},
+     *            {@code false} if the download starts at the first byte of the resource.
+     * @return The channel for the data, never {@code null}. The channel is unbuffered.
+     * @throws IOException If the channel could not be opened.
+     */
+    public WritableByteChannel newChannel( boolean resume )
+        throws IOException
+    {
+        if ( dataFile != null )
+        {
+            long offset = getDataOffset( resume );
+            if ( offset > 0L )
+            {
+                return newFileChannel( offset );
+            }
+            return new FileOutputStream( dataFile, false ).getChannel();
+        }
+        return Channels.newChannel( newOutputStream( resume ) );
+    }
+
+    private long getDataOffset( boolean resume )
+    {
+        return rangeLength >= 0L ? rangeOffset : ( this.resume && resume ) ? dataFile.length() : 0L;
+    }
+
+    private FileChannel newFileChannel( long offset )
+        throws IOException
+    {
+        // positional rather than appending writes, the file might have been preallocated beyond the offset
+        FileChannel channel = new RandomAccessFile( dataFile, "rw" ).getChannel();
+        channel.position( offset );
+        return channel;
+    }
+
     /**
      * Gets the file (if any) where the downloaded data should be stored. If the specified file already exists, it will
      * be overwritten.
@@ -144,13 +205,18 @@ public final class GetTask
     }
 
     /**
-     * Gets the byte offset within the resource from which the download should resume if supported.
+     * Gets the byte offset within the resource from which the download should resume if supported. For a download
+     * restricted to a {@link #setDataRange(long, long) byte range}, this is the offset of the range.
      * 
      * @return The zero-based index of the first byte to download or {@code 0} for a full download from the start of the
      *         resource, never negative.
      */
     public long getResumeOffset()
     {
+        if ( rangeLength >= 0L )
+        {
+            return rangeOffset;
+        }
         if ( resume )
         {
             if ( dataFile != null )
@@ -165,6 +231,39 @@ public final class GetTask
         return 0;
     }
 
+    /**
+     * Gets the length of the byte range to which the download is restricted.
+     * 
+     * @return The number of bytes to download or {@code -1} if the download is not restricted to a byte range.
+     * @see #getResumeOffset()
+     */
+    public long getDataRangeLength()
+    {
+        return rangeLength;
+    }
+
+    /**
+     * Restricts the download to a byte range of the resource. The downloaded bytes are written to the data file at
+     * their offset within the resource, leaving the remaining contents of the file untouched. This allows to download
+     * several ranges of a resource concurrently into the same file. Transporters that are not capable of requesting a
+     * byte range will download the resource from its start, so callers should check the data offset and the number of
+     * bytes reported to the {@link TransportListener}. Byte ranges are only supported when downloading into a file.
+     * 
+     * @param offset The zero-based index of the first byte to download, must not be negative.
+     * @param length The number of bytes to download, may be negative to remove a previously set range.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setDataRange( long offset, long length )
+    {
+        if ( offset < 0L )
+        {
+            throw new IllegalArgumentException( "range offset must not be negative: " + offset );
+        }
+        this.rangeOffset = ( length >= 0L ) ? offset : 0L;
+        this.rangeLength = ( length >= 0L ) ? length : -1L;
+        return this;
+    }
+
     /**
      * Gets the data that was downloaded into memory. <strong>Note:</strong> This method may only be called if
      * {@link #getDataFile()} is {@code null} as otherwise the downloaded data has been written directly to disk.
@@ -251,6 +350,107 @@ public final class GetTask
         return this;
     }
 
+    /**
+     * Gets the validators of a locally cached copy of the resource which the transporter may use to issue a conditional
+     * request, i.e. to skip the download if the remote resource has not changed since the cached copy was fetched.
+     * 
+     * @return The (read-only) validators of the cached copy, possibly empty but never {@code null}.
+     * @see #getValidators()
+     */
+    public Map<String, String> getCachedValidators()
+    {
+        return cachedValidators;
+    }
+
+    /**
+     * Sets the validators of a locally cached copy of the resource. These are the {@link #getValidators() validators}
+     * that a transporter recorded when the cached copy was downloaded. If the transporter finds the remote resource
+     * unchanged, it completes the task without transferring any data and marks it as {@link #isNotModified() not
+     * modified}, the caller is then responsible to keep using its cached copy. Transporters that do not support
+     * conditional requests simply download the resource.
+     * 
+     * @param cachedValidators The validators of the cached copy, may be {@code null} or empty to unconditionally
+     *            download the resource.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setCachedValidators( Map<String, String> cachedValidators )
+    {
+        if ( cachedValidators == null || cachedValidators.isEmpty() )
+        {
+            this.cachedValidators = Collections.emptyMap();
+        }
+        else
+        {
+            this.cachedValidators = Collections.unmodifiableMap( new HashMap<String, String>( cachedValidators ) );
+        }
+        return this;
+    }
+
+    /**
+     * Gets the validators which the remote repository advertises for the resource. The map is keyed by names specific
+     * to the transport protocol (e.g. the HTTP response headers {@code ETag} and {@code Last-Modified}), callers should
+     * treat the values as opaque data that can be handed back via {@link #setCachedValidators(Map)} on a later request
+     * for the same resource.
+     * 
+     * @return The (read-only) validators advertised for the resource, possibly empty but never {@code null}.
+     */
+    public Map<String, String> getValidators()
+    {
+        return Collections.unmodifiableMap( validators );
+    }
+
+    /**
+     * Sets a validator which the remote repository advertises for the resource. <em>Note:</em> Like checksums,
+     * transporters should only record validators which are readily available while performing the actual download.
+     * 
+     * @param name The protocol-specific name of the validator, may be {@code null}.
+     * @param value The value of the validator, may be {@code null} to remove the validator.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setValidator( String name, String value )
+    {
+        if ( name != null )
+        {
+            if ( validators.isEmpty() )
+            {
+                validators = new HashMap<String, String>();
+            }
+            if ( value != null && value.length() > 0 )
+            {
+                validators.put( name, value );
+            }
+            else
+            {
+                validators.remove( name );
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Indicates whether the transporter found the remote resource unchanged with regard to the
+     * {@link #getCachedValidators() cached validators}. In this case, no data has been transferred.
+     * 
+     * @return {@code true} if the remote resource has not been modified, {@code false} if it has been downloaded.
+     */
+    public boolean isNotModified()
+    {
+        return notModified;
+    }
+
+    /**
+     * Marks the remote resource as unchanged with regard to the {@link #getCachedValidators() cached validators}.
+     * 
+     * @param notModified {@code true} if the remote resource has not been modified and no data was transferred,
+     *            {@code false} otherwise.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setNotModified( boolean notModified )
+    {
+        this.notModified = notModified;
+        return this;
+    }
+
     @Override
     public String toString()
     {
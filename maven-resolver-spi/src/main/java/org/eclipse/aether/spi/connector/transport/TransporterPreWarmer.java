@@ -0,0 +1,45 @@
+package org.eclipse.aether.spi.connector.transport;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * An optional capability of a {@link TransporterFactory} to prepare the transport to remote repositories ahead of
+ * their first transfer, e.g. by opening connections in the background. The repository system only invokes it when
+ * explicitly enabled via the configuration property {@code aether.connector.preWarm}.
+ */
+public interface TransporterPreWarmer
+{
+
+    /**
+     * Starts to prepare the transport to the specified remote repositories. Implementations must not block on network
+     * I/O and must silently ignore repositories they cannot handle as well as any failures, the subsequent transfers
+     * will report those as usual.
+     * 
+     * @param session The repository system session from which to configure the transport, must not be {@code null}.
+     * @param repositories The remote repositories to prepare the transport for, must not be {@code null}.
+     */
+    void preWarm( RepositorySystemSession session, Collection<RemoteRepository> repositories );
+
+}
@@ -36,8 +36,18 @@ final class AuthSchemePool
     private String schemeName;
 
     public AuthSchemePool()
+    {
+        this( null );
+    }
+
+    /**
+     * Creates a pool that is seeded with the name of a scheme which is known to be used by the host, allowing to
+     * authenticate preemptively if the scheme does not require a challenge.
+     */
+    public AuthSchemePool( String schemeName )
     {
         authSchemes = new LinkedList<AuthScheme>();
+        this.schemeName = schemeName;
     }
 
     public synchronized AuthScheme get()
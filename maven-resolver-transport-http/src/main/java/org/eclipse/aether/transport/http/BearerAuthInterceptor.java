@@ -0,0 +1,64 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Request interceptor that presents a bearer token to the repository server. The token is only sent to the host of the
+ * repository URL and never to hosts that requests get redirected to, nor to a proxy.
+ */
+final class BearerAuthInterceptor
+    implements HttpRequestInterceptor
+{
+
+    private final HttpHost server;
+
+    private final String token;
+
+    public BearerAuthInterceptor( HttpHost server, String token )
+    {
+        this.server = SharingAuthCache.toKey( server );
+        this.token = token;
+    }
+
+    public void process( HttpRequest request, HttpContext context )
+        throws HttpException, IOException
+    {
+        if ( request.containsHeader( HttpHeaders.AUTHORIZATION ) )
+        {
+            return;
+        }
+        HttpHost target = (HttpHost) context.getAttribute( ExecutionContext.HTTP_TARGET_HOST );
+        if ( target != null && server.equals( SharingAuthCache.toKey( target ) ) )
+        {
+            request.addHeader( HttpHeaders.AUTHORIZATION, "Bearer " + token );
+        }
+    }
+
+}
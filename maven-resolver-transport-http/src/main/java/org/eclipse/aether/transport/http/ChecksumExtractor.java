@@ -0,0 +1,46 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+import org.apache.http.HttpResponse;
+
+/**
+ * Extracts the checksums which a repository manager advertises for a downloaded resource via response headers. This
+ * allows the connector to validate the download without requesting the checksum files. The HTTP transporter applies
+ * the extractors registered with its factory in addition to its built-in support for the headers of common repository
+ * managers.
+ * 
+ * @see HttpTransporterFactory#setChecksumExtractors(java.util.Collection)
+ */
+public abstract class ChecksumExtractor
+{
+
+    /**
+     * Extracts the checksums from the specified response to a successful download request.
+     * 
+     * @param response The HTTP response, must not be {@code null}.
+     * @return The checksums keyed by algorithm name (cf. {@link java.security.MessageDigest#getInstance(String)}) with
+     *         hexadecimal values, may be {@code null} or empty if the response does not advertise any checksums.
+     */
+    public abstract Map<String, String> extractChecksums( HttpResponse response );
+
+}
@@ -0,0 +1,152 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.http.pool.PoolStats;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * A snapshot of the statistics of the HTTP connection pools which the transporters of a repository system session
+ * share. These allow to tell whether transfers are slowed down by waiting for connections, in which case the pool
+ * limits can be raised via the configuration properties {@code aether.connector.http.maxConnections} and
+ * {@code aether.connector.http.maxConnectionsPerRoute} (optionally suffixed with a repository id).
+ */
+public final class ConnectionPoolStats
+{
+
+    private final PoolStats totalStats;
+
+    private final Map<String, PoolStats> routeStats;
+
+    private final long leaseCount;
+
+    private final long leaseWaitTime;
+
+    private final long maxLeaseWaitTime;
+
+    /**
+     * Gets the current statistics of the connection pools shared by the specified session.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @return The connection pool statistics or {@code null} if the session does not share connection pools among its
+     *         transporters, e.g. because it has no {@link org.eclipse.aether.RepositoryCache}.
+     */
+    public static ConnectionPoolStats get( RepositorySystemSession session )
+    {
+        GlobalState state = GlobalState.get( session );
+        return ( state != null ) ? state.getConnectionPoolStats() : null;
+    }
+
+    ConnectionPoolStats( Collection<MonitoredConnectionManager> connMgrs )
+    {
+        int leased = 0, pending = 0, available = 0, max = 0;
+        long leases = 0L, waitTime = 0L, maxWaitTime = 0L;
+        Map<String, PoolStats> routes = new TreeMap<String, PoolStats>();
+        for ( MonitoredConnectionManager connMgr : connMgrs )
+        {
+            PoolStats stats = connMgr.getTotalStats();
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+            leases += connMgr.getLeases();
+            waitTime += connMgr.getLeaseWaitTime();
+            maxWaitTime = Math.max( maxWaitTime, connMgr.getMaxLeaseWaitTime() );
+            for ( Map.Entry<String, PoolStats> entry : connMgr.getRouteStats().entrySet() )
+            {
+                PoolStats route = entry.getValue(), other = routes.get( entry.getKey() );
+                if ( other != null )
+                {
+                    route = new PoolStats( route.getLeased() + other.getLeased(), route.getPending() + other.getPending(),
+                                           route.getAvailable() + other.getAvailable(), route.getMax() + other.getMax() );
+                }
+                routes.put( entry.getKey(), route );
+            }
+        }
+        totalStats = new PoolStats( leased, pending, available, max );
+        routeStats = Collections.unmodifiableMap( routes );
+        leaseCount = leases;
+        leaseWaitTime = waitTime;
+        maxLeaseWaitTime = maxWaitTime;
+    }
+
+    /**
+     * Gets the number of leased, pending and available connections summed up over all routes.
+     * 
+     * @return The total pool statistics, never {@code null}.
+     */
+    public PoolStats getTotalStats()
+    {
+        return totalStats;
+    }
+
+    /**
+     * Gets the number of leased, pending and available connections for each route that has been used so far.
+     * 
+     * @return The (read-only) pool statistics keyed by route, never {@code null}.
+     */
+    public Map<String, PoolStats> getRouteStats()
+    {
+        return routeStats;
+    }
+
+    /**
+     * Gets the number of connections that have been leased from the pools.
+     * 
+     * @return The number of connection leases.
+     */
+    public long getLeaseCount()
+    {
+        return leaseCount;
+    }
+
+    /**
+     * Gets the accumulated time that requests waited for a connection to be leased from the pools.
+     * 
+     * @return The total wait time in milliseconds.
+     */
+    public long getLeaseWaitTime()
+    {
+        return leaseWaitTime;
+    }
+
+    /**
+     * Gets the longest time that a single request waited for a connection to be leased from the pools.
+     * 
+     * @return The maximum wait time in milliseconds.
+     */
+    public long getMaxLeaseWaitTime()
+    {
+        return maxLeaseWaitTime;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "total " + totalStats + ", " + leaseCount + " leases waited " + leaseWaitTime + " ms (max "
+            + maxLeaseWaitTime + " ms), routes " + routeStats;
+    }
+
+}
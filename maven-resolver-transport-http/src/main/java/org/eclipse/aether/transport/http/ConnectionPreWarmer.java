@@ -0,0 +1,287 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.concurrency.TransferScheduler;
+
+/**
+ * Opens connections to the hosts of remote repositories ahead of the first transfer. Given the effective repositories
+ * of a session (i.e. after mirror selection), one connection per host is established in the background, including the
+ * TLS handshake, and put into the connection pools that the HTTP transporters of the session share. The first
+ * downloads can thereby start on warm connections instead of paying the DNS, TCP and TLS latency inline.
+ * <p>
+ * Pre-warming requires the session to share connection pools among its transporters, i.e. to have a
+ * {@link org.eclipse.aether.RepositoryCache}, and is a no-op otherwise. Repositories that are accessed via HTTPS
+ * through a proxy are skipped, their tunnels are only established on demand.
+ */
+public final class ConnectionPreWarmer
+{
+
+    private ConnectionPreWarmer()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Starts to open connections to the hosts of the specified repositories. Failures to connect are ignored, the
+     * subsequent transfers will report them as usual.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param repositories The remote repositories to connect to, must not be {@code null}. Repositories that don't use
+     *            HTTP or HTTPS are ignored.
+     * @return A future that completes when all connection attempts have finished, never {@code null}. Callers are not
+     *         required to wait for it.
+     */
+    public static Future<?> preWarm( RepositorySystemSession session, Collection<RemoteRepository> repositories )
+    {
+        List<FutureTask<Boolean>> futures = new ArrayList<FutureTask<Boolean>>();
+        GlobalState state = GlobalState.get( session );
+        if ( state != null )
+        {
+            TransferScheduler scheduler = TransferScheduler.getInstance( session );
+            Set<Object> keys = new HashSet<Object>();
+            for ( RemoteRepository repository : repositories )
+            {
+                Connect task = newTask( session, state, repository );
+                if ( task != null && keys.add( Arrays.asList( task.connMgr, task.route ) ) )
+                {
+                    FutureTask<Boolean> future = new FutureTask<Boolean>( task );
+                    futures.add( future );
+                    scheduler.newExecutor( repository, 1 ).execute( future );
+                }
+            }
+        }
+        return new Connects( futures );
+    }
+
+    private static Connect newTask( RepositorySystemSession session, GlobalState state, RemoteRepository repository )
+    {
+        if ( !"http".equalsIgnoreCase( repository.getProtocol() )
+            && !"https".equalsIgnoreCase( repository.getProtocol() ) )
+        {
+            return null;
+        }
+
+        HttpHost server;
+        try
+        {
+            server = URIUtils.extractHost( new URI( repository.getUrl() ).parseServerAuthority() );
+        }
+        catch ( URISyntaxException e )
+        {
+            return null;
+        }
+        if ( server == null )
+        {
+            return null;
+        }
+        // same host as the transporter derives from the URL, such that both request the same route
+
+        boolean secure = "https".equalsIgnoreCase( server.getSchemeName() );
+        HttpHost proxy = HttpTransporter.toHost( repository.getProxy() );
+        if ( secure && proxy != null )
+        {
+            return null;
+        }
+        HttpRoute route = ( proxy != null ) ? new HttpRoute( server, null, proxy, false )
+                        : new HttpRoute( server, null, secure );
+
+        HttpParams params = new BasicHttpParams();
+        HttpTransporter.configureClient( params, session, repository, proxy );
+
+        AuthenticationContext repoAuthContext = AuthenticationContext.forRepository( session, repository );
+        try
+        {
+            SslConfig sslConfig = new SslConfig( session, repoAuthContext );
+            return new Connect( state.getConnectionManager( session, repository, sslConfig, server ), route, params );
+        }
+        finally
+        {
+            AuthenticationContext.close( repoAuthContext );
+        }
+    }
+
+    /**
+     * Completes once all connection attempts have finished.
+     */
+    private static final class Connects
+        implements Future<Void>
+    {
+
+        private final List<FutureTask<Boolean>> futures;
+
+        Connects( List<FutureTask<Boolean>> futures )
+        {
+            this.futures = futures;
+        }
+
+        public boolean cancel( boolean mayInterruptIfRunning )
+        {
+            boolean cancelled = false;
+            for ( Future<?> future : futures )
+            {
+                cancelled |= future.cancel( mayInterruptIfRunning );
+            }
+            return cancelled;
+        }
+
+        public boolean isCancelled()
+        {
+            for ( Future<?> future : futures )
+            {
+                if ( future.isCancelled() )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isDone()
+        {
+            for ( Future<?> future : futures )
+            {
+                if ( !future.isDone() )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Void get()
+            throws InterruptedException, ExecutionException
+        {
+            for ( Future<?> future : futures )
+            {
+                await( future );
+            }
+            return null;
+        }
+
+        public Void get( long timeout, TimeUnit unit )
+            throws InterruptedException, ExecutionException, TimeoutException
+        {
+            long deadline = System.nanoTime() + unit.toNanos( timeout );
+            for ( Future<?> future : futures )
+            {
+                try
+                {
+                    future.get( Math.max( 0L, deadline - System.nanoTime() ), TimeUnit.NANOSECONDS );
+                }
+                catch ( ExecutionException e )
+                {
+                    // failures to connect are ignored
+                }
+                catch ( CancellationException e )
+                {
+                    // cancelled attempts are ignored
+                }
+            }
+            return null;
+        }
+
+        private static void await( Future<?> future )
+            throws InterruptedException
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                // failures to connect are ignored
+            }
+            catch ( CancellationException e )
+            {
+                // cancelled attempts are ignored
+            }
+        }
+
+    }
+
+    private static final class Connect
+        implements Callable<Boolean>
+    {
+
+        final MonitoredConnectionManager connMgr;
+
+        final HttpRoute route;
+
+        final HttpParams params;
+
+        Connect( MonitoredConnectionManager connMgr, HttpRoute route, HttpParams params )
+        {
+            this.connMgr = connMgr;
+            this.route = route;
+            this.params = params;
+        }
+
+        public Boolean call()
+            throws Exception
+        {
+            ManagedClientConnection conn =
+                connMgr.requestConnection( route, null ).getConnection( HttpConnectionParams.getConnectionTimeout( params ),
+                                                                        TimeUnit.MILLISECONDS );
+            try
+            {
+                if ( !conn.isOpen() )
+                {
+                    conn.open( route, new BasicHttpContext(), params );
+                }
+                conn.markReusable();
+                return true;
+            }
+            finally
+            {
+                connMgr.releaseConnection( conn, 0L, TimeUnit.MILLISECONDS );
+            }
+        }
+
+    }
+
+}
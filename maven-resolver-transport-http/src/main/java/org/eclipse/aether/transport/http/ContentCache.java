@@ -0,0 +1,612 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * An optional on-disk cache of HTTP responses which can be shared by any number of local repositories, processes and
+ * hosts mounting the same directory. Entries are keyed by absolute URL and only served after the remote repository
+ * confirmed via a conditional request that the entity is unchanged. Every cache hit therefore still costs a round trip
+ * to the server, the cache only saves the bandwidth of the response body. Only content whose SHA-1 has been confirmed
+ * by the server (e.g. via an {@code X-Checksum-Sha1} header) is cached, such that a corrupted download cannot be served
+ * again from the cache.
+ * <p>
+ * A hit is copied into the local file by default. If enabled via {@code aether.connector.http.contentCacheHardLinks},
+ * the local file is instead replaced with a hard link to the cached data, falling back to a copy if the cache and the
+ * local repository reside on different file systems or the file system does not support hard links. Linked files share
+ * their data and timestamps with the cache, so they must never be modified in place.
+ * <p>
+ * Each entry consists of a small properties file named after the SHA-1 of the URL and a data file with a unique name
+ * which the properties refer to. Both files are completely written before they are atomically moved into place, so
+ * concurrent readers see either the old or the new entry but never a partial one. The least recently used data files
+ * are evicted once the cache grows beyond its configured size, with the last modified timestamp of a data file
+ * tracking its last use.
+ */
+final class ContentCache
+{
+
+    static final String CONFIG_PROP_CONTENT_CACHE = "aether.connector.http.contentCache";
+
+    static final String CONFIG_PROP_CONTENT_CACHE_MAX_SIZE = "aether.connector.http.contentCacheMaxSize";
+
+    static final long DEFAULT_CONTENT_CACHE_MAX_SIZE = 10L * 1024L * 1024L * 1024L;
+
+    static final String CONFIG_PROP_CONTENT_CACHE_HARD_LINKS = "aether.connector.http.contentCacheHardLinks";
+
+    private static final String EXT_PROPERTIES = ".properties";
+
+    private static final String EXT_DATA = ".data";
+
+    private static final String EXT_TMP = ".tmp";
+
+    private static final String KEY_URL = "#url";
+
+    private static final String KEY_DATA = "#data";
+
+    private static final String KEY_LENGTH = "#length";
+
+    private static final String KEY_SHA1 = "#sha1";
+
+    private static final String PREFIX_VALIDATOR = "validator.";
+
+    private static final String PREFIX_CHECKSUM = "checksum.";
+
+    private static final long STALE_TMP_AGE = 60L * 60L * 1000L;
+
+    /**
+     * The approximate size of the cache directories used in this JVM, initialized lazily by scanning the directory.
+     */
+    private static final ConcurrentMap<File, AtomicLong> SIZES = new ConcurrentHashMap<File, AtomicLong>();
+
+    private final File basedir;
+
+    private final long maxSize;
+
+    private final boolean hardLinks;
+
+    private final Logger logger;
+
+    /**
+     * An entry of the cache.
+     */
+    static final class Entry
+    {
+
+        final String url;
+
+        final File propertiesFile;
+
+        final File dataFile;
+
+        final long length;
+
+        final String sha1;
+
+        final Map<String, String> validators;
+
+        final Map<String, String> checksums;
+
+        Entry( String url, File propertiesFile, File dataFile, long length, String sha1,
+               Map<String, String> validators, Map<String, String> checksums )
+        {
+            this.url = url;
+            this.propertiesFile = propertiesFile;
+            this.dataFile = dataFile;
+            this.length = length;
+            this.sha1 = sha1;
+            this.validators = validators;
+            this.checksums = checksums;
+        }
+
+    }
+
+    /**
+     * Gets the content cache configured for the specified repository.
+     * 
+     * @return The content cache or {@code null} if none is configured.
+     */
+    public static ContentCache newInstance( RepositorySystemSession session, RemoteRepository repository,
+                                            Logger logger )
+    {
+        String dir = ConfigUtils.getString( session, null, CONFIG_PROP_CONTENT_CACHE + '.' + repository.getId(),
+                                            CONFIG_PROP_CONTENT_CACHE );
+        if ( dir == null || dir.length() <= 0 )
+        {
+            return null;
+        }
+        long maxSize =
+            ConfigUtils.getLong( session, DEFAULT_CONTENT_CACHE_MAX_SIZE, CONFIG_PROP_CONTENT_CACHE_MAX_SIZE );
+        boolean hardLinks = ConfigUtils.getBoolean( session, false, CONFIG_PROP_CONTENT_CACHE_HARD_LINKS );
+        return new ContentCache( new File( dir ).getAbsoluteFile(), maxSize, hardLinks, logger );
+    }
+
+    ContentCache( File basedir, long maxSize, boolean hardLinks, Logger logger )
+    {
+        this.basedir = basedir;
+        this.maxSize = maxSize;
+        this.hardLinks = hardLinks;
+        this.logger = logger;
+    }
+
+    /**
+     * Looks up the cached response for the specified URL.
+     * 
+     * @param url The absolute URL of the resource, must not be {@code null}.
+     * @return The cache entry or {@code null} if the resource is not cached.
+     */
+    public Entry get( String url )
+    {
+        File propertiesFile = getPropertiesFile( url );
+        Properties props = read( propertiesFile );
+        if ( props == null || !url.equals( props.getProperty( KEY_URL ) ) )
+        {
+            return null;
+        }
+        String data = props.getProperty( KEY_DATA );
+        if ( data == null || data.indexOf( '/' ) >= 0 || data.indexOf( '\\' ) >= 0 )
+        {
+            return null;
+        }
+        File dataFile = new File( propertiesFile.getParentFile(), data );
+        long length;
+        try
+        {
+            length = Long.parseLong( props.getProperty( KEY_LENGTH, "" ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            return null;
+        }
+        if ( !dataFile.isFile() || dataFile.length() != length )
+        {
+            return null;
+        }
+        Map<String, String> validators = new HashMap<String, String>();
+        Map<String, String> checksums = new HashMap<String, String>();
+        for ( String key : props.stringPropertyNames() )
+        {
+            if ( key.startsWith( PREFIX_VALIDATOR ) )
+            {
+                validators.put( key.substring( PREFIX_VALIDATOR.length() ), props.getProperty( key ) );
+            }
+            else if ( key.startsWith( PREFIX_CHECKSUM ) )
+            {
+                checksums.put( key.substring( PREFIX_CHECKSUM.length() ), props.getProperty( key ) );
+            }
+        }
+        if ( validators.isEmpty() )
+        {
+            return null;
+        }
+        return new Entry( url, propertiesFile, dataFile, length, props.getProperty( KEY_SHA1 ), validators,
+                          checksums );
+    }
+
+    /**
+     * Marks the entry as recently used.
+     */
+    public void touch( Entry entry )
+    {
+        if ( !entry.dataFile.setLastModified( System.currentTimeMillis() ) )
+        {
+            logger.debug( "Could not update timestamp of cached " + entry.dataFile );
+        }
+    }
+
+    /**
+     * Replaces the specified file with a hard link to the data of the entry, provided hard links are enabled. The link
+     * is created under a temporary name and then renamed to the target, so the target is never observed missing.
+     * 
+     * @param entry The cache entry to link to, must not be {@code null}.
+     * @param file The file to replace, must not be {@code null}.
+     * @return {@code true} if the file has been replaced with a link, {@code false} if the data needs to be copied.
+     */
+    public boolean link( Entry entry, File file )
+    {
+        if ( !hardLinks )
+        {
+            return false;
+        }
+        file = file.getAbsoluteFile();
+        File tmp = new File( file.getParentFile(), file.getName() + '-'
+            + UUID.randomUUID().toString().replace( "-", "" ).substring( 0, 8 ) + EXT_TMP );
+        try
+        {
+            Files.createLink( tmp.toPath(), entry.dataFile.toPath() );
+            move( tmp, file );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not link " + file + " to cached " + entry.dataFile + ", falling back to copy: " + e );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            logger.debug( "Hard links are not supported for " + file + ", falling back to copy" );
+        }
+        delete( tmp );
+        return false;
+    }
+
+    /**
+     * Removes the entry from the cache, unless it has been replaced in the meantime.
+     */
+    public void remove( Entry entry )
+    {
+        Entry current = get( entry.url );
+        if ( current != null && current.dataFile.equals( entry.dataFile ) )
+        {
+            delete( entry.propertiesFile );
+        }
+        if ( entry.dataFile.delete() )
+        {
+            getSize().addAndGet( -entry.length );
+        }
+    }
+
+    /**
+     * Adds the downloaded resource to the cache. Resources without validators are not cached as they could never be
+     * revalidated, neither are resources without a SHA-1 advertised by the server or whose data doesn't match it.
+     * Failures to update the cache are logged but otherwise ignored.
+     * 
+     * @param url The absolute URL of the resource, must not be {@code null}.
+     * @param file The file holding the resource, may be {@code null} if the resource was downloaded into memory.
+     * @param bytes The resource if downloaded into memory, ignored if a file is given.
+     * @param validators The validators (e.g. entity tag) advertised by the server, must not be {@code null}.
+     * @param checksums The checksums advertised by the server, must not be {@code null}.
+     */
+    public void put( String url, File file, byte[] bytes, Map<String, String> validators,
+                     Map<String, String> checksums )
+    {
+        Properties props = new Properties();
+        for ( Map.Entry<String, String> validator : validators.entrySet() )
+        {
+            if ( validator.getValue() != null )
+            {
+                props.setProperty( PREFIX_VALIDATOR + validator.getKey(), validator.getValue() );
+            }
+        }
+        if ( props.isEmpty() )
+        {
+            return;
+        }
+        String expected = checksums.get( "SHA-1" );
+        if ( expected == null )
+        {
+            logger.debug( "Not caching " + url + " as the server did not confirm its SHA-1" );
+            return;
+        }
+        File propertiesFile = getPropertiesFile( url );
+        File dir = propertiesFile.getParentFile();
+        File dataFile = null;
+        try
+        {
+            dir.mkdirs();
+            String name = propertiesFile.getName();
+            name = name.substring( 0, name.length() - EXT_PROPERTIES.length() ) + '-';
+            dataFile = File.createTempFile( name, EXT_DATA, dir );
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            long length = write( dataFile, file, bytes, digest );
+            String sha1 = ChecksumUtils.toHexString( digest.digest() );
+            if ( !expected.equalsIgnoreCase( sha1 ) )
+            {
+                logger.debug( "Not caching " + url + " as its SHA-1 " + sha1 + " does not match " + expected );
+                delete( dataFile );
+                return;
+            }
+
+            props.setProperty( KEY_URL, url );
+            props.setProperty( KEY_DATA, dataFile.getName() );
+            props.setProperty( KEY_LENGTH, String.valueOf( length ) );
+            props.setProperty( KEY_SHA1, sha1 );
+            for ( Map.Entry<String, String> checksum : checksums.entrySet() )
+            {
+                props.setProperty( PREFIX_CHECKSUM + checksum.getKey(), checksum.getValue() );
+            }
+
+            Properties previous = read( propertiesFile );
+            File tmpFile = File.createTempFile( name, EXT_TMP, dir );
+            OutputStream os = new FileOutputStream( tmpFile );
+            try
+            {
+                props.store( os, null );
+            }
+            finally
+            {
+                os.close();
+            }
+            move( tmpFile, propertiesFile );
+            dataFile = null;
+
+            long added = length;
+            if ( previous != null && previous.getProperty( KEY_DATA ) != null )
+            {
+                File previousData = new File( dir, previous.getProperty( KEY_DATA ) );
+                long previousLength = previousData.length();
+                if ( previousData.getParentFile().equals( dir ) && previousData.getName().endsWith( EXT_DATA )
+                    && previousData.delete() )
+                {
+                    added -= previousLength;
+                }
+            }
+
+            AtomicLong size = getSize();
+            if ( size.addAndGet( added ) > maxSize )
+            {
+                evict( size );
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not cache " + url + " in " + basedir + ": " + e );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            logger.debug( "Could not cache " + url + ": " + e );
+        }
+        finally
+        {
+            if ( dataFile != null )
+            {
+                delete( dataFile );
+            }
+        }
+    }
+
+    private File getPropertiesFile( String url )
+    {
+        String key;
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            key = ChecksumUtils.toHexString( digest.digest( url.getBytes( StandardCharsets.UTF_8 ) ) );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        return new File( new File( basedir, key.substring( 0, 2 ) ), key + EXT_PROPERTIES );
+    }
+
+    private Properties read( File propertiesFile )
+    {
+        if ( !propertiesFile.isFile() )
+        {
+            return null;
+        }
+        Properties props = new Properties();
+        try
+        {
+            InputStream is = new FileInputStream( propertiesFile );
+            try
+            {
+                props.load( is );
+            }
+            finally
+            {
+                is.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not read cache entry " + propertiesFile + ": " + e );
+            return null;
+        }
+        return props;
+    }
+
+    private static long write( File target, File file, byte[] bytes, MessageDigest digest )
+        throws IOException
+    {
+        long length = 0L;
+        OutputStream os = new FileOutputStream( target );
+        try
+        {
+            if ( file != null )
+            {
+                InputStream is = new FileInputStream( file );
+                try
+                {
+                    byte[] buffer = new byte[32 * 1024];
+                    for ( int read = is.read( buffer ); read >= 0; read = is.read( buffer ) )
+                    {
+                        digest.update( buffer, 0, read );
+                        os.write( buffer, 0, read );
+                        length += read;
+                    }
+                }
+                finally
+                {
+                    is.close();
+                }
+            }
+            else
+            {
+                digest.update( bytes );
+                os.write( bytes );
+                length = bytes.length;
+            }
+        }
+        finally
+        {
+            os.close();
+        }
+        return length;
+    }
+
+    private static void move( File source, File target )
+        throws IOException
+    {
+        try
+        {
+            Files.move( source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    private void delete( File file )
+    {
+        if ( !file.delete() && file.exists() )
+        {
+            logger.debug( "Could not delete " + file );
+        }
+    }
+
+    private AtomicLong getSize()
+    {
+        AtomicLong size = SIZES.get( basedir );
+        if ( size == null )
+        {
+            long total = 0L;
+            for ( File file : listFiles( EXT_DATA ) )
+            {
+                total += file.length();
+            }
+            AtomicLong tmp = new AtomicLong( total );
+            size = SIZES.putIfAbsent( basedir, tmp );
+            if ( size == null )
+            {
+                size = tmp;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Deletes the least recently used data files until the cache has shrunk to 90% of its maximum size. The size is
+     * recomputed from the directory to account for files added or removed by other processes.
+     */
+    private void evict( AtomicLong size )
+    {
+        synchronized ( size )
+        {
+            if ( size.get() <= maxSize )
+            {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for ( File file : listFiles( EXT_TMP ) )
+            {
+                if ( now - file.lastModified() > STALE_TMP_AGE )
+                {
+                    delete( file );
+                }
+            }
+
+            final List<File> files = listFiles( EXT_DATA );
+            final Map<File, Long> timestamps = new HashMap<File, Long>();
+            long total = 0L;
+            for ( File file : files )
+            {
+                timestamps.put( file, file.lastModified() );
+                total += file.length();
+            }
+            Collections.sort( files, new Comparator<File>()
+            {
+                public int compare( File file1, File file2 )
+                {
+                    return timestamps.get( file1 ).compareTo( timestamps.get( file2 ) );
+                }
+            } );
+
+            long lowWaterMark = maxSize / 10L * 9L;
+            for ( int i = 0; i < files.size() && total > lowWaterMark; i++ )
+            {
+                File file = files.get( i );
+                long length = file.length();
+                if ( file.delete() )
+                {
+                    total -= length;
+                    String name = file.getName();
+                    int dash = name.indexOf( '-' );
+                    if ( dash > 0 )
+                    {
+                        File propertiesFile = new File( file.getParentFile(), name.substring( 0, dash ) + EXT_PROPERTIES );
+                        Properties props = read( propertiesFile );
+                        if ( props != null && name.equals( props.getProperty( KEY_DATA ) ) )
+                        {
+                            delete( propertiesFile );
+                        }
+                    }
+                }
+            }
+            logger.debug( "Evicted cached HTTP responses from " + basedir + ", size is now " + total + " bytes" );
+            size.set( total );
+        }
+    }
+
+    private List<File> listFiles( String extension )
+    {
+        List<File> files = new ArrayList<File>();
+        File[] dirs = basedir.listFiles();
+        if ( dirs != null )
+        {
+            for ( File dir : dirs )
+            {
+                File[] children = dir.isDirectory() ? dir.listFiles() : null;
+                if ( children != null )
+                {
+                    for ( File child : children )
+                    {
+                        if ( child.getName().endsWith( extension ) )
+                        {
+                            files.add( child );
+                        }
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+}
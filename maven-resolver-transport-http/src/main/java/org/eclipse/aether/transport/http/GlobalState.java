@@ -20,9 +20,12 @@ package org.eclipse.aether.transport.http;
  */
 
 import java.io.Closeable;
+import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -31,9 +34,9 @@ import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.eclipse.aether.RepositoryCache;
 import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.util.ConfigUtils;
 
 /**
@@ -88,14 +91,28 @@ final class GlobalState
 
     private static final String CONFIG_PROP_CACHE_STATE = "aether.connector.http.cacheState";
 
-    private final ConcurrentMap<SslConfig, ClientConnectionManager> connectionManagers;
+    static final String CONFIG_PROP_MAX_CONNECTIONS = "aether.connector.http.maxConnections";
+
+    static final String CONFIG_PROP_MAX_CONNECTIONS_PER_ROUTE = "aether.connector.http.maxConnectionsPerRoute";
+
+    static final String CONFIG_PROP_CONNECTION_MAX_IDLE_TIME = "aether.connector.http.connectionMaxIdleTime";
+
+    static final String CONFIG_PROP_CONNECTION_TIME_TO_LIVE = "aether.connector.http.connectionTimeToLive";
+
+    private final ConcurrentMap<Object, MonitoredConnectionManager> connectionManagers;
 
     private final ConcurrentMap<CompoundKey, Object> userTokens;
 
     private final ConcurrentMap<HttpHost, AuthSchemePool> authSchemePools;
 
+    private final ConcurrentMap<CompoundKey, String> authSchemeNames;
+
     private final ConcurrentMap<CompoundKey, Boolean> expectContinues;
 
+    private final ConcurrentMap<CompoundKey, Boolean> webDavs;
+
+    private final ConcurrentMap<CompoundKey, Set<URI>> webDavCollections;
+
     public static GlobalState get( RepositorySystemSession session )
     {
         GlobalState cache;
@@ -133,15 +150,18 @@ final class GlobalState
 
     private GlobalState()
     {
-        connectionManagers = new ConcurrentHashMap<SslConfig, ClientConnectionManager>();
+        connectionManagers = new ConcurrentHashMap<Object, MonitoredConnectionManager>();
         userTokens = new ConcurrentHashMap<CompoundKey, Object>();
         authSchemePools = new ConcurrentHashMap<HttpHost, AuthSchemePool>();
+        authSchemeNames = new ConcurrentHashMap<CompoundKey, String>();
         expectContinues = new ConcurrentHashMap<CompoundKey, Boolean>();
+        webDavs = new ConcurrentHashMap<CompoundKey, Boolean>();
+        webDavCollections = new ConcurrentHashMap<CompoundKey, Set<URI>>();
     }
 
     public void close()
     {
-        for ( Iterator<Map.Entry<SslConfig, ClientConnectionManager>> it = connectionManagers.entrySet().iterator(); it.hasNext(); )
+        for ( Iterator<Map.Entry<Object, MonitoredConnectionManager>> it = connectionManagers.entrySet().iterator(); it.hasNext(); )
         {
             ClientConnectionManager connMgr = it.next().getValue();
             it.remove();
@@ -149,13 +169,21 @@ final class GlobalState
         }
     }
 
-    public ClientConnectionManager getConnectionManager( SslConfig config )
+    /**
+     * Gets the connection manager for the specified repository. Repositories with their own limit of connections per
+     * route get a pool of their own rather than changing the limits of a pool shared with other repositories.
+     */
+    public MonitoredConnectionManager getConnectionManager( RepositorySystemSession session,
+                                                            RemoteRepository repository, SslConfig config,
+                                                            HttpHost server )
     {
-        ClientConnectionManager manager = connectionManagers.get( config );
+        int maxPerTarget = getMaxConnectionsPerTarget( session, repository );
+        Object key = ( maxPerTarget > 0 ) ? new CompoundKey( config, server, maxPerTarget ) : config;
+        MonitoredConnectionManager manager = connectionManagers.get( key );
         if ( manager == null )
         {
-            ClientConnectionManager connMgr = newConnectionManager( config );
-            manager = connectionManagers.putIfAbsent( config, connMgr );
+            MonitoredConnectionManager connMgr = newConnectionManager( session, config, server, maxPerTarget );
+            manager = connectionManagers.putIfAbsent( key, connMgr );
             if ( manager != null )
             {
                 connMgr.shutdown();
@@ -168,18 +196,44 @@ final class GlobalState
         return manager;
     }
 
-    public static ClientConnectionManager newConnectionManager( SslConfig sslConfig )
+    public static MonitoredConnectionManager newConnectionManager( RepositorySystemSession session,
+                                                                   RemoteRepository repository, SslConfig sslConfig,
+                                                                   HttpHost server )
+    {
+        return newConnectionManager( session, sslConfig, server, getMaxConnectionsPerTarget( session, repository ) );
+    }
+
+    private static int getMaxConnectionsPerTarget( RepositorySystemSession session, RemoteRepository repository )
+    {
+        return ConfigUtils.getInteger( session, 0, CONFIG_PROP_MAX_CONNECTIONS_PER_ROUTE + '.' + repository.getId() );
+    }
+
+    private static MonitoredConnectionManager newConnectionManager( RepositorySystemSession session,
+                                                                    SslConfig sslConfig, HttpHost server,
+                                                                    int maxPerTarget )
     {
         SchemeRegistry schemeReg = new SchemeRegistry();
         schemeReg.register( new Scheme( "http", 80, new PlainSocketFactory() ) );
         schemeReg.register( new Scheme( "https", 443, new SslSocketFactory( sslConfig ) ) );
 
-        PoolingClientConnectionManager connMgr = new PoolingClientConnectionManager( schemeReg );
-        connMgr.setMaxTotal( 100 );
-        connMgr.setDefaultMaxPerRoute( 50 );
+        long timeToLive = ConfigUtils.getLong( session, -1L, CONFIG_PROP_CONNECTION_TIME_TO_LIVE );
+        long maxIdleTime = ConfigUtils.getLong( session, 30L * 1000L, CONFIG_PROP_CONNECTION_MAX_IDLE_TIME );
+        MonitoredConnectionManager connMgr = new MonitoredConnectionManager( schemeReg, timeToLive, maxIdleTime );
+        connMgr.setMaxTotal( Math.max( 1, ConfigUtils.getInteger( session, 100, CONFIG_PROP_MAX_CONNECTIONS ) ) );
+        connMgr.setDefaultMaxPerRoute( Math.max( 1, ConfigUtils.getInteger( session, 50,
+                                                                            CONFIG_PROP_MAX_CONNECTIONS_PER_ROUTE ) ) );
+        if ( maxPerTarget > 0 )
+        {
+            connMgr.setMaxPerTarget( server, maxPerTarget );
+        }
         return connMgr;
     }
 
+    public ConnectionPoolStats getConnectionPoolStats()
+    {
+        return new ConnectionPoolStats( connectionManagers.values() );
+    }
+
     public Object getUserToken( CompoundKey key )
     {
         return userTokens.get( key );
@@ -202,6 +256,16 @@ final class GlobalState
         return authSchemePools;
     }
 
+    public String getAuthSchemeName( CompoundKey key )
+    {
+        return authSchemeNames.get( key );
+    }
+
+    public void setAuthSchemeName( CompoundKey key, String schemeName )
+    {
+        authSchemeNames.put( key, schemeName );
+    }
+
     public Boolean getExpectContinue( CompoundKey key )
     {
         return expectContinues.get( key );
@@ -212,4 +276,34 @@ final class GlobalState
         expectContinues.put( key, enabled );
     }
 
+    public Boolean getWebDav( CompoundKey key )
+    {
+        return webDavs.get( key );
+    }
+
+    public void setWebDav( CompoundKey key, boolean webDav )
+    {
+        webDavs.put( key, webDav );
+    }
+
+    public Set<URI> getWebDavCollections( CompoundKey key )
+    {
+        Set<URI> collections = webDavCollections.get( key );
+        if ( collections == null )
+        {
+            Set<URI> tmp = newConcurrentSet();
+            collections = webDavCollections.putIfAbsent( key, tmp );
+            if ( collections == null )
+            {
+                collections = tmp;
+            }
+        }
+        return collections;
+    }
+
+    static <T> Set<T> newConcurrentSet()
+    {
+        return Collections.newSetFromMap( new ConcurrentHashMap<T, Boolean>() );
+    }
+
 }
@@ -0,0 +1,58 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.eclipse.aether.util.transport.ChecksumHeaders;
+import org.eclipse.aether.util.transport.HeaderLookup;
+
+/**
+ * Extracts checksums from dedicated response headers like the {@code X-Checksum-Sha1} header sent by Artifactory and
+ * the content delivery network of Maven Central, or the {@code x-goog-meta-checksum-sha1} metadata of artifacts
+ * served from Google Cloud Storage.
+ * 
+ * @see ChecksumHeaders#extractHeaderChecksums(HeaderLookup)
+ */
+final class HeaderChecksumExtractor
+    extends ChecksumExtractor
+{
+
+    @Override
+    public Map<String, String> extractChecksums( HttpResponse response )
+    {
+        return ChecksumHeaders.extractHeaderChecksums( toLookup( response ) );
+    }
+
+    static HeaderLookup toLookup( final HttpResponse response )
+    {
+        return new HeaderLookup()
+        {
+            public String getHeader( String name )
+            {
+                Header header = response.getFirstHeader( name );
+                return ( header != null ) ? header.getValue() : null;
+            }
+        };
+    }
+
+}
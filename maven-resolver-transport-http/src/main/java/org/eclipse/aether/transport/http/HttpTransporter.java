@@ -19,16 +19,23 @@ package org.eclipse.aether.transport.http;
  * under the License.
  */
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,6 +60,7 @@ import org.apache.http.client.utils.URIUtils;
 import org.apache.http.conn.params.ConnRouteParams;
 import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.DecompressingHttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.cookie.DateUtils;
@@ -83,10 +91,15 @@ final class HttpTransporter
 {
 
     private static final Pattern CONTENT_RANGE_PATTERN =
-        Pattern.compile( "\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/.*" );
+        Pattern.compile( "\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/\\s*([0-9]+|\\*)?.*" );
 
     private static final Pattern HOST_SPLIT_PATTERN = Pattern.compile( "\\s*[,]\\s*" );
 
+    static final String CONFIG_PROP_PREEMPTIVE_AUTH = "aether.connector.http.preemptiveAuth";
+
+    private static final List<ChecksumExtractor> BUILTIN_CHECKSUM_EXTRACTORS =
+        Arrays.<ChecksumExtractor>asList( new NexusChecksumExtractor(), new HeaderChecksumExtractor() );
+
     private final Logger logger;
 
     private final AuthenticationContext repoAuthContext;
@@ -105,7 +118,12 @@ final class HttpTransporter
 
     private final LocalState state;
 
-    public HttpTransporter( RemoteRepository repository, RepositorySystemSession session, Logger logger )
+    private final List<ChecksumExtractor> checksumExtractors;
+
+    private final ContentCache contentCache;
+
+    public HttpTransporter( RemoteRepository repository, RepositorySystemSession session,
+                            List<ChecksumExtractor> checksumExtractors, Logger logger )
         throws NoTransporterException
     {
         if ( !"http".equalsIgnoreCase( repository.getProtocol() )
@@ -114,6 +132,8 @@ final class HttpTransporter
             throw new NoTransporterException( repository );
         }
         this.logger = logger;
+        this.checksumExtractors = new ArrayList<ChecksumExtractor>( checksumExtractors );
+        this.checksumExtractors.addAll( BUILTIN_CHECKSUM_EXTRACTORS );
         try
         {
             baseUri = new URI( repository.getUrl() ).parseServerAuthority();
@@ -132,11 +152,12 @@ final class HttpTransporter
             throw new NoTransporterException( repository, e.getMessage(), e );
         }
         proxy = toHost( repository.getProxy() );
+        contentCache = ContentCache.newInstance( session, repository, logger );
 
         repoAuthContext = AuthenticationContext.forRepository( session, repository );
         proxyAuthContext = AuthenticationContext.forProxy( session, repository );
 
-        state = new LocalState( session, repository, new SslConfig( session, repoAuthContext ) );
+        state = new LocalState( session, repository, new SslConfig( session, repoAuthContext ), server );
 
         headers =
             ConfigUtils.getMap( session, Collections.emptyMap(), ConfigurationProperties.HTTP_HEADERS + "."
@@ -149,10 +170,22 @@ final class HttpTransporter
         boolean redirectedAuth = getRedirectedAuth( session, repository, server );
         client.setCredentialsProvider( toCredentials( server, repoAuthContext, redirectedAuth, proxy, proxyAuthContext ) );
 
+        String bearerToken = ( repoAuthContext != null ) ? repoAuthContext.get( AuthenticationContext.BEARER_TOKEN ) : null;
+        if ( bearerToken != null )
+        {
+            client.addRequestInterceptor( new BearerAuthInterceptor( server, bearerToken ) );
+        }
+        else if ( repoAuthContext != null && repoAuthContext.get( AuthenticationContext.USERNAME ) != null
+            && ConfigUtils.getBoolean( session, false, CONFIG_PROP_PREEMPTIVE_AUTH + '.' + repository.getId(),
+                                       CONFIG_PROP_PREEMPTIVE_AUTH ) )
+        {
+            state.setPreemptiveAuthScheme( SharingAuthCache.toKey( server ), new BasicScheme() );
+        }
+
         this.client = new DecompressingHttpClient( client );
     }
 
-    private static HttpHost toHost( Proxy proxy )
+    static HttpHost toHost( Proxy proxy )
     {
         HttpHost host = null;
         if ( proxy != null )
@@ -162,8 +195,8 @@ final class HttpTransporter
         return host;
     }
 
-    private static void configureClient( HttpParams params, RepositorySystemSession session,
-                                         RemoteRepository repository, HttpHost proxy )
+    static void configureClient( HttpParams params, RepositorySystemSession session,
+                                 RemoteRepository repository, HttpHost proxy )
     {
         AuthParams.setCredentialCharset( params,
                                          ConfigUtils.getString( session,
@@ -275,9 +308,15 @@ final class HttpTransporter
     protected void implGet( GetTask task )
         throws Exception
     {
+        if ( contentCache != null && task.getResumeOffset() <= 0L && task.getDataRangeLength() < 0L
+            && task.getCachedValidators().isEmpty() )
+        {
+            getCached( task );
+            return;
+        }
         EntityGetter getter = new EntityGetter( task );
         HttpGet request = commonHeaders( new HttpGet( resolve( task ) ) );
-        resume( request, task );
+        conditional( resume( request, task ), task );
         try
         {
             execute( request, getter );
@@ -286,7 +325,7 @@ final class HttpTransporter
         {
             if ( e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED && request.containsHeader( HttpHeaders.RANGE ) )
             {
-                request = commonHeaders( new HttpGet( request.getURI() ) );
+                request = conditional( commonHeaders( new HttpGet( request.getURI() ) ), task );
                 execute( request, getter );
                 return;
             }
@@ -294,6 +333,35 @@ final class HttpTransporter
         }
     }
 
+    private void getCached( GetTask task )
+        throws Exception
+    {
+        URI uri = resolve( task );
+        ContentCache.Entry entry = contentCache.get( uri.toString() );
+        if ( entry != null )
+        {
+            HttpGet request = commonHeaders( new HttpGet( uri ) );
+            String etag = entry.validators.get( HttpHeaders.ETAG );
+            if ( etag != null )
+            {
+                request.setHeader( HttpHeaders.IF_NONE_MATCH, etag );
+            }
+            String lastModified = entry.validators.get( HttpHeaders.LAST_MODIFIED );
+            if ( lastModified != null )
+            {
+                request.setHeader( HttpHeaders.IF_MODIFIED_SINCE, lastModified );
+            }
+            CachingEntityGetter getter = new CachingEntityGetter( task, uri.toString(), entry );
+            execute( request, getter );
+            if ( !getter.isStale() )
+            {
+                return;
+            }
+            contentCache.remove( entry );
+        }
+        execute( commonHeaders( new HttpGet( uri ) ), new CachingEntityGetter( task, uri.toString(), null ) );
+    }
+
     @Override
     protected void implPut( PutTask task )
         throws Exception
@@ -328,6 +396,13 @@ final class HttpTransporter
             try
             {
                 context.close();
+                if ( getter != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED
+                    && ( request.containsHeader( HttpHeaders.IF_NONE_MATCH )
+                    || request.containsHeader( HttpHeaders.IF_MODIFIED_SINCE ) ) )
+                {
+                    getter.notModified( response );
+                    return;
+                }
                 handleStatus( response );
                 if ( getter != null )
                 {
@@ -399,10 +474,15 @@ final class HttpTransporter
 
     private void mkdirs( URI uri, SharingHttpContext context )
     {
+        Set<URI> collections = state.getWebDavCollections();
         List<URI> dirs = UriUtils.getDirectories( baseUri, uri );
         int index = 0;
         for ( ; index < dirs.size(); index++ )
         {
+            if ( collections.contains( dirs.get( index ) ) )
+            {
+                break;
+            }
             try
             {
                 HttpResponse response =
@@ -412,7 +492,8 @@ final class HttpTransporter
                     int status = response.getStatusLine().getStatusCode();
                     if ( status < 300 || status == HttpStatus.SC_METHOD_NOT_ALLOWED )
                     {
-                        // directory was created or already existed
+                        // directory was created or already existed, and so do its parents
+                        collections.addAll( dirs.subList( index, dirs.size() ) );
                         break;
                     }
                     else if ( status == HttpStatus.SC_CONFLICT )
@@ -442,6 +523,7 @@ final class HttpTransporter
                 try
                 {
                     handleStatus( response );
+                    collections.add( dirs.get( index ) );
                 }
                 finally
                 {
@@ -509,7 +591,14 @@ final class HttpTransporter
     private <T extends HttpUriRequest> T resume( T request, GetTask task )
     {
         long resumeOffset = task.getResumeOffset();
-        if ( resumeOffset > 0L && task.getDataFile() != null )
+        long rangeLength = task.getDataRangeLength();
+        if ( rangeLength > 0L && task.getDataFile() != null )
+        {
+            request.setHeader( HttpHeaders.RANGE, "bytes=" + Long.toString( resumeOffset ) + '-'
+                + Long.toString( resumeOffset + rangeLength - 1L ) );
+            request.setHeader( HttpHeaders.ACCEPT_ENCODING, "identity" );
+        }
+        else if ( resumeOffset > 0L && task.getDataFile() != null )
         {
             request.setHeader( HttpHeaders.RANGE, "bytes=" + Long.toString( resumeOffset ) + '-' );
             request.setHeader( HttpHeaders.IF_UNMODIFIED_SINCE,
@@ -519,6 +608,24 @@ final class HttpTransporter
         return request;
     }
 
+    private <T extends HttpUriRequest> T conditional( T request, GetTask task )
+    {
+        if ( !request.containsHeader( HttpHeaders.RANGE ) )
+        {
+            String etag = task.getCachedValidators().get( HttpHeaders.ETAG );
+            if ( etag != null )
+            {
+                request.setHeader( HttpHeaders.IF_NONE_MATCH, etag );
+            }
+            String lastModified = task.getCachedValidators().get( HttpHeaders.LAST_MODIFIED );
+            if ( lastModified != null )
+            {
+                request.setHeader( HttpHeaders.IF_MODIFIED_SINCE, lastModified );
+            }
+        }
+        return request;
+    }
+
     private void handleStatus( HttpResponse response )
         throws HttpResponseException
     {
@@ -534,13 +641,20 @@ final class HttpTransporter
     {
         AuthenticationContext.close( repoAuthContext );
         AuthenticationContext.close( proxyAuthContext );
+        if ( logger.isDebugEnabled() )
+        {
+            MonitoredConnectionManager connMgr = state.getConnectionManager();
+            logger.debug( "Connection pool after transfers with " + server + ": total " + connMgr.getTotalStats() + ", "
+                + connMgr.getLeases() + " leases waited " + connMgr.getLeaseWaitTime() + " ms (max "
+                + connMgr.getMaxLeaseWaitTime() + " ms)" );
+        }
         state.close();
     }
 
     private class EntityGetter
     {
 
-        private final GetTask task;
+        final GetTask task;
 
         public EntityGetter( GetTask task )
         {
@@ -566,29 +680,63 @@ final class HttpTransporter
                     throw new IOException( "Invalid Content-Range header for partial download: " + range );
                 }
                 offset = Long.parseLong( m.group( 1 ) );
-                length = Long.parseLong( m.group( 2 ) ) + 1L;
-                if ( offset < 0L || offset >= length || ( offset > 0L && offset != task.getResumeOffset() ) )
+                long end = Long.parseLong( m.group( 2 ) ) + 1L;
+                boolean ranged = task.getDataRangeLength() >= 0L;
+                if ( offset < 0L || offset >= end || ( ( offset > 0L || ranged ) && offset != task.getResumeOffset() )
+                    || ( ranged && end > task.getResumeOffset() + task.getDataRangeLength() ) )
                 {
                     throw new IOException( "Invalid Content-Range header for partial download from offset "
                         + task.getResumeOffset() + ": " + range );
                 }
+                if ( m.group( 3 ) != null && !"*".equals( m.group( 3 ) ) )
+                {
+                    length = Long.parseLong( m.group( 3 ) );
+                }
+                else
+                {
+                    length = ranged ? -1L : end;
+                }
+            }
+            else if ( task.getDataRangeLength() >= 0L && task.getResumeOffset() > 0L )
+            {
+                throw new IOException( "Server does not support partial download from offset "
+                    + task.getResumeOffset() );
             }
 
             InputStream is = entity.getContent();
             utilGet( task, is, true, length, offset > 0L );
             extractChecksums( response );
+            extractValidators( response );
+        }
+
+        public void notModified( HttpResponse response )
+            throws IOException, TransferCancelledException
+        {
+            task.setNotModified( true );
+            extractValidators( response );
         }
 
-        private void extractChecksums( HttpResponse response )
+        void extractValidators( HttpResponse response )
         {
-            // Nexus-style, ETag: "{SHA1{d40d68ba1f88d8e9b0040f175a6ff41928abd5e7}}"
-            String etag = getHeader( response, HttpHeaders.ETAG );
-            if ( etag != null )
+            task.setValidator( HttpHeaders.ETAG, getHeader( response, HttpHeaders.ETAG ) );
+            task.setValidator( HttpHeaders.LAST_MODIFIED, getHeader( response, HttpHeaders.LAST_MODIFIED ) );
+        }
+
+        void extractChecksums( HttpResponse response )
+        {
+            for ( ChecksumExtractor extractor : checksumExtractors )
             {
-                int start = etag.indexOf( "SHA1{" ), end = etag.indexOf( "}", start + 5 );
-                if ( start >= 0 && end > start )
+                Map<String, String> checksums = extractor.extractChecksums( response );
+                if ( checksums == null )
                 {
-                    task.setChecksum( "SHA-1", etag.substring( start + 5, end ) );
+                    continue;
+                }
+                for ( Map.Entry<String, String> entry : checksums.entrySet() )
+                {
+                    if ( !task.getChecksums().containsKey( entry.getKey() ) )
+                    {
+                        task.setChecksum( entry.getKey(), entry.getValue() );
+                    }
                 }
             }
         }
@@ -601,6 +749,90 @@ final class HttpTransporter
 
     }
 
+    /**
+     * Serves the resource from the content cache if the server confirms that it is unchanged, or otherwise downloads it
+     * and adds it to the cache.
+     */
+    private class CachingEntityGetter
+        extends EntityGetter
+    {
+
+        private final String url;
+
+        private final ContentCache.Entry entry;
+
+        private boolean stale;
+
+        public CachingEntityGetter( GetTask task, String url, ContentCache.Entry entry )
+        {
+            super( task );
+            this.url = url;
+            this.entry = entry;
+        }
+
+        public boolean isStale()
+        {
+            return stale;
+        }
+
+        @Override
+        public void handle( HttpResponse response )
+            throws IOException, TransferCancelledException
+        {
+            super.handle( response );
+            File dataFile = task.getDataFile();
+            contentCache.put( url, dataFile, ( dataFile == null ) ? task.getDataBytes() : null, task.getValidators(),
+                              task.getChecksums() );
+        }
+
+        @Override
+        public void notModified( HttpResponse response )
+            throws IOException, TransferCancelledException
+        {
+            extractChecksums( response );
+            String sha1 = task.getChecksums().get( "SHA-1" );
+            if ( entry == null || ( sha1 != null && entry.sha1 != null && !sha1.equalsIgnoreCase( entry.sha1 ) ) )
+            {
+                stale = true;
+                return;
+            }
+            File dataFile = task.getDataFile();
+            if ( dataFile != null && contentCache.link( entry, dataFile ) )
+            {
+                // the data is already complete, i.e. the listener sees a download resumed at its end
+                task.getListener().transportStarted( entry.length, entry.length );
+            }
+            else
+            {
+                FileChannel channel;
+                try
+                {
+                    channel = new FileInputStream( entry.dataFile ).getChannel();
+                }
+                catch ( FileNotFoundException e )
+                {
+                    // evicted meanwhile
+                    stale = true;
+                    return;
+                }
+                utilGet( task, channel, true, entry.length, false );
+            }
+            contentCache.touch( entry );
+            for ( Map.Entry<String, String> checksum : entry.checksums.entrySet() )
+            {
+                if ( !task.getChecksums().containsKey( checksum.getKey() ) )
+                {
+                    task.setChecksum( checksum.getKey(), checksum.getValue() );
+                }
+            }
+            for ( Map.Entry<String, String> validator : entry.validators.entrySet() )
+            {
+                task.setValidator( validator.getKey(), validator.getValue() );
+            }
+        }
+
+    }
+
     private class PutTaskEntity
         extends AbstractHttpEntity
     {
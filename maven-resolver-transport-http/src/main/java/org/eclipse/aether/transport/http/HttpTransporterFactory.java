@@ -19,6 +19,12 @@ package org.eclipse.aether.transport.http;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -26,6 +32,7 @@ import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.spi.connector.transport.Transporter;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterPreWarmer;
 import org.eclipse.aether.spi.locator.Service;
 import org.eclipse.aether.spi.locator.ServiceLocator;
 import org.eclipse.aether.spi.log.Logger;
@@ -35,17 +42,20 @@ import org.eclipse.aether.transfer.NoTransporterException;
 
 /**
  * A transporter factory for repositories using the {@code http:} or {@code https:} protocol. The provided transporters
- * support uploads to WebDAV servers and resumable downloads.
+ * support uploads to WebDAV servers and resumable downloads. Connections can be pre-warmed via the
+ * {@link ConnectionPreWarmer}.
  */
 @Named( "http" )
 public final class HttpTransporterFactory
-    implements TransporterFactory, Service
+    implements TransporterFactory, TransporterPreWarmer, Service
 {
 
     private Logger logger = NullLoggerFactory.LOGGER;
 
     private float priority = 5.0f;
 
+    private List<ChecksumExtractor> checksumExtractors = Collections.emptyList();
+
     /**
      * Creates an (uninitialized) instance of this transporter factory. <em>Note:</em> In case of manual instantiation
      * by clients, the new factory needs to be configured via its various mutators before first use or runtime errors
@@ -57,6 +67,12 @@ public final class HttpTransporterFactory
     }
 
     @Inject
+    HttpTransporterFactory( LoggerFactory loggerFactory, Set<ChecksumExtractor> checksumExtractors )
+    {
+        setLoggerFactory( loggerFactory );
+        setChecksumExtractors( checksumExtractors );
+    }
+
     HttpTransporterFactory( LoggerFactory loggerFactory )
     {
         setLoggerFactory( loggerFactory );
@@ -65,6 +81,7 @@ public final class HttpTransporterFactory
     public void initService( ServiceLocator locator )
     {
         setLoggerFactory( locator.getService( LoggerFactory.class ) );
+        setChecksumExtractors( locator.getServices( ChecksumExtractor.class ) );
     }
 
     /**
@@ -79,6 +96,27 @@ public final class HttpTransporterFactory
         return this;
     }
 
+    /**
+     * Sets the extractors for checksum headers of repository managers which are not supported out of the box. The
+     * built-in support for the Nexus-style {@code ETag} and {@code X-Checksum-*} headers is always active, the
+     * additional extractors are consulted first.
+     * 
+     * @param checksumExtractors The additional checksum extractors to use, may be {@code null} or empty.
+     * @return This component for chaining, never {@code null}.
+     */
+    public HttpTransporterFactory setChecksumExtractors( Collection<ChecksumExtractor> checksumExtractors )
+    {
+        if ( checksumExtractors == null || checksumExtractors.isEmpty() )
+        {
+            this.checksumExtractors = Collections.emptyList();
+        }
+        else
+        {
+            this.checksumExtractors = new ArrayList<ChecksumExtractor>( checksumExtractors );
+        }
+        return this;
+    }
+
     public float getPriority()
     {
         return priority;
@@ -99,7 +137,12 @@ public final class HttpTransporterFactory
     public Transporter newInstance( RepositorySystemSession session, RemoteRepository repository )
         throws NoTransporterException
     {
-        return new HttpTransporter( repository, session, logger );
+        return new HttpTransporter( repository, session, checksumExtractors, logger );
+    }
+
+    public void preWarm( RepositorySystemSession session, Collection<RemoteRepository> repositories )
+    {
+        ConnectionPreWarmer.preWarm( session, repositories );
     }
 
 }
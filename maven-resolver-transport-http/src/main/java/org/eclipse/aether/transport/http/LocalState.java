@@ -20,12 +20,13 @@ package org.eclipse.aether.transport.http;
  */
 
 import java.io.Closeable;
+import java.net.URI;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScheme;
-import org.apache.http.conn.ClientConnectionManager;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.transport.http.GlobalState.CompoundKey;
@@ -43,7 +44,7 @@ final class LocalState
 
     private final GlobalState global;
 
-    private final ClientConnectionManager connMgr;
+    private final MonitoredConnectionManager connMgr;
 
     private final CompoundKey userTokenKey;
 
@@ -57,33 +58,55 @@ final class LocalState
 
     private volatile Boolean webDav;
 
+    private final CompoundKey webDavKey;
+
+    private final Set<URI> webDavCollections;
+
     private final ConcurrentMap<HttpHost, AuthSchemePool> authSchemePools;
 
-    public LocalState( RepositorySystemSession session, RemoteRepository repo, SslConfig sslConfig )
+    private final RemoteRepository repo;
+
+    private final boolean preemptiveAuth;
+
+    public LocalState( RepositorySystemSession session, RemoteRepository repo, SslConfig sslConfig, HttpHost server )
     {
         global = GlobalState.get( session );
         userToken = this;
+        this.repo = repo;
+        preemptiveAuth =
+            ConfigUtils.getBoolean( session, false, HttpTransporter.CONFIG_PROP_PREEMPTIVE_AUTH + '.' + repo.getId(),
+                                    HttpTransporter.CONFIG_PROP_PREEMPTIVE_AUTH );
         if ( global == null )
         {
-            connMgr = GlobalState.newConnectionManager( sslConfig );
+            connMgr = GlobalState.newConnectionManager( session, repo, sslConfig, server );
             userTokenKey = null;
             expectContinueKey = null;
+            webDavKey = null;
+            webDavCollections = GlobalState.newConcurrentSet();
             authSchemePools = new ConcurrentHashMap<HttpHost, AuthSchemePool>();
         }
         else
         {
-            connMgr = global.getConnectionManager( sslConfig );
+            connMgr = global.getConnectionManager( session, repo, sslConfig, server );
             userTokenKey = new CompoundKey( repo.getId(), repo.getUrl(), repo.getAuthentication(), repo.getProxy() );
             expectContinueKey = new CompoundKey( repo.getUrl(), repo.getProxy() );
+            webDavKey = new CompoundKey( repo.getUrl(), repo.getProxy(), repo.getAuthentication() );
+            webDavCollections = global.getWebDavCollections( webDavKey );
             authSchemePools = global.getAuthSchemePools();
         }
         if ( !ConfigUtils.getBoolean( session, true, CONFIG_PROP_WEBDAV + '.' + repo.getId(), CONFIG_PROP_WEBDAV ) )
         {
             webDav = false;
         }
+        else if ( global != null && global.getWebDav( webDavKey ) != null )
+        {
+            // the server has already been probed by another transporter of this session
+            webDav = global.getWebDav( webDavKey );
+            probed = true;
+        }
     }
 
-    public ClientConnectionManager getConnectionManager()
+    public MonitoredConnectionManager getConnectionManager()
     {
         return connMgr;
     }
@@ -145,12 +168,32 @@ final class LocalState
         if ( this.webDav == null )
         {
             this.webDav = webDav;
+            if ( global != null )
+            {
+                global.setWebDav( webDavKey, webDav );
+            }
         }
     }
 
+    /**
+     * Gets the collections (directories) on the WebDAV server which are known to exist and don't need to be created.
+     */
+    public Set<URI> getWebDavCollections()
+    {
+        return webDavCollections;
+    }
+
     public AuthScheme getAuthScheme( HttpHost host )
     {
         AuthSchemePool pool = authSchemePools.get( host );
+        if ( pool == null && global != null && preemptiveAuth )
+        {
+            String schemeName = global.getAuthSchemeName( getAuthSchemeKey( host ) );
+            if ( schemeName != null )
+            {
+                pool = getAuthSchemePool( host, schemeName );
+            }
+        }
         if ( pool != null )
         {
             return pool.get();
@@ -159,18 +202,49 @@ final class LocalState
     }
 
     public void setAuthScheme( HttpHost host, AuthScheme authScheme )
+    {
+        getAuthSchemePool( host, null ).put( authScheme );
+        if ( global != null && authScheme != null )
+        {
+            global.setAuthSchemeName( getAuthSchemeKey( host ), authScheme.getSchemeName() );
+        }
+    }
+
+    /**
+     * Makes the specified auth scheme available for preemptive authentication with the host unless the scheme used by
+     * the host is already known.
+     */
+    public void setPreemptiveAuthScheme( HttpHost host, AuthScheme authScheme )
+    {
+        if ( !authSchemePools.containsKey( host )
+            && ( global == null || global.getAuthSchemeName( getAuthSchemeKey( host ) ) == null ) )
+        {
+            getAuthSchemePool( host, null ).put( authScheme );
+        }
+    }
+
+    /**
+     * Gets the key under which the name of the auth scheme used by the host is remembered, the scheme only applies to
+     * the same credentials.
+     */
+    private CompoundKey getAuthSchemeKey( HttpHost host )
+    {
+        return new CompoundKey( host, repo.getAuthentication(), repo.getProxy() );
+    }
+
+    private AuthSchemePool getAuthSchemePool( HttpHost host, String schemeName )
     {
         AuthSchemePool pool = authSchemePools.get( host );
         if ( pool == null )
         {
-            AuthSchemePool p = new AuthSchemePool();
+            AuthSchemePool p = new AuthSchemePool( schemeName );
             pool = authSchemePools.putIfAbsent( host, p );
             if ( pool == null )
             {
                 pool = p;
             }
         }
-        pool.put( authScheme );
+        return pool;
     }
 
     public void close()
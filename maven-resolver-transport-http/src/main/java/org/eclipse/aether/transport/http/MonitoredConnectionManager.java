@@ -0,0 +1,184 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * A pooling connection manager that evicts idle and expired connections while handing out connections and that keeps
+ * track of the routes it served and the time spent waiting for a connection to become available.
+ */
+final class MonitoredConnectionManager
+    extends PoolingClientConnectionManager
+{
+
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toNanos( 1L );
+
+    private final long maxIdleTime;
+
+    private final ConcurrentMap<HttpRoute, Boolean> routes;
+
+    private final ConcurrentMap<HttpHost, Integer> maxPerTarget;
+
+    private final AtomicLong lastEviction;
+
+    private final AtomicLong leases;
+
+    private final AtomicLong leaseWaitTime;
+
+    private final AtomicLong maxLeaseWaitTime;
+
+    /**
+     * @param timeToLive The maximum lifetime of a connection in milliseconds, non-positive for unlimited.
+     * @param maxIdleTime The time in milliseconds after which an idle connection is closed, non-positive to keep idle
+     *            connections open until the server closes them.
+     */
+    MonitoredConnectionManager( SchemeRegistry schemeReg, long timeToLive, long maxIdleTime )
+    {
+        super( schemeReg, timeToLive, TimeUnit.MILLISECONDS );
+        this.maxIdleTime = maxIdleTime;
+        routes = new ConcurrentHashMap<HttpRoute, Boolean>();
+        maxPerTarget = new ConcurrentHashMap<HttpHost, Integer>();
+        lastEviction = new AtomicLong( System.nanoTime() );
+        leases = new AtomicLong();
+        leaseWaitTime = new AtomicLong();
+        maxLeaseWaitTime = new AtomicLong();
+    }
+
+    /**
+     * Limits the number of concurrent connections for all routes to the specified target host.
+     */
+    public void setMaxPerTarget( HttpHost target, int max )
+    {
+        maxPerTarget.put( target, max );
+        for ( HttpRoute route : routes.keySet() )
+        {
+            if ( target.equals( route.getTargetHost() ) )
+            {
+                setMaxPerRoute( route, max );
+            }
+        }
+    }
+
+    @Override
+    public ClientConnectionRequest requestConnection( HttpRoute route, Object state )
+    {
+        if ( routes.putIfAbsent( route, Boolean.TRUE ) == null )
+        {
+            Integer max = maxPerTarget.get( route.getTargetHost() );
+            if ( max != null )
+            {
+                setMaxPerRoute( route, max );
+            }
+        }
+        evictConnections();
+        final ClientConnectionRequest request = super.requestConnection( route, state );
+        return new ClientConnectionRequest()
+        {
+            public ManagedClientConnection getConnection( long timeout, TimeUnit unit )
+                throws InterruptedException, ConnectionPoolTimeoutException
+            {
+                long start = System.nanoTime();
+                try
+                {
+                    return request.getConnection( timeout, unit );
+                }
+                finally
+                {
+                    recordLease( System.nanoTime() - start );
+                }
+            }
+
+            public void abortRequest()
+            {
+                request.abortRequest();
+            }
+        };
+    }
+
+    private void evictConnections()
+    {
+        long now = System.nanoTime(), last = lastEviction.get();
+        if ( now - last >= EVICTION_INTERVAL && lastEviction.compareAndSet( last, now ) )
+        {
+            closeExpiredConnections();
+            if ( maxIdleTime > 0L )
+            {
+                closeIdleConnections( maxIdleTime, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
+    private void recordLease( long nanos )
+    {
+        leases.incrementAndGet();
+        leaseWaitTime.addAndGet( nanos );
+        for ( long max = maxLeaseWaitTime.get(); nanos > max; max = maxLeaseWaitTime.get() )
+        {
+            if ( maxLeaseWaitTime.compareAndSet( max, nanos ) )
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the pool statistics for each route that was served so far, keyed by the string representation of the route.
+     */
+    public Map<String, PoolStats> getRouteStats()
+    {
+        Map<String, PoolStats> stats = new HashMap<String, PoolStats>();
+        for ( HttpRoute route : routes.keySet() )
+        {
+            stats.put( route.toString(), getStats( route ) );
+        }
+        return stats;
+    }
+
+    public long getLeases()
+    {
+        return leases.get();
+    }
+
+    public long getLeaseWaitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( leaseWaitTime.get() );
+    }
+
+    public long getMaxLeaseWaitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( maxLeaseWaitTime.get() );
+    }
+
+}
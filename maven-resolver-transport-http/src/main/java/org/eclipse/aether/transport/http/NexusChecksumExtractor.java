@@ -0,0 +1,44 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+import org.apache.http.HttpResponse;
+import org.eclipse.aether.util.transport.ChecksumHeaders;
+import org.eclipse.aether.util.transport.HeaderLookup;
+
+/**
+ * Extracts the SHA-1 checksum that Nexus embeds into the entity tag, e.g.
+ * {@code ETag: "{SHA1{d40d68ba1f88d8e9b0040f175a6ff41928abd5e7}}"}.
+ * 
+ * @see ChecksumHeaders#extractNexusChecksums(HeaderLookup)
+ */
+final class NexusChecksumExtractor
+    extends ChecksumExtractor
+{
+
+    @Override
+    public Map<String, String> extractChecksums( HttpResponse response )
+    {
+        return ChecksumHeaders.extractNexusChecksums( HeaderChecksumExtractor.toLookup( response ) );
+    }
+
+}
@@ -44,7 +44,7 @@ final class SharingAuthCache
         authSchemes = new HashMap<HttpHost, AuthScheme>();
     }
 
-    private static HttpHost toKey( HttpHost host )
+    static HttpHost toKey( HttpHost host )
     {
         if ( host.getPort() <= 0 )
         {
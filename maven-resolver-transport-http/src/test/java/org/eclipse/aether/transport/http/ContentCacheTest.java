@@ -0,0 +1,242 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestLoggerFactory;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContentCacheTest
+{
+
+    private static final String URL = "http://localhost/repo/file.txt";
+
+    private static final String SHA1_TEST = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+
+    private File basedir;
+
+    private Map<String, String> validators;
+
+    private ContentCache newInstance( long maxSize )
+    {
+        return newInstance( maxSize, false );
+    }
+
+    private ContentCache newInstance( long maxSize, boolean hardLinks )
+    {
+        return new ContentCache( basedir, maxSize, hardLinks, new TestLoggerFactory().getLogger( "" ) );
+    }
+
+    private static byte[] bytes( String data )
+    {
+        return data.getBytes( StandardCharsets.UTF_8 );
+    }
+
+    private static Map<String, String> sha1( String data )
+        throws NoSuchAlgorithmException
+    {
+        byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( bytes( data ) );
+        return Collections.singletonMap( "SHA-1", ChecksumUtils.toHexString( digest ) );
+    }
+
+    @Before
+    public void init()
+        throws Exception
+    {
+        basedir = TestFileUtils.createTempDir();
+        validators = new HashMap<String, String>();
+        validators.put( "ETag", "\"abc\"" );
+    }
+
+    @Test
+    public void testPutAndGet_File()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "test" );
+        ContentCache cache = newInstance( 1024L );
+        Map<String, String> checksums = new HashMap<String, String>();
+        checksums.put( "SHA-1", SHA1_TEST );
+        checksums.put( "MD5", "md5" );
+        cache.put( URL, file, null, validators, checksums );
+        ContentCache.Entry entry = newInstance( 1024L ).get( URL );
+        assertNotNull( entry );
+        assertEquals( URL, entry.url );
+        assertEquals( 4L, entry.length );
+        assertEquals( "test", TestFileUtils.readString( entry.dataFile ) );
+        assertEquals( SHA1_TEST, entry.sha1 );
+        assertEquals( validators, entry.validators );
+        assertEquals( checksums, entry.checksums );
+        assertNull( cache.get( URL + "/other" ) );
+    }
+
+    @Test
+    public void testPutAndGet_Bytes()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, sha1( "test" ) );
+        ContentCache.Entry entry = cache.get( URL );
+        assertNotNull( entry );
+        assertEquals( "test", TestFileUtils.readString( entry.dataFile ) );
+    }
+
+    @Test
+    public void testPut_WithoutValidators()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), Collections.<String, String>emptyMap(), sha1( "test" ) );
+        assertNull( cache.get( URL ) );
+    }
+
+    @Test
+    public void testPut_WithoutChecksum()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, Collections.singletonMap( "MD5", "md5" ) );
+        assertNull( cache.get( URL ) );
+        assertEquals( 0, basedir.list().length );
+    }
+
+    @Test
+    public void testPut_ChecksumMismatch()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, Collections.singletonMap( "SHA-1", "0000" ) );
+        assertNull( cache.get( URL ) );
+        cache.put( URL, null, bytes( "test" ), validators, Collections.singletonMap( "SHA-1", SHA1_TEST ) );
+        assertNotNull( cache.get( URL ) );
+    }
+
+    @Test
+    public void testPut_ReplacesPreviousEntry()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "old" ), validators, sha1( "old" ) );
+        ContentCache.Entry old = cache.get( URL );
+        cache.put( URL, null, bytes( "new" ), Collections.singletonMap( "ETag", "\"new\"" ), sha1( "new" ) );
+        ContentCache.Entry entry = cache.get( URL );
+        assertEquals( "new", TestFileUtils.readString( entry.dataFile ) );
+        assertEquals( "\"new\"", entry.validators.get( "ETag" ) );
+        assertFalse( old.dataFile.exists() );
+    }
+
+    @Test
+    public void testGet_DataFileMissing()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, sha1( "test" ) );
+        assertTrue( cache.get( URL ).dataFile.delete() );
+        assertNull( cache.get( URL ) );
+    }
+
+    @Test
+    public void testGet_DataFileTruncated()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, sha1( "test" ) );
+        TestFileUtils.writeString( cache.get( URL ).dataFile, "te" );
+        assertNull( cache.get( URL ) );
+    }
+
+    @Test
+    public void testLink()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L, true );
+        cache.put( URL, null, bytes( "test" ), validators, sha1( "test" ) );
+        ContentCache.Entry entry = cache.get( URL );
+        File file = TestFileUtils.createTempFile( "failure" );
+        assertTrue( cache.link( entry, file ) );
+        assertEquals( "test", TestFileUtils.readString( file ) );
+        assertTrue( Files.isSameFile( entry.dataFile.toPath(), file.toPath() ) );
+        assertEquals( 0, file.getParentFile().list( new FilenameFilter()
+        {
+            public boolean accept( File dir, String name )
+            {
+                return name.endsWith( ".tmp" );
+            }
+        } ).length );
+
+        cache.remove( entry );
+        assertEquals( "test", TestFileUtils.readString( file ) );
+    }
+
+    @Test
+    public void testLink_Disabled()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, sha1( "test" ) );
+        File file = TestFileUtils.createTempFile( "failure" );
+        assertFalse( cache.link( cache.get( URL ), file ) );
+        assertEquals( "failure", TestFileUtils.readString( file ) );
+    }
+
+    @Test
+    public void testRemove()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 1024L );
+        cache.put( URL, null, bytes( "test" ), validators, sha1( "test" ) );
+        ContentCache.Entry entry = cache.get( URL );
+        cache.remove( entry );
+        assertNull( cache.get( URL ) );
+        assertFalse( entry.dataFile.exists() );
+    }
+
+    @Test
+    public void testEviction_LeastRecentlyUsed()
+        throws Exception
+    {
+        ContentCache cache = newInstance( 10L );
+        cache.put( URL + 1, null, bytes( "aaaa" ), validators, sha1( "aaaa" ) );
+        cache.put( URL + 2, null, bytes( "bbbb" ), validators, sha1( "bbbb" ) );
+        long now = System.currentTimeMillis();
+        assertTrue( cache.get( URL + 1 ).dataFile.setLastModified( now - 10000L ) );
+        assertTrue( cache.get( URL + 2 ).dataFile.setLastModified( now - 20000L ) );
+        cache.touch( cache.get( URL + 2 ) );
+
+        cache.put( URL + 3, null, bytes( "cccc" ), validators, sha1( "cccc" ) );
+        assertNull( cache.get( URL + 1 ) );
+        assertNotNull( cache.get( URL + 2 ) );
+        assertNotNull( cache.get( URL + 3 ) );
+    }
+
+}
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -101,7 +102,7 @@ public class HttpServer
 
     public enum ChecksumHeader
     {
-        NEXUS
+        NEXUS, XCHECKSUM
     }
 
     private static final Logger log = LoggerFactory.getLogger( HttpServer.class );
@@ -338,7 +339,7 @@ public class HttpServer
         extends AbstractHandler
     {
 
-        private final Pattern SIMPLE_RANGE = Pattern.compile( "bytes=([0-9])+-" );
+        private final Pattern SIMPLE_RANGE = Pattern.compile( "bytes=([0-9]+)-([0-9]*)" );
 
         public void handle( String target, Request req, HttpServletRequest request, HttpServletResponse response )
             throws IOException
@@ -371,7 +372,17 @@ public class HttpServer
                     response.setStatus( HttpServletResponse.SC_PRECONDITION_FAILED );
                     return;
                 }
-                long offset = 0L;
+                String etag = "\"" + Long.toHexString( file.lastModified() ) + "-" + file.length() + "\"";
+                String ifNoneMatch = request.getHeader( HttpHeaders.IF_NONE_MATCH );
+                long ifModifiedSince = request.getDateHeader( HttpHeaders.IF_MODIFIED_SINCE );
+                if ( ifNoneMatch != null ? etag.equals( ifNoneMatch )
+                                : ( ifModifiedSince != -1 && file.lastModified() / 1000L <= ifModifiedSince / 1000L ) )
+                {
+                    response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                    response.setHeader( HttpHeaders.ETAG, etag );
+                    return;
+                }
+                long offset = 0L, end = file.length();
                 String range = request.getHeader( HttpHeaders.RANGE );
                 if ( range != null && rangeSupport )
                 {
@@ -379,35 +390,46 @@ public class HttpServer
                     if ( m.matches() )
                     {
                         offset = Long.parseLong( m.group( 1 ) );
-                        if ( offset >= file.length() )
+                        if ( m.group( 2 ).length() > 0 )
+                        {
+                            end = Math.min( end, Long.parseLong( m.group( 2 ) ) + 1L );
+                        }
+                        if ( offset >= end )
                         {
                             response.setStatus( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE );
                             return;
                         }
                     }
                     String encoding = request.getHeader( HttpHeaders.ACCEPT_ENCODING );
-                    if ( ( encoding != null && !"identity".equals( encoding ) ) || ifUnmodifiedSince == -1 )
+                    if ( ( encoding != null && !"identity".equals( encoding ) )
+                        || ( ifUnmodifiedSince == -1 && end == file.length() ) )
                     {
                         response.setStatus( HttpServletResponse.SC_BAD_REQUEST );
                         return;
                     }
                 }
-                response.setStatus( ( offset > 0L ) ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK );
+                boolean partial = offset > 0L || end < file.length();
+                response.setStatus( partial ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK );
                 response.setDateHeader( HttpHeaders.LAST_MODIFIED, file.lastModified() );
-                response.setHeader( HttpHeaders.CONTENT_LENGTH, Long.toString( file.length() - offset ) );
-                if ( offset > 0L )
+                response.setHeader( HttpHeaders.CONTENT_LENGTH, Long.toString( end - offset ) );
+                if ( partial )
                 {
-                    response.setHeader( HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + ( file.length() - 1L )
-                        + "/" + file.length() );
+                    response.setHeader( HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + ( end - 1L ) + "/"
+                        + file.length() );
                 }
+                response.setHeader( HttpHeaders.ETAG, etag );
                 if ( checksumHeader != null )
                 {
-                    Map<String, Object> checksums = ChecksumUtils.calc( file, Collections.singleton( "SHA-1" ) );
+                    Map<String, Object> checksums = ChecksumUtils.calc( file, Arrays.asList( "SHA-1", "MD5" ) );
                     switch ( checksumHeader )
                     {
                         case NEXUS:
                             response.setHeader( HttpHeaders.ETAG, "{SHA1{" + checksums.get( "SHA-1" ) + "}}" );
                             break;
+                        case XCHECKSUM:
+                            response.setHeader( "X-Checksum-Sha1", checksums.get( "SHA-1" ).toString() );
+                            response.setHeader( "X-Checksum-Md5", checksums.get( "MD5" ).toString() );
+                            break;
                     }
                 }
                 if ( HttpMethods.HEAD.equals( req.getMethod() ) )
@@ -425,7 +447,7 @@ public class HttpServer
                             skipped++;
                         }
                     }
-                    IO.copy( is, response.getOutputStream() );
+                    IO.copy( is, response.getOutputStream(), end - offset );
                 }
                 finally
                 {
@@ -0,0 +1,197 @@
+package org.eclipse.aether.transport.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestLoggerFactory;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures the download throughput of the transporter against the embedded Jetty server, compared to a plain stream
+ * copy through a heap buffer into a {@link FileOutputStream}. Both variants digest the data like the connector does.
+ * This is not part of the regular test suite, run it via
+ * {@code mvn test -Dtest=HttpTransporterBenchmark -Dbenchmark.size=<MiB> -Dbenchmark.iterations=<n>}.
+ */
+public class HttpTransporterBenchmark
+{
+
+    private static final int SIZE = Integer.getInteger( "benchmark.size", 256 ) * 1024 * 1024;
+
+    private static final int ITERATIONS = Integer.getInteger( "benchmark.iterations", 10 );
+
+    private static final int WARMUP = 3;
+
+    private File repoDir;
+
+    private File dataFile;
+
+    private HttpServer httpServer;
+
+    private Transporter transporter;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        repoDir = TestFileUtils.createTempDir();
+        TestFileUtils.writeBytes( new File( repoDir, "large.bin" ), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, SIZE / 8 );
+        dataFile = TestFileUtils.createTempFile( "" );
+        httpServer = new HttpServer().setRepoDir( repoDir ).start();
+        DefaultRepositorySystemSession session = TestUtils.newSession();
+        RemoteRepository repo = new RemoteRepository.Builder( "test", "default", httpServer.getHttpUrl() ).build();
+        transporter = new HttpTransporterFactory( new TestLoggerFactory() ).newInstance( session, repo );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        if ( transporter != null )
+        {
+            transporter.close();
+        }
+        if ( httpServer != null )
+        {
+            httpServer.stop();
+        }
+        TestFileUtils.deleteFile( repoDir );
+        TestFileUtils.deleteFile( dataFile );
+    }
+
+    @Test
+    public void testTransporter()
+        throws Exception
+    {
+        report( "transporter", new Download()
+        {
+            public void run( MessageDigest digest )
+                throws Exception
+            {
+                transporter.get( new GetTask( URI.create( "repo/large.bin" ) ).setDataFile( dataFile ).setListener(
+                    new DigestingListener( digest ) ) );
+            }
+        } );
+    }
+
+    @Test
+    public void testStreamCopy()
+        throws Exception
+    {
+        report( "stream copy", new Download()
+        {
+            public void run( MessageDigest digest )
+                throws Exception
+            {
+                URL url = new URL( httpServer.getHttpUrl() + "/repo/large.bin" );
+                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                InputStream is = conn.getInputStream();
+                try
+                {
+                    OutputStream os = new FileOutputStream( dataFile );
+                    try
+                    {
+                        byte[] buffer = new byte[1024 * 32];
+                        for ( int read = is.read( buffer ); read >= 0; read = is.read( buffer ) )
+                        {
+                            os.write( buffer, 0, read );
+                            digest.update( buffer, 0, read );
+                        }
+                    }
+                    finally
+                    {
+                        os.close();
+                    }
+                }
+                finally
+                {
+                    is.close();
+                }
+            }
+        } );
+    }
+
+    private void report( String name, Download download )
+        throws Exception
+    {
+        MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+        for ( int i = 0; i < WARMUP; i++ )
+        {
+            download.run( digest );
+        }
+        long start = System.nanoTime();
+        for ( int i = 0; i < ITERATIONS; i++ )
+        {
+            download.run( digest );
+            assertEquals( SIZE, dataFile.length() );
+        }
+        long nanos = System.nanoTime() - start;
+        double mbps = ( (double) SIZE * ITERATIONS / ( 1024 * 1024 ) ) / ( nanos / 1000000000.0 );
+        System.out.println( String.format( "%-12s %8.1f MiB/s (%d x %d MiB)", name, mbps, ITERATIONS,
+                                           SIZE / ( 1024 * 1024 ) ) );
+    }
+
+    private interface Download
+    {
+
+        void run( MessageDigest digest )
+            throws Exception;
+
+    }
+
+    private static class DigestingListener
+        extends TransportListener
+    {
+
+        private final MessageDigest digest;
+
+        DigestingListener( MessageDigest digest )
+        {
+            this.digest = digest;
+        }
+
+        @Override
+        public void transportProgressed( ByteBuffer data )
+        {
+            digest.update( data );
+        }
+
+    }
+
+}
@@ -23,17 +23,26 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.ConnectException;
 import java.net.ServerSocket;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpResponseException;
 import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.pool.ConnPoolControl;
 import org.apache.http.pool.PoolStats;
 import org.eclipse.aether.ConfigurationProperties;
@@ -359,6 +368,80 @@ public class HttpTransporterTest
         }
     }
 
+    @Test
+    public void testGet_Authenticated_Preemptive()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.preemptiveAuth", true );
+        httpServer.setAuthentication( "testuser", "testpass" );
+        auth = new AuthenticationBuilder().addUsername( "testuser" ).addPassword( "testpass" ).build();
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertNotNull( httpServer.getLogEntries().get( 0 ).headers.get( "Authorization" ) );
+    }
+
+    @Test
+    public void testGet_Authenticated_SchemeRememberedWithPreemptiveAuth()
+        throws Exception
+    {
+        DefaultRepositoryCache cache = new DefaultRepositoryCache();
+        session.setCache( cache );
+        httpServer.setAuthentication( "testuser", "testpass" );
+        auth = new AuthenticationBuilder().addUsername( "testuser" ).addPassword( "testpass" ).build();
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        assertEquals( httpServer.getLogEntries().toString(), 2, httpServer.getLogEntries().size() );
+
+        session = TestUtils.newSession();
+        session.setCache( cache );
+        session.setConfigProperty( "aether.connector.http.preemptiveAuth", true );
+        newTransporter( httpServer.getHttpUrl() );
+        httpServer.getLogEntries().clear();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertNotNull( httpServer.getLogEntries().get( 0 ).headers.get( "Authorization" ) );
+    }
+
+    @Test
+    public void testGet_Authenticated_SchemeNotRememberedAcrossCaches()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        session.setConfigProperty( "aether.connector.http.preemptiveAuth", true );
+        httpServer.setAuthentication( "testuser", "testpass" );
+        auth = new AuthenticationBuilder().addUsername( "testuser" ).addPassword( "testpass" ).build();
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+
+        session = TestUtils.newSession();
+        session.setCache( new DefaultRepositoryCache() );
+        newTransporter( httpServer.getHttpUrl() );
+        httpServer.getLogEntries().clear();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( httpServer.getLogEntries().toString(), 2, httpServer.getLogEntries().size() );
+        assertNull( httpServer.getLogEntries().get( 0 ).headers.get( "Authorization" ) );
+    }
+
+    @Test
+    public void testGet_BearerToken()
+        throws Exception
+    {
+        auth = new AuthenticationBuilder().addBearerToken( "xyz" ).build();
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertEquals( "Bearer xyz", httpServer.getLogEntries().get( 0 ).headers.get( "Authorization" ) );
+    }
+
     @Test
     public void testGet_ProxyAuthenticated()
         throws Exception
@@ -498,6 +581,70 @@ public class HttpTransporterTest
         assertEquals( "resumable", new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
     }
 
+    @Test
+    public void testGet_Range()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "xxxxxxxxx" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task =
+            new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file ).setDataRange( 3L, 4L ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "xxxumabxx", TestFileUtils.readString( file ) );
+        assertEquals( 1L, listener.startedCount );
+        assertEquals( 3L, listener.dataOffset );
+        assertEquals( 9, listener.dataLength );
+        assertEquals( "umab", new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    public void testGet_RangeFromStart()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "xxxxxxxxxxxx" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task =
+            new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file ).setDataRange( 0L, 4L ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "resu", TestFileUtils.readString( file ) );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 9, listener.dataLength );
+    }
+
+    @Test
+    public void testGet_RangeFromStartNotSupportedByServer()
+        throws Exception
+    {
+        httpServer.setRangeSupport( false );
+        File file = TestFileUtils.createTempFile( "xxxxxxxxxxxx" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task =
+            new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file ).setDataRange( 0L, 4L ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "resumable", TestFileUtils.readString( file ) );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 9, listener.dataLength );
+    }
+
+    @Test
+    public void testGet_RangeNotSupportedByServer()
+        throws Exception
+    {
+        httpServer.setRangeSupport( false );
+        File file = TestFileUtils.createTempFile( "xxxxxxxxx" );
+        GetTask task = new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file ).setDataRange( 3L, 4L );
+        try
+        {
+            transporter.get( task );
+            fail( "Expected error" );
+        }
+        catch ( IOException e )
+        {
+            assertEquals( Transporter.ERROR_OTHER, transporter.classify( e ) );
+        }
+        assertEquals( "xxxxxxxxx", TestFileUtils.readString( file ) );
+    }
+
     @Test
     public void testGet_Checksums_Nexus()
         throws Exception
@@ -509,6 +656,207 @@ public class HttpTransporterTest
         assertEquals( "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", task.getChecksums().get( "SHA-1" ) );
     }
 
+    @Test
+    public void testGet_Checksums_XChecksum()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.XCHECKSUM );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", task.getChecksums().get( "SHA-1" ) );
+        assertEquals( "098f6bcd4621d373cade4e832627b4f6", task.getChecksums().get( "MD5" ) );
+    }
+
+    @Test
+    public void testGet_Checksums_CustomExtractor()
+        throws Exception
+    {
+        ChecksumExtractor extractor = new ChecksumExtractor()
+        {
+            @Override
+            public Map<String, String> extractChecksums( HttpResponse response )
+            {
+                Map<String, String> checksums = new HashMap<String, String>();
+                checksums.put( "SHA-1", "custom" );
+                checksums.put( "SHA-256", response.getFirstHeader( "Server" ).getValue() );
+                return checksums;
+            }
+        };
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.XCHECKSUM );
+        factory = new HttpTransporterFactory( new TestLoggerFactory() ).setChecksumExtractors(
+            Collections.singleton( extractor ) );
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "custom", task.getChecksums().get( "SHA-1" ) );
+        assertEquals( "Dummy", task.getChecksums().get( "SHA-256" ) );
+        assertEquals( "098f6bcd4621d373cade4e832627b4f6", task.getChecksums().get( "MD5" ) );
+    }
+
+    @Test
+    public void testGet_Conditional_NotModified()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertFalse( task.isNotModified() );
+        assertNotNull( task.getValidators().get( "ETag" ) );
+        assertNotNull( task.getValidators().get( "Last-Modified" ) );
+
+        File file = TestFileUtils.createTempFile( "cached" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask conditional =
+            new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ).setListener( listener ).setCachedValidators(
+                task.getValidators() );
+        transporter.get( conditional );
+        assertTrue( conditional.isNotModified() );
+        assertEquals( "cached", TestFileUtils.readString( file ) );
+        assertEquals( 0, listener.startedCount );
+        assertEquals( task.getValidators().get( "ETag" ), conditional.getValidators().get( "ETag" ) );
+    }
+
+    @Test
+    public void testGet_Conditional_LastModifiedOnly()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        Map<String, String> validators = new HashMap<String, String>();
+        validators.put( "Last-Modified", task.getValidators().get( "Last-Modified" ) );
+
+        GetTask conditional = new GetTask( URI.create( "repo/file.txt" ) ).setCachedValidators( validators );
+        transporter.get( conditional );
+        assertTrue( conditional.isNotModified() );
+        assertEquals( "", conditional.getDataString() );
+    }
+
+    @Test
+    public void testGet_Conditional_Modified()
+        throws Exception
+    {
+        Map<String, String> validators = new HashMap<String, String>();
+        validators.put( "ETag", "\"outdated\"" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task =
+            new GetTask( URI.create( "repo/file.txt" ) ).setCachedValidators( validators ).setListener( listener );
+        transporter.get( task );
+        assertFalse( task.isNotModified() );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 1, listener.startedCount );
+        assertNotEquals( "\"outdated\"", task.getValidators().get( "ETag" ) );
+    }
+
+    @Test
+    public void testGet_ContentCache()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.XCHECKSUM );
+        File cacheDir = TestFileUtils.createTempDir();
+        session.setConfigProperty( "aether.connector.http.contentCache", cacheDir.getAbsolutePath() );
+        newTransporter( httpServer.getHttpUrl() );
+        File file = TestFileUtils.createTempFile( "failure" );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ) );
+        assertEquals( "test", TestFileUtils.readString( file ) );
+
+        session = TestUtils.newSession();
+        session.setConfigProperty( "aether.connector.http.contentCache", cacheDir.getAbsolutePath() );
+        newTransporter( httpServer.getHttpUrl() );
+        httpServer.getLogEntries().clear();
+        file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "test", TestFileUtils.readString( file ) );
+        assertFalse( task.isNotModified() );
+        assertNotNull( task.getValidators().get( "ETag" ) );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 4L, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertEquals( "test", new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertNotNull( httpServer.getLogEntries().get( 0 ).headers.get( "If-None-Match" ) );
+    }
+
+    @Test
+    public void testGet_ContentCache_HardLinks()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.XCHECKSUM );
+        File cacheDir = TestFileUtils.createTempDir();
+        session.setConfigProperty( "aether.connector.http.contentCache", cacheDir.getAbsolutePath() );
+        session.setConfigProperty( "aether.connector.http.contentCacheHardLinks", "true" );
+        newTransporter( httpServer.getHttpUrl() );
+        File file = TestFileUtils.createTempFile( "failure" );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ) );
+
+        httpServer.getLogEntries().clear();
+        file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "test", TestFileUtils.readString( file ) );
+        ContentCache cache = new ContentCache( cacheDir, 1024L, false, new TestLoggerFactory().getLogger( "" ) );
+        ContentCache.Entry entry = cache.get( httpServer.getHttpUrl() + "/repo/file.txt" );
+        assertTrue( Files.isSameFile( entry.dataFile.toPath(), file.toPath() ) );
+        assertEquals( 4L, listener.dataOffset );
+        assertEquals( 4L, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertEquals( 0, listener.baos.size() );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_ContentCache_WithoutChecksum()
+        throws Exception
+    {
+        File cacheDir = TestFileUtils.createTempDir();
+        session.setConfigProperty( "aether.connector.http.contentCache", cacheDir.getAbsolutePath() );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        httpServer.getLogEntries().clear();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertNull( httpServer.getLogEntries().get( 0 ).headers.get( "If-None-Match" ) );
+        assertEquals( 0, cacheDir.list().length );
+    }
+
+    @Test
+    public void testGet_ContentCache_Modified()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.XCHECKSUM );
+        session.setConfigProperty( "aether.connector.http.contentCache", TestFileUtils.createTempDir().getAbsolutePath() );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        File file = new File( repoDir, "file.txt" );
+        TestFileUtils.writeString( file, "changed" );
+        file.setLastModified( file.lastModified() - 60L * 1000L );
+
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "changed", task.getDataString() );
+        task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "changed", task.getDataString() );
+    }
+
+    @Test
+    public void testGet_ContentCache_NotUsedForConditionalRequests()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.contentCache", TestFileUtils.createTempDir().getAbsolutePath() );
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        GetTask conditional = new GetTask( URI.create( "repo/file.txt" ) ).setCachedValidators( task.getValidators() );
+        transporter.get( conditional );
+        assertTrue( conditional.isNotModified() );
+        assertEquals( "", conditional.getDataString() );
+    }
+
     @Test
     public void testGet_FileHandleLeak()
         throws Exception
@@ -835,6 +1183,41 @@ public class HttpTransporterTest
         assertEquals( "PUT", httpServer.getLogEntries().get( 4 ).method );
     }
 
+    @Test
+    public void testPut_WebDav_KnownCollections()
+        throws Exception
+    {
+        httpServer.setWebDav( HttpServer.WebDav.REQUIRED );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/a.txt" ) ).setDataString( "a" ) );
+        httpServer.getLogEntries().clear();
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/b.txt" ) ).setDataString( "b" ) );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir3/c.txt" ) ).setDataString( "c" ) );
+        assertEquals( "c", TestFileUtils.readString( new File( repoDir, "dir1/dir3/c.txt" ) ) );
+
+        assertEquals( httpServer.getLogEntries().toString(), 3, httpServer.getLogEntries().size() );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 0 ).method );
+        assertEquals( "MKCOL", httpServer.getLogEntries().get( 1 ).method );
+        assertEquals( "/repo/dir1/dir3/", httpServer.getLogEntries().get( 1 ).path );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 2 ).method );
+    }
+
+    @Test
+    public void testPut_WebDav_StateSharedAcrossTransporters()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        httpServer.setWebDav( HttpServer.WebDav.REQUIRED );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/a.txt" ) ).setDataString( "a" ) );
+        httpServer.getLogEntries().clear();
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/b.txt" ) ).setDataString( "b" ) );
+        assertEquals( "b", TestFileUtils.readString( new File( repoDir, "dir1/dir2/b.txt" ) ) );
+
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 0 ).method );
+    }
+
     @Test
     public void testPut_WebDavOptional_ManuallyDisabled()
         throws Exception
@@ -1281,6 +1664,146 @@ public class HttpTransporterTest
         assertEquals( stats.toString(), 1, stats.getAvailable() );
     }
 
+    @Test
+    public void testConnectionPoolStats()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        session.setConfigProperty( "aether.connector.http.maxConnections", 7 );
+        session.setConfigProperty( "aether.connector.http.maxConnectionsPerRoute.test", 3 );
+        for ( int i = 0; i < 3; i++ )
+        {
+            newTransporter( httpServer.getHttpUrl() );
+            GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+            transporter.get( task );
+            assertEquals( "test", task.getDataString() );
+        }
+        ConnectionPoolStats stats = ConnectionPoolStats.get( session );
+        assertNotNull( stats );
+        assertEquals( 3, stats.getLeaseCount() );
+        assertTrue( stats.getMaxLeaseWaitTime() <= stats.getLeaseWaitTime() );
+        assertEquals( stats.toString(), 1, stats.getTotalStats().getAvailable() );
+        assertEquals( stats.toString(), 0, stats.getTotalStats().getLeased() );
+        assertEquals( stats.toString(), 7, stats.getTotalStats().getMax() );
+        assertEquals( stats.toString(), 1, stats.getRouteStats().size() );
+        PoolStats route = stats.getRouteStats().values().iterator().next();
+        assertEquals( stats.toString(), 1, route.getAvailable() );
+        assertEquals( stats.toString(), 3, route.getMax() );
+    }
+
+    @Test
+    public void testConnectionPool_MaxPerRouteNotShared()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        session.setConfigProperty( "aether.connector.http.maxConnectionsPerRoute", 5 );
+        session.setConfigProperty( "aether.connector.http.maxConnectionsPerRoute.test", 3 );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        MonitoredConnectionManager limited = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+
+        Transporter other =
+            factory.newInstance( session, new RemoteRepository.Builder( "other", "default",
+                                                                        httpServer.getHttpUrl() ).build() );
+        try
+        {
+            other.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+            MonitoredConnectionManager shared = ( (HttpTransporter) other ).getState().getConnectionManager();
+            assertNotSame( limited, shared );
+            assertEquals( 3, limited.getRouteStats().values().iterator().next().getMax() );
+            assertEquals( 5, shared.getRouteStats().values().iterator().next().getMax() );
+        }
+        finally
+        {
+            other.close();
+        }
+    }
+
+    @Test
+    public void testConnectionPoolStats_NotShared()
+        throws Exception
+    {
+        assertNull( ConnectionPoolStats.get( session ) );
+    }
+
+    @Test
+    public void testPreWarm()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        httpServer.addSslConnector();
+        List<RemoteRepository> repos =
+            Arrays.asList( newRepo( httpServer.getHttpUrl() ), newRepo( httpServer.getHttpUrl() + "/other" ),
+                           newRepo( httpServer.getHttpsUrl() ), newRepo( "file:/void" ) );
+        ConnectionPreWarmer.preWarm( session, repos ).get( 10L, TimeUnit.SECONDS );
+        ConnectionPoolStats stats = ConnectionPoolStats.get( session );
+        assertEquals( stats.toString(), 2, stats.getTotalStats().getAvailable() );
+        assertEquals( stats.toString(), 2, stats.getRouteStats().size() );
+        assertTrue( httpServer.getLogEntries().toString(), httpServer.getLogEntries().isEmpty() );
+
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        newTransporter( httpServer.getHttpsUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        stats = ConnectionPoolStats.get( session );
+        assertEquals( stats.toString(), 2, stats.getTotalStats().getAvailable() );
+    }
+
+    @Test
+    public void testPreWarm_DefaultPort()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        proxy = new Proxy( Proxy.TYPE_HTTP, httpServer.getHost(), httpServer.getHttpPort() );
+        ConnectionPreWarmer.preWarm( session, Arrays.asList( newRepo( "http://bad.localhost/" ) ) ).get( 10L,
+                                                                                                   TimeUnit.SECONDS );
+        ConnectionPoolStats stats = ConnectionPoolStats.get( session );
+        assertEquals( stats.toString(), 1, stats.getTotalStats().getAvailable() );
+
+        newTransporter( "http://bad.localhost/" );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        stats = ConnectionPoolStats.get( session );
+        assertEquals( stats.toString(), 1, stats.getRouteStats().size() );
+        assertEquals( stats.toString(), 1, stats.getTotalStats().getAvailable() );
+    }
+
+    @Test
+    public void testPreWarm_NotShared()
+        throws Exception
+    {
+        ConnectionPreWarmer.preWarm( session, Arrays.asList( newRepo( httpServer.getHttpUrl() ) ) ).get( 10L,
+                                                                                                      TimeUnit.SECONDS );
+        assertNull( ConnectionPoolStats.get( session ) );
+    }
+
+    @Test
+    public void testPreWarm_ConnectionRefused()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        ServerSocket server = new ServerSocket( 0 );
+        int port = server.getLocalPort();
+        server.close();
+        ConnectionPreWarmer.preWarm( session, Arrays.asList( newRepo( "http://localhost:" + port ) ) ).get( 10L,
+                                                                                                        TimeUnit.SECONDS );
+        assertEquals( 0, ConnectionPoolStats.get( session ).getTotalStats().getAvailable() );
+    }
+
+    @Test
+    public void testConnectionPool_IdleEviction()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        session.setConfigProperty( "aether.connector.http.connectionMaxIdleTime", 100 );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        Thread.sleep( 1100L );
+        MonitoredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        connMgr.requestConnection( new HttpRoute( new HttpHost( "localhost", 1 ) ), null ).abortRequest();
+        assertEquals( connMgr.getTotalStats().toString(), 0, connMgr.getTotalStats().getAvailable() );
+    }
+
     @Test( expected = NoTransporterException.class )
     public void testInit_BadProtocol()
         throws Exception
@@ -0,0 +1,487 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The header compression for HTTP/2 as specified by RFC 7541. Header names and values are treated as sequences of
+ * octets, i.e. mapped to strings via ISO-8859-1.
+ */
+final class Hpack
+{
+
+    static final int DEFAULT_TABLE_SIZE = 4096;
+
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private static final Header[] STATIC_TABLE =
+        { null, new Header( ":authority", "" ), new Header( ":method", "GET" ), new Header( ":method", "POST" ),
+            new Header( ":path", "/" ), new Header( ":path", "/index.html" ), new Header( ":scheme", "http" ),
+            new Header( ":scheme", "https" ), new Header( ":status", "200" ), new Header( ":status", "204" ),
+            new Header( ":status", "206" ), new Header( ":status", "304" ), new Header( ":status", "400" ),
+            new Header( ":status", "404" ), new Header( ":status", "500" ), new Header( "accept-charset", "" ),
+            new Header( "accept-encoding", "gzip, deflate" ), new Header( "accept-language", "" ),
+            new Header( "accept-ranges", "" ), new Header( "accept", "" ),
+            new Header( "access-control-allow-origin", "" ), new Header( "age", "" ), new Header( "allow", "" ),
+            new Header( "authorization", "" ), new Header( "cache-control", "" ),
+            new Header( "content-disposition", "" ), new Header( "content-encoding", "" ),
+            new Header( "content-language", "" ), new Header( "content-length", "" ),
+            new Header( "content-location", "" ), new Header( "content-range", "" ),
+            new Header( "content-type", "" ), new Header( "cookie", "" ), new Header( "date", "" ),
+            new Header( "etag", "" ), new Header( "expect", "" ), new Header( "expires", "" ),
+            new Header( "from", "" ), new Header( "host", "" ), new Header( "if-match", "" ),
+            new Header( "if-modified-since", "" ), new Header( "if-none-match", "" ), new Header( "if-range", "" ),
+            new Header( "if-unmodified-since", "" ), new Header( "last-modified", "" ), new Header( "link", "" ),
+            new Header( "location", "" ), new Header( "max-forwards", "" ), new Header( "proxy-authenticate", "" ),
+            new Header( "proxy-authorization", "" ), new Header( "range", "" ), new Header( "referer", "" ),
+            new Header( "refresh", "" ), new Header( "retry-after", "" ), new Header( "server", "" ),
+            new Header( "set-cookie", "" ), new Header( "strict-transport-security", "" ),
+            new Header( "transfer-encoding", "" ), new Header( "user-agent", "" ), new Header( "vary", "" ),
+            new Header( "via", "" ), new Header( "www-authenticate", "" ) };
+
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<String, Integer>();
+
+    private static final Map<Header, Integer> STATIC_HEADERS = new HashMap<Header, Integer>();
+
+    static
+    {
+        for ( int i = STATIC_TABLE.length - 1; i > 0; i-- )
+        {
+            STATIC_NAMES.put( STATIC_TABLE[i].name, i );
+            if ( STATIC_TABLE[i].value.length() > 0 )
+            {
+                STATIC_HEADERS.put( STATIC_TABLE[i], i );
+            }
+        }
+    }
+
+    private Hpack()
+    {
+        // hide constructor
+    }
+
+    /**
+     * A header field.
+     */
+    static final class Header
+    {
+
+        final String name;
+
+        final String value;
+
+        Header( String name, String value )
+        {
+            this.name = name;
+            this.value = value;
+        }
+
+        int size()
+        {
+            return name.length() + value.length() + ENTRY_OVERHEAD;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Header ) )
+            {
+                return false;
+            }
+            Header that = (Header) obj;
+            return name.equals( that.name ) && value.equals( that.value );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return name.hashCode() * 31 + value.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + ": " + value;
+        }
+
+    }
+
+    /**
+     * The dynamic table, whose entries are addressed by the indices following the static table, the most recently
+     * added entry first.
+     */
+    static final class DynamicTable
+    {
+
+        private final LinkedList<Header> entries = new LinkedList<Header>();
+
+        private int size;
+
+        private int maxSize;
+
+        DynamicTable( int maxSize )
+        {
+            this.maxSize = maxSize;
+        }
+
+        int getMaxSize()
+        {
+            return maxSize;
+        }
+
+        void setMaxSize( int maxSize )
+        {
+            this.maxSize = maxSize;
+            evict( 0 );
+        }
+
+        int length()
+        {
+            return entries.size();
+        }
+
+        Header get( int index )
+        {
+            return entries.get( index );
+        }
+
+        void add( Header header )
+        {
+            evict( header.size() );
+            if ( header.size() <= maxSize )
+            {
+                entries.addFirst( header );
+                size += header.size();
+            }
+        }
+
+        private void evict( int required )
+        {
+            while ( !entries.isEmpty() && size + required > maxSize )
+            {
+                size -= entries.removeLast().size();
+            }
+        }
+
+    }
+
+    /**
+     * Encodes header blocks. Instances are stateful and need to encode the header blocks in the order in which they are
+     * sent over a connection.
+     */
+    static final class Encoder
+    {
+
+        private final DynamicTable table = new DynamicTable( DEFAULT_TABLE_SIZE );
+
+        private final boolean huffman;
+
+        private int minTableSizeUpdate = -1;
+
+        Encoder( boolean huffman )
+        {
+            this.huffman = huffman;
+        }
+
+        /**
+         * Applies the maximum table size announced by the peer, though no more than the default size is used.
+         */
+        void setMaxTableSize( int maxSize )
+        {
+            maxSize = Math.min( maxSize, DEFAULT_TABLE_SIZE );
+            if ( maxSize != table.getMaxSize() )
+            {
+                minTableSizeUpdate = ( minTableSizeUpdate < 0 ) ? maxSize : Math.min( minTableSizeUpdate, maxSize );
+                table.setMaxSize( maxSize );
+            }
+        }
+
+        byte[] encode( List<Header> headers )
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream( 256 );
+            if ( minTableSizeUpdate >= 0 )
+            {
+                writeInt( out, 0x20, 5, minTableSizeUpdate );
+                if ( minTableSizeUpdate != table.getMaxSize() )
+                {
+                    writeInt( out, 0x20, 5, table.getMaxSize() );
+                }
+                minTableSizeUpdate = -1;
+            }
+            for ( Header header : headers )
+            {
+                encode( out, header );
+            }
+            return out.toByteArray();
+        }
+
+        private void encode( ByteArrayOutputStream out, Header header )
+        {
+            boolean sensitive = "authorization".equals( header.name ) || "proxy-authorization".equals( header.name );
+            int nameIndex = 0;
+            if ( !sensitive )
+            {
+                Integer index = STATIC_HEADERS.get( header );
+                if ( index != null )
+                {
+                    writeInt( out, 0x80, 7, index );
+                    return;
+                }
+                for ( int i = 0; i < table.length(); i++ )
+                {
+                    Header entry = table.get( i );
+                    if ( entry.equals( header ) )
+                    {
+                        writeInt( out, 0x80, 7, STATIC_TABLE.length + i );
+                        return;
+                    }
+                    else if ( nameIndex == 0 && entry.name.equals( header.name ) )
+                    {
+                        nameIndex = STATIC_TABLE.length + i;
+                    }
+                }
+            }
+            Integer staticName = STATIC_NAMES.get( header.name );
+            if ( staticName != null )
+            {
+                nameIndex = staticName;
+            }
+
+            if ( sensitive )
+            {
+                // literal header field never indexed
+                writeInt( out, 0x10, 4, nameIndex );
+            }
+            else if ( header.size() <= table.getMaxSize() )
+            {
+                // literal header field with incremental indexing
+                writeInt( out, 0x40, 6, nameIndex );
+                table.add( header );
+            }
+            else
+            {
+                // literal header field without indexing
+                writeInt( out, 0x00, 4, nameIndex );
+            }
+            if ( nameIndex == 0 )
+            {
+                writeString( out, header.name );
+            }
+            writeString( out, header.value );
+        }
+
+        private void writeString( ByteArrayOutputStream out, String value )
+        {
+            byte[] bytes = value.getBytes( StandardCharsets.ISO_8859_1 );
+            int length = huffman ? Huffman.getEncodedLength( bytes ) : bytes.length;
+            if ( length < bytes.length )
+            {
+                writeInt( out, 0x80, 7, length );
+                Huffman.encode( bytes, out );
+            }
+            else
+            {
+                writeInt( out, 0x00, 7, bytes.length );
+                out.write( bytes, 0, bytes.length );
+            }
+        }
+
+        static void writeInt( ByteArrayOutputStream out, int pattern, int prefixBits, int value )
+        {
+            int max = ( 1 << prefixBits ) - 1;
+            if ( value < max )
+            {
+                out.write( pattern | value );
+                return;
+            }
+            out.write( pattern | max );
+            value -= max;
+            while ( value >= 0x80 )
+            {
+                out.write( ( value & 0x7F ) | 0x80 );
+                value >>>= 7;
+            }
+            out.write( value );
+        }
+
+    }
+
+    /**
+     * Decodes header blocks. Instances are stateful and need to decode the header blocks in the order in which they
+     * were received over a connection.
+     */
+    static final class Decoder
+    {
+
+        private final DynamicTable table;
+
+        private final int maxTableSize;
+
+        private final int maxHeaderListSize;
+
+        private byte[] data;
+
+        private int pos;
+
+        private int end;
+
+        Decoder( int maxTableSize, int maxHeaderListSize )
+        {
+            this.table = new DynamicTable( maxTableSize );
+            this.maxTableSize = maxTableSize;
+            this.maxHeaderListSize = maxHeaderListSize;
+        }
+
+        List<Header> decode( byte[] block, int offset, int length )
+            throws IOException
+        {
+            data = block;
+            pos = offset;
+            end = offset + length;
+            List<Header> headers = new ArrayList<Header>();
+            int listSize = 0;
+            while ( pos < end )
+            {
+                int b = data[pos] & 0xFF;
+                Header header;
+                if ( ( b & 0x80 ) != 0 )
+                {
+                    header = getEntry( readInt( 7 ) );
+                }
+                else if ( ( b & 0x40 ) != 0 )
+                {
+                    header = readLiteral( 6 );
+                    table.add( header );
+                }
+                else if ( ( b & 0x20 ) != 0 )
+                {
+                    if ( !headers.isEmpty() )
+                    {
+                        throw new IOException( "Dynamic table size update after header field" );
+                    }
+                    int size = readInt( 5 );
+                    if ( size > maxTableSize )
+                    {
+                        throw new IOException( "Dynamic table size update exceeds limit: " + size );
+                    }
+                    table.setMaxSize( size );
+                    continue;
+                }
+                else
+                {
+                    header = readLiteral( 4 );
+                }
+                listSize += header.size();
+                if ( listSize > maxHeaderListSize )
+                {
+                    throw new IOException( "Header list exceeds limit of " + maxHeaderListSize + " bytes" );
+                }
+                headers.add( header );
+            }
+            data = null;
+            return headers;
+        }
+
+        private Header getEntry( int index )
+            throws IOException
+        {
+            if ( index <= 0 )
+            {
+                throw new IOException( "Invalid header table index " + index );
+            }
+            if ( index < STATIC_TABLE.length )
+            {
+                return STATIC_TABLE[index];
+            }
+            index -= STATIC_TABLE.length;
+            if ( index >= table.length() )
+            {
+                throw new IOException( "Invalid header table index " + ( index + STATIC_TABLE.length ) );
+            }
+            return table.get( index );
+        }
+
+        private Header readLiteral( int prefixBits )
+            throws IOException
+        {
+            int nameIndex = readInt( prefixBits );
+            String name = ( nameIndex != 0 ) ? getEntry( nameIndex ).name : readString();
+            return new Header( name, readString() );
+        }
+
+        private String readString()
+            throws IOException
+        {
+            if ( pos >= end )
+            {
+                throw new IOException( "Truncated header block" );
+            }
+            boolean huffman = ( data[pos] & 0x80 ) != 0;
+            int length = readInt( 7 );
+            if ( length > end - pos )
+            {
+                throw new IOException( "Truncated header block" );
+            }
+            byte[] bytes = huffman ? Huffman.decode( data, pos, length ) : null;
+            String string = ( bytes != null ) ? new String( bytes, StandardCharsets.ISO_8859_1 )
+                            : new String( data, pos, length, StandardCharsets.ISO_8859_1 );
+            pos += length;
+            return string;
+        }
+
+        private int readInt( int prefixBits )
+            throws IOException
+        {
+            int max = ( 1 << prefixBits ) - 1;
+            int value = data[pos++] & max;
+            if ( value < max )
+            {
+                return value;
+            }
+            for ( int shift = 0;; shift += 7 )
+            {
+                if ( pos >= end || shift > 21 )
+                {
+                    throw new IOException( "Invalid integer in header block" );
+                }
+                int b = data[pos++] & 0xFF;
+                value += ( b & 0x7F ) << shift;
+                if ( ( b & 0x80 ) == 0 )
+                {
+                    return value;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,393 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * Manages the HTTP/2 connections of the transporters. Streams to the same host are multiplexed over a few connections,
+ * a new connection is only opened once the existing ones reached the limit of concurrent streams announced by the
+ * server. Hosts which turn out to not speak HTTP/2 are remembered so that further requests directly fall back to
+ * HTTP/1.1.
+ */
+final class Http2Client
+    implements Closeable
+{
+
+    static final String CONFIG_PROP_MAX_CONNECTIONS_PER_HOST = "aether.connector.http2.maxConnectionsPerHost";
+
+    private static final String KEY = Http2Client.class.getName();
+
+    private static final int IDLE_TIMEOUT = 60 * 1000;
+
+    private static final Method SET_APPLICATION_PROTOCOLS;
+
+    private static final Method GET_APPLICATION_PROTOCOL;
+
+    static
+    {
+        Method setter = null, getter = null;
+        try
+        {
+            setter = SSLParameters.class.getMethod( "setApplicationProtocols", String[].class );
+            getter = SSLSocket.class.getMethod( "getApplicationProtocol" );
+        }
+        catch ( Exception e )
+        {
+            // ALPN unavailable in this JRE
+            setter = null;
+            getter = null;
+        }
+        SET_APPLICATION_PROTOCOLS = setter;
+        GET_APPLICATION_PROTOCOL = getter;
+    }
+
+    private final Logger logger;
+
+    private final int maxConnectionsPerHost;
+
+    private final Map<String, Pool> pools = new HashMap<String, Pool>();
+
+    private final Set<String> unsupported = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+
+    private volatile boolean closed;
+
+    /**
+     * Gets the client shared by all transporters of the specified session.
+     * 
+     * @return The shared client or {@code null} if the session has no cache to hold it.
+     */
+    public static Http2Client get( RepositorySystemSession session, Logger logger )
+    {
+        RepositoryCache cache = session.getCache();
+        if ( cache == null )
+        {
+            return null;
+        }
+        Object client = cache.get( session, KEY );
+        if ( !( client instanceof Http2Client ) )
+        {
+            synchronized ( Http2Client.class )
+            {
+                client = cache.get( session, KEY );
+                if ( !( client instanceof Http2Client ) )
+                {
+                    client = new Http2Client( getMaxConnectionsPerHost( session ), logger );
+                    cache.put( session, KEY, client );
+                }
+            }
+        }
+        return (Http2Client) client;
+    }
+
+    static int getMaxConnectionsPerHost( RepositorySystemSession session )
+    {
+        return Math.max( 1, ConfigUtils.getInteger( session, 2, CONFIG_PROP_MAX_CONNECTIONS_PER_HOST ) );
+    }
+
+    public Http2Client( int maxConnectionsPerHost, Logger logger )
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.logger = logger;
+    }
+
+    /**
+     * Sends a request without body to the specified host.
+     * 
+     * @param secure {@code true} to use TLS and negotiate HTTP/2 via ALPN, {@code false} to use HTTP/2 over cleartext
+     *            TCP with prior knowledge.
+     * @param host The host to connect to, must not be {@code null}.
+     * @param port The port to connect to.
+     * @param headers The request headers, including the pseudo headers, must not be {@code null}.
+     * @param connectTimeout The timeout in milliseconds for establishing a connection, {@code 0} for none.
+     * @return The stream to read the response from or {@code null} if the host does not speak HTTP/2.
+     * @throws IOException If the request could not be sent.
+     */
+    public Http2Stream newStream( boolean secure, String host, int port, List<Hpack.Header> headers,
+                                  int connectTimeout )
+        throws IOException
+    {
+        String key = ( secure ? "https://" : "http://" ) + host + ':' + port;
+        if ( unsupported.contains( key ) )
+        {
+            return null;
+        }
+        Pool pool;
+        synchronized ( pools )
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "HTTP/2 client has been closed" );
+            }
+            pool = pools.get( key );
+            if ( pool == null )
+            {
+                pool = new Pool( key, secure, host, port );
+                pools.put( key, pool );
+            }
+        }
+        Http2Connection connection = pool.acquire( connectTimeout );
+        return ( connection != null ) ? connection.newStream( headers ) : null;
+    }
+
+    public void close()
+    {
+        List<Pool> pools;
+        synchronized ( this.pools )
+        {
+            closed = true;
+            pools = new ArrayList<Pool>( this.pools.values() );
+            this.pools.clear();
+        }
+        for ( Pool pool : pools )
+        {
+            pool.close();
+        }
+    }
+
+    private final class Pool
+        implements Runnable
+    {
+
+        private final String key;
+
+        private final boolean secure;
+
+        private final String host;
+
+        private final int port;
+
+        private final List<Http2Connection> connections = new ArrayList<Http2Connection>();
+
+        private boolean connecting;
+
+        Pool( String key, boolean secure, String host, int port )
+        {
+            this.key = key;
+            this.secure = secure;
+            this.host = host;
+            this.port = port;
+        }
+
+        Http2Connection acquire( int connectTimeout )
+            throws IOException
+        {
+            while ( true )
+            {
+                synchronized ( this )
+                {
+                    while ( true )
+                    {
+                        if ( unsupported.contains( key ) )
+                        {
+                            return null;
+                        }
+                        if ( closed )
+                        {
+                            throw new IllegalStateException( "HTTP/2 client has been closed" );
+                        }
+                        for ( Iterator<Http2Connection> it = connections.iterator(); it.hasNext(); )
+                        {
+                            Http2Connection connection = it.next();
+                            if ( connection.reserve() )
+                            {
+                                return connection;
+                            }
+                            else if ( !connection.isUsable() )
+                            {
+                                it.remove();
+                            }
+                        }
+                        if ( !connecting && connections.size() < maxConnectionsPerHost )
+                        {
+                            connecting = true;
+                            break;
+                        }
+                        try
+                        {
+                            wait();
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            throw (IOException) new InterruptedIOException().initCause( e );
+                        }
+                    }
+                }
+
+                Http2Connection connection = null;
+                try
+                {
+                    connection = connect( connectTimeout );
+                }
+                finally
+                {
+                    synchronized ( this )
+                    {
+                        connecting = false;
+                        if ( connection != null )
+                        {
+                            connections.add( connection );
+                        }
+                        notifyAll();
+                    }
+                }
+                if ( connection == null )
+                {
+                    return null;
+                }
+            }
+        }
+
+        private Http2Connection connect( int connectTimeout )
+            throws IOException
+        {
+            InetSocketAddress address = new InetSocketAddress( host, port );
+            if ( address.isUnresolved() )
+            {
+                throw new UnknownHostException( host );
+            }
+            Socket socket = new Socket();
+            boolean success = false;
+            try
+            {
+                socket.connect( address, connectTimeout );
+                socket.setTcpNoDelay( true );
+                if ( secure )
+                {
+                    Socket sslSocket = negotiate( socket, connectTimeout );
+                    if ( sslSocket == null )
+                    {
+                        logger.debug( "Server " + key + " did not negotiate HTTP/2, using HTTP/1.1" );
+                        unsupported.add( key );
+                        return null;
+                    }
+                    socket = sslSocket;
+                }
+                Http2Connection connection = new Http2Connection( key, socket, IDLE_TIMEOUT, this, logger );
+                if ( !connection.handshake( connectTimeout ) )
+                {
+                    logger.debug( "Server " + key + " does not support HTTP/2, using HTTP/1.1" );
+                    unsupported.add( key );
+                    return null;
+                }
+                logger.debug( "Opened HTTP/2 connection to " + key );
+                success = true;
+                return connection;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    socket.close();
+                }
+            }
+        }
+
+        private Socket negotiate( Socket socket, int timeout )
+            throws IOException
+        {
+            if ( SET_APPLICATION_PROTOCOLS == null )
+            {
+                return null;
+            }
+            SSLSocket sslSocket =
+                (SSLSocket) ( (SSLSocketFactory) SSLSocketFactory.getDefault() ).createSocket( socket, host, port,
+                                                                                              true );
+            try
+            {
+                SSLParameters params = sslSocket.getSSLParameters();
+                params.setEndpointIdentificationAlgorithm( "HTTPS" );
+                SET_APPLICATION_PROTOCOLS.invoke( params, (Object) new String[] { "h2", "http/1.1" } );
+                sslSocket.setSSLParameters( params );
+                sslSocket.setSoTimeout( timeout );
+                sslSocket.startHandshake();
+                if ( "h2".equals( GET_APPLICATION_PROTOCOL.invoke( sslSocket ) ) )
+                {
+                    Socket result = sslSocket;
+                    sslSocket = null;
+                    return result;
+                }
+                return null;
+            }
+            catch ( ReflectiveOperationException e )
+            {
+                return null;
+            }
+            finally
+            {
+                if ( sslSocket != null )
+                {
+                    sslSocket.close();
+                }
+            }
+        }
+
+        /**
+         * Wakes up the threads waiting for a connection with a free stream slot.
+         */
+        public void run()
+        {
+            synchronized ( this )
+            {
+                notifyAll();
+            }
+        }
+
+        void close()
+        {
+            List<Http2Connection> connections;
+            synchronized ( this )
+            {
+                connections = new ArrayList<Http2Connection>( this.connections );
+                this.connections.clear();
+                notifyAll();
+            }
+            for ( Http2Connection connection : connections )
+            {
+                connection.close();
+            }
+        }
+
+    }
+
+}
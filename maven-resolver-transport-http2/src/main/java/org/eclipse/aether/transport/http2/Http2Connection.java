@@ -0,0 +1,623 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.spi.log.Logger;
+
+/**
+ * A client connection speaking HTTP/2 over a blocking socket. Requests are written by the calling threads under a
+ * common lock which also guards the state of the header compression, the responses are read by a dedicated thread
+ * which dispatches the frames to the {@link Http2Stream}s. The connection closes itself after being idle for a while.
+ */
+final class Http2Connection
+    implements Closeable
+{
+
+    static final int STREAM_WINDOW_SIZE = 1024 * 1024;
+
+    static final int CONNECTION_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private static final int MAX_HEADER_LIST_SIZE = 256 * 1024;
+
+    private static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+
+    private static final int READ_TIMEOUT = 5 * 1000;
+
+    private final String name;
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    private final Runnable releaseCallback;
+
+    private final int idleTimeout;
+
+    private final Logger logger;
+
+    private final Map<Integer, Http2Stream> streams = new ConcurrentHashMap<Integer, Http2Stream>();
+
+    private final Object writeLock = new Object();
+
+    private final Hpack.Encoder encoder = new Hpack.Encoder( true );
+
+    private final Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, MAX_HEADER_LIST_SIZE );
+
+    private int nextStreamId = 1;
+
+    private int peerMaxFrameSize = Http2Frame.DEFAULT_MAX_FRAME_SIZE;
+
+    private int unacknowledged;
+
+    private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+
+    private int activeStreams;
+
+    private long idleSince = System.currentTimeMillis();
+
+    private boolean goingAway;
+
+    private boolean closed;
+
+    Http2Connection( String name, Socket socket, int idleTimeout, Runnable releaseCallback, Logger logger )
+        throws IOException
+    {
+        this.name = name;
+        this.socket = socket;
+        this.in = new BufferedInputStream( socket.getInputStream(), 1024 * 32 );
+        this.out = new BufferedOutputStream( socket.getOutputStream(), 1024 * 8 );
+        this.idleTimeout = idleTimeout;
+        this.releaseCallback = releaseCallback;
+        this.logger = logger;
+    }
+
+    /**
+     * Sends the connection preface and awaits the settings of the server. Upon success, the reader thread for the
+     * connection is started.
+     * 
+     * @param timeout The timeout in milliseconds for the response of the server, {@code 0} for none.
+     * @return {@code true} if the server speaks HTTP/2, {@code false} otherwise.
+     * @throws IOException If the preface could not be sent.
+     */
+    boolean handshake( int timeout )
+        throws IOException
+    {
+        socket.setSoTimeout( timeout );
+        out.write( Http2Frame.PREFACE );
+        Http2Frame.writeSettings( out, Http2Frame.SETTINGS_ENABLE_PUSH, 0, Http2Frame.SETTINGS_INITIAL_WINDOW_SIZE,
+                                  STREAM_WINDOW_SIZE, Http2Frame.SETTINGS_MAX_HEADER_LIST_SIZE,
+                                  MAX_HEADER_LIST_SIZE );
+        Http2Frame.writeInt( out, Http2Frame.WINDOW_UPDATE, 0,
+                             CONNECTION_WINDOW_SIZE - Http2Frame.DEFAULT_WINDOW_SIZE );
+        out.flush();
+
+        Http2Frame settings;
+        try
+        {
+            settings = Http2Frame.read( in, Http2Frame.DEFAULT_MAX_FRAME_SIZE );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "No HTTP/2 response from " + name + ": " + e );
+            return false;
+        }
+        if ( settings == null || settings.type != Http2Frame.SETTINGS || settings.hasFlag( Http2Frame.FLAG_ACK ) )
+        {
+            logger.debug( "No HTTP/2 response from " + name + ": " + settings );
+            return false;
+        }
+        onSettings( settings );
+
+        socket.setSoTimeout( READ_TIMEOUT );
+        Thread reader = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                read();
+            }
+        }, "aether-http2-" + name );
+        reader.setDaemon( true );
+        reader.start();
+        return true;
+    }
+
+    /**
+     * Reserves a slot for a new stream on this connection.
+     * 
+     * @return {@code true} if a stream may be opened, {@code false} if the connection is closed or saturated.
+     */
+    synchronized boolean reserve()
+    {
+        if ( closed || goingAway || activeStreams >= maxConcurrentStreams )
+        {
+            return false;
+        }
+        activeStreams++;
+        return true;
+    }
+
+    synchronized boolean isUsable()
+    {
+        return !closed && !goingAway;
+    }
+
+    /**
+     * Opens a new stream by sending the request headers, a slot for the stream must have been reserved before.
+     * 
+     * @param headers The request headers, including the pseudo headers, must not be {@code null}.
+     * @return The new stream, never {@code null}.
+     * @throws IOException If the request could not be sent.
+     */
+    Http2Stream newStream( List<Hpack.Header> headers )
+        throws IOException
+    {
+        Http2Stream stream;
+        synchronized ( writeLock )
+        {
+            if ( nextStreamId < 0 )
+            {
+                release();
+                throw new Http2Exception( Http2Frame.REFUSED_STREAM, "Stream identifiers exhausted" );
+            }
+            stream = new Http2Stream( this, nextStreamId );
+            nextStreamId += 2;
+            if ( nextStreamId < 0 )
+            {
+                synchronized ( this )
+                {
+                    goingAway = true;
+                }
+            }
+            streams.put( stream.getId(), stream );
+            try
+            {
+                Http2Frame.writeHeaders( out, stream.getId(), encoder.encode( headers ), true, peerMaxFrameSize );
+                out.flush();
+            }
+            catch ( IOException e )
+            {
+                close( e );
+                throw e;
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Acknowledges the consumption of received data to the server, thereby replenishing the flow-control windows.
+     * 
+     * @param stream The stream whose data was consumed, may be {@code null} to only update the connection window.
+     * @param length The number of flow-controlled bytes consumed.
+     */
+    void consumed( Http2Stream stream, int length )
+    {
+        if ( length <= 0 )
+        {
+            return;
+        }
+        synchronized ( writeLock )
+        {
+            try
+            {
+                boolean flush = false;
+                unacknowledged += length;
+                if ( unacknowledged >= CONNECTION_WINDOW_SIZE / 2 )
+                {
+                    Http2Frame.writeInt( out, Http2Frame.WINDOW_UPDATE, 0, unacknowledged );
+                    unacknowledged = 0;
+                    flush = true;
+                }
+                if ( stream != null && streams.containsKey( stream.getId() ) )
+                {
+                    stream.unacknowledged += length;
+                    if ( stream.unacknowledged >= STREAM_WINDOW_SIZE / 2 )
+                    {
+                        Http2Frame.writeInt( out, Http2Frame.WINDOW_UPDATE, stream.getId(), stream.unacknowledged );
+                        stream.unacknowledged = 0;
+                        flush = true;
+                    }
+                }
+                if ( flush )
+                {
+                    out.flush();
+                }
+            }
+            catch ( IOException e )
+            {
+                close( e );
+            }
+        }
+    }
+
+    /**
+     * Resets the specified stream unless it has already ended.
+     */
+    void reset( Http2Stream stream, int errorCode )
+    {
+        if ( streams.remove( stream.getId() ) != null )
+        {
+            synchronized ( writeLock )
+            {
+                try
+                {
+                    Http2Frame.writeInt( out, Http2Frame.RST_STREAM, stream.getId(), errorCode );
+                    out.flush();
+                }
+                catch ( IOException e )
+                {
+                    close( e );
+                }
+            }
+            release();
+        }
+    }
+
+    private void ended( int streamId )
+    {
+        if ( streams.remove( streamId ) != null )
+        {
+            release();
+        }
+    }
+
+    private void release()
+    {
+        synchronized ( this )
+        {
+            activeStreams--;
+            idleSince = System.currentTimeMillis();
+        }
+        releaseCallback.run();
+    }
+
+    private synchronized boolean closeIfIdle()
+    {
+        if ( activeStreams <= 0 && System.currentTimeMillis() - idleSince >= idleTimeout )
+        {
+            goingAway = true;
+        }
+        return goingAway && activeStreams <= 0;
+    }
+
+    private void read()
+    {
+        IOException error = new EOFException( "Connection closed by server" );
+        try
+        {
+            ByteArrayOutputStream headerBlock = null;
+            int headerStreamId = 0;
+            boolean headerEndStream = false;
+            while ( true )
+            {
+                Http2Frame frame;
+                try
+                {
+                    frame = Http2Frame.read( in, Http2Frame.DEFAULT_MAX_FRAME_SIZE );
+                }
+                catch ( SocketTimeoutException e )
+                {
+                    if ( headerBlock == null && closeIfIdle() )
+                    {
+                        close();
+                        return;
+                    }
+                    continue;
+                }
+                if ( frame == null )
+                {
+                    break;
+                }
+
+                if ( headerBlock != null )
+                {
+                    if ( frame.type != Http2Frame.CONTINUATION || frame.streamId != headerStreamId )
+                    {
+                        throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "Expected CONTINUATION frame" );
+                    }
+                    headerBlock.write( frame.payload, 0, frame.payload.length );
+                    if ( headerBlock.size() > MAX_HEADER_LIST_SIZE )
+                    {
+                        throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "Header block too large" );
+                    }
+                    if ( frame.hasFlag( Http2Frame.FLAG_END_HEADERS ) )
+                    {
+                        byte[] block = headerBlock.toByteArray();
+                        headerBlock = null;
+                        onHeaders( headerStreamId, block, 0, block.length, headerEndStream );
+                    }
+                    continue;
+                }
+
+                switch ( frame.type )
+                {
+                    case Http2Frame.DATA:
+                        onData( frame );
+                        break;
+                    case Http2Frame.HEADERS:
+                        int[] data = frame.getData();
+                        if ( frame.hasFlag( Http2Frame.FLAG_END_HEADERS ) )
+                        {
+                            onHeaders( frame.streamId, frame.payload, data[0], data[1],
+                                       frame.hasFlag( Http2Frame.FLAG_END_STREAM ) );
+                        }
+                        else
+                        {
+                            headerBlock = new ByteArrayOutputStream();
+                            headerBlock.write( frame.payload, data[0], data[1] );
+                            headerStreamId = frame.streamId;
+                            headerEndStream = frame.hasFlag( Http2Frame.FLAG_END_STREAM );
+                        }
+                        break;
+                    case Http2Frame.RST_STREAM:
+                        onReset( frame );
+                        break;
+                    case Http2Frame.SETTINGS:
+                        if ( !frame.hasFlag( Http2Frame.FLAG_ACK ) )
+                        {
+                            onSettings( frame );
+                        }
+                        break;
+                    case Http2Frame.PING:
+                        if ( !frame.hasFlag( Http2Frame.FLAG_ACK ) )
+                        {
+                            synchronized ( writeLock )
+                            {
+                                Http2Frame.write( out, Http2Frame.PING, Http2Frame.FLAG_ACK, 0, frame.payload, 0,
+                                                  frame.payload.length );
+                                out.flush();
+                            }
+                        }
+                        break;
+                    case Http2Frame.GOAWAY:
+                        onGoAway( frame );
+                        break;
+                    case Http2Frame.PUSH_PROMISE:
+                    case Http2Frame.CONTINUATION:
+                        throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "Unexpected " + frame );
+                    default:
+                        // WINDOW_UPDATE and PRIORITY are irrelevant as requests carry no body, others are to be ignored
+                        break;
+                }
+            }
+        }
+        catch ( Http2Exception e )
+        {
+            logger.debug( "Protocol error on HTTP/2 connection " + name + ": " + e.getMessage() );
+            synchronized ( writeLock )
+            {
+                try
+                {
+                    Http2Frame.writeGoAway( out, 0, e.getErrorCode() );
+                    out.flush();
+                }
+                catch ( IOException ex )
+                {
+                    // irrelevant
+                }
+            }
+            error = e;
+        }
+        catch ( IOException e )
+        {
+            error = e;
+        }
+        close( error );
+    }
+
+    private void onData( Http2Frame frame )
+        throws IOException
+    {
+        if ( frame.streamId == 0 )
+        {
+            throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "DATA frame without stream" );
+        }
+        int[] data = frame.getData();
+        boolean endStream = frame.hasFlag( Http2Frame.FLAG_END_STREAM );
+        Http2Stream stream = streams.get( frame.streamId );
+        if ( stream == null
+            || !stream.onData( frame.payload, data[0], data[1], frame.payload.length, endStream ) )
+        {
+            consumed( null, frame.payload.length );
+        }
+        if ( endStream )
+        {
+            ended( frame.streamId );
+        }
+    }
+
+    private void onHeaders( int streamId, byte[] block, int offset, int length, boolean endStream )
+        throws IOException
+    {
+        List<Hpack.Header> headers;
+        try
+        {
+            headers = decoder.decode( block, offset, length );
+        }
+        catch ( IOException e )
+        {
+            throw new Http2Exception( Http2Frame.COMPRESSION_ERROR, e.getMessage() );
+        }
+        Http2Stream stream = streams.get( streamId );
+        if ( stream != null )
+        {
+            stream.onHeaders( headers, endStream );
+        }
+        if ( endStream )
+        {
+            ended( streamId );
+        }
+    }
+
+    private void onReset( Http2Frame frame )
+    {
+        Http2Stream stream = streams.remove( frame.streamId );
+        if ( stream != null )
+        {
+            int errorCode = ( frame.payload.length >= 4 ) ? frame.getInt( 0 ) : Http2Frame.PROTOCOL_ERROR;
+            stream.onError( new Http2Exception( errorCode, "Stream reset by server with error code " + errorCode ) );
+            release();
+        }
+    }
+
+    private void onSettings( Http2Frame frame )
+        throws IOException
+    {
+        if ( frame.payload.length % 6 != 0 )
+        {
+            throw new Http2Exception( Http2Frame.FRAME_SIZE_ERROR, "Invalid SETTINGS frame" );
+        }
+        synchronized ( writeLock )
+        {
+            for ( int i = 0; i < frame.payload.length; i += 6 )
+            {
+                int id = ( frame.payload[i] & 0xFF ) << 8 | ( frame.payload[i + 1] & 0xFF );
+                int value = frame.getInt( i + 2 );
+                switch ( id )
+                {
+                    case Http2Frame.SETTINGS_HEADER_TABLE_SIZE:
+                        encoder.setMaxTableSize( value < 0 ? Integer.MAX_VALUE : value );
+                        break;
+                    case Http2Frame.SETTINGS_MAX_CONCURRENT_STREAMS:
+                        synchronized ( this )
+                        {
+                            maxConcurrentStreams = ( value < 0 ) ? Integer.MAX_VALUE : value;
+                        }
+                        break;
+                    case Http2Frame.SETTINGS_MAX_FRAME_SIZE:
+                        if ( value < Http2Frame.DEFAULT_MAX_FRAME_SIZE || value > 0xFFFFFF )
+                        {
+                            throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "Invalid maximum frame size "
+                                + value );
+                        }
+                        peerMaxFrameSize = value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            Http2Frame.write( out, Http2Frame.SETTINGS, Http2Frame.FLAG_ACK, 0, new byte[0], 0, 0 );
+            out.flush();
+        }
+        releaseCallback.run();
+    }
+
+    private void onGoAway( Http2Frame frame )
+        throws IOException
+    {
+        if ( frame.payload.length < 8 )
+        {
+            throw new Http2Exception( Http2Frame.FRAME_SIZE_ERROR, "Invalid GOAWAY frame" );
+        }
+        int lastStreamId = frame.getInt( 0 ) & 0x7FFFFFFF;
+        int errorCode = frame.getInt( 4 );
+        logger.debug( "HTTP/2 connection " + name + " shut down by server with error code " + errorCode );
+        synchronized ( this )
+        {
+            goingAway = true;
+        }
+        List<Http2Stream> refused = new ArrayList<Http2Stream>();
+        for ( Http2Stream stream : streams.values() )
+        {
+            if ( stream.getId() > lastStreamId && streams.remove( stream.getId() ) != null )
+            {
+                refused.add( stream );
+            }
+        }
+        for ( Http2Stream stream : refused )
+        {
+            stream.onError( new Http2Exception( Http2Frame.REFUSED_STREAM, "Stream not processed by server" ) );
+            release();
+        }
+        releaseCallback.run();
+    }
+
+    /**
+     * Gracefully closes the connection, failing any streams still in progress.
+     */
+    public void close()
+    {
+        synchronized ( writeLock )
+        {
+            try
+            {
+                Http2Frame.writeGoAway( out, 0, Http2Frame.NO_ERROR );
+                out.flush();
+            }
+            catch ( IOException e )
+            {
+                // irrelevant
+            }
+        }
+        close( new IOException( "Connection closed" ) );
+    }
+
+    private void close( IOException cause )
+    {
+        synchronized ( this )
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+        }
+        try
+        {
+            socket.close();
+        }
+        catch ( IOException e )
+        {
+            // irrelevant
+        }
+        for ( Integer id : new ArrayList<Integer>( streams.keySet() ) )
+        {
+            Http2Stream stream = streams.remove( id );
+            if ( stream != null )
+            {
+                stream.onError( cause );
+            }
+        }
+        releaseCallback.run();
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+
+/**
+ * Signals an error of the HTTP/2 protocol, carrying the error code to send to the peer.
+ */
+class Http2Exception
+    extends IOException
+{
+
+    private static final long serialVersionUID = -3658722418549722167L;
+
+    private final int errorCode;
+
+    public Http2Exception( int errorCode, String message )
+    {
+        super( message );
+        this.errorCode = errorCode;
+    }
+
+    public int getErrorCode()
+    {
+        return errorCode;
+    }
+
+}
@@ -0,0 +1,305 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A frame of the HTTP/2 protocol as specified by RFC 7540, section 4.
+ */
+final class Http2Frame
+{
+
+    static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes( StandardCharsets.US_ASCII );
+
+    static final int HEADER_LENGTH = 9;
+
+    static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+
+    static final int DEFAULT_WINDOW_SIZE = 65535;
+
+    static final int DATA = 0x0;
+
+    static final int HEADERS = 0x1;
+
+    static final int PRIORITY = 0x2;
+
+    static final int RST_STREAM = 0x3;
+
+    static final int SETTINGS = 0x4;
+
+    static final int PUSH_PROMISE = 0x5;
+
+    static final int PING = 0x6;
+
+    static final int GOAWAY = 0x7;
+
+    static final int WINDOW_UPDATE = 0x8;
+
+    static final int CONTINUATION = 0x9;
+
+    static final int FLAG_END_STREAM = 0x1;
+
+    static final int FLAG_ACK = 0x1;
+
+    static final int FLAG_END_HEADERS = 0x4;
+
+    static final int FLAG_PADDED = 0x8;
+
+    static final int FLAG_PRIORITY = 0x20;
+
+    static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+
+    static final int SETTINGS_ENABLE_PUSH = 0x2;
+
+    static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+
+    static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+
+    static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+
+    static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+    static final int NO_ERROR = 0x0;
+
+    static final int PROTOCOL_ERROR = 0x1;
+
+    static final int INTERNAL_ERROR = 0x2;
+
+    static final int FLOW_CONTROL_ERROR = 0x3;
+
+    static final int FRAME_SIZE_ERROR = 0x6;
+
+    static final int REFUSED_STREAM = 0x7;
+
+    static final int CANCEL = 0x8;
+
+    static final int COMPRESSION_ERROR = 0x9;
+
+    final int type;
+
+    final int flags;
+
+    final int streamId;
+
+    final byte[] payload;
+
+    Http2Frame( int type, int flags, int streamId, byte[] payload )
+    {
+        this.type = type;
+        this.flags = flags;
+        this.streamId = streamId;
+        this.payload = payload;
+    }
+
+    boolean hasFlag( int flag )
+    {
+        return ( flags & flag ) != 0;
+    }
+
+    int getInt( int offset )
+    {
+        return getInt( payload, offset );
+    }
+
+    /**
+     * Gets the offset and length of the payload after stripping the padding and priority fields of DATA and HEADERS
+     * frames.
+     * 
+     * @return The offset and the length of the actual data, never {@code null}.
+     * @throws IOException If the padding is invalid.
+     */
+    int[] getData()
+        throws IOException
+    {
+        int offset = 0;
+        int end = payload.length;
+        if ( hasFlag( FLAG_PADDED ) && ( type == DATA || type == HEADERS ) )
+        {
+            if ( end < 1 )
+            {
+                throw new IOException( "Truncated padded frame" );
+            }
+            end -= payload[0] & 0xFF;
+            offset++;
+        }
+        if ( hasFlag( FLAG_PRIORITY ) && type == HEADERS )
+        {
+            offset += 5;
+        }
+        if ( end < offset )
+        {
+            throw new IOException( "Frame padding exceeds payload" );
+        }
+        return new int[] { offset, end - offset };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "frame(type=" + type + ", flags=" + flags + ", stream=" + streamId + ", length=" + payload.length + ")";
+    }
+
+    static int getInt( byte[] bytes, int offset )
+    {
+        return ( bytes[offset] & 0xFF ) << 24 | ( bytes[offset + 1] & 0xFF ) << 16 | ( bytes[offset + 2] & 0xFF ) << 8
+            | ( bytes[offset + 3] & 0xFF );
+    }
+
+    static void putInt( byte[] bytes, int offset, int value )
+    {
+        bytes[offset] = (byte) ( value >>> 24 );
+        bytes[offset + 1] = (byte) ( value >>> 16 );
+        bytes[offset + 2] = (byte) ( value >>> 8 );
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Reads the next frame from the specified stream.
+     * 
+     * @param in The stream to read from, must not be {@code null}.
+     * @param maxFrameSize The maximum length of the payload that is accepted.
+     * @return The frame or {@code null} if the stream ended before the frame started.
+     * @throws IOException If the frame could not be read or is too large.
+     */
+    static Http2Frame read( InputStream in, int maxFrameSize )
+        throws IOException
+    {
+        byte[] header = new byte[HEADER_LENGTH];
+        if ( !readFully( in, header, true ) )
+        {
+            return null;
+        }
+        int length = ( header[0] & 0xFF ) << 16 | ( header[1] & 0xFF ) << 8 | ( header[2] & 0xFF );
+        if ( length > maxFrameSize )
+        {
+            throw new Http2Exception( FRAME_SIZE_ERROR, "Frame of " + length + " bytes exceeds limit of "
+                + maxFrameSize + " bytes" );
+        }
+        byte[] payload = new byte[length];
+        readFully( in, payload, false );
+        return new Http2Frame( header[3] & 0xFF, header[4] & 0xFF, getInt( header, 5 ) & 0x7FFFFFFF, payload );
+    }
+
+    private static boolean readFully( InputStream in, byte[] bytes, boolean eofAllowed )
+        throws IOException
+    {
+        for ( int off = 0; off < bytes.length; )
+        {
+            int read;
+            try
+            {
+                read = in.read( bytes, off, bytes.length - off );
+            }
+            catch ( SocketTimeoutException e )
+            {
+                if ( off == 0 && eofAllowed )
+                {
+                    throw e;
+                }
+                // never abandon a partially read frame
+                continue;
+            }
+            if ( read < 0 )
+            {
+                if ( off == 0 && eofAllowed )
+                {
+                    return false;
+                }
+                throw new EOFException( "Connection closed in the middle of a frame" );
+            }
+            off += read;
+        }
+        return true;
+    }
+
+    static void write( OutputStream out, int type, int flags, int streamId, byte[] payload, int offset, int length )
+        throws IOException
+    {
+        byte[] header = new byte[HEADER_LENGTH];
+        header[0] = (byte) ( length >>> 16 );
+        header[1] = (byte) ( length >>> 8 );
+        header[2] = (byte) length;
+        header[3] = (byte) type;
+        header[4] = (byte) flags;
+        putInt( header, 5, streamId );
+        out.write( header );
+        out.write( payload, offset, length );
+    }
+
+    static void writeSettings( OutputStream out, int... settings )
+        throws IOException
+    {
+        byte[] payload = new byte[settings.length / 2 * 6];
+        for ( int i = 0, j = 0; i + 1 < settings.length; i += 2, j += 6 )
+        {
+            payload[j] = (byte) ( settings[i] >>> 8 );
+            payload[j + 1] = (byte) settings[i];
+            putInt( payload, j + 2, settings[i + 1] );
+        }
+        write( out, SETTINGS, 0, 0, payload, 0, payload.length );
+    }
+
+    static void writeInt( OutputStream out, int type, int streamId, int value )
+        throws IOException
+    {
+        byte[] payload = new byte[4];
+        putInt( payload, 0, value );
+        write( out, type, 0, streamId, payload, 0, payload.length );
+    }
+
+    static void writeGoAway( OutputStream out, int lastStreamId, int errorCode )
+        throws IOException
+    {
+        byte[] payload = new byte[8];
+        putInt( payload, 0, lastStreamId );
+        putInt( payload, 4, errorCode );
+        write( out, GOAWAY, 0, 0, payload, 0, payload.length );
+    }
+
+    /**
+     * Writes a header block as a HEADERS frame followed by as many CONTINUATION frames as needed.
+     */
+    static void writeHeaders( OutputStream out, int streamId, byte[] block, boolean endStream, int maxFrameSize )
+        throws IOException
+    {
+        int type = HEADERS;
+        int offset = 0;
+        do
+        {
+            int length = Math.min( maxFrameSize, block.length - offset );
+            int flags = ( type == HEADERS && endStream ) ? FLAG_END_STREAM : 0;
+            if ( offset + length >= block.length )
+            {
+                flags |= FLAG_END_HEADERS;
+            }
+            write( out, type, flags, streamId, block, offset, length );
+            offset += length;
+            type = CONTINUATION;
+        }
+        while ( offset < block.length );
+    }
+
+}
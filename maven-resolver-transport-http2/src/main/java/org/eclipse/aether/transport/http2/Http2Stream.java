@@ -0,0 +1,280 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request/response stream multiplexed over an {@link Http2Connection}. The frames for the stream are queued by the
+ * reader thread of the connection and consumed by the thread which issued the request. Consuming the response data
+ * replenishes the flow-control window, so a slow consumer only throttles its own stream.
+ */
+final class Http2Stream
+{
+
+    private static final Object END = new Object();
+
+    private final Http2Connection connection;
+
+    private final int id;
+
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+
+    private boolean closed;
+
+    private boolean ended;
+
+    private int status;
+
+    private Map<String, String> headers;
+
+    int unacknowledged;
+
+    Http2Stream( Http2Connection connection, int id )
+    {
+        this.connection = connection;
+        this.id = id;
+    }
+
+    int getId()
+    {
+        return id;
+    }
+
+    synchronized void onHeaders( List<Hpack.Header> headers, boolean endStream )
+    {
+        if ( !closed )
+        {
+            events.add( headers );
+            if ( endStream )
+            {
+                events.add( END );
+            }
+        }
+    }
+
+    /**
+     * Queues received data unless the stream was already closed locally.
+     * 
+     * @return {@code true} if the data was queued, {@code false} if it was discarded.
+     */
+    synchronized boolean onData( byte[] data, int offset, int length, int flowLength, boolean endStream )
+    {
+        if ( closed )
+        {
+            return false;
+        }
+        events.add( new Chunk( ByteBuffer.wrap( data, offset, length ), flowLength ) );
+        if ( endStream )
+        {
+            events.add( END );
+        }
+        return true;
+    }
+
+    synchronized void onError( IOException error )
+    {
+        if ( !closed )
+        {
+            events.add( error );
+        }
+    }
+
+    /**
+     * Waits for the final response headers, skipping any informational responses.
+     * 
+     * @param timeout The timeout in milliseconds, {@code 0} for none.
+     * @throws IOException If the stream failed or the timeout elapsed.
+     */
+    void awaitResponse( int timeout )
+        throws IOException
+    {
+        while ( headers == null )
+        {
+            Object event = next( timeout );
+            if ( !( event instanceof List ) )
+            {
+                throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "Missing response headers" );
+            }
+            Map<String, String> map = new HashMap<String, String>();
+            for ( Object obj : (List<?>) event )
+            {
+                Hpack.Header header = (Hpack.Header) obj;
+                String value = map.get( header.name );
+                map.put( header.name, ( value != null ) ? value + ", " + header.value : header.value );
+            }
+            try
+            {
+                status = Integer.parseInt( map.get( ":status" ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                throw new Http2Exception( Http2Frame.PROTOCOL_ERROR, "Invalid response status " + map.get( ":status" ) );
+            }
+            if ( status >= 200 )
+            {
+                headers = map;
+            }
+        }
+    }
+
+    int getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * Gets the value of the specified response header, multiple occurrences being joined by commas.
+     * 
+     * @param name The name of the header, must be in lower case.
+     * @return The header value or {@code null} if not present.
+     */
+    String getHeader( String name )
+    {
+        return headers.get( name );
+    }
+
+    /**
+     * Gets the response headers, including pseudo-headers like {@code :status}.
+     * 
+     * @return The (read-only) response headers keyed by lower case name, never {@code null}.
+     */
+    Map<String, String> getHeaders()
+    {
+        return Collections.unmodifiableMap( headers );
+    }
+
+    /**
+     * Reads the next chunk of the response body.
+     * 
+     * @param timeout The timeout in milliseconds, {@code 0} for none.
+     * @return The data or {@code null} if the end of the stream was reached.
+     * @throws IOException If the stream failed or the timeout elapsed.
+     */
+    ByteBuffer read( int timeout )
+        throws IOException
+    {
+        while ( !ended )
+        {
+            Object event = next( timeout );
+            if ( event == END )
+            {
+                ended = true;
+            }
+            else if ( event instanceof Chunk )
+            {
+                Chunk chunk = (Chunk) event;
+                connection.consumed( this, chunk.flowLength );
+                if ( chunk.data.hasRemaining() )
+                {
+                    return chunk.data;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Object next( int timeout )
+        throws IOException
+    {
+        Object event;
+        try
+        {
+            event = ( timeout > 0 ) ? events.poll( timeout, TimeUnit.MILLISECONDS ) : events.take();
+        }
+        catch ( InterruptedException e )
+        {
+            throw (IOException) new InterruptedIOException().initCause( e );
+        }
+        if ( event == null )
+        {
+            throw new SocketTimeoutException( "Read timed out" );
+        }
+        if ( event instanceof IOException )
+        {
+            ended = true;
+            throw (IOException) event;
+        }
+        return event;
+    }
+
+    /**
+     * Releases the stream, resetting it if the response was not fully consumed.
+     */
+    void close()
+    {
+        List<Object> pending = new ArrayList<Object>();
+        synchronized ( this )
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            events.drainTo( pending );
+        }
+        int length = 0;
+        for ( Object event : pending )
+        {
+            if ( event instanceof Chunk )
+            {
+                length += ( (Chunk) event ).flowLength;
+            }
+        }
+        connection.consumed( null, length );
+        if ( !ended )
+        {
+            connection.reset( this, Http2Frame.CANCEL );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return connection + "#" + id;
+    }
+
+    private static final class Chunk
+    {
+
+        final ByteBuffer data;
+
+        final int flowLength;
+
+        Chunk( ByteBuffer data, int flowLength )
+        {
+            this.data = data;
+            this.flowLength = flowLength;
+        }
+
+    }
+
+}
@@ -0,0 +1,597 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.TransportTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transport.http.ChecksumExtractor;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.transport.ChecksumHeaders;
+import org.eclipse.aether.util.transport.HeaderLookup;
+import org.eclipse.aether.util.transport.RequestHeaders;
+
+/**
+ * A transporter multiplexing downloads over HTTP/2 connections. Everything the HTTP/2 path doesn't cover, i.e.
+ * uploads, proxies, redirects, authentication challenges, custom SSL settings and servers which don't speak HTTP/2, is
+ * delegated to the HTTP/1.1 transporter.
+ */
+final class Http2Transporter
+    extends AbstractTransporter
+{
+
+    static final String CONFIG_PROP_CLEARTEXT = "aether.connector.http2.cleartext";
+
+    private static final Pattern CONTENT_RANGE_PATTERN =
+        Pattern.compile( "\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/\\s*([0-9]+|\\*)?.*" );
+
+    private static final Set<String> CONNECTION_HEADERS =
+        new HashSet<String>( Arrays.asList( "connection", "keep-alive", "proxy-connection", "transfer-encoding",
+                                            "upgrade", "host", "te" ) );
+
+    private static final String CONFIG_PROP_PREEMPTIVE_AUTH = "aether.connector.http.preemptiveAuth";
+
+    private final Logger logger;
+
+    private final Transporter fallback;
+
+    private final List<ChecksumExtractor> checksumExtractors;
+
+    private final AuthenticationContext repoAuthContext;
+
+    private final URI baseUri;
+
+    private final boolean secure;
+
+    private final int port;
+
+    private final Http2Client client;
+
+    private final boolean sharedClient;
+
+    private final Map<?, ?> headers;
+
+    private final String userAgent;
+
+    private final String credentialEncoding;
+
+    private final int connectTimeout;
+
+    private final int requestTimeout;
+
+    private final boolean preemptiveAuth;
+
+    private String authorization;
+
+    public Http2Transporter( RemoteRepository repository, RepositorySystemSession session, Transporter fallback,
+                             List<ChecksumExtractor> checksumExtractors, Logger logger )
+        throws NoTransporterException
+    {
+        secure = "https".equalsIgnoreCase( repository.getProtocol() );
+        if ( !secure && !"http".equalsIgnoreCase( repository.getProtocol() ) )
+        {
+            throw new NoTransporterException( repository );
+        }
+        this.logger = logger;
+        this.fallback = fallback;
+        this.checksumExtractors = checksumExtractors;
+        try
+        {
+            baseUri = new URI( repository.getUrl() ).parseServerAuthority();
+            if ( baseUri.isOpaque() )
+            {
+                throw new URISyntaxException( repository.getUrl(), "URL must not be opaque" );
+            }
+            if ( baseUri.getHost() == null )
+            {
+                throw new URISyntaxException( repository.getUrl(), "URL lacks host name" );
+            }
+        }
+        catch ( URISyntaxException e )
+        {
+            throw new NoTransporterException( repository, e.getMessage(), e );
+        }
+        port = ( baseUri.getPort() >= 0 ) ? baseUri.getPort() : secure ? 443 : 80;
+
+        repoAuthContext = AuthenticationContext.forRepository( session, repository );
+
+        headers =
+            ConfigUtils.getMap( session, Collections.emptyMap(), ConfigurationProperties.HTTP_HEADERS + "."
+                + repository.getId(), ConfigurationProperties.HTTP_HEADERS );
+        userAgent =
+            ConfigUtils.getString( session, ConfigurationProperties.DEFAULT_USER_AGENT,
+                                   ConfigurationProperties.USER_AGENT );
+        credentialEncoding =
+            ConfigUtils.getString( session, ConfigurationProperties.DEFAULT_HTTP_CREDENTIAL_ENCODING,
+                                   ConfigurationProperties.HTTP_CREDENTIAL_ENCODING + "." + repository.getId(),
+                                   ConfigurationProperties.HTTP_CREDENTIAL_ENCODING );
+        connectTimeout =
+            ConfigUtils.getInteger( session, ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+                                    ConfigurationProperties.CONNECT_TIMEOUT + "." + repository.getId(),
+                                    ConfigurationProperties.CONNECT_TIMEOUT );
+        requestTimeout =
+            ConfigUtils.getInteger( session, ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+                                    ConfigurationProperties.REQUEST_TIMEOUT + "." + repository.getId(),
+                                    ConfigurationProperties.REQUEST_TIMEOUT );
+        preemptiveAuth =
+            ConfigUtils.getBoolean( session, false, CONFIG_PROP_PREEMPTIVE_AUTH + '.' + repository.getId(),
+                                    CONFIG_PROP_PREEMPTIVE_AUTH );
+
+        boolean multiplexed = repository.getProxy() == null && !hasCustomSsl( repoAuthContext );
+        if ( multiplexed && !secure )
+        {
+            multiplexed =
+                ConfigUtils.getBoolean( session, false, CONFIG_PROP_CLEARTEXT + "." + repository.getId(),
+                                        CONFIG_PROP_CLEARTEXT );
+        }
+        if ( multiplexed )
+        {
+            Http2Client client = Http2Client.get( session, logger );
+            sharedClient = client != null;
+            this.client =
+                sharedClient ? client : new Http2Client( Http2Client.getMaxConnectionsPerHost( session ), logger );
+        }
+        else
+        {
+            sharedClient = false;
+            client = null;
+        }
+    }
+
+    private static boolean hasCustomSsl( AuthenticationContext context )
+    {
+        return context != null
+            && ( context.get( AuthenticationContext.SSL_CONTEXT, SSLContext.class ) != null
+            || context.get( AuthenticationContext.SSL_HOSTNAME_VERIFIER, HostnameVerifier.class ) != null );
+    }
+
+    Transporter getFallback()
+    {
+        return fallback;
+    }
+
+    private URI resolve( TransportTask task )
+    {
+        URI base = baseUri;
+        String path = task.getLocation().getRawPath();
+        if ( path != null && path.length() > 0 && !base.getRawPath().endsWith( "/" ) )
+        {
+            base = URI.create( base.toString() + '/' );
+        }
+        return base.resolve( task.getLocation() );
+    }
+
+    public int classify( Throwable error )
+    {
+        if ( error instanceof HttpResponseException )
+        {
+            return ( (HttpResponseException) error ).getStatusCode() == 404 ? ERROR_NOT_FOUND : ERROR_OTHER;
+        }
+        return fallback.classify( error );
+    }
+
+    @Override
+    protected void implPeek( PeekTask task )
+        throws Exception
+    {
+        Http2Stream stream =
+            ( client != null ) ? execute( "HEAD", resolve( task ), Collections.<String, String>emptyMap() ) : null;
+        if ( stream == null )
+        {
+            fallback.peek( task );
+            return;
+        }
+        try
+        {
+            if ( isDelegated( stream.getStatus() ) )
+            {
+                stream.close();
+                fallback.peek( task );
+                return;
+            }
+            checkStatus( stream );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    @Override
+    protected void implGet( GetTask task )
+        throws Exception
+    {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        resume( headers, task );
+        conditional( headers, task );
+        Http2Stream stream = ( client != null ) ? execute( "GET", resolve( task ), headers ) : null;
+        if ( stream != null && stream.getStatus() == 412 && headers.containsKey( "range" ) )
+        {
+            stream.close();
+            headers.clear();
+            conditional( headers, task );
+            stream = execute( "GET", resolve( task ), headers );
+        }
+        if ( stream == null )
+        {
+            fallback.get( task );
+            return;
+        }
+        try
+        {
+            int status = stream.getStatus();
+            if ( status == 304 && ( headers.containsKey( "if-none-match" )
+                || headers.containsKey( "if-modified-since" ) ) )
+            {
+                task.setNotModified( true );
+                extractValidators( stream, task );
+                return;
+            }
+            if ( isDelegated( status ) )
+            {
+                stream.close();
+                fallback.get( task );
+                return;
+            }
+            checkStatus( stream );
+            download( stream, task );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    @Override
+    protected void implPut( PutTask task )
+        throws Exception
+    {
+        fallback.put( task );
+    }
+
+    /**
+     * Sends the request and awaits the response headers. A request refused by the server without processing it, e.g.
+     * because the connection was shutting down, is retried once.
+     * 
+     * @return The stream carrying the response or {@code null} if the server does not speak HTTP/2.
+     */
+    private Http2Stream execute( String method, URI uri, Map<String, String> headers )
+        throws IOException
+    {
+        for ( int attempt = 0;; attempt++ )
+        {
+            Http2Stream stream = null;
+            try
+            {
+                stream =
+                    client.newStream( secure, baseUri.getHost(), port, newRequest( method, uri, headers ),
+                                      connectTimeout );
+                if ( stream != null )
+                {
+                    stream.awaitResponse( requestTimeout );
+                }
+                return stream;
+            }
+            catch ( IOException e )
+            {
+                if ( stream != null )
+                {
+                    stream.close();
+                }
+                if ( attempt > 0 || !( e instanceof Http2Exception )
+                    || ( (Http2Exception) e ).getErrorCode() != Http2Frame.REFUSED_STREAM )
+                {
+                    throw e;
+                }
+                logger.debug( "Retrying " + method + " " + uri + " after request was refused: " + e.getMessage() );
+            }
+        }
+    }
+
+    private List<Hpack.Header> newRequest( String method, URI uri, Map<String, String> taskHeaders )
+    {
+        String path = uri.getRawPath();
+        if ( path == null || path.length() <= 0 )
+        {
+            path = "/";
+        }
+        if ( uri.getRawQuery() != null )
+        {
+            path += '?' + uri.getRawQuery();
+        }
+        String authority = baseUri.getHost() + ( ( baseUri.getPort() >= 0 ) ? ":" + baseUri.getPort() : "" );
+
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put( "user-agent", userAgent );
+        headers.put( "cache-control", "no-cache, no-store" );
+        headers.put( "pragma", "no-cache" );
+        for ( Map.Entry<?, ?> entry : this.headers.entrySet() )
+        {
+            if ( !( entry.getKey() instanceof String ) )
+            {
+                continue;
+            }
+            String name = entry.getKey().toString().toLowerCase( Locale.ENGLISH );
+            if ( entry.getValue() instanceof String && !CONNECTION_HEADERS.contains( name ) )
+            {
+                headers.put( name, entry.getValue().toString() );
+            }
+            else
+            {
+                headers.remove( name );
+            }
+        }
+        String authorization = getAuthorization();
+        if ( authorization != null )
+        {
+            headers.put( "authorization", authorization );
+        }
+        headers.putAll( taskHeaders );
+
+        List<Hpack.Header> request = new ArrayList<Hpack.Header>( headers.size() + 4 );
+        request.add( new Hpack.Header( ":method", method ) );
+        request.add( new Hpack.Header( ":scheme", secure ? "https" : "http" ) );
+        request.add( new Hpack.Header( ":authority", authority ) );
+        request.add( new Hpack.Header( ":path", path ) );
+        for ( Map.Entry<String, String> entry : headers.entrySet() )
+        {
+            request.add( new Hpack.Header( entry.getKey(), entry.getValue() ) );
+        }
+        return request;
+    }
+
+    /**
+     * Gets the value of the authorization header, if any. A bearer token is always sent, basic credentials only if
+     * preemptive authentication is enabled. Otherwise, the server's challenge is left to the HTTP/1.1 transporter.
+     */
+    private synchronized String getAuthorization()
+    {
+        if ( authorization == null && repoAuthContext != null )
+        {
+            String token = repoAuthContext.get( AuthenticationContext.BEARER_TOKEN );
+            if ( token != null )
+            {
+                authorization = "Bearer " + token;
+            }
+            else if ( preemptiveAuth )
+            {
+                authorization =
+                    RequestHeaders.getBasicAuthorization( repoAuthContext.get( AuthenticationContext.USERNAME ),
+                                                          repoAuthContext.get( AuthenticationContext.PASSWORD ),
+                                                          credentialEncoding );
+            }
+        }
+        return authorization;
+    }
+
+    private static void resume( Map<String, String> headers, GetTask task )
+    {
+        put( headers, RequestHeaders.getRangeHeaders( task.getResumeOffset(), task.getDataRangeLength(),
+                                                      task.getDataFile() ) );
+    }
+
+    private static void conditional( Map<String, String> headers, GetTask task )
+    {
+        if ( !headers.containsKey( "range" ) )
+        {
+            put( headers, RequestHeaders.getConditionalHeaders( task.getCachedValidators() ) );
+        }
+    }
+
+    private static void put( Map<String, String> headers, Map<String, String> additionalHeaders )
+    {
+        for ( Map.Entry<String, String> header : additionalHeaders.entrySet() )
+        {
+            headers.put( header.getKey().toLowerCase( Locale.ENGLISH ), header.getValue() );
+        }
+    }
+
+    /**
+     * Determines whether a response is better handled by the HTTP/1.1 transporter, i.e. redirects which might lead to
+     * other hosts and authentication challenges which need schemes other than the preemptive ones.
+     */
+    private static boolean isDelegated( int status )
+    {
+        return status == 401 || status == 407 || ( status >= 300 && status < 400 && status != 304 );
+    }
+
+    private static void checkStatus( Http2Stream stream )
+        throws HttpResponseException
+    {
+        int status = stream.getStatus();
+        if ( status >= 300 )
+        {
+            throw new HttpResponseException( status, "Server returned HTTP status " + status );
+        }
+    }
+
+    private void download( Http2Stream stream, GetTask task )
+        throws Exception
+    {
+        long offset = 0L, length = -1L;
+        String contentLength = stream.getHeader( "content-length" );
+        if ( contentLength != null )
+        {
+            length = Long.parseLong( contentLength.split( "," )[0].trim() );
+        }
+        String range = stream.getHeader( "content-range" );
+        if ( range != null )
+        {
+            Matcher m = CONTENT_RANGE_PATTERN.matcher( range );
+            if ( !m.matches() )
+            {
+                throw new IOException( "Invalid Content-Range header for partial download: " + range );
+            }
+            offset = Long.parseLong( m.group( 1 ) );
+            long end = Long.parseLong( m.group( 2 ) ) + 1L;
+            boolean ranged = task.getDataRangeLength() >= 0L;
+            if ( offset < 0L || offset >= end || ( ( offset > 0L || ranged ) && offset != task.getResumeOffset() )
+                || ( ranged && end > task.getResumeOffset() + task.getDataRangeLength() ) )
+            {
+                throw new IOException( "Invalid Content-Range header for partial download from offset "
+                    + task.getResumeOffset() + ": " + range );
+            }
+            if ( m.group( 3 ) != null && !"*".equals( m.group( 3 ) ) )
+            {
+                length = Long.parseLong( m.group( 3 ) );
+            }
+            else
+            {
+                length = ranged ? -1L : end;
+            }
+        }
+        else if ( task.getDataRangeLength() >= 0L && task.getResumeOffset() > 0L )
+        {
+            throw new IOException( "Server does not support partial download from offset " + task.getResumeOffset() );
+        }
+
+        WritableByteChannel channel = task.newChannel( offset > 0L );
+        try
+        {
+            task.getListener().transportStarted( offset, length );
+            for ( ByteBuffer data = stream.read( requestTimeout ); data != null; data = stream.read( requestTimeout ) )
+            {
+                for ( ByteBuffer buffer = data.duplicate(); buffer.hasRemaining(); )
+                {
+                    channel.write( buffer );
+                }
+                task.getListener().transportProgressed( data );
+            }
+            channel.close();
+            channel = null;
+        }
+        finally
+        {
+            if ( channel != null )
+            {
+                try
+                {
+                    channel.close();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant
+                }
+            }
+        }
+        extractChecksums( stream, task );
+        extractValidators( stream, task );
+    }
+
+    private static void extractValidators( Http2Stream stream, GetTask task )
+    {
+        task.setValidator( "ETag", stream.getHeader( "etag" ) );
+        task.setValidator( "Last-Modified", stream.getHeader( "last-modified" ) );
+    }
+
+    /**
+     * Applies the checksum extractors configured for the HTTP/1.1 transporter, followed by the built-in extractors.
+     */
+    private void extractChecksums( final Http2Stream stream, GetTask task )
+    {
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        if ( !checksumExtractors.isEmpty() )
+        {
+            HttpResponse response = toResponse( stream );
+            for ( ChecksumExtractor extractor : checksumExtractors )
+            {
+                results.add( extractor.extractChecksums( response ) );
+            }
+        }
+        results.add( ChecksumHeaders.extractChecksums( new HeaderLookup()
+        {
+            public String getHeader( String name )
+            {
+                return stream.getHeader( name.toLowerCase( Locale.ENGLISH ) );
+            }
+        } ) );
+        for ( Map<String, String> checksums : results )
+        {
+            if ( checksums == null )
+            {
+                continue;
+            }
+            for ( Map.Entry<String, String> entry : checksums.entrySet() )
+            {
+                if ( !task.getChecksums().containsKey( entry.getKey() ) )
+                {
+                    task.setChecksum( entry.getKey(), entry.getValue() );
+                }
+            }
+        }
+    }
+
+    private static HttpResponse toResponse( Http2Stream stream )
+    {
+        HttpResponse response = new BasicHttpResponse( HttpVersion.HTTP_1_1, stream.getStatus(), null );
+        for ( Map.Entry<String, String> header : stream.getHeaders().entrySet() )
+        {
+            if ( !header.getKey().startsWith( ":" ) )
+            {
+                response.addHeader( header.getKey(), header.getValue() );
+            }
+        }
+        return response;
+    }
+
+    @Override
+    protected void implClose()
+    {
+        AuthenticationContext.close( repoAuthContext );
+        if ( client != null && !sharedClient )
+        {
+            client.close();
+        }
+        fallback.close();
+    }
+
+}
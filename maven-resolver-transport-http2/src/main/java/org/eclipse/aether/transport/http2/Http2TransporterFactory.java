@@ -0,0 +1,163 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.spi.log.LoggerFactory;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transport.http.ChecksumExtractor;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+
+/**
+ * A transporter factory for repositories using the {@code http:} or {@code https:} protocol. Downloads from servers
+ * speaking HTTP/2 are multiplexed over a few connections per host, everything else is handled by the transporter of
+ * the {@link HttpTransporterFactory}. HTTP/2 over TLS is negotiated via ALPN, HTTP/2 over cleartext connections needs
+ * to be enabled via the configuration property {@code aether.connector.http2.cleartext} as it requires prior
+ * knowledge that the server supports it.
+ */
+@Named( "http2" )
+public final class Http2TransporterFactory
+    implements TransporterFactory, Service
+{
+
+    private final HttpTransporterFactory fallback = new HttpTransporterFactory();
+
+    private List<ChecksumExtractor> checksumExtractors = Collections.emptyList();
+
+    private Logger logger = NullLoggerFactory.LOGGER;
+
+    private float priority = 6.0f;
+
+    /**
+     * Creates an (uninitialized) instance of this transporter factory. <em>Note:</em> In case of manual instantiation
+     * by clients, the new factory needs to be configured via its various mutators before first use or runtime errors
+     * will occur.
+     */
+    public Http2TransporterFactory()
+    {
+        // enables default constructor
+    }
+
+    @Inject
+    Http2TransporterFactory( LoggerFactory loggerFactory, Set<ChecksumExtractor> checksumExtractors )
+    {
+        setLoggerFactory( loggerFactory );
+        setChecksumExtractors( checksumExtractors );
+    }
+
+    Http2TransporterFactory( LoggerFactory loggerFactory )
+    {
+        setLoggerFactory( loggerFactory );
+    }
+
+    public void initService( ServiceLocator locator )
+    {
+        setLoggerFactory( locator.getService( LoggerFactory.class ) );
+        setChecksumExtractors( locator.getServices( ChecksumExtractor.class ) );
+    }
+
+    /**
+     * Sets the logger factory to use for this component.
+     * 
+     * @param loggerFactory The logger factory to use, may be {@code null} to disable logging.
+     * @return This component for chaining, never {@code null}.
+     */
+    public Http2TransporterFactory setLoggerFactory( LoggerFactory loggerFactory )
+    {
+        this.logger = NullLoggerFactory.getSafeLogger( loggerFactory, Http2Transporter.class );
+        fallback.setLoggerFactory( loggerFactory );
+        return this;
+    }
+
+    /**
+     * Sets the extractors for checksum headers, used for downloads via HTTP/2 and the HTTP/1.1 transporter alike.
+     * 
+     * @param checksumExtractors The additional checksum extractors to use, may be {@code null} or empty.
+     * @return This component for chaining, never {@code null}.
+     * @see HttpTransporterFactory#setChecksumExtractors(Collection)
+     */
+    public Http2TransporterFactory setChecksumExtractors( Collection<ChecksumExtractor> checksumExtractors )
+    {
+        if ( checksumExtractors == null || checksumExtractors.isEmpty() )
+        {
+            this.checksumExtractors = Collections.emptyList();
+        }
+        else
+        {
+            this.checksumExtractors = new ArrayList<ChecksumExtractor>( checksumExtractors );
+        }
+        fallback.setChecksumExtractors( checksumExtractors );
+        return this;
+    }
+
+    public float getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this component.
+     * 
+     * @param priority The priority.
+     * @return This component for chaining, never {@code null}.
+     */
+    public Http2TransporterFactory setPriority( float priority )
+    {
+        this.priority = priority;
+        return this;
+    }
+
+    public Transporter newInstance( RepositorySystemSession session, RemoteRepository repository )
+        throws NoTransporterException
+    {
+        Transporter transporter = fallback.newInstance( session, repository );
+        try
+        {
+            return new Http2Transporter( repository, session, transporter, checksumExtractors, logger );
+        }
+        catch ( NoTransporterException e )
+        {
+            transporter.close();
+            throw e;
+        }
+        catch ( RuntimeException e )
+        {
+            transporter.close();
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,300 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the header compression against the examples of RFC 7541, Appendix C.
+ */
+public class HpackTest
+{
+
+    private static byte[] hex( String hex )
+    {
+        hex = hex.replace( " ", "" );
+        byte[] bytes = new byte[hex.length() / 2];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = (byte) Integer.parseInt( hex.substring( i * 2, i * 2 + 2 ), 16 );
+        }
+        return bytes;
+    }
+
+    private static List<Hpack.Header> headers( String... nameValues )
+    {
+        Hpack.Header[] headers = new Hpack.Header[nameValues.length / 2];
+        for ( int i = 0; i < headers.length; i++ )
+        {
+            headers[i] = new Hpack.Header( nameValues[i * 2], nameValues[i * 2 + 1] );
+        }
+        return Arrays.asList( headers );
+    }
+
+    private static final List<Hpack.Header> REQUEST1 =
+        headers( ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com" );
+
+    private static final List<Hpack.Header> REQUEST2 =
+        headers( ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com", "cache-control",
+                 "no-cache" );
+
+    private static final List<Hpack.Header> REQUEST3 =
+        headers( ":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com",
+                 "custom-key", "custom-value" );
+
+    @Test
+    public void testRequestsWithoutHuffman()
+        throws IOException
+    {
+        byte[][] blocks =
+            { hex( "8286 8441 0f77 7777 2e65 7861 6d70 6c65 2e63 6f6d" ),
+                hex( "8286 84be 5808 6e6f 2d63 6163 6865" ),
+                hex( "8287 85bf 400a 6375 7374 6f6d 2d6b 6579 0c63 7573 746f 6d2d 7661 6c75 65" ) };
+        assertExamples( new Hpack.Encoder( false ), blocks );
+    }
+
+    @Test
+    public void testRequestsWithHuffman()
+        throws IOException
+    {
+        byte[][] blocks =
+            { hex( "8286 8441 8cf1 e3c2 e5f2 3a6b a0ab 90f4 ff" ), hex( "8286 84be 5886 a8eb 1064 9cbf" ),
+                hex( "8287 85bf 4088 25a8 49e9 5ba9 7d7f 8925 a849 e95b b8e8 b4bf" ) };
+        assertExamples( new Hpack.Encoder( true ), blocks );
+    }
+
+    private void assertExamples( Hpack.Encoder encoder, byte[][] blocks )
+        throws IOException
+    {
+        Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 );
+        List<List<Hpack.Header>> requests = Arrays.asList( REQUEST1, REQUEST2, REQUEST3 );
+        for ( int i = 0; i < blocks.length; i++ )
+        {
+            assertArrayEquals( "request " + ( i + 1 ), blocks[i], encoder.encode( requests.get( i ) ) );
+            assertEquals( "request " + ( i + 1 ), requests.get( i ), decoder.decode( blocks[i], 0, blocks[i].length ) );
+        }
+    }
+
+    private static final List<Hpack.Header> RESPONSE1 =
+        headers( ":status", "302", "cache-control", "private", "date", "Mon, 21 Oct 2013 20:13:21 GMT", "location",
+                 "https://www.example.com" );
+
+    private static final List<Hpack.Header> RESPONSE2 =
+        headers( ":status", "307", "cache-control", "private", "date", "Mon, 21 Oct 2013 20:13:21 GMT", "location",
+                 "https://www.example.com" );
+
+    private static final List<Hpack.Header> RESPONSE3 =
+        headers( ":status", "200", "cache-control", "private", "date", "Mon, 21 Oct 2013 20:13:22 GMT", "location",
+                 "https://www.example.com", "content-encoding", "gzip", "set-cookie",
+                 "foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1" );
+
+    private static byte[] encodeInt( int prefixBits, int value )
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Hpack.Encoder.writeInt( out, 0, prefixBits, value );
+        return out.toByteArray();
+    }
+
+    private static List<Hpack.Header> decode( Hpack.Decoder decoder, String hex )
+        throws IOException
+    {
+        byte[] block = hex( hex );
+        return decoder.decode( block, 0, block.length );
+    }
+
+    @Test
+    public void testIntegerRepresentation()
+    {
+        // C.1.1 - C.1.3
+        assertArrayEquals( hex( "0a" ), encodeInt( 5, 10 ) );
+        assertArrayEquals( hex( "1f9a 0a" ), encodeInt( 5, 1337 ) );
+        assertArrayEquals( hex( "2a" ), encodeInt( 8, 42 ) );
+    }
+
+    @Test
+    public void testHeaderFieldRepresentations()
+        throws IOException
+    {
+        // C.2.1 literal header field with indexing
+        Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 );
+        assertEquals( headers( "custom-key", "custom-header" ),
+                      decode( decoder, "400a 6375 7374 6f6d 2d6b 6579 0d63 7573 746f 6d2d 6865 6164 6572" ) );
+        assertEquals( headers( "custom-key", "custom-header" ), decode( decoder, "be" ) );
+
+        // C.2.2 literal header field without indexing
+        decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 );
+        assertEquals( headers( ":path", "/sample/path" ), decode( decoder, "040c 2f73 616d 706c 652f 7061 7468" ) );
+        assertInvalidIndex( decoder, "be" );
+
+        // C.2.3 literal header field never indexed
+        decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 );
+        assertEquals( headers( "password", "secret" ),
+                      decode( decoder, "1008 7061 7373 776f 7264 0673 6563 7265 74" ) );
+        assertInvalidIndex( decoder, "be" );
+
+        // C.2.4 indexed header field
+        assertEquals( headers( ":method", "GET" ), decode( decoder, "82" ) );
+    }
+
+    @Test
+    public void testResponsesWithoutHuffman()
+        throws IOException
+    {
+        // C.5, the dynamic table is limited to 256 bytes and entries get evicted
+        Hpack.Decoder decoder = new Hpack.Decoder( 256, 4096 );
+        assertEquals( RESPONSE1,
+                      decode( decoder, "4803 3330 3258 0770 7269 7661 7465 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 "
+                          + "3133 2032 303a 3133 3a32 3120 474d 546e 1768 7474 7073 3a2f 2f77 7777 2e65 7861 6d70 "
+                          + "6c65 2e63 6f6d" ) );
+        assertEquals( RESPONSE2, decode( decoder, "4803 3330 37c1 c0bf" ) );
+        assertEquals( RESPONSE3,
+                      decode( decoder, "88c1 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 3a32 3220 "
+                          + "474d 54c0 5a04 677a 6970 7738 666f 6f3d 4153 444a 4b48 514b 425a 584f 5157 454f 5049 "
+                          + "5541 5851 5745 4f49 553b 206d 6178 2d61 6765 3d33 3630 303b 2076 6572 7369 6f6e 3d31" ) );
+        assertDynamicTable( decoder );
+    }
+
+    @Test
+    public void testResponsesWithHuffman()
+        throws IOException
+    {
+        // C.6
+        Hpack.Decoder decoder = new Hpack.Decoder( 256, 4096 );
+        assertEquals( RESPONSE1,
+                      decode( decoder, "4882 6402 5885 aec3 771a 4b61 96d0 7abe 9410 54d4 44a8 2005 9504 0b81 66e0 "
+                          + "82a6 2d1b ff6e 919d 29ad 1718 63c7 8f0b 97c8 e9ae 82ae 43d3" ) );
+        assertEquals( RESPONSE2, decode( decoder, "4883 640e ffc1 c0bf" ) );
+        assertEquals( RESPONSE3,
+                      decode( decoder, "88c1 6196 d07a be94 1054 d444 a820 0595 040b 8166 e084 a62d 1bff c05a 839b "
+                          + "d9ab 77ad 94e7 821d d7f2 e6c7 b335 dfdf cd5b 3960 d5af 2708 7f36 72c1 ab27 0fb5 291f "
+                          + "9587 3160 65c0 03ed 4ee5 b106 3d50 07" ) );
+        assertDynamicTable( decoder );
+    }
+
+    private static void assertDynamicTable( Hpack.Decoder decoder )
+        throws IOException
+    {
+        // C.5.3/C.6.3: only the three most recent entries remain, 215 bytes in total
+        assertEquals( RESPONSE3.subList( 5, 6 ), decode( decoder, "be" ) );
+        assertEquals( RESPONSE3.subList( 4, 5 ), decode( decoder, "bf" ) );
+        assertEquals( RESPONSE3.subList( 2, 3 ), decode( decoder, "c0" ) );
+        assertInvalidIndex( decoder, "c1" );
+    }
+
+    private static void assertInvalidIndex( Hpack.Decoder decoder, String hex )
+    {
+        try
+        {
+            decode( decoder, hex );
+            fail( "Expected error for " + hex );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( "index" ) );
+        }
+    }
+
+    @Test
+    public void testSensitiveHeadersNeverIndexed()
+        throws IOException
+    {
+        Hpack.Encoder encoder = new Hpack.Encoder( false );
+        List<Hpack.Header> request = headers( "authorization", "secret" );
+        byte[] block = encoder.encode( request );
+        assertEquals( 0x1F, block[0] & 0xFF );
+        assertArrayEquals( block, encoder.encode( request ) );
+        Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 );
+        assertEquals( request, decoder.decode( block, 0, block.length ) );
+    }
+
+    @Test
+    public void testTableSizeUpdate()
+        throws IOException
+    {
+        Hpack.Encoder encoder = new Hpack.Encoder( false );
+        Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 );
+        byte[] block = encoder.encode( REQUEST1 );
+        decoder.decode( block, 0, block.length );
+        encoder.setMaxTableSize( 0 );
+        block = encoder.encode( REQUEST1 );
+        assertEquals( 0x20, block[0] & 0xFF );
+        assertEquals( REQUEST1, decoder.decode( block, 0, block.length ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void testInvalidIndex()
+        throws IOException
+    {
+        new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 4096 ).decode( hex( "be" ), 0, 1 );
+    }
+
+    @Test( expected = IOException.class )
+    public void testHeaderListTooLarge()
+        throws IOException
+    {
+        byte[] block = new Hpack.Encoder( false ).encode( REQUEST3 );
+        new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 100 ).decode( block, 0, block.length );
+    }
+
+    @Test
+    public void testHuffmanRoundTrip()
+        throws IOException
+    {
+        byte[] data = new byte[256];
+        for ( int i = 0; i < data.length; i++ )
+        {
+            data[i] = (byte) i;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Huffman.encode( data, out );
+        assertEquals( Huffman.getEncodedLength( data ), out.size() );
+        byte[] encoded = out.toByteArray();
+        assertArrayEquals( data, Huffman.decode( encoded, 0, encoded.length ) );
+
+        byte[] text = "custom-value".getBytes( StandardCharsets.ISO_8859_1 );
+        out.reset();
+        Huffman.encode( text, out );
+        assertArrayEquals( hex( "25a8 49e9 5bb8 e8b4 bf" ), out.toByteArray() );
+    }
+
+    @Test( expected = IOException.class )
+    public void testHuffmanInvalidPadding()
+        throws IOException
+    {
+        // "0" padded with zeros instead of ones
+        Huffman.decode( hex( "00" ), 0, 1 );
+    }
+
+    @Test( expected = IOException.class )
+    public void testHuffmanPaddingTooLong()
+        throws IOException
+    {
+        Huffman.decode( hex( "ffff" ), 0, 2 );
+    }
+
+}
@@ -0,0 +1,605 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.jetty.util.B64Code;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A minimal HTTP/2 server over cleartext TCP (h2c with prior knowledge) serving the files of a directory below the
+ * path {@code /repo/}. Each stream is served by its own thread, honoring the flow-control windows of the client.
+ */
+public class Http2Server
+{
+
+    public static class LogEntry
+    {
+
+        public final int connection;
+
+        public final int stream;
+
+        public final String method;
+
+        public final String path;
+
+        public final Map<String, String> headers;
+
+        public LogEntry( int connection, int stream, String method, String path, Map<String, String> headers )
+        {
+            this.connection = connection;
+            this.stream = stream;
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+        }
+
+        @Override
+        public String toString()
+        {
+            return method + " " + path + " (" + connection + "#" + stream + ")";
+        }
+
+    }
+
+    private static final Logger log = LoggerFactory.getLogger( Http2Server.class );
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile( "bytes=([0-9]+)-([0-9]*)" );
+
+    private File repoDir;
+
+    private String username;
+
+    private String password;
+
+    private int maxConcurrentStreams = 100;
+
+    private long responseDelay;
+
+    private final Map<String, String> responseHeaders = new ConcurrentHashMap<String, String>();
+
+    private final AtomicInteger refusedStreams = new AtomicInteger();
+
+    private ServerSocket serverSocket;
+
+    private final List<Socket> sockets = Collections.synchronizedList( new ArrayList<Socket>() );
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    private final AtomicInteger maxActiveStreams = new AtomicInteger();
+
+    private final List<LogEntry> logEntries = Collections.synchronizedList( new ArrayList<LogEntry>() );
+
+    public String getHost()
+    {
+        return "localhost";
+    }
+
+    public int getPort()
+    {
+        return ( serverSocket != null ) ? serverSocket.getLocalPort() : -1;
+    }
+
+    public String getHttpUrl()
+    {
+        return "http://" + getHost() + ":" + getPort();
+    }
+
+    public List<LogEntry> getLogEntries()
+    {
+        return logEntries;
+    }
+
+    public int getConnectionCount()
+    {
+        return connections.get();
+    }
+
+    /**
+     * Gets the maximum number of streams that were in progress at the same time.
+     */
+    public int getMaxActiveStreams()
+    {
+        return maxActiveStreams.get();
+    }
+
+    public Http2Server setRepoDir( File repoDir )
+    {
+        this.repoDir = repoDir;
+        return this;
+    }
+
+    public Http2Server setAuthentication( String username, String password )
+    {
+        this.username = username;
+        this.password = password;
+        return this;
+    }
+
+    public Http2Server setMaxConcurrentStreams( int maxConcurrentStreams )
+    {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * Adds a header to all successful responses.
+     */
+    public Http2Server addResponseHeader( String name, String value )
+    {
+        responseHeaders.put( name.toLowerCase( Locale.ENGLISH ), value );
+        return this;
+    }
+
+    public Http2Server setResponseDelay( long responseDelay )
+    {
+        this.responseDelay = responseDelay;
+        return this;
+    }
+
+    public Http2Server setRefusedStreams( int refusedStreams )
+    {
+        this.refusedStreams.set( refusedStreams );
+        return this;
+    }
+
+    public Http2Server start()
+        throws IOException
+    {
+        if ( serverSocket != null )
+        {
+            return this;
+        }
+        serverSocket = new ServerSocket( 0, 50, InetAddress.getByName( getHost() ) );
+        Thread acceptor = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    while ( true )
+                    {
+                        Socket socket = serverSocket.accept();
+                        sockets.add( socket );
+                        Thread thread = new Thread( new Connection( connections.incrementAndGet(), socket ) );
+                        thread.setDaemon( true );
+                        thread.start();
+                    }
+                }
+                catch ( IOException e )
+                {
+                    // server stopped
+                }
+            }
+        }, "http2-server-" + getPort() );
+        acceptor.setDaemon( true );
+        acceptor.start();
+        return this;
+    }
+
+    public void stop()
+        throws IOException
+    {
+        if ( serverSocket != null )
+        {
+            serverSocket.close();
+            serverSocket = null;
+        }
+        synchronized ( sockets )
+        {
+            for ( Socket socket : sockets )
+            {
+                socket.close();
+            }
+            sockets.clear();
+        }
+    }
+
+    private static DateFormat newDateFormat()
+    {
+        DateFormat format = new SimpleDateFormat( "EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US );
+        format.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+        return format;
+    }
+
+    private class Connection
+        implements Runnable
+    {
+
+        private final int id;
+
+        private final Socket socket;
+
+        private final InputStream in;
+
+        private final OutputStream out;
+
+        private final Hpack.Encoder encoder = new Hpack.Encoder( true );
+
+        private final Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, 1024 * 1024 );
+
+        private final Map<Integer, Integer> windows = new HashMap<Integer, Integer>();
+
+        private int connectionWindow = Http2Frame.DEFAULT_WINDOW_SIZE;
+
+        private int initialWindow = Http2Frame.DEFAULT_WINDOW_SIZE;
+
+        private boolean closed;
+
+        Connection( int id, Socket socket )
+            throws IOException
+        {
+            this.id = id;
+            this.socket = socket;
+            this.in = new BufferedInputStream( socket.getInputStream() );
+            this.out = new BufferedOutputStream( socket.getOutputStream() );
+        }
+
+        public void run()
+        {
+            try
+            {
+                byte[] preface = new byte[Http2Frame.PREFACE.length];
+                for ( int off = 0; off < preface.length; )
+                {
+                    int read = in.read( preface, off, preface.length - off );
+                    if ( read < 0 )
+                    {
+                        return;
+                    }
+                    off += read;
+                }
+                if ( !Arrays.equals( preface, Http2Frame.PREFACE ) )
+                {
+                    log.info( "Connection {} did not send the HTTP/2 preface", id );
+                    return;
+                }
+                synchronized ( out )
+                {
+                    Http2Frame.writeSettings( out, Http2Frame.SETTINGS_MAX_CONCURRENT_STREAMS, maxConcurrentStreams );
+                    out.flush();
+                }
+
+                ByteArrayOutputStream headerBlock = null;
+                int headerStreamId = 0;
+                for ( Http2Frame frame = Http2Frame.read( in, Http2Frame.DEFAULT_MAX_FRAME_SIZE ); frame != null; frame =
+                    Http2Frame.read( in, Http2Frame.DEFAULT_MAX_FRAME_SIZE ) )
+                {
+                    if ( frame.type == Http2Frame.HEADERS )
+                    {
+                        int[] data = frame.getData();
+                        headerBlock = new ByteArrayOutputStream();
+                        headerStreamId = frame.streamId;
+                        headerBlock.write( frame.payload, data[0], data[1] );
+                    }
+                    else if ( frame.type == Http2Frame.CONTINUATION )
+                    {
+                        headerBlock.write( frame.payload, 0, frame.payload.length );
+                    }
+                    else if ( frame.type == Http2Frame.SETTINGS && !frame.hasFlag( Http2Frame.FLAG_ACK ) )
+                    {
+                        onSettings( frame );
+                    }
+                    else if ( frame.type == Http2Frame.WINDOW_UPDATE )
+                    {
+                        onWindowUpdate( frame );
+                    }
+                    else if ( frame.type == Http2Frame.RST_STREAM )
+                    {
+                        synchronized ( this )
+                        {
+                            windows.remove( frame.streamId );
+                            notifyAll();
+                        }
+                    }
+                    else if ( frame.type == Http2Frame.GOAWAY )
+                    {
+                        break;
+                    }
+                    if ( headerBlock != null && frame.hasFlag( Http2Frame.FLAG_END_HEADERS ) )
+                    {
+                        byte[] block = headerBlock.toByteArray();
+                        List<Hpack.Header> headers = decoder.decode( block, 0, block.length );
+                        startStream( headerStreamId, headers );
+                        headerBlock = null;
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                log.debug( "Connection {} failed: {}", id, e.toString() );
+            }
+            finally
+            {
+                synchronized ( this )
+                {
+                    closed = true;
+                    notifyAll();
+                }
+                try
+                {
+                    socket.close();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant
+                }
+            }
+        }
+
+        private void onSettings( Http2Frame frame )
+            throws IOException
+        {
+            for ( int i = 0; i < frame.payload.length; i += 6 )
+            {
+                int id = ( frame.payload[i] & 0xFF ) << 8 | ( frame.payload[i + 1] & 0xFF );
+                if ( id == Http2Frame.SETTINGS_INITIAL_WINDOW_SIZE )
+                {
+                    synchronized ( this )
+                    {
+                        int delta = frame.getInt( i + 2 ) - initialWindow;
+                        initialWindow += delta;
+                        for ( Map.Entry<Integer, Integer> entry : windows.entrySet() )
+                        {
+                            entry.setValue( entry.getValue() + delta );
+                        }
+                        notifyAll();
+                    }
+                }
+            }
+            synchronized ( out )
+            {
+                Http2Frame.write( out, Http2Frame.SETTINGS, Http2Frame.FLAG_ACK, 0, new byte[0], 0, 0 );
+                out.flush();
+            }
+        }
+
+        private synchronized void onWindowUpdate( Http2Frame frame )
+        {
+            int increment = frame.getInt( 0 ) & 0x7FFFFFFF;
+            if ( frame.streamId == 0 )
+            {
+                connectionWindow += increment;
+            }
+            else if ( windows.containsKey( frame.streamId ) )
+            {
+                windows.put( frame.streamId, windows.get( frame.streamId ) + increment );
+            }
+            notifyAll();
+        }
+
+        private void startStream( final int streamId, List<Hpack.Header> headers )
+        {
+            final Map<String, String> map = new HashMap<String, String>();
+            for ( Hpack.Header header : headers )
+            {
+                map.put( header.name, header.value );
+            }
+            synchronized ( this )
+            {
+                windows.put( streamId, initialWindow );
+            }
+            Thread thread = new Thread( new Runnable()
+            {
+                public void run()
+                {
+                    int active = activeStreams.incrementAndGet();
+                    try
+                    {
+                        for ( int max = maxActiveStreams.get(); active > max; max = maxActiveStreams.get() )
+                        {
+                            if ( maxActiveStreams.compareAndSet( max, active ) )
+                            {
+                                break;
+                            }
+                        }
+                        handle( streamId, map );
+                    }
+                    catch ( Exception e )
+                    {
+                        log.debug( "Stream {}#{} failed: {}", id, streamId, e.toString() );
+                    }
+                    finally
+                    {
+                        activeStreams.decrementAndGet();
+                        synchronized ( Connection.this )
+                        {
+                            windows.remove( streamId );
+                        }
+                    }
+                }
+            } );
+            thread.setDaemon( true );
+            thread.start();
+        }
+
+        private void handle( int streamId, Map<String, String> headers )
+            throws Exception
+        {
+            String method = headers.get( ":method" );
+            String path = headers.get( ":path" );
+            log.info( "{}#{}: {} {}", id, streamId, method, path );
+            logEntries.add( new LogEntry( id, streamId, method, path, headers ) );
+
+            if ( refusedStreams.getAndDecrement() > 0 )
+            {
+                synchronized ( out )
+                {
+                    Http2Frame.writeInt( out, Http2Frame.RST_STREAM, streamId, Http2Frame.REFUSED_STREAM );
+                    out.flush();
+                }
+                return;
+            }
+            if ( responseDelay > 0L )
+            {
+                Thread.sleep( responseDelay );
+            }
+
+            Map<String, String> response = new HashMap<String, String>();
+            if ( username != null )
+            {
+                String credentials = username + ':' + password;
+                String expected = "Basic " + B64Code.encode( credentials, StandardCharsets.ISO_8859_1.name() );
+                if ( !expected.equals( headers.get( "authorization" ) ) )
+                {
+                    response.put( "www-authenticate", "Basic realm=\"Test-Realm\"" );
+                    respond( streamId, 401, response, null, 0, 0 );
+                    return;
+                }
+            }
+
+            File file = null;
+            if ( path.startsWith( "/repo/" ) && repoDir != null )
+            {
+                file = new File( repoDir, URLDecoder.decode( path.substring( 6 ), "UTF-8" ) );
+            }
+            if ( file == null || !file.isFile() )
+            {
+                respond( streamId, 404, response, null, 0, 0 );
+                return;
+            }
+
+            DateFormat format = newDateFormat();
+            String etag = "\"" + Long.toHexString( file.lastModified() ) + "-" + file.length() + "\"";
+            response.put( "etag", etag );
+            response.put( "last-modified", format.format( new Date( file.lastModified() ) ) );
+            if ( etag.equals( headers.get( "if-none-match" ) ) )
+            {
+                respond( streamId, 304, response, null, 0, 0 );
+                return;
+            }
+            String ius = headers.get( "if-unmodified-since" );
+            try
+            {
+                if ( ius != null && file.lastModified() / 1000L > format.parse( ius ).getTime() / 1000L )
+                {
+                    respond( streamId, 412, response, null, 0, 0 );
+                    return;
+                }
+            }
+            catch ( ParseException e )
+            {
+                // ignore header
+            }
+
+            byte[] data = "HEAD".equals( method ) ? null : TestFileUtils.readBytes( file );
+            int status = 200;
+            int offset = 0;
+            int length = (int) file.length();
+            String range = headers.get( "range" );
+            if ( range != null )
+            {
+                Matcher m = RANGE_PATTERN.matcher( range );
+                if ( m.matches() )
+                {
+                    offset = Integer.parseInt( m.group( 1 ) );
+                    int end = ( m.group( 2 ).length() > 0 ) ? Integer.parseInt( m.group( 2 ) ) + 1 : length;
+                    response.put( "content-range", "bytes " + offset + "-" + ( end - 1 ) + "/" + length );
+                    length = end - offset;
+                    status = 206;
+                }
+            }
+            response.put( "content-length", String.valueOf( length ) );
+            response.putAll( responseHeaders );
+            respond( streamId, status, response, data, offset, length );
+        }
+
+        private void respond( int streamId, int status, Map<String, String> headers, byte[] data, int offset,
+                              int length )
+            throws IOException, InterruptedException
+        {
+            List<Hpack.Header> response = new ArrayList<Hpack.Header>();
+            response.add( new Hpack.Header( ":status", String.valueOf( status ) ) );
+            for ( Map.Entry<String, String> entry : headers.entrySet() )
+            {
+                response.add( new Hpack.Header( entry.getKey(), entry.getValue() ) );
+            }
+            boolean body = data != null && length > 0;
+            synchronized ( out )
+            {
+                Http2Frame.writeHeaders( out, streamId, encoder.encode( response ), !body,
+                                         Http2Frame.DEFAULT_MAX_FRAME_SIZE );
+                out.flush();
+            }
+            for ( int end = offset + length; offset < end; )
+            {
+                int n;
+                synchronized ( this )
+                {
+                    while ( !closed && windows.containsKey( streamId )
+                        && ( connectionWindow <= 0 || windows.get( streamId ) <= 0 ) )
+                    {
+                        wait();
+                    }
+                    if ( closed || !windows.containsKey( streamId ) )
+                    {
+                        return;
+                    }
+                    n = Math.min( Http2Frame.DEFAULT_MAX_FRAME_SIZE, end - offset );
+                    n = Math.min( n, Math.min( connectionWindow, windows.get( streamId ) ) );
+                    connectionWindow -= n;
+                    windows.put( streamId, windows.get( streamId ) - n );
+                }
+                synchronized ( out )
+                {
+                    Http2Frame.write( out, Http2Frame.DATA, ( offset + n >= end ) ? Http2Frame.FLAG_END_STREAM : 0,
+                                      streamId, data, offset, n );
+                    out.flush();
+                }
+                offset += n;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,688 @@
+package org.eclipse.aether.transport.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestLoggerFactory;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.Authentication;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transport.http.ChecksumExtractor;
+import org.eclipse.aether.transport.http.HttpServer;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+/**
+ */
+public class Http2TransporterTest
+{
+
+    private static final String REPO_ID = "test";
+
+    @Rule
+    public TestName testName = new TestName();
+
+    private DefaultRepositorySystemSession session;
+
+    private TransporterFactory factory;
+
+    private Transporter transporter;
+
+    private File repoDir;
+
+    private Http2Server http2Server;
+
+    private HttpServer httpServer;
+
+    private Authentication auth;
+
+    private Proxy proxy;
+
+    private RemoteRepository newRepo( String url )
+    {
+        return new RemoteRepository.Builder( REPO_ID, "default", url ).setAuthentication( auth ).setProxy( proxy ).build();
+    }
+
+    private void newTransporter( String url )
+        throws Exception
+    {
+        if ( transporter != null )
+        {
+            transporter.close();
+            transporter = null;
+        }
+        transporter = factory.newInstance( session, newRepo( url ) );
+    }
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        System.out.println( "=== " + testName.getMethodName() + " ===" );
+        session = TestUtils.newSession();
+        session.setConfigProperty( Http2Transporter.CONFIG_PROP_CLEARTEXT, true );
+        factory = new Http2TransporterFactory( new TestLoggerFactory() );
+        repoDir = TestFileUtils.createTempDir();
+        TestFileUtils.writeString( new File( repoDir, "file.txt" ), "test" );
+        TestFileUtils.writeString( new File( repoDir, "dir/file.txt" ), "test" );
+        TestFileUtils.writeString( new File( repoDir, "empty.txt" ), "" );
+        TestFileUtils.writeString( new File( repoDir, "some space.txt" ), "space" );
+        File resumable = new File( repoDir, "resume.txt" );
+        TestFileUtils.writeString( resumable, "resumable" );
+        resumable.setLastModified( System.currentTimeMillis() - 90 * 1000 );
+        http2Server = new Http2Server().setRepoDir( repoDir ).start();
+        newTransporter( http2Server.getHttpUrl() );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        if ( transporter != null )
+        {
+            transporter.close();
+            transporter = null;
+        }
+        if ( http2Server != null )
+        {
+            http2Server.stop();
+            http2Server = null;
+        }
+        if ( httpServer != null )
+        {
+            httpServer.stop();
+            httpServer = null;
+        }
+        factory = null;
+        session = null;
+    }
+
+    private HttpServer newHttpServer()
+        throws Exception
+    {
+        httpServer = new HttpServer().setRepoDir( repoDir ).start();
+        return httpServer;
+    }
+
+    private static int countPrefaces( HttpServer server )
+    {
+        int count = 0;
+        for ( HttpServer.LogEntry entry : server.getLogEntries() )
+        {
+            if ( "PRI".equals( entry.method ) )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testClassify()
+    {
+        assertEquals( Transporter.ERROR_OTHER, transporter.classify( new FileNotFoundException() ) );
+        assertEquals( Transporter.ERROR_OTHER, transporter.classify( new HttpResponseException( 403, "Forbidden" ) ) );
+        assertEquals( Transporter.ERROR_NOT_FOUND, transporter.classify( new HttpResponseException( 404, "Not Found" ) ) );
+    }
+
+    @Test
+    public void testPeek()
+        throws Exception
+    {
+        transporter.peek( new PeekTask( URI.create( "repo/file.txt" ) ) );
+        assertEquals( 1, http2Server.getLogEntries().size() );
+        assertEquals( "HEAD", http2Server.getLogEntries().get( 0 ).method );
+        assertEquals( "/repo/file.txt", http2Server.getLogEntries().get( 0 ).path );
+    }
+
+    @Test
+    public void testPeek_NotFound()
+        throws Exception
+    {
+        try
+        {
+            transporter.peek( new PeekTask( URI.create( "repo/missing.txt" ) ) );
+            fail( "Expected error" );
+        }
+        catch ( HttpResponseException e )
+        {
+            assertEquals( 404, e.getStatusCode() );
+            assertEquals( Transporter.ERROR_NOT_FOUND, transporter.classify( e ) );
+        }
+    }
+
+    @Test
+    public void testPeek_Closed()
+        throws Exception
+    {
+        transporter.close();
+        try
+        {
+            transporter.peek( new PeekTask( URI.create( "repo/missing.txt" ) ) );
+            fail( "Expected error" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( Transporter.ERROR_OTHER, transporter.classify( e ) );
+        }
+    }
+
+    @Test
+    public void testGet_ToMemory()
+        throws Exception
+    {
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 4L, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertTrue( "Count: " + listener.progressedCount, listener.progressedCount > 0 );
+        assertEquals( task.getDataString(), new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
+        assertEquals( 1, http2Server.getConnectionCount() );
+    }
+
+    @Test
+    public void testGet_ToFile()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "test", TestFileUtils.readString( file ) );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 4L, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertTrue( "Count: " + listener.progressedCount, listener.progressedCount > 0 );
+        assertEquals( "test", new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    public void testGet_EmptyResource()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/empty.txt" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "", TestFileUtils.readString( file ) );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 0L, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertEquals( 0, listener.progressedCount );
+    }
+
+    @Test
+    public void testGet_EncodedResourcePath()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/some%20space.txt" ) );
+        transporter.get( task );
+        assertEquals( "space", task.getDataString() );
+    }
+
+    @Test
+    public void testGet_LargeFile_FlowControl()
+        throws Exception
+    {
+        File src = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( src, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, 400 * 1024 );
+        assertTrue( src.length() > Http2Connection.STREAM_WINDOW_SIZE * 2 );
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/large.bin" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( src ), TestFileUtils.readBytes( file ) );
+        assertEquals( src.length(), listener.dataLength );
+        assertEquals( src.length(), listener.baos.size() );
+        assertTrue( "Count: " + listener.progressedCount, listener.progressedCount > 1 );
+    }
+
+    @Test
+    public void testGet_Authenticated_Preemptive()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.preemptiveAuth", true );
+        http2Server.setAuthentication( "testuser", "testpass" );
+        auth = new AuthenticationBuilder().addUsername( "testuser" ).addPassword( "testpass" ).build();
+        newTransporter( http2Server.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 1, http2Server.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_Authenticated_NotPreemptive()
+        throws Exception
+    {
+        http2Server.setAuthentication( "testuser", "testpass" );
+        auth = new AuthenticationBuilder().addUsername( "testuser" ).addPassword( "testpass" ).build();
+        newTransporter( http2Server.getHttpUrl() );
+        try
+        {
+            // the challenge is delegated to the HTTP/1.1 transporter which can't talk to this server
+            transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+            fail( "Expected error" );
+        }
+        catch ( Exception e )
+        {
+            assertEquals( 1, http2Server.getLogEntries().size() );
+            assertNull( http2Server.getLogEntries().get( 0 ).headers.get( "authorization" ) );
+        }
+    }
+
+    @Test
+    public void testGet_BearerToken()
+        throws Exception
+    {
+        auth = new AuthenticationBuilder().addBearerToken( "t0ken" ).build();
+        newTransporter( http2Server.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "Bearer t0ken", http2Server.getLogEntries().get( 0 ).headers.get( "authorization" ) );
+    }
+
+    @Test
+    public void testGet_Checksums()
+        throws Exception
+    {
+        http2Server.addResponseHeader( "X-Checksum-Sha1", "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3" );
+        http2Server.addResponseHeader( "X-Checksum-Md5", "<not hex>" );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", task.getChecksums().get( "SHA-1" ) );
+        assertNull( task.getChecksums().get( "MD5" ) );
+    }
+
+    @Test
+    public void testGet_Checksums_CustomExtractor()
+        throws Exception
+    {
+        ChecksumExtractor extractor = new ChecksumExtractor()
+        {
+            @Override
+            public Map<String, String> extractChecksums( HttpResponse response )
+            {
+                Header header = response.getFirstHeader( "X-Custom-Sha1" );
+                return ( header != null ) ? Collections.singletonMap( "SHA-1", header.getValue() ) : null;
+            }
+        };
+        ( (Http2TransporterFactory) factory ).setChecksumExtractors( Collections.singleton( extractor ) );
+        http2Server.addResponseHeader( "X-Custom-Sha1", "abcd" );
+        http2Server.addResponseHeader( "X-Checksum-Sha1", "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3" );
+        newTransporter( http2Server.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "abcd", task.getChecksums().get( "SHA-1" ) );
+    }
+
+    @Test
+    public void testGet_Resume()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "re" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file, true ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "resumable", TestFileUtils.readString( file ) );
+        assertEquals( 1L, listener.startedCount );
+        assertEquals( 2L, listener.dataOffset );
+        assertEquals( 9, listener.dataLength );
+        assertEquals( "sumable", new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    public void testGet_ResumeLocalContentsOutdated()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "re" );
+        file.setLastModified( System.currentTimeMillis() - 5 * 60 * 1000 );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file, true ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "resumable", TestFileUtils.readString( file ) );
+        assertEquals( 1L, listener.startedCount );
+        assertEquals( 0L, listener.dataOffset );
+        assertEquals( 9, listener.dataLength );
+        assertEquals( 2, http2Server.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_Range()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( "xxxxxxxxx" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task =
+            new GetTask( URI.create( "repo/resume.txt" ) ).setDataFile( file ).setDataRange( 3L, 4L ).setListener( listener );
+        transporter.get( task );
+        assertEquals( "xxxumabxx", TestFileUtils.readString( file ) );
+        assertEquals( 3L, listener.dataOffset );
+        assertEquals( 9, listener.dataLength );
+        assertEquals( "umab", new String( listener.baos.toByteArray(), StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    public void testGet_Conditional_NotModified()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertFalse( task.isNotModified() );
+        assertNotNull( task.getValidators().get( "ETag" ) );
+        assertNotNull( task.getValidators().get( "Last-Modified" ) );
+
+        File file = TestFileUtils.createTempFile( "cached" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask conditional =
+            new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ).setListener( listener ).setCachedValidators(
+                task.getValidators() );
+        transporter.get( conditional );
+        assertTrue( conditional.isNotModified() );
+        assertEquals( "cached", TestFileUtils.readString( file ) );
+        assertEquals( 0, listener.startedCount );
+    }
+
+    @Test
+    public void testGet_Conditional_Modified()
+        throws Exception
+    {
+        Map<String, String> validators = new HashMap<String, String>();
+        validators.put( "ETag", "\"outdated\"" );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) ).setCachedValidators( validators );
+        transporter.get( task );
+        assertFalse( task.isNotModified() );
+        assertEquals( "test", task.getDataString() );
+    }
+
+    @Test
+    public void testGet_NotFound()
+        throws Exception
+    {
+        try
+        {
+            transporter.get( new GetTask( URI.create( "repo/missing.txt" ) ) );
+            fail( "Expected error" );
+        }
+        catch ( HttpResponseException e )
+        {
+            assertEquals( 404, e.getStatusCode() );
+            assertEquals( Transporter.ERROR_NOT_FOUND, transporter.classify( e ) );
+        }
+    }
+
+    @Test
+    public void testGet_Cancelled()
+        throws Exception
+    {
+        File src = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( src, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, 400 * 1024 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            RecordingTransportListener listener = new RecordingTransportListener();
+            listener.cancelProgress = true;
+            GetTask task = new GetTask( URI.create( "repo/large.bin" ) ).setListener( listener );
+            try
+            {
+                transporter.get( task );
+                fail( "Expected error" );
+            }
+            catch ( TransferCancelledException e )
+            {
+                assertEquals( Transporter.ERROR_OTHER, transporter.classify( e ) );
+            }
+        }
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 1, http2Server.getConnectionCount() );
+    }
+
+    @Test
+    public void testGet_Multiplexed()
+        throws Exception
+    {
+        http2Server.setResponseDelay( 200 );
+        final List<GetTask> tasks = new ArrayList<GetTask>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            tasks.add( new GetTask( URI.create( ( i % 2 == 0 ) ? "repo/file.txt" : "repo/dir/file.txt" ) ) );
+        }
+        runConcurrently( tasks );
+        for ( GetTask task : tasks )
+        {
+            assertEquals( "test", task.getDataString() );
+        }
+        assertEquals( 1, http2Server.getConnectionCount() );
+        assertTrue( "Max streams: " + http2Server.getMaxActiveStreams(), http2Server.getMaxActiveStreams() > 1 );
+    }
+
+    @Test
+    public void testGet_MaxConcurrentStreamsReached()
+        throws Exception
+    {
+        http2Server.setResponseDelay( 300 ).setMaxConcurrentStreams( 1 );
+        session.setConfigProperty( Http2Client.CONFIG_PROP_MAX_CONNECTIONS_PER_HOST, 2 );
+        newTransporter( http2Server.getHttpUrl() );
+        final List<GetTask> tasks = new ArrayList<GetTask>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            tasks.add( new GetTask( URI.create( "repo/file.txt" ) ) );
+        }
+        runConcurrently( tasks );
+        for ( GetTask task : tasks )
+        {
+            assertEquals( "test", task.getDataString() );
+        }
+        assertEquals( 2, http2Server.getConnectionCount() );
+        assertEquals( 2, http2Server.getMaxActiveStreams() );
+    }
+
+    private void runConcurrently( List<GetTask> tasks )
+        throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch( tasks.size() );
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        for ( final GetTask task : tasks )
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        transporter.get( task );
+                    }
+                    catch ( Throwable t )
+                    {
+                        error.compareAndSet( null, t );
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            };
+            thread.start();
+        }
+        latch.await();
+        if ( error.get() != null )
+        {
+            throw new AssertionError( error.get() );
+        }
+    }
+
+    @Test
+    public void testGet_RefusedStreamRetried()
+        throws Exception
+    {
+        http2Server.setRefusedStreams( 1 );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 2, http2Server.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_ConnectionSharedAcrossTransporters()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        newTransporter( http2Server.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+        newTransporter( http2Server.getHttpUrl() );
+        transporter.get( new GetTask( URI.create( "repo/dir/file.txt" ) ) );
+        assertEquals( 1, http2Server.getConnectionCount() );
+        assertEquals( 2, http2Server.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_ConnectionRefused()
+        throws Exception
+    {
+        ServerSocket socket = new ServerSocket( 0 );
+        int port = socket.getLocalPort();
+        socket.close();
+        newTransporter( "http://localhost:" + port );
+        try
+        {
+            transporter.get( new GetTask( URI.create( "repo/file.txt" ) ) );
+            fail( "Expected error" );
+        }
+        catch ( ConnectException e )
+        {
+            assertEquals( Transporter.ERROR_OTHER, transporter.classify( e ) );
+        }
+    }
+
+    @Test
+    public void testFallback_Http11Server()
+        throws Exception
+    {
+        newHttpServer();
+        newTransporter( httpServer.getHttpUrl() );
+        for ( int i = 0; i < 3; i++ )
+        {
+            GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+            transporter.get( task );
+            assertEquals( "test", task.getDataString() );
+        }
+        transporter.peek( new PeekTask( URI.create( "repo/file.txt" ) ) );
+        assertTrue( countPrefaces( httpServer ) <= 1 );
+    }
+
+    @Test
+    public void testFallback_CleartextDisabled()
+        throws Exception
+    {
+        session.setConfigProperty( Http2Transporter.CONFIG_PROP_CLEARTEXT, false );
+        newHttpServer();
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 0, countPrefaces( httpServer ) );
+        assertEquals( 1, httpServer.getLogEntries().size() );
+    }
+
+    @Test
+    public void testFallback_Put()
+        throws Exception
+    {
+        newHttpServer();
+        newTransporter( httpServer.getHttpUrl() );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        PutTask task =
+            new PutTask( URI.create( "repo/file.txt" ) ).setListener( listener ).setDataString( "upload" );
+        transporter.put( task );
+        assertEquals( "upload", TestFileUtils.readString( new File( repoDir, "file.txt" ) ) );
+        assertEquals( 1, listener.startedCount );
+    }
+
+    @Test
+    public void testFallback_Redirect()
+        throws Exception
+    {
+        newHttpServer();
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "redirect/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+    }
+
+    @Test
+    public void testFallback_Proxy()
+        throws Exception
+    {
+        newHttpServer();
+        proxy = new Proxy( Proxy.TYPE_HTTP, httpServer.getHost(), httpServer.getHttpPort() );
+        newTransporter( "http://bad.localhost:1/" );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( 0, http2Server.getConnectionCount() );
+    }
+
+    @Test( expected = NoTransporterException.class )
+    public void testInit_BadProtocol()
+        throws Exception
+    {
+        newTransporter( "bad:/void" );
+    }
+
+}
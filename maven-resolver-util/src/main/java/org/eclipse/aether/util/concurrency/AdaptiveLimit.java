@@ -0,0 +1,162 @@
+package org.eclipse.aether.util.concurrency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A concurrency limit that adapts itself to the observed behavior of a remote repository. The limit follows an
+ * additive-increase/multiplicative-decrease scheme: every successful transfer raises the limit by roughly one per
+ * round of transfers while every failed transfer halves it. Additionally, the limit is lowered step by step when the
+ * latency of the transfers (e.g. the time to the first byte of a download) rises well above the lowest latency seen
+ * so far, which indicates that the additional transfers only queue up on the server or in the network. To avoid
+ * overreacting to a burst of failures, the limit is decreased at most once for all transfers that started before the
+ * previous decrease.
+ * <p>
+ * The current {@link #getLevel() level} can be polled as a metric of the concurrency the repository sustains.
+ * 
+ * @see TransferScheduler#getAdaptiveLimit(org.eclipse.aether.repository.RemoteRepository)
+ */
+public final class AdaptiveLimit
+{
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private static final long LATENCY_SLACK = 10L * 1000L * 1000L;
+
+    private final int minimum;
+
+    private final int maximum;
+
+    private double level;
+
+    private long epoch;
+
+    private double minLatency = -1.0;
+
+    private double avgLatency = -1.0;
+
+    /**
+     * Creates a new limit that starts halfway between the specified bounds.
+     * 
+     * @param minimum The lower bound for the limit, a value less than one being treated like one.
+     * @param maximum The upper bound for the limit, a value less than the lower bound being treated like the lower
+     *            bound.
+     */
+    public AdaptiveLimit( int minimum, int maximum )
+    {
+        this.minimum = Math.max( 1, minimum );
+        this.maximum = Math.max( this.minimum, maximum );
+        level = ( this.minimum + this.maximum + 1 ) / 2;
+    }
+
+    /**
+     * Gets the lower bound of the limit.
+     * 
+     * @return The lower bound of the limit.
+     */
+    public int getMinimum()
+    {
+        return minimum;
+    }
+
+    /**
+     * Gets the upper bound of the limit.
+     * 
+     * @return The upper bound of the limit.
+     */
+    public int getMaximum()
+    {
+        return maximum;
+    }
+
+    /**
+     * Gets the current number of transfers that may run concurrently.
+     * 
+     * @return The current limit, between the lower and upper bound.
+     */
+    public synchronized int getLevel()
+    {
+        return (int) level;
+    }
+
+    /**
+     * Signals the start of a transfer.
+     * 
+     * @return The token to report the outcome of the transfer with.
+     */
+    public synchronized long started()
+    {
+        return epoch;
+    }
+
+    /**
+     * Signals the successful completion of a transfer.
+     * 
+     * @param token The token returned when the transfer started.
+     * @param latency The latency of the transfer in nanoseconds, may be non-positive if unknown.
+     */
+    public synchronized void succeeded( long token, long latency )
+    {
+        if ( latency > 0L )
+        {
+            if ( minLatency < 0.0 || latency < minLatency )
+            {
+                minLatency = latency;
+            }
+            else
+            {
+                // let the base latency slowly follow lasting changes of the network conditions
+                minLatency += ( latency - minLatency ) / 100.0;
+            }
+            avgLatency = ( avgLatency < 0.0 ) ? latency : avgLatency + ( latency - avgLatency ) / 5.0;
+            if ( avgLatency > minLatency * LATENCY_TOLERANCE && avgLatency - minLatency > LATENCY_SLACK )
+            {
+                decrease( token, level - 1.0 );
+                return;
+            }
+        }
+        level = Math.min( maximum, level + 1.0 / level );
+    }
+
+    /**
+     * Signals the failure of a transfer due to an error that indicates an overloaded or unavailable server.
+     * 
+     * @param token The token returned when the transfer started.
+     */
+    public synchronized void failed( long token )
+    {
+        decrease( token, level / 2.0 );
+    }
+
+    private void decrease( long token, double level )
+    {
+        if ( token == epoch )
+        {
+            this.level = Math.max( minimum, level );
+            epoch++;
+        }
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return getLevel() + " [" + minimum + ".." + maximum + "]";
+    }
+
+}
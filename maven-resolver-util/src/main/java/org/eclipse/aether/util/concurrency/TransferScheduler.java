@@ -0,0 +1,363 @@
+package org.eclipse.aether.util.concurrency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * A session-wide scheduler for transfers from/to remote repositories. All components of a session that transfer data
+ * share the worker threads of this scheduler, which are kept alive for a while and reused across batches instead of
+ * being created per repository connector. Besides the limit of concurrent transfers imposed by each
+ * {@link #newExecutor(RemoteRepository, int) executor}, the scheduler enforces a global limit as well as limits per
+ * host and per repository that apply to all transfers of the session. Tasks submitted from within a worker thread of
+ * the scheduler never wait in the queue, they are handed to another worker if the limits permit it right away and are
+ * otherwise run directly by the submitting thread to prevent nested tasks from waiting on each other.
+ */
+public final class TransferScheduler
+{
+
+    /**
+     * The maximum number of concurrent transfers of a session, defaults to {@code 16}.
+     */
+    public static final String CONFIG_PROP_THREADS = "aether.transfer.threads";
+
+    /**
+     * The maximum number of concurrent transfers against a single host, defaults to {@code 8}. The limit can be set
+     * for a specific host by appending {@code .<host>} to the property key.
+     */
+    public static final String CONFIG_PROP_HOST_THREADS = "aether.transfer.threads.host";
+
+    /**
+     * The maximum number of concurrent transfers against a single repository, defaults to {@code 0} for no limit other
+     * than the host limit. The limit can be set for a specific repository by appending {@code .<repoId>} to the
+     * property key.
+     */
+    public static final String CONFIG_PROP_REPOSITORY_THREADS = "aether.transfer.threads.repository";
+
+    /**
+     * Whether the number of concurrent transfers against a repository should adapt to the observed latency and errors,
+     * defaults to {@code false}. The adaptive limit ranges from {@link #CONFIG_PROP_ADAPTIVE_MIN} to the repository
+     * limit or, if the repository is not limited, the host limit and supersedes the limits of the individual
+     * executors. The behavior can be set for a specific repository by appending {@code .<repoId>} to the property key.
+     * 
+     * @see AdaptiveLimit
+     */
+    public static final String CONFIG_PROP_ADAPTIVE = "aether.transfer.threads.adaptive";
+
+    /**
+     * The lower bound of an adaptive repository limit, defaults to {@code 1}. The bound can be set for a specific
+     * repository by appending {@code .<repoId>} to the property key.
+     */
+    public static final String CONFIG_PROP_ADAPTIVE_MIN = "aether.transfer.threads.adaptive.min";
+
+    private static final String KEY = TransferScheduler.class.getName();
+
+    private static final ThreadLocal<TransferScheduler> CURRENT = new ThreadLocal<TransferScheduler>();
+
+    private final RepositorySystemSession session;
+
+    private final int maxThreads;
+
+    private final ThreadPoolExecutor workers;
+
+    private final LinkedList<Job> queue = new LinkedList<Job>();
+
+    private final Map<String, Limit> hosts = new HashMap<String, Limit>();
+
+    private final Map<String, Limit> repositories = new HashMap<String, Limit>();
+
+    private int active;
+
+    /**
+     * Gets the transfer scheduler of the specified session, creating it upon first access.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @return The transfer scheduler, never {@code null}.
+     */
+    public static TransferScheduler getInstance( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return new TransferScheduler( session );
+        }
+        Object scheduler = data.get( KEY );
+        while ( !( scheduler instanceof TransferScheduler ) )
+        {
+            Object old = scheduler;
+            scheduler = new TransferScheduler( session );
+            if ( data.set( KEY, old, scheduler ) )
+            {
+                break;
+            }
+            scheduler = data.get( KEY );
+        }
+        return (TransferScheduler) scheduler;
+    }
+
+    private TransferScheduler( RepositorySystemSession session )
+    {
+        this.session = session;
+        maxThreads = Math.max( 1, ConfigUtils.getInteger( session, 16, CONFIG_PROP_THREADS ) );
+        workers =
+            new ThreadPoolExecutor( maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                    new WorkerThreadFactory( getClass().getSimpleName() + '-' ) );
+        workers.allowCoreThreadTimeOut( true );
+    }
+
+    /**
+     * Creates an executor that runs its tasks on the worker threads of this scheduler.
+     * 
+     * @param repository The repository the tasks of the executor transfer data from/to, must not be {@code null}.
+     * @param maxThreads The maximum number of tasks of the executor to run concurrently, a value less than one
+     *            being treated like one.
+     * @return The executor, never {@code null}.
+     */
+    public Executor newExecutor( RemoteRepository repository, int maxThreads )
+    {
+        Limit host = getHostLimit( repository );
+        Limit repo = getRepositoryLimit( repository );
+        return new Lane( host, repo, ( repo.adaptive != null ) ? Integer.MAX_VALUE : Math.max( 1, maxThreads ) );
+    }
+
+    /**
+     * Creates an executor that runs its tasks on the worker threads of this scheduler without attributing them to a
+     * particular repository. Only the global limit and the limit of the executor itself apply, the tasks are expected
+     * to carry out their transfers via executors obtained from {@link #newExecutor(RemoteRepository, int)}.
+     * 
+     * @param maxThreads The maximum number of tasks of the executor to run concurrently, a value less than one being
+     *            treated like one.
+     * @return The executor, never {@code null}.
+     */
+    public Executor newExecutor( int maxThreads )
+    {
+        Limit none = new Limit( Integer.MAX_VALUE, null );
+        return new Lane( none, none, Math.max( 1, maxThreads ) );
+    }
+
+    /**
+     * Gets the adaptive limit for transfers against the specified repository. The components performing the transfers
+     * are supposed to report the outcome of each transfer to this limit.
+     * 
+     * @param repository The repository to get the limit for, must not be {@code null}.
+     * @return The adaptive limit or {@code null} if the concurrency for the repository is not adaptive.
+     * @see #CONFIG_PROP_ADAPTIVE
+     */
+    public AdaptiveLimit getAdaptiveLimit( RemoteRepository repository )
+    {
+        return getRepositoryLimit( repository ).adaptive;
+    }
+
+    private Limit getHostLimit( RemoteRepository repository )
+    {
+        synchronized ( queue )
+        {
+            String key = repository.getHost();
+            Limit limit = hosts.get( key );
+            if ( limit == null )
+            {
+                int max = ConfigUtils.getInteger( session, 8, CONFIG_PROP_HOST_THREADS + '.' + key,
+                                                  CONFIG_PROP_HOST_THREADS );
+                limit = new Limit( ( max > 0 ) ? max : Integer.MAX_VALUE, null );
+                hosts.put( key, limit );
+            }
+            return limit;
+        }
+    }
+
+    private Limit getRepositoryLimit( RemoteRepository repository )
+    {
+        synchronized ( queue )
+        {
+            String key = repository.getId();
+            Limit limit = repositories.get( key );
+            if ( limit == null )
+            {
+                int max = ConfigUtils.getInteger( session, 0, CONFIG_PROP_REPOSITORY_THREADS + '.' + key,
+                                                  CONFIG_PROP_REPOSITORY_THREADS );
+                max = ( max > 0 ) ? max : Integer.MAX_VALUE;
+                AdaptiveLimit adaptive = null;
+                if ( ConfigUtils.getBoolean( session, false, CONFIG_PROP_ADAPTIVE + '.' + key, CONFIG_PROP_ADAPTIVE ) )
+                {
+                    int min = ConfigUtils.getInteger( session, 1, CONFIG_PROP_ADAPTIVE_MIN + '.' + key,
+                                                      CONFIG_PROP_ADAPTIVE_MIN );
+                    adaptive = new AdaptiveLimit( min, Math.min( max, getHostLimit( repository ).max ) );
+                }
+                limit = new Limit( max, adaptive );
+                repositories.put( key, limit );
+            }
+            return limit;
+        }
+    }
+
+    private void dispatch()
+    {
+        for ( Iterator<Job> it = queue.iterator(); it.hasNext() && active < maxThreads; )
+        {
+            Job job = it.next();
+            if ( job.lane.acquire() )
+            {
+                it.remove();
+                active++;
+                workers.execute( job );
+            }
+        }
+    }
+
+    private void finished( Lane lane )
+    {
+        synchronized ( queue )
+        {
+            active--;
+            lane.release();
+            dispatch();
+        }
+    }
+
+    static final class Limit
+    {
+
+        final int max;
+
+        final AdaptiveLimit adaptive;
+
+        int active;
+
+        Limit( int max, AdaptiveLimit adaptive )
+        {
+            this.max = max;
+            this.adaptive = adaptive;
+        }
+
+        boolean isExhausted()
+        {
+            return active >= ( ( adaptive != null ) ? adaptive.getLevel() : max );
+        }
+
+    }
+
+    final class Lane
+        implements Executor
+    {
+
+        private final Limit host;
+
+        private final Limit repository;
+
+        private final Limit lane;
+
+        Lane( Limit host, Limit repository, int maxThreads )
+        {
+            this.host = host;
+            this.repository = repository;
+            this.lane = new Limit( maxThreads, null );
+        }
+
+        boolean acquire()
+        {
+            if ( lane.isExhausted() || host.isExhausted() || repository.isExhausted() )
+            {
+                return false;
+            }
+            lane.active++;
+            host.active++;
+            repository.active++;
+            return true;
+        }
+
+        void release()
+        {
+            lane.active--;
+            host.active--;
+            repository.active--;
+        }
+
+        public void execute( Runnable command )
+        {
+            if ( command == null )
+            {
+                throw new IllegalArgumentException( "task has not been specified" );
+            }
+            if ( CURRENT.get() == TransferScheduler.this )
+            {
+                synchronized ( queue )
+                {
+                    if ( active < maxThreads && acquire() )
+                    {
+                        active++;
+                        workers.execute( new Job( this, command ) );
+                        return;
+                    }
+                }
+                command.run();
+                return;
+            }
+            synchronized ( queue )
+            {
+                queue.add( new Job( this, command ) );
+                dispatch();
+            }
+        }
+
+    }
+
+    final class Job
+        implements Runnable
+    {
+
+        final Lane lane;
+
+        final Runnable task;
+
+        Job( Lane lane, Runnable task )
+        {
+            this.lane = lane;
+            this.task = task;
+        }
+
+        public void run()
+        {
+            CURRENT.set( TransferScheduler.this );
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                CURRENT.remove();
+                finished( lane );
+            }
+        }
+
+    }
+
+}
@@ -96,6 +96,17 @@ public final class AuthenticationBuilder
         return addSecret( AuthenticationContext.PASSWORD, password );
     }
 
+    /**
+     * Adds an access token for bearer token authentication to the authentication.
+     * 
+     * @param token The access token, may be {@code null}.
+     * @return This builder for chaining, never {@code null}.
+     */
+    public AuthenticationBuilder addBearerToken( String token )
+    {
+        return addSecret( AuthenticationContext.BEARER_TOKEN, token );
+    }
+
     /**
      * Adds NTLM data to the authentication.
      * 
@@ -0,0 +1,132 @@
+package org.eclipse.aether.util.transport;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A utility class to extract the checksums which repository managers advertise for a downloaded resource via
+ * response headers, allowing transporters to validate downloads without requesting the checksum files.
+ */
+public final class ChecksumHeaders
+{
+
+    private static final Map<String, String> HEADERS;
+
+    static
+    {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put( "X-Checksum-Sha512", "SHA-512" );
+        headers.put( "X-Checksum-Sha256", "SHA-256" );
+        headers.put( "X-Checksum-Sha1", "SHA-1" );
+        headers.put( "X-Checksum-Md5", "MD5" );
+        headers.put( "x-goog-meta-checksum-sha1", "SHA-1" );
+        headers.put( "x-goog-meta-checksum-md5", "MD5" );
+        HEADERS = headers;
+    }
+
+    private ChecksumHeaders()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Extracts the checksums from all supported headers, see {@link #extractNexusChecksums(HeaderLookup)} and
+     * {@link #extractHeaderChecksums(HeaderLookup)}. The Nexus entity tag takes precedence.
+     * 
+     * @param headers The headers of the response to a successful download request, must not be {@code null}.
+     * @return The checksums keyed by algorithm name with hexadecimal values, never {@code null}.
+     */
+    public static Map<String, String> extractChecksums( HeaderLookup headers )
+    {
+        Map<String, String> checksums = new HashMap<String, String>( extractHeaderChecksums( headers ) );
+        checksums.putAll( extractNexusChecksums( headers ) );
+        return checksums;
+    }
+
+    /**
+     * Extracts the SHA-1 checksum that Nexus embeds into the entity tag, e.g.
+     * {@code ETag: "{SHA1{d40d68ba1f88d8e9b0040f175a6ff41928abd5e7}}"}.
+     * 
+     * @param headers The headers of the response to a successful download request, must not be {@code null}.
+     * @return The checksums keyed by algorithm name with hexadecimal values, never {@code null}.
+     */
+    public static Map<String, String> extractNexusChecksums( HeaderLookup headers )
+    {
+        String etag = headers.getHeader( "ETag" );
+        if ( etag != null )
+        {
+            int start = etag.indexOf( "SHA1{" ), end = etag.indexOf( "}", start + 5 );
+            if ( start >= 0 && end > start )
+            {
+                String sha1 = etag.substring( start + 5, end );
+                if ( isHex( sha1 ) )
+                {
+                    Map<String, String> checksums = new HashMap<String, String>();
+                    checksums.put( "SHA-1", sha1 );
+                    return checksums;
+                }
+            }
+        }
+        return new HashMap<String, String>();
+    }
+
+    /**
+     * Extracts the checksums from dedicated response headers like the {@code X-Checksum-Sha1} header sent by
+     * Artifactory and the content delivery network of Maven Central, or the {@code x-goog-meta-checksum-sha1}
+     * metadata of artifacts served from Google Cloud Storage. Header values that aren't hexadecimal are ignored.
+     * 
+     * @param headers The headers of the response to a successful download request, must not be {@code null}.
+     * @return The checksums keyed by algorithm name with hexadecimal values, never {@code null}.
+     */
+    public static Map<String, String> extractHeaderChecksums( HeaderLookup headers )
+    {
+        Map<String, String> checksums = new HashMap<String, String>();
+        for ( Map.Entry<String, String> entry : HEADERS.entrySet() )
+        {
+            String value = headers.getHeader( entry.getKey() );
+            value = ( value != null ) ? value.trim() : "";
+            if ( isHex( value ) && !checksums.containsKey( entry.getValue() ) )
+            {
+                checksums.put( entry.getValue(), value );
+            }
+        }
+        return checksums;
+    }
+
+    private static boolean isHex( String value )
+    {
+        if ( value.length() <= 0 )
+        {
+            return false;
+        }
+        for ( int i = value.length() - 1; i >= 0; i-- )
+        {
+            if ( Character.digit( value.charAt( i ), 16 ) < 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.eclipse.aether.util.transport;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Gives access to the headers of an HTTP response, independently of the HTTP client in use.
+ */
+public interface HeaderLookup
+{
+
+    /**
+     * Gets the value of the specified header.
+     * 
+     * @param name The name of the header, matched case-insensitively, must not be {@code null}.
+     * @return The header value or {@code null} if the header is not present.
+     */
+    String getHeader( String name );
+
+}
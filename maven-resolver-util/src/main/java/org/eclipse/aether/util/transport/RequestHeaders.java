@@ -0,0 +1,133 @@
+package org.eclipse.aether.util.transport;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * A utility class to build the request headers that HTTP-based transporters commonly need.
+ */
+public final class RequestHeaders
+{
+
+    private static final char[] BASE64 =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private RequestHeaders()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Gets the value of the {@code Authorization} header for basic authentication.
+     * 
+     * @param username The username, may be {@code null}.
+     * @param password The password, may be {@code null}.
+     * @param charset The name of the charset used to encode the credentials, must not be {@code null}.
+     * @return The header value or {@code null} if no username was given.
+     */
+    public static String getBasicAuthorization( String username, String password, String charset )
+    {
+        if ( username == null )
+        {
+            return null;
+        }
+        byte[] credentials =
+            ( username + ':' + ( password != null ? password : "" ) ).getBytes( Charset.forName( charset ) );
+        StringBuilder buffer = new StringBuilder( "Basic " );
+        for ( int i = 0; i < credentials.length; i += 3 )
+        {
+            int n = Math.min( 3, credentials.length - i );
+            int bits = ( credentials[i] & 0xFF ) << 16;
+            bits |= ( n > 1 ) ? ( credentials[i + 1] & 0xFF ) << 8 : 0;
+            bits |= ( n > 2 ) ? ( credentials[i + 2] & 0xFF ) : 0;
+            for ( int j = 0; j < 4; j++ )
+            {
+                buffer.append( j <= n ? BASE64[( bits >> ( 18 - 6 * j ) ) & 0x3F] : '=' );
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Gets the headers to request (part of) a resource starting at the specified offset. A download that resumes at
+     * some offset is made conditional on the resource being older than the partially downloaded file, a download of a
+     * range isn't.
+     * 
+     * @param resumeOffset The offset into the resource, a non-positive value denotes the start of the resource.
+     * @param rangeLength The number of bytes to request, a non-positive value denotes the rest of the resource.
+     * @param dataFile The file receiving the download, may be {@code null} in which case no headers are needed.
+     * @return The headers keyed by their name, never {@code null}.
+     */
+    public static Map<String, String> getRangeHeaders( long resumeOffset, long rangeLength, File dataFile )
+    {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        if ( dataFile == null )
+        {
+            return headers;
+        }
+        if ( rangeLength > 0L )
+        {
+            headers.put( "Range", "bytes=" + resumeOffset + '-' + ( resumeOffset + rangeLength - 1L ) );
+            headers.put( "Accept-Encoding", "identity" );
+        }
+        else if ( resumeOffset > 0L )
+        {
+            DateFormat format = new SimpleDateFormat( "EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US );
+            format.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+            headers.put( "Range", "bytes=" + resumeOffset + '-' );
+            headers.put( "If-Unmodified-Since", format.format( new Date( dataFile.lastModified() - 60L * 1000L ) ) );
+            headers.put( "Accept-Encoding", "identity" );
+        }
+        return headers;
+    }
+
+    /**
+     * Gets the headers to revalidate a previously downloaded resource.
+     * 
+     * @param validators The validators of the previous download, e.g. the {@code ETag} and {@code Last-Modified}
+     *            response headers, must not be {@code null}.
+     * @return The headers keyed by their name, never {@code null}.
+     */
+    public static Map<String, String> getConditionalHeaders( Map<String, String> validators )
+    {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        String etag = validators.get( "ETag" );
+        if ( etag != null )
+        {
+            headers.put( "If-None-Match", etag );
+        }
+        String lastModified = validators.get( "Last-Modified" );
+        if ( lastModified != null )
+        {
+            headers.put( "If-Modified-Since", lastModified );
+        }
+        return headers;
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.eclipse.aether.util.concurrency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AdaptiveLimitTest
+{
+
+    private static final long MILLIS = 1000L * 1000L;
+
+    @Test
+    public void testBounds()
+    {
+        AdaptiveLimit limit = new AdaptiveLimit( 0, -1 );
+        assertEquals( 1, limit.getMinimum() );
+        assertEquals( 1, limit.getMaximum() );
+        assertEquals( 1, limit.getLevel() );
+        assertEquals( 5, new AdaptiveLimit( 2, 8 ).getLevel() );
+    }
+
+    @Test
+    public void testAdditiveIncrease()
+    {
+        AdaptiveLimit limit = new AdaptiveLimit( 1, 8 );
+        assertEquals( 5, limit.getLevel() );
+        for ( int i = 0; i < 6; i++ )
+        {
+            limit.succeeded( limit.started(), 20L * MILLIS );
+        }
+        assertEquals( 6, limit.getLevel() );
+        for ( int i = 0; i < 100; i++ )
+        {
+            limit.succeeded( limit.started(), 20L * MILLIS );
+        }
+        assertEquals( 8, limit.getLevel() );
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOncePerEpoch()
+    {
+        AdaptiveLimit limit = new AdaptiveLimit( 1, 8 );
+        long first = limit.started();
+        long second = limit.started();
+        limit.failed( first );
+        assertEquals( 2, limit.getLevel() );
+        limit.failed( second );
+        assertEquals( 2, limit.getLevel() );
+        limit.failed( limit.started() );
+        assertEquals( 1, limit.getLevel() );
+        limit.failed( limit.started() );
+        assertEquals( 1, limit.getLevel() );
+    }
+
+    @Test
+    public void testDecreaseOnRisingLatency()
+    {
+        AdaptiveLimit limit = new AdaptiveLimit( 1, 8 );
+        limit.succeeded( limit.started(), 20L * MILLIS );
+        int level = limit.getLevel();
+        for ( int i = 0; i < 10; i++ )
+        {
+            limit.succeeded( limit.started(), 200L * MILLIS );
+        }
+        assertTrue( String.valueOf( limit.getLevel() ), limit.getLevel() < level );
+    }
+
+    @Test
+    public void testSmallLatencyJitterIsTolerated()
+    {
+        AdaptiveLimit limit = new AdaptiveLimit( 1, 8 );
+        limit.succeeded( limit.started(), MILLIS );
+        for ( int i = 0; i < 20; i++ )
+        {
+            limit.succeeded( limit.started(), 5L * MILLIS );
+        }
+        assertEquals( 8, limit.getLevel() );
+    }
+
+}
@@ -0,0 +1,228 @@
+package org.eclipse.aether.util.concurrency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransferSchedulerTest
+{
+
+    private DefaultRepositorySystemSession session;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Before
+    public void init()
+    {
+        session = TestUtils.newSession();
+    }
+
+    private static RemoteRepository newRepo( String id, String url )
+    {
+        return new RemoteRepository.Builder( id, "default", url ).build();
+    }
+
+    private void submit( Executor executor, int count, final CountDownLatch done )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            executor.execute( new Runnable()
+            {
+                public void run()
+                {
+                    int now = running.incrementAndGet();
+                    for ( int max = maxRunning.get(); now > max && !maxRunning.compareAndSet( max, now ); )
+                    {
+                        max = maxRunning.get();
+                    }
+                    try
+                    {
+                        Thread.sleep( 20 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IllegalStateException( e );
+                    }
+                    finally
+                    {
+                        running.decrementAndGet();
+                        done.countDown();
+                    }
+                }
+            } );
+        }
+    }
+
+    @Test
+    public void testInstancePerSession()
+    {
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        assertSame( scheduler, TransferScheduler.getInstance( session ) );
+        assertNotSame( scheduler, TransferScheduler.getInstance( TestUtils.newSession() ) );
+    }
+
+    @Test
+    public void testHostLimitAppliesAcrossExecutors()
+        throws Exception
+    {
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_HOST_THREADS, 2 );
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        CountDownLatch done = new CountDownLatch( 12 );
+        submit( scheduler.newExecutor( newRepo( "a", "http://localhost/a" ), 5 ), 6, done );
+        submit( scheduler.newExecutor( newRepo( "b", "http://localhost/b" ), 5 ), 6, done );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( 2, maxRunning.get() );
+    }
+
+    @Test
+    public void testExecutorLimitSpansRepositories()
+        throws Exception
+    {
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        CountDownLatch done = new CountDownLatch( 12 );
+        Executor executor = scheduler.newExecutor( 3 );
+        submit( executor, 6, done );
+        submit( executor, 6, done );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( 3, maxRunning.get() );
+    }
+
+    @Test
+    public void testRepositoryLimit()
+        throws Exception
+    {
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_REPOSITORY_THREADS + ".a", 1 );
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        CountDownLatch done = new CountDownLatch( 8 );
+        submit( scheduler.newExecutor( newRepo( "a", "http://localhost/a" ), 5 ), 4, done );
+        submit( scheduler.newExecutor( newRepo( "a", "http://localhost/a" ), 5 ), 4, done );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( 1, maxRunning.get() );
+    }
+
+    @Test
+    public void testAdaptiveRepositoryLimit()
+        throws Exception
+    {
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        assertNull( scheduler.getAdaptiveLimit( newRepo( "a", "http://localhost/a" ) ) );
+
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_ADAPTIVE + ".b", true );
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_REPOSITORY_THREADS + ".b", 6 );
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_ADAPTIVE_MIN + ".b", 2 );
+        AdaptiveLimit limit = scheduler.getAdaptiveLimit( newRepo( "b", "http://localhost/b" ) );
+        assertNotNull( limit );
+        assertEquals( 2, limit.getMinimum() );
+        assertEquals( 6, limit.getMaximum() );
+        limit.failed( limit.started() );
+        assertEquals( 2, limit.getLevel() );
+
+        CountDownLatch done = new CountDownLatch( 8 );
+        submit( scheduler.newExecutor( newRepo( "b", "http://localhost/b" ), 1 ), 8, done );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( 2, maxRunning.get() );
+    }
+
+    @Test
+    public void testGlobalLimit()
+        throws Exception
+    {
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_THREADS, 3 );
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        CountDownLatch done = new CountDownLatch( 12 );
+        submit( scheduler.newExecutor( newRepo( "a", "http://one/a" ), 5 ), 6, done );
+        submit( scheduler.newExecutor( newRepo( "b", "http://two/b" ), 5 ), 6, done );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertTrue( String.valueOf( maxRunning.get() ), maxRunning.get() <= 3 );
+    }
+
+    @Test
+    public void testNestedTaskRunsInWorkerThread()
+        throws Exception
+    {
+        session.setConfigProperty( TransferScheduler.CONFIG_PROP_THREADS, 1 );
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        final Executor executor = scheduler.newExecutor( newRepo( "a", "http://localhost/a" ), 1 );
+        final AtomicReference<Thread> outer = new AtomicReference<Thread>();
+        final AtomicReference<Thread> inner = new AtomicReference<Thread>();
+        final CountDownLatch done = new CountDownLatch( 1 );
+        executor.execute( new Runnable()
+        {
+            public void run()
+            {
+                outer.set( Thread.currentThread() );
+                executor.execute( new Runnable()
+                {
+                    public void run()
+                    {
+                        inner.set( Thread.currentThread() );
+                    }
+                } );
+                done.countDown();
+            }
+        } );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertSame( outer.get(), inner.get() );
+        assertNotSame( Thread.currentThread(), outer.get() );
+    }
+
+    @Test
+    public void testNestedTaskUsesIdleWorkerThread()
+        throws Exception
+    {
+        TransferScheduler scheduler = TransferScheduler.getInstance( session );
+        final Executor executor = scheduler.newExecutor( newRepo( "a", "http://localhost/a" ), 2 );
+        final AtomicReference<Thread> outer = new AtomicReference<Thread>();
+        final AtomicReference<Thread> inner = new AtomicReference<Thread>();
+        final CountDownLatch done = new CountDownLatch( 1 );
+        executor.execute( new Runnable()
+        {
+            public void run()
+            {
+                outer.set( Thread.currentThread() );
+                executor.execute( new Runnable()
+                {
+                    public void run()
+                    {
+                        inner.set( Thread.currentThread() );
+                        done.countDown();
+                    }
+                } );
+            }
+        } );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertNotSame( outer.get(), inner.get() );
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.eclipse.aether.util.transport;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ */
+public class ChecksumHeadersTest
+{
+
+    private static final String SHA1 = "d40d68ba1f88d8e9b0040f175a6ff41928abd5e7";
+
+    private static HeaderLookup headers( String... namesAndValues )
+    {
+        final Map<String, String> headers = new TreeMap<String, String>( String.CASE_INSENSITIVE_ORDER );
+        for ( int i = 0; i < namesAndValues.length; i += 2 )
+        {
+            headers.put( namesAndValues[i], namesAndValues[i + 1] );
+        }
+        return new HeaderLookup()
+        {
+            public String getHeader( String name )
+            {
+                return headers.get( name );
+            }
+        };
+    }
+
+    @Test
+    public void testExtractNexusChecksums()
+    {
+        assertEquals( Collections.singletonMap( "SHA-1", SHA1 ),
+                      ChecksumHeaders.extractNexusChecksums( headers( "etag", "\"{SHA1{" + SHA1 + "}}\"" ) ) );
+        assertTrue( ChecksumHeaders.extractNexusChecksums( headers( "ETag", "\"abc\"" ) ).isEmpty() );
+        assertTrue( ChecksumHeaders.extractNexusChecksums( headers() ).isEmpty() );
+    }
+
+    @Test
+    public void testExtractNexusChecksums_NotHex()
+    {
+        assertTrue( ChecksumHeaders.extractNexusChecksums( headers( "ETag", "\"{SHA1{xyz}}\"" ) ).isEmpty() );
+        assertTrue( ChecksumHeaders.extractNexusChecksums( headers( "ETag", "\"{SHA1{}}\"" ) ).isEmpty() );
+    }
+
+    @Test
+    public void testExtractHeaderChecksums()
+    {
+        Map<String, String> checksums =
+            ChecksumHeaders.extractHeaderChecksums( headers( "x-checksum-sha1", " " + SHA1 + " ", "X-Checksum-Md5",
+                                                             "abcd", "x-goog-meta-checksum-md5", "ef01" ) );
+        assertEquals( 2, checksums.size() );
+        assertEquals( SHA1, checksums.get( "SHA-1" ) );
+        assertEquals( "abcd", checksums.get( "MD5" ) );
+    }
+
+    @Test
+    public void testExtractHeaderChecksums_NotHex()
+    {
+        Map<String, String> checksums =
+            ChecksumHeaders.extractHeaderChecksums( headers( "X-Checksum-Sha1", "<html>", "X-Checksum-Md5", "",
+                                                             "x-goog-meta-checksum-sha1", SHA1 ) );
+        assertEquals( Collections.singletonMap( "SHA-1", SHA1 ), checksums );
+    }
+
+    @Test
+    public void testExtractChecksums_NexusTakesPrecedence()
+    {
+        Map<String, String> checksums =
+            ChecksumHeaders.extractChecksums( headers( "ETag", "{SHA1{" + SHA1 + "}}", "X-Checksum-Sha1", "0000",
+                                                       "X-Checksum-Md5", "abcd" ) );
+        assertEquals( 2, checksums.size() );
+        assertEquals( SHA1, checksums.get( "SHA-1" ) );
+        assertEquals( "abcd", checksums.get( "MD5" ) );
+    }
+
+}
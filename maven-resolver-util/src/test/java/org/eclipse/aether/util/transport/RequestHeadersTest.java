@@ -0,0 +1,72 @@
+package org.eclipse.aether.util.transport;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ */
+public class RequestHeadersTest
+{
+
+    @Test
+    public void testGetBasicAuthorization()
+    {
+        assertEquals( "Basic dGVzdHVzZXI6dGVzdHBhc3M=",
+                      RequestHeaders.getBasicAuthorization( "testuser", "testpass", "ISO-8859-1" ) );
+        assertEquals( "Basic dTo=", RequestHeaders.getBasicAuthorization( "u", null, "ISO-8859-1" ) );
+        assertEquals( "Basic dXM6cA==", RequestHeaders.getBasicAuthorization( "us", "p", "ISO-8859-1" ) );
+        assertEquals( "Basic w6Q6w7Y=", RequestHeaders.getBasicAuthorization( "ä", "ö", "UTF-8" ) );
+        assertNull( RequestHeaders.getBasicAuthorization( null, "pass", "UTF-8" ) );
+    }
+
+    @Test
+    public void testGetRangeHeaders()
+    {
+        File file = new File( "target/range.bin" );
+        assertTrue( RequestHeaders.getRangeHeaders( 0L, -1L, file ).isEmpty() );
+        assertTrue( RequestHeaders.getRangeHeaders( 10L, -1L, null ).isEmpty() );
+
+        Map<String, String> headers = RequestHeaders.getRangeHeaders( 10L, 5L, file );
+        assertEquals( "bytes=10-14", headers.get( "Range" ) );
+        assertEquals( "identity", headers.get( "Accept-Encoding" ) );
+        assertNull( headers.get( "If-Unmodified-Since" ) );
+
+        headers = RequestHeaders.getRangeHeaders( 10L, -1L, file );
+        assertEquals( "bytes=10-", headers.get( "Range" ) );
+        assertNotNull( headers.get( "If-Unmodified-Since" ) );
+    }
+
+    @Test
+    public void testGetConditionalHeaders()
+    {
+        assertTrue( RequestHeaders.getConditionalHeaders( Collections.<String, String>emptyMap() ).isEmpty() );
+        Map<String, String> headers =
+            RequestHeaders.getConditionalHeaders( Collections.singletonMap( "ETag", "\"a\"" ) );
+        assertEquals( Collections.singletonMap( "If-None-Match", "\"a\"" ), headers );
+    }
+
+}